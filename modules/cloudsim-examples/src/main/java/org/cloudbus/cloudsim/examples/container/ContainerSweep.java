@@ -0,0 +1,80 @@
+package org.cloudbus.cloudsim.examples.container;
+
+import org.cloudbus.cloudsim.examples.power.ExperimentSweep;
+import org.cloudbus.cloudsim.examples.power.PlanetLabTraceCache;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * This Example runs the experiments of {@link ContainerOverbooking} for every combination of
+ * container allocation policy, host selection policy and overbooking factor. The experiments
+ * run concurrently, share the PlanetLab traces and their main results are aggregated in one table.
+ * The detailed results of each experiment are written to the output folder, as in {@link ContainerOverbooking}.
+ *
+ * Usage: ContainerSweep [outputFolder] [workers]
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class ContainerSweep {
+
+    /**
+     * The allocation policies used for allocating containers to VMs.
+     */
+    private static final String[] CONTAINER_ALLOCATION_POLICIES = {"MostFull", "FirstFit", "LeastFull", "Random"};
+
+    /**
+     * The host selection policies that determine which hosts should be selected as the migration destination.
+     */
+    private static final String[] HOST_SELECTION_POLICIES = {"FirstFit", "LeastFull", "MostFull"};
+
+    /**
+     * The overbooking factors of the containers.
+     */
+    private static final int[] OVERBOOKING_FACTORS = {10, 50, 80};
+
+    /**
+     * The main method.
+     *
+     * @param args the arguments
+     * @throws IOException          Signals that an I/O exception has occurred.
+     * @throws InterruptedException if the sweep was interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final String inputFolder = ContainerSweep.class.getClassLoader().getResource("workload/planetlab").getPath();
+        final String outputFolder = args.length > 0 ? args[0] : "Results";
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final String vmAllocationPolicy = "MSThreshold-Under_0.80_0.70";
+        final String containerSelectionPolicy = "Cor";
+        final String vmSelectionPolicy = "VmMaxC";
+        final String runTime = "1";
+
+        ExperimentSweep sweep = new ExperimentSweep(workers);
+        final PlanetLabTraceCache traceCache = new PlanetLabTraceCache();
+        for (final String containerAllocationPolicy : CONTAINER_ALLOCATION_POLICIES) {
+            for (final String hostSelectionPolicy : HOST_SELECTION_POLICIES) {
+                for (final int overBookingFactor : OVERBOOKING_FACTORS) {
+                    String name = containerAllocationPolicy + "_" + hostSelectionPolicy + "_" + overBookingFactor;
+                    sweep.addExperiment(name, new ExperimentSweep.Experiment() {
+                        @Override
+                        public Map<String, Double> run() throws Exception {
+                            return new RunnerInitiator(traceCache).runExperiment(
+                                    inputFolder,
+                                    vmAllocationPolicy,
+                                    containerAllocationPolicy,
+                                    vmSelectionPolicy,
+                                    containerSelectionPolicy,
+                                    hostSelectionPolicy,
+                                    overBookingFactor, runTime, outputFolder);
+                        }
+                    });
+                }
+            }
+        }
+
+        sweep.run();
+        sweep.printResults();
+        sweep.writeCsv(outputFolder + "/sweep/container_sweep.csv");
+    }
+
+}
@@ -18,7 +18,9 @@ import org.cloudbus.cloudsim.container.schedulers.ContainerCloudletSchedulerDyna
 import org.cloudbus.cloudsim.container.schedulers.ContainerSchedulerTimeSharedOverSubscription;
 import org.cloudbus.cloudsim.container.schedulers.ContainerVmSchedulerTimeSharedOverSubscription;
 import org.cloudbus.cloudsim.container.utils.IDs;
+import org.cloudbus.cloudsim.examples.power.PlanetLabTraceCache;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.PlanetLabTraceStore;
 
 import java.io.*;
 import java.io.File;
@@ -39,6 +41,13 @@ public class HelperEx {
 
     public static List<ContainerCloudlet> createContainerCloudletList(int brokerId, String inputFolderName, int numberOfCloudlets)
             throws FileNotFoundException {
+        return createContainerCloudletList(brokerId, inputFolderName, numberOfCloudlets, null);
+    }
+
+    // the traces read by previous simulations are shared through the cache, unless it is null.
+    public static List<ContainerCloudlet> createContainerCloudletList(int brokerId, String inputFolderName, int numberOfCloudlets,
+                                                                      PlanetLabTraceCache traceCache)
+            throws FileNotFoundException {
         ArrayList cloudletList = new ArrayList();
         long fileSize = 300L;
         long outputSize = 300L;
@@ -47,6 +56,27 @@ public class HelperEx {
         File[] files1 = inputFolder1.listFiles();
         int createdCloudlets = 0;
         for (File aFiles1 : files1) {
+            if (aFiles1.isFile()) {
+                // a day converted to a trace store
+                try {
+                    PlanetLabTraceStore store = PlanetLabTraceStore.open(aFiles1.getPath());
+                    for (int i = 0; i < store.getTraceCount(); ++i) {
+                        if (createdCloudlets == numberOfCloudlets) {
+                            return cloudletList;
+                        }
+                        ContainerCloudlet cloudlet = new ContainerCloudlet(IDs.pollId(ContainerCloudlet.class), 216000000L * 1000, 1, fileSize, outputSize,
+                                new UtilizationModelPlanetLabInMemoryExtended(store, i, 300.0D),
+                                utilizationModelNull, utilizationModelNull);
+                        cloudlet.setUserId(brokerId);
+                        cloudletList.add(cloudlet);
+                        createdCloudlets += 1;
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    System.exit(0);
+                }
+                continue;
+            }
             File inputFolder = new File(aFiles1.toString());
             File[] files = inputFolder.listFiles();
             for (int i = 0; i < files.length; ++i) {
@@ -54,8 +84,11 @@ public class HelperEx {
                     ContainerCloudlet cloudlet = null;
 
                     try {
+                        UtilizationModelPlanetLabInMemoryExtended utilizationModelCpu = traceCache == null
+                                ? new UtilizationModelPlanetLabInMemoryExtended(files[i].getAbsolutePath(), 300.0D)
+                                : new UtilizationModelPlanetLabInMemoryExtended(traceCache.getTrace(files[i].getAbsolutePath()), 300.0D);
                         cloudlet = new ContainerCloudlet(IDs.pollId(ContainerCloudlet.class), 216000000L * 1000, 1, fileSize, outputSize,
-                                new UtilizationModelPlanetLabInMemoryExtended(files[i].getAbsolutePath(), 300.0D),
+                                utilizationModelCpu,
                                 utilizationModelNull, utilizationModelNull);
                     } catch (Exception var13) {
                         var13.printStackTrace();
@@ -859,6 +892,36 @@ public class HelperEx {
         }
     }
 
+    // the main results of a simulation, in the order they are written by printResultsNew.
+    public static Map<String, Double> getResults(PowerContainerDatacenter datacenter,
+                                                 ContainerDatacenterBroker broker,
+                                                 double lastClock) {
+        List<ContainerVm> vms = broker.getVmsCreatedList();
+        List<ContainerHost> hosts = datacenter.getHostList();
+        Map<String, Double> slaMetrics = getSlaMetrics(vms);
+        Map<String, Double> results = new LinkedHashMap<>();
+        results.put("numberOfHosts", (double) hosts.size());
+        results.put("numberOfVms", (double) vms.size());
+        results.put("totalSimulationTime", lastClock);
+        results.put("slaOverall", slaMetrics.get("overall"));
+        results.put("slaAverage", slaMetrics.get("average"));
+        results.put("slaTimePerActiveHost", getSlaTimePerActiveHost(hosts));
+        if (datacenter instanceof PowerContainerDatacenterCM) {
+            PowerContainerDatacenterCM datacenterCM = (PowerContainerDatacenterCM) datacenter;
+            results.put("totalContainerMigration", (double) datacenterCM.getContainerMigrationCount());
+            results.put("totalVmMigration", (double) datacenterCM.getVmMigrationCount());
+            results.put("totalVmCreated", (double) datacenterCM.getNewlyCreatedVms());
+        }
+        if (datacenter.getVmAllocationPolicy() instanceof PowerContainerVmAllocationPolicyMigrationAbstract) {
+            results.put("numberOfOverUtilization", (double) getNumberofOverUtilization(hosts,
+                    (PowerContainerVmAllocationPolicyMigrationAbstract) datacenter.getVmAllocationPolicy()));
+        }
+        results.put("energy", datacenter.getPower() / (3600 * 1000));
+        results.put("CreatedContainers", (double) broker.getContainersCreated());
+        results.put("CreatedVms", (double) broker.getNumberOfCreatedVMs());
+        return results;
+    }
+
     public static void printResultsNew(PowerContainerDatacenter datacenter,
                                        ContainerDatacenterBroker broker,
                                        double lastClock,
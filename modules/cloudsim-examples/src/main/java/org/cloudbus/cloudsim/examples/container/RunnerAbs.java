@@ -24,33 +24,34 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The RunnerAbs Class is the modified version of {@link org.cloudbus.cloudsim.examples.power.RunnerAbstract}
  * Created by sareh on 18/08/15.
  */
 public abstract class RunnerAbs {
-    private static boolean enableOutput;
+    private boolean enableOutput;
 
-    protected static ContainerDatacenterBroker broker;
+    protected ContainerDatacenterBroker broker;
     /**
      * The vm list.
      */
-    protected static List<ContainerVm> vmList;
+    protected List<ContainerVm> vmList;
     /**
      * The container list.
      */
-    protected static List<Container> containerList;
+    protected List<Container> containerList;
 
     /**
      * The host list.
      */
-    protected static List<ContainerHost> hostList;
+    protected List<ContainerHost> hostList;
 
     /**
      * The Cloudlet List
      */
-    protected static List<ContainerCloudlet> cloudletList;
+    protected List<ContainerCloudlet> cloudletList;
     /**
      * The overBooking Factor for containers
      */
@@ -81,6 +82,34 @@ public abstract class RunnerAbs {
         this.start(getExperimentName(), outputFolder, this.getVmAllocationPolicy(vmAllocationPolicy, vmSelectionPolicy, containerSelectionPolicy, hostSelectionPolicy), getContainerAllocationPolicy(containerAllocationPolicy));
     }
 
+    /**
+     * Instantiates a runner that doesn't run any simulation by itself.
+     * The simulations are run by {@link #runExperiment}.
+     */
+    protected RunnerAbs() {
+    }
+
+    /**
+     * Runs a simulation and returns its main results. The detailed results are still written
+     * to the CSV files of the log address. Simulations can be run by several threads at the same time,
+     * provided that each thread uses its own runner and simulation context and that the log is disabled.
+     *
+     * @return the results of the simulation, see {@link HelperEx#getResults}
+     * @throws Exception if the datacenter could not be created
+     * @see org.cloudbus.cloudsim.core.CloudSim#setContext(org.cloudbus.cloudsim.core.SimulationContext)
+     */
+    public Map<String, Double> runExperiment(String inputFolder, String vmAllocationPolicy, String containerAllocationPolicy, String vmSelectionPolicy, String containerSelectionPolicy, String hostSelectionPolicy, double overBookingFactor, String runTime, String logAddress) throws Exception {
+        setOverBookingFactor(overBookingFactor);
+        setRunTime(runTime);
+        setLogAddress(logAddress);
+        setExperimentName(this.getExperimentName(hostSelectionPolicy, vmAllocationPolicy, vmSelectionPolicy, containerSelectionPolicy, containerAllocationPolicy, String.valueOf(getOverBookingFactor()), runTime));
+
+        this.init(inputFolder + "/", getOverBookingFactor());
+        PowerContainerDatacenter datacenter = createDatacenter(this.getVmAllocationPolicy(vmAllocationPolicy, vmSelectionPolicy, containerSelectionPolicy, hostSelectionPolicy), getContainerAllocationPolicy(containerAllocationPolicy));
+        double lastClock = simulate();
+        return HelperEx.getResults(datacenter, broker, lastClock);
+    }
+
     public String getLogAddress() {
         return logAddress;
     }
@@ -171,22 +200,8 @@ public abstract class RunnerAbs {
         System.out.println("Starting " + experimentName);
 
         try {
-            PowerContainerDatacenter e = (PowerContainerDatacenter) HelperEx.createDatacenter("datacenter",
-                    PowerContainerDatacenterCM.class, hostList, vmAllocationPolicy, containerAllocationPolicy,
-                    getExperimentName(), ConstantsExamples.SCHEDULING_INTERVAL, getLogAddress(),
-                    ConstantsExamples.VM_STARTTUP_DELAY, ConstantsExamples.CONTAINER_STARTTUP_DELAY);
-//            PowerContainerDatacenter e = (PowerContainerDatacenter) HelperEx.createDatacenter("Datacenter", PowerContainerDatacenter.class, hostList, vmAllocationPolicy, containerAllocationPolicy);
-            vmAllocationPolicy.setDatacenter(e);
-            e.setDisableVmMigrations(false);
-            broker.submitVmList(vmList);
-            broker.submitContainerList(containerList);
-            broker.submitCloudletList(cloudletList.subList(0, containerList.size()));
-            ;
-            CloudSim.terminateSimulation(86400.0D);
-            double lastClock = CloudSim.startSimulation();
-            List newList = broker.getCloudletReceivedList();
-            Log.printLine("Received " + newList.size() + " cloudlets");
-            CloudSim.stopSimulation();
+            PowerContainerDatacenter e = createDatacenter(vmAllocationPolicy, containerAllocationPolicy);
+            double lastClock = simulate();
 
 //            HelperEx.printResults(e, broker.getVmsCreatedList(),broker.getContainersCreatedList() ,lastClock, experimentName, true, outputFolder);
             HelperEx.printResultsNew(e, broker, lastClock, experimentName, true, outputFolder);
@@ -199,6 +214,29 @@ public abstract class RunnerAbs {
         Log.printLine("Finished " + experimentName);
     }
 
+    protected PowerContainerDatacenter createDatacenter(ContainerVmAllocationPolicy vmAllocationPolicy, ContainerAllocationPolicy containerAllocationPolicy) throws Exception {
+        PowerContainerDatacenter e = (PowerContainerDatacenter) HelperEx.createDatacenter("datacenter",
+                PowerContainerDatacenterCM.class, hostList, vmAllocationPolicy, containerAllocationPolicy,
+                getExperimentName(), ConstantsExamples.SCHEDULING_INTERVAL, getLogAddress(),
+                ConstantsExamples.VM_STARTTUP_DELAY, ConstantsExamples.CONTAINER_STARTTUP_DELAY);
+//        PowerContainerDatacenter e = (PowerContainerDatacenter) HelperEx.createDatacenter("Datacenter", PowerContainerDatacenter.class, hostList, vmAllocationPolicy, containerAllocationPolicy);
+        vmAllocationPolicy.setDatacenter(e);
+        e.setDisableVmMigrations(false);
+        return e;
+    }
+
+    protected double simulate() {
+        broker.submitVmList(vmList);
+        broker.submitContainerList(containerList);
+        broker.submitCloudletList(cloudletList.subList(0, containerList.size()));
+        CloudSim.terminateSimulation(86400.0D);
+        double lastClock = CloudSim.startSimulation();
+        List newList = broker.getCloudletReceivedList();
+        Log.printLine("Received " + newList.size() + " cloudlets");
+        CloudSim.stopSimulation();
+        return lastClock;
+    }
+
     protected String getExperimentName(String... args) {
         StringBuilder experimentName = new StringBuilder();
 
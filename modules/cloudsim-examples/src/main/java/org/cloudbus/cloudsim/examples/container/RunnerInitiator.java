@@ -2,6 +2,7 @@ package org.cloudbus.cloudsim.examples.container;
 
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.examples.power.PlanetLabTraceCache;
 
 import java.util.Calendar;
 
@@ -12,6 +13,20 @@ import java.util.Calendar;
 
 public class RunnerInitiator extends RunnerAbs {
 
+    /**
+     * The cache of the traces shared with other runners, or null if traces are not shared.
+     */
+    private PlanetLabTraceCache traceCache;
+
+    /**
+     * Instantiates a new runner that doesn't run any simulation by itself, to run
+     * simulations through {@link #runExperiment}.
+     *
+     * @param traceCache the cache of the traces, or null to read the traces in each simulation
+     */
+    public RunnerInitiator(PlanetLabTraceCache traceCache) {
+        this.traceCache = traceCache;
+    }
 
     /**
      * Instantiates a new runner.
@@ -62,7 +77,7 @@ public class RunnerInitiator extends RunnerAbs {
 //            setOverBookingFactor(overBookingFactor);
             broker = HelperEx.createBroker(overBookingFactor);
             int brokerId = broker.getId();
-            cloudletList = HelperEx.createContainerCloudletList(brokerId, inputFolder, ConstantsExamples.NUMBER_CLOUDLETS);
+            cloudletList = HelperEx.createContainerCloudletList(brokerId, inputFolder, ConstantsExamples.NUMBER_CLOUDLETS, traceCache);
             containerList = HelperEx.createContainerList(brokerId, ConstantsExamples.NUMBER_CLOUDLETS);
             vmList = HelperEx.createVmList(brokerId, ConstantsExamples.NUMBER_VMS);
             hostList = HelperEx.createHostList(ConstantsExamples.NUMBER_HOSTS);
@@ -2,6 +2,7 @@ package org.cloudbus.cloudsim.examples.container;
 
 import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory;
 import org.cloudbus.cloudsim.examples.power.Constants;
+import org.cloudbus.cloudsim.util.PlanetLabTraceStore;
 
 import java.io.IOException;
 
@@ -18,6 +19,14 @@ public class UtilizationModelPlanetLabInMemoryExtended extends UtilizationModelP
         super(inputPath, schedulingInterval, dataSamples);
     }
 
+    public UtilizationModelPlanetLabInMemoryExtended(double[] data, double schedulingInterval) {
+        super(data, schedulingInterval);
+    }
+
+    public UtilizationModelPlanetLabInMemoryExtended(PlanetLabTraceStore store, int trace, double schedulingInterval) {
+        super(store, trace, schedulingInterval);
+    }
+
     /*
      * (non-Javadoc)
      * @see cloudsim.power.UtilizationModel#getUtilization(double)
@@ -36,14 +45,13 @@ public class UtilizationModelPlanetLabInMemoryExtended extends UtilizationModelP
 
     public double calUtilization(double time) {
 //        Log.print(time);
-        double[] data = super.getData();
         if (time % getSchedulingInterval() == 0) {
-            return data[(int) time / (int) getSchedulingInterval()];
+            return getSample((int) time / (int) getSchedulingInterval());
         }
         int time1 = (int) Math.floor(time / getSchedulingInterval());
         int time2 = (int) Math.ceil(time / getSchedulingInterval());
-        double utilization1 = data[time1];
-        double utilization2 = data[time2];
+        double utilization1 = getSample(time1);
+        double utilization2 = getSample(time2);
         double delta = (utilization2 - utilization1) / ((time2 - time1) * getSchedulingInterval());
         double utilization = utilization1 + delta * (time - time1 * getSchedulingInterval());
 
@@ -0,0 +1,244 @@
+package org.cloudbus.cloudsim.examples.power;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+/**
+ * Runs a set of experiments concurrently on a bounded pool of worker threads and aggregates
+ * their results in one table, with a row per experiment and a column per metric.
+ * Each experiment is run in its own {@link SimulationContext}, so experiments are independent
+ * of each other, but they can share read-only data such as a {@link PlanetLabTraceCache}.
+ * <p>
+ * As the log is shared by all the simulations, it is disabled while the experiments run.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class ExperimentSweep {
+
+	/**
+	 * An experiment of the sweep.
+	 */
+	public interface Experiment {
+
+		/**
+		 * Runs the experiment. The simulation context of the calling thread is
+		 * a new one, used by this experiment only.
+		 *
+		 * @return the value of each metric of the experiment
+		 * @throws Exception if the experiment failed
+		 */
+		Map<String, Double> run() throws Exception;
+
+	}
+
+	/** The number of experiments run at the same time. */
+	private final int workers;
+
+	/** The experiments, indexed by name, in the order they were added. */
+	private final Map<String, Experiment> experiments = new LinkedHashMap<String, Experiment>();
+
+	/** The results of the experiments that succeeded, indexed by experiment name. */
+	private final Map<String, Map<String, Double>> results = new LinkedHashMap<String, Map<String, Double>>();
+
+	/** The errors of the experiments that failed, indexed by experiment name. */
+	private final Map<String, Throwable> errors = new LinkedHashMap<String, Throwable>();
+
+	/**
+	 * Instantiates a new experiment sweep.
+	 *
+	 * @param workers the number of experiments run at the same time
+	 */
+	public ExperimentSweep(int workers) {
+		if (workers <= 0) {
+			throw new IllegalArgumentException("The number of workers should be positive, but is: " + workers);
+		}
+		this.workers = workers;
+	}
+
+	/**
+	 * Adds an experiment to the sweep.
+	 *
+	 * @param name the name of the experiment, which must be unique
+	 * @param experiment the experiment
+	 */
+	public void addExperiment(String name, Experiment experiment) {
+		if (experiments.containsKey(name)) {
+			throw new IllegalArgumentException("Duplicated experiment name: " + name);
+		}
+		experiments.put(name, experiment);
+	}
+
+	/**
+	 * Runs all the experiments and waits for them to finish. The failure of an experiment
+	 * doesn't stop the other ones: it is reported by {@link #getErrors()}.
+	 *
+	 * @return the results of the experiments that succeeded, indexed by experiment name,
+	 *         in the order the experiments were added
+	 * @throws InterruptedException if the thread was interrupted while waiting for the experiments
+	 */
+	public Map<String, Map<String, Double>> run() throws InterruptedException {
+		results.clear();
+		errors.clear();
+		boolean logDisabled = Log.isDisabled();
+		Log.disable();
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			Map<String, Future<Map<String, Double>>> futures = new LinkedHashMap<String, Future<Map<String, Double>>>();
+			for (Map.Entry<String, Experiment> entry : experiments.entrySet()) {
+				futures.put(entry.getKey(), executor.submit(newTask(entry.getKey(), entry.getValue())));
+			}
+			for (Map.Entry<String, Future<Map<String, Double>>> entry : futures.entrySet()) {
+				try {
+					results.put(entry.getKey(), entry.getValue().get());
+				} catch (ExecutionException e) {
+					errors.put(entry.getKey(), e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			Log.setDisabled(logDisabled);
+		}
+		return results;
+	}
+
+	/**
+	 * Creates the task running an experiment in its own simulation context.
+	 *
+	 * @param name the name of the experiment
+	 * @param experiment the experiment
+	 * @return the task
+	 */
+	private Callable<Map<String, Double>> newTask(final String name, final Experiment experiment) {
+		return new Callable<Map<String, Double>>() {
+
+			@Override
+			public Map<String, Double> call() throws Exception {
+				System.out.println("Starting " + name);
+				CloudSim.setContext(new SimulationContext());
+				try {
+					return experiment.run();
+				} finally {
+					CloudSim.setContext(null);
+					System.out.println("Finished " + name);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Gets the results of the experiments that succeeded in the last run.
+	 *
+	 * @return the results, indexed by experiment name
+	 */
+	public Map<String, Map<String, Double>> getResults() {
+		return results;
+	}
+
+	/**
+	 * Gets the errors of the experiments that failed in the last run.
+	 *
+	 * @return the errors, indexed by experiment name
+	 */
+	public Map<String, Throwable> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Gets the names of the metrics of the results table, that is, the metrics of all
+	 * the experiments in the order they first appear.
+	 *
+	 * @return the metric names
+	 */
+	public List<String> getMetrics() {
+		Set<String> metrics = new LinkedHashSet<String>();
+		for (Map<String, Double> experimentResults : results.values()) {
+			metrics.addAll(experimentResults.keySet());
+		}
+		return new ArrayList<String>(metrics);
+	}
+
+	/**
+	 * Writes the results table to a CSV file, with a header line and a line per experiment.
+	 * The metrics that an experiment doesn't have are left empty.
+	 *
+	 * @param outputPath the path of the CSV file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void writeCsv(String outputPath) throws IOException {
+		File parent = new File(outputPath).getAbsoluteFile().getParentFile();
+		if (!parent.exists() && !parent.mkdirs()) {
+			throw new IOException("Couldn't create dir: " + parent);
+		}
+		List<String> metrics = getMetrics();
+		Writer writer = new FileWriter(outputPath);
+		try {
+			StringBuilder line = new StringBuilder("experiment");
+			for (String metric : metrics) {
+				line.append(',').append(metric);
+			}
+			writer.write(line.append('\n').toString());
+			for (Map.Entry<String, Map<String, Double>> entry : results.entrySet()) {
+				line.setLength(0);
+				line.append(entry.getKey());
+				for (String metric : metrics) {
+					line.append(',');
+					Double value = entry.getValue().get(metric);
+					if (value != null) {
+						line.append(value);
+					}
+				}
+				writer.write(line.append('\n').toString());
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Prints the results table and the errors to the standard output.
+	 */
+	public void printResults() {
+		List<String> metrics = getMetrics();
+		int width = 10;
+		for (String name : results.keySet()) {
+			width = Math.max(width, name.length());
+		}
+
+		StringBuilder line = new StringBuilder(String.format("%-" + width + "s", "Experiment"));
+		for (String metric : metrics) {
+			line.append(String.format(" %" + Math.max(12, metric.length()) + "s", metric));
+		}
+		System.out.println(line);
+		for (Map.Entry<String, Map<String, Double>> entry : results.entrySet()) {
+			line.setLength(0);
+			line.append(String.format("%-" + width + "s", entry.getKey()));
+			for (String metric : metrics) {
+				Double value = entry.getValue().get(metric);
+				String format = " %" + Math.max(12, metric.length()) + (value == null ? "s" : ".5f");
+				line.append(String.format(format, value == null ? "" : value));
+			}
+			System.out.println(line);
+		}
+		for (Map.Entry<String, Throwable> entry : errors.entrySet()) {
+			System.out.println("Failed " + entry.getKey() + ": " + entry.getValue());
+		}
+	}
+
+}
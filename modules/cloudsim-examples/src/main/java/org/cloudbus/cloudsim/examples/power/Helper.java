@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -233,6 +234,67 @@ public class Helper {
 		return timeBeforeVmMigration;
 	}
 
+	/**
+	 * Gets the results of a simulation, that is, the metrics printed by
+	 * {@link #printResults(PowerDatacenter, List, double, String, boolean, String)}.
+	 * The execution times of the VM allocation policy are only included for the policies
+	 * that migrate VMs.
+	 * 
+	 * @param datacenter the datacenter
+	 * @param vms the vms
+	 * @param lastClock the last clock
+	 * @return the value of each metric, in the order they are printed
+	 */
+	public static Map<String, Double> getResults(PowerDatacenter datacenter, List<Vm> vms, double lastClock) {
+		List<Host> hosts = datacenter.getHostList();
+		Map<String, Double> slaMetrics = getSlaMetrics(vms);
+		double slaTimePerActiveHost = getSlaTimePerActiveHost(hosts);
+		double slaDegradationDueToMigration = slaMetrics.get("underallocated_migration");
+		List<Double> timeBeforeHostShutdown = getTimesBeforeHostShutdown(hosts);
+		List<Double> timeBeforeVmMigration = getTimesBeforeVmMigration(vms);
+
+		Map<String, Double> results = new LinkedHashMap<String, Double>();
+		results.put("hosts", (double) hosts.size());
+		results.put("vms", (double) vms.size());
+		results.put("simulation_time", lastClock);
+		results.put("energy", datacenter.getPower() / (3600 * 1000));
+		results.put("migrations", (double) datacenter.getMigrationCount());
+		results.put("sla", slaTimePerActiveHost * slaDegradationDueToMigration);
+		results.put("sla_time_per_active_host", slaTimePerActiveHost);
+		results.put("sla_degradation_due_to_migration", slaDegradationDueToMigration);
+		results.put("sla_overall", slaMetrics.get("overall"));
+		results.put("sla_average", slaMetrics.get("average"));
+		results.put("host_shutdowns", (double) timeBeforeHostShutdown.size());
+		results.put("mean_time_before_host_shutdown", timeBeforeHostShutdown.isEmpty() ? Double.NaN
+				: MathUtil.mean(timeBeforeHostShutdown));
+		results.put("stdev_time_before_host_shutdown", timeBeforeHostShutdown.isEmpty() ? Double.NaN
+				: MathUtil.stDev(timeBeforeHostShutdown));
+		results.put("mean_time_before_vm_migration", timeBeforeVmMigration.isEmpty() ? Double.NaN
+				: MathUtil.mean(timeBeforeVmMigration));
+		results.put("stdev_time_before_vm_migration", timeBeforeVmMigration.isEmpty() ? Double.NaN
+				: MathUtil.stDev(timeBeforeVmMigration));
+
+		if (datacenter.getVmAllocationPolicy() instanceof PowerVmAllocationPolicyMigrationAbstract) {
+			PowerVmAllocationPolicyMigrationAbstract vmAllocationPolicy = (PowerVmAllocationPolicyMigrationAbstract) datacenter
+					.getVmAllocationPolicy();
+			results.put("execution_time_vm_selection_mean",
+					MathUtil.mean(vmAllocationPolicy.getExecutionTimeHistoryVmSelection()));
+			results.put("execution_time_vm_selection_stdev",
+					MathUtil.stDev(vmAllocationPolicy.getExecutionTimeHistoryVmSelection()));
+			results.put("execution_time_host_selection_mean",
+					MathUtil.mean(vmAllocationPolicy.getExecutionTimeHistoryHostSelection()));
+			results.put("execution_time_host_selection_stdev",
+					MathUtil.stDev(vmAllocationPolicy.getExecutionTimeHistoryHostSelection()));
+			results.put("execution_time_vm_reallocation_mean",
+					MathUtil.mean(vmAllocationPolicy.getExecutionTimeHistoryVmReallocation()));
+			results.put("execution_time_vm_reallocation_stdev",
+					MathUtil.stDev(vmAllocationPolicy.getExecutionTimeHistoryVmReallocation()));
+			results.put("execution_time_total_mean", MathUtil.mean(vmAllocationPolicy.getExecutionTimeHistoryTotal()));
+			results.put("execution_time_total_stdev", MathUtil.stDev(vmAllocationPolicy.getExecutionTimeHistoryTotal()));
+		}
+		return results;
+	}
+
 	/**
 	 * Prints the results.
 	 * 
@@ -0,0 +1,70 @@
+package org.cloudbus.cloudsim.examples.power;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory;
+
+/**
+ * A cache of PlanetLab trace files, shared by the simulations of an experiment sweep. Each trace
+ * file is read only once and its samples are shared read-only by all the utilization models
+ * created from it, whatever the simulation or thread they belong to.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see ExperimentSweep
+ */
+public class PlanetLabTraceCache {
+
+	/** The number of samples of the traces (5 min * 288 = 24 hours). */
+	private final int dataSamples;
+
+	/** The samples of the traces read so far, indexed by the path of the trace file. */
+	private final ConcurrentMap<String, double[]> traces = new ConcurrentHashMap<String, double[]>();
+
+	/**
+	 * Instantiates a new cache of traces of 289 samples.
+	 */
+	public PlanetLabTraceCache() {
+		this(289);
+	}
+
+	/**
+	 * Instantiates a new cache of traces.
+	 *
+	 * @param dataSamples the number of samples of the traces
+	 */
+	public PlanetLabTraceCache(int dataSamples) {
+		this.dataSamples = dataSamples;
+	}
+
+	/**
+	 * Gets the samples of a trace file, reading the file if it is not cached yet.
+	 * The samples must not be modified.
+	 *
+	 * @param inputPath the path of the trace file
+	 * @return the samples
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public double[] getTrace(String inputPath) throws IOException {
+		double[] data = traces.get(inputPath);
+		if (data == null) {
+			data = UtilizationModelPlanetLabInMemory.readData(inputPath, dataSamples);
+			double[] cached = traces.putIfAbsent(inputPath, data);
+			if (cached != null) {
+				data = cached;
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Gets the number of cached traces.
+	 *
+	 * @return the number of cached traces
+	 */
+	public int size() {
+		return traces.size();
+	}
+
+}
@@ -5,6 +5,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.DatacenterBroker;
@@ -30,19 +31,26 @@ import org.cloudbus.cloudsim.power.*;
 public abstract class RunnerAbstract {
 
 	/** The enable output. */
-	private static boolean enableOutput;
+	private boolean enableOutput;
 
 	/** The broker. */
-	protected static DatacenterBroker broker;
+	protected DatacenterBroker broker;
 
 	/** The cloudlet list. */
-	protected static List<Cloudlet> cloudletList;
+	protected List<Cloudlet> cloudletList;
 
 	/** The vm list. */
-	protected static List<Vm> vmList;
+	protected List<Vm> vmList;
 
 	/** The host list. */
-	protected static List<PowerHost> hostList;
+	protected List<PowerHost> hostList;
+
+	/**
+	 * Instantiates a runner that doesn't run any simulation by itself.
+	 * The simulations are run by {@link #runExperiment(String, String, String, String, String)}.
+	 */
+	protected RunnerAbstract() {
+	}
 
 	/**
 	 * Run.
@@ -86,6 +94,35 @@ public abstract class RunnerAbstract {
 				getVmAllocationPolicy(vmAllocationPolicy, vmSelectionPolicy, parameter));
 	}
 
+	/**
+	 * Runs a simulation without printing its results, and returns them. Simulations can be run
+	 * by several threads at the same time, provided that each thread uses its own runner and
+	 * simulation context and that the log is disabled.
+	 *
+	 * @param inputFolder the input folder
+	 * @param workload the workload
+	 * @param vmAllocationPolicy the vm allocation policy
+	 * @param vmSelectionPolicy the vm selection policy
+	 * @param parameter the parameter
+	 * @return the results of the simulation, see {@link Helper#getResults(PowerDatacenter, List, double)}
+	 * @throws Exception if the datacenter could not be created
+	 * @see org.cloudbus.cloudsim.core.CloudSim#setContext(org.cloudbus.cloudsim.core.SimulationContext)
+	 */
+	public Map<String, Double> runExperiment(
+			String inputFolder,
+			String workload,
+			String vmAllocationPolicy,
+			String vmSelectionPolicy,
+			String parameter) throws Exception {
+		init(inputFolder + "/" + workload);
+		PowerDatacenter datacenter = createDatacenter(getVmAllocationPolicy(
+				vmAllocationPolicy,
+				vmSelectionPolicy,
+				parameter));
+		double lastClock = simulate();
+		return Helper.getResults(datacenter, vmList, lastClock);
+	}
+
 	/**
 	 * Inits the log output.
 	 *
@@ -145,24 +182,8 @@ public abstract class RunnerAbstract {
 		System.out.println("Starting " + experimentName);
 
 		try {
-			PowerDatacenter datacenter = (PowerDatacenter) Helper.createDatacenter(
-					"Datacenter",
-					PowerDatacenter.class,
-					hostList,
-					vmAllocationPolicy);
-
-			datacenter.setDisableMigrations(false);
-
-			broker.submitVmList(vmList);
-			broker.submitCloudletList(cloudletList);
-
-			CloudSim.terminateSimulation(Constants.SIMULATION_LIMIT);
-			double lastClock = CloudSim.startSimulation();
-
-			List<Cloudlet> newList = broker.getCloudletReceivedList();
-			Log.printLine("Received " + newList.size() + " cloudlets");
-
-			CloudSim.stopSimulation();
+			PowerDatacenter datacenter = createDatacenter(vmAllocationPolicy);
+			double lastClock = simulate();
 
 			Helper.printResults(
 					datacenter,
@@ -181,6 +202,43 @@ public abstract class RunnerAbstract {
 		Log.printLine("Finished " + experimentName);
 	}
 
+	/**
+	 * Creates the datacenter of the simulation.
+	 *
+	 * @param vmAllocationPolicy the vm allocation policy
+	 * @return the datacenter
+	 * @throws Exception if the datacenter could not be created
+	 */
+	protected PowerDatacenter createDatacenter(VmAllocationPolicy vmAllocationPolicy) throws Exception {
+		PowerDatacenter datacenter = (PowerDatacenter) Helper.createDatacenter(
+				"Datacenter",
+				PowerDatacenter.class,
+				hostList,
+				vmAllocationPolicy);
+
+		datacenter.setDisableMigrations(false);
+		return datacenter;
+	}
+
+	/**
+	 * Submits the VMs and cloudlets to the broker and runs the simulation.
+	 *
+	 * @return the last clock
+	 */
+	protected double simulate() {
+		broker.submitVmList(vmList);
+		broker.submitCloudletList(cloudletList);
+
+		CloudSim.terminateSimulation(Constants.SIMULATION_LIMIT);
+		double lastClock = CloudSim.startSimulation();
+
+		List<Cloudlet> newList = broker.getCloudletReceivedList();
+		Log.printLine("Received " + newList.size() + " cloudlets");
+
+		CloudSim.stopSimulation();
+		return lastClock;
+	}
+
 	/**
 	 * Gets the experiment name.
 	 *
@@ -350,7 +408,7 @@ public abstract class RunnerAbstract {
 	 * @param enableOutput the new enable output
 	 */
 	public void setEnableOutput(boolean enableOutput) {
-		RunnerAbstract.enableOutput = enableOutput;
+		this.enableOutput = enableOutput;
 	}
 
 	/**
@@ -2,11 +2,14 @@ package org.cloudbus.cloudsim.examples.power.planetlab;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.examples.power.Constants;
+import org.cloudbus.cloudsim.examples.power.PlanetLabTraceCache;
+import org.cloudbus.cloudsim.util.PlanetLabTraceStore;
 
 /**
  * A helper class for the running examples for the PlanetLab workload.
@@ -34,6 +37,22 @@ public class PlanetLabHelper {
 	 */
 	public static List<Cloudlet> createCloudletListPlanetLab(int brokerId, String inputFolderName)
 			throws FileNotFoundException {
+		return createCloudletListPlanetLab(brokerId, inputFolderName, null);
+	}
+
+	/**
+	 * Creates the cloudlet list planet lab, sharing the traces read by previous simulations.
+	 * 
+	 * @param brokerId the broker id
+	 * @param inputFolderName the input folder name
+	 * @param traceCache the cache of the traces, or <tt>null</tt> to read the traces again
+	 * @return the list
+	 * @throws FileNotFoundException the file not found exception
+	 */
+	public static List<Cloudlet> createCloudletListPlanetLab(
+			int brokerId,
+			String inputFolderName,
+			PlanetLabTraceCache traceCache) throws FileNotFoundException {
 		List<Cloudlet> list = new ArrayList<Cloudlet>();
 
 		long fileSize = 300;
@@ -48,15 +67,23 @@ public class PlanetLabHelper {
 		for (int i = 0; i < files.length; i++) {
 			Cloudlet cloudlet = null;
 			try {
+				UtilizationModel utilizationModelCpu;
+				if (traceCache == null) {
+					utilizationModelCpu = new UtilizationModelPlanetLabInMemory(
+							files[i].getAbsolutePath(),
+							Constants.SCHEDULING_INTERVAL);
+				} else {
+					utilizationModelCpu = new UtilizationModelPlanetLabInMemory(
+							traceCache.getTrace(files[i].getAbsolutePath()),
+							Constants.SCHEDULING_INTERVAL);
+				}
 				cloudlet = new Cloudlet(
 						i,
 						Constants.CLOUDLET_LENGTH,
 						Constants.CLOUDLET_PES,
 						fileSize,
 						outputSize,
-						new UtilizationModelPlanetLabInMemory(
-								files[i].getAbsolutePath(),
-								Constants.SCHEDULING_INTERVAL), utilizationModelNull, utilizationModelNull);
+						utilizationModelCpu, utilizationModelNull, utilizationModelNull);
 			} catch (Exception e) {
 				e.printStackTrace();
 				System.exit(0);
@@ -69,4 +96,43 @@ public class PlanetLabHelper {
 		return list;
 	}
 
+	/**
+	 * Creates the cloudlet list planet lab from a trace store, with a cloudlet per trace.
+	 * The traces are read from the memory-mapped store, which is shared by all the simulations.
+	 * 
+	 * @param brokerId the broker id
+	 * @param storePath the path of the trace store file
+	 * @return the list
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @see PlanetLabTraceStore#convert(String, String, int)
+	 */
+	public static List<Cloudlet> createCloudletListPlanetLabFromStore(int brokerId, String storePath)
+			throws IOException {
+		List<Cloudlet> list = new ArrayList<Cloudlet>();
+
+		long fileSize = 300;
+		long outputSize = 300;
+		UtilizationModel utilizationModelNull = new UtilizationModelNull();
+
+		Log.printLine(storePath);
+
+		PlanetLabTraceStore store = PlanetLabTraceStore.open(storePath);
+		for (int i = 0; i < store.getTraceCount(); i++) {
+			Cloudlet cloudlet = new Cloudlet(
+					i,
+					Constants.CLOUDLET_LENGTH,
+					Constants.CLOUDLET_PES,
+					fileSize,
+					outputSize,
+					new UtilizationModelPlanetLabInMemory(store, i, Constants.SCHEDULING_INTERVAL),
+					utilizationModelNull,
+					utilizationModelNull);
+			cloudlet.setUserId(brokerId);
+			cloudlet.setVmId(i);
+			list.add(cloudlet);
+		}
+
+		return list;
+	}
+
 }
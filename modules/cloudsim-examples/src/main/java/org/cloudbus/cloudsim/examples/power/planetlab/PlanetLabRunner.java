@@ -1,10 +1,12 @@
 package org.cloudbus.cloudsim.examples.power.planetlab;
 
+import java.io.File;
 import java.util.Calendar;
 
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.examples.power.Helper;
+import org.cloudbus.cloudsim.examples.power.PlanetLabTraceCache;
 import org.cloudbus.cloudsim.examples.power.RunnerAbstract;
 
 /**
@@ -23,6 +25,19 @@ import org.cloudbus.cloudsim.examples.power.RunnerAbstract;
  */
 public class PlanetLabRunner extends RunnerAbstract {
 
+	/** The cache of the traces shared with other runners, or <tt>null</tt> if traces are not shared. */
+	private PlanetLabTraceCache traceCache;
+
+	/**
+	 * Instantiates a new planet lab runner that doesn't run any simulation by itself, to run
+	 * simulations through {@link #runExperiment(String, String, String, String, String)}.
+	 * 
+	 * @param traceCache the cache of the traces, or <tt>null</tt> to read the traces in each simulation
+	 */
+	public PlanetLabRunner(PlanetLabTraceCache traceCache) {
+		this.traceCache = traceCache;
+	}
+
 	/**
 	 * Instantiates a new planet lab runner.
 	 * 
@@ -59,6 +74,8 @@ public class PlanetLabRunner extends RunnerAbstract {
 	 * (non-Javadoc)
 	 * 
 	 * @see org.cloudbus.cloudsim.examples.power.RunnerAbstract#init(java.lang.String)
+	 * 
+	 * The workload is either a folder of trace files or a trace store file.
 	 */
 	@Override
 	protected void init(String inputFolder) {
@@ -68,7 +85,11 @@ public class PlanetLabRunner extends RunnerAbstract {
 			broker = Helper.createBroker();
 			int brokerId = broker.getId();
 
-			cloudletList = PlanetLabHelper.createCloudletListPlanetLab(brokerId, inputFolder);
+			if (new File(inputFolder).isFile()) {
+				cloudletList = PlanetLabHelper.createCloudletListPlanetLabFromStore(brokerId, inputFolder);
+			} else {
+				cloudletList = PlanetLabHelper.createCloudletListPlanetLab(brokerId, inputFolder, traceCache);
+			}
 			vmList = Helper.createVmList(brokerId, cloudletList.size());
 			hostList = Helper.createHostList(PlanetLabConstants.NUMBER_OF_HOSTS);
 		} catch (Exception e) {
@@ -0,0 +1,169 @@
+package org.cloudbus.cloudsim.examples.power.planetlab;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.examples.power.ExperimentSweep;
+import org.cloudbus.cloudsim.examples.power.PlanetLabTraceCache;
+
+/**
+ * Runs a sweep of PlanetLab experiments: every combination of workload, VM allocation policy
+ * and VM selection policy, each allocation policy with its safety parameters. The experiments
+ * run concurrently, share the PlanetLab traces and their results are aggregated in one table.
+ *
+ * Usage: PlanetLabSweep [inputFolder] [outputFolder] [workers] [workloads]
+ * [allocationPolicies] [selectionPolicies], where the lists are comma separated and each
+ * allocation policy may be followed by its parameters, e.g. <tt>thr:0.8:0.9,lr:1.2</tt>.
+ * By default, all the workloads of the input folder are run with the policies of
+ * the PlanetLab examples, using as many workers as available processors.
+ *
+ * If you are using any algorithms, policies or workload included in the power package please cite
+ * the following paper:
+ *
+ * Anton Beloglazov, and Rajkumar Buyya, "Optimal Online Deterministic Algorithms and Adaptive
+ * Heuristics for Energy and Performance Efficient Dynamic Consolidation of Virtual Machines in
+ * Cloud Data Centers", Concurrency and Computation: Practice and Experience (CCPE), Volume 24,
+ * Issue 13, Pages: 1397-1420, John Wiley & Sons, Ltd, New York, USA, 2012
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class PlanetLabSweep {
+
+	/** The VM allocation policies of the PlanetLab examples, with their safety parameters. */
+	private static final String DEFAULT_ALLOCATION_POLICIES = "thr:0.8,iqr:1.5,mad:2.5,lr:1.2,lrr:1.2";
+
+	/** The VM selection policies of the PlanetLab examples. */
+	private static final String DEFAULT_SELECTION_POLICIES = "mc,mmt,mu,rs";
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the arguments
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws InterruptedException if the sweep was interrupted
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String inputFolder = getArgument(args, 0, PlanetLabSweep.class.getClassLoader()
+				.getResource("workload/planetlab").getPath());
+		String outputFolder = getArgument(args, 1, "output");
+		int workers = Integer.parseInt(getArgument(args, 2,
+				String.valueOf(Runtime.getRuntime().availableProcessors())));
+		List<String> workloads = args.length > 3 && !args[3].isEmpty()
+				? Arrays.asList(args[3].split(","))
+				: getWorkloads(inputFolder);
+		String[] allocationPolicies = getArgument(args, 4, DEFAULT_ALLOCATION_POLICIES).split(",");
+		String[] selectionPolicies = getArgument(args, 5, DEFAULT_SELECTION_POLICIES).split(",");
+
+		ExperimentSweep sweep = new ExperimentSweep(workers);
+		PlanetLabTraceCache traceCache = new PlanetLabTraceCache();
+		for (String workload : workloads) {
+			for (String allocationPolicy : allocationPolicies) {
+				String[] policyAndParameters = allocationPolicy.split(":");
+				List<String> parameters = policyAndParameters.length > 1
+						? Arrays.asList(policyAndParameters).subList(1, policyAndParameters.length)
+						: Collections.singletonList("");
+				for (String selectionPolicy : selectionPolicies) {
+					for (String parameter : parameters) {
+						addExperiment(
+								sweep,
+								traceCache,
+								inputFolder,
+								workload,
+								policyAndParameters[0],
+								selectionPolicy,
+								parameter);
+					}
+				}
+			}
+		}
+
+		sweep.run();
+		sweep.printResults();
+		sweep.writeCsv(outputFolder + "/sweep/planetlab_sweep.csv");
+	}
+
+	/**
+	 * Adds an experiment to the sweep.
+	 *
+	 * @param sweep the sweep
+	 * @param traceCache the cache of the traces
+	 * @param inputFolder the input folder
+	 * @param workload the workload
+	 * @param vmAllocationPolicy the vm allocation policy
+	 * @param vmSelectionPolicy the vm selection policy
+	 * @param parameter the parameter
+	 */
+	private static void addExperiment(
+			ExperimentSweep sweep,
+			final PlanetLabTraceCache traceCache,
+			final String inputFolder,
+			final String workload,
+			final String vmAllocationPolicy,
+			final String vmSelectionPolicy,
+			final String parameter) {
+		StringBuilder name = new StringBuilder(workload).append('_').append(vmAllocationPolicy);
+		for (String part : new String[] { vmSelectionPolicy, parameter }) {
+			if (!part.isEmpty()) {
+				name.append('_').append(part);
+			}
+		}
+		sweep.addExperiment(name.toString(), new ExperimentSweep.Experiment() {
+
+			@Override
+			public Map<String, Double> run() throws Exception {
+				return new PlanetLabRunner(traceCache).runExperiment(
+						inputFolder,
+						workload,
+						vmAllocationPolicy,
+						vmSelectionPolicy,
+						parameter);
+			}
+		});
+	}
+
+	/**
+	 * Gets the workloads of an input folder, that is, its day folders.
+	 *
+	 * @param inputFolder the input folder
+	 * @return the workload names, sorted
+	 */
+	private static List<String> getWorkloads(String inputFolder) {
+		File[] folders = new File(inputFolder).listFiles(new FileFilter() {
+
+			@Override
+			public boolean accept(File file) {
+				return file.isDirectory() && file.getName().startsWith("20");
+			}
+		});
+		List<String> workloads = new ArrayList<String>();
+		if (folders != null) {
+			for (File folder : folders) {
+				workloads.add(folder.getName());
+			}
+		}
+		Collections.sort(workloads);
+		return workloads;
+	}
+
+	/**
+	 * Gets a command line argument.
+	 *
+	 * @param args the arguments
+	 * @param index the index of the argument
+	 * @param defaultValue the value if the argument is missing or empty
+	 * @return the argument
+	 */
+	private static String getArgument(String[] args, int index, String defaultValue) {
+		if (args.length > index && args[index] != null && !args[index].isEmpty()) {
+			return args[index];
+		}
+		return defaultValue;
+	}
+
+}
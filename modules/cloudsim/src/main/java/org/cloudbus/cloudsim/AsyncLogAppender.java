@@ -0,0 +1,309 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * AsyncLogAppender is an output stream for the {@link Log} that writes to another stream on a
+ * background thread, so that the simulation doesn't wait for the log to be written. The bytes
+ * are appended to a buffer, which is handed over to the background thread when it is full,
+ * when some time passed since the last buffer was handed over, or when the appender is
+ * flushed. If the background thread is behind by too many buffers, the simulation waits for
+ * it rather than discarding messages.
+ * <p/>
+ * {@link Log#flush()} waits until all the messages printed so far are written, which
+ * {@link org.cloudbus.cloudsim.core.CloudSim#startSimulation()} does at the end of the
+ * simulation. The remaining messages are also written when the JVM shuts down. An appender
+ * is used as follows:
+ *
+ * <pre>
+ * Log.setOutput(new AsyncLogAppender(System.out));
+ * </pre>
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class AsyncLogAppender extends OutputStream {
+
+	/** The default size of the buffers, in bytes. */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/** The default maximum time a message waits before it is handed over, in milliseconds. */
+	public static final long DEFAULT_FLUSH_INTERVAL = 200;
+
+	/** The maximum number of buffers handed over and not written yet. */
+	private static final int MAX_PENDING_BUFFERS = 16;
+
+	/** The buffer that tells the background thread to stop. */
+	private static final byte[] END = new byte[0];
+
+	/** The stream where the log is written. */
+	private final OutputStream output;
+
+	/** The maximum time a message waits before it is handed over, in nanoseconds. */
+	private final long flushInterval;
+
+	/** The buffers handed over to the background thread. */
+	private final BlockingQueue<byte[]> pendingBuffers = new ArrayBlockingQueue<byte[]>(MAX_PENDING_BUFFERS);
+
+	/** The buffer where the bytes written are appended. */
+	private final byte[] buffer;
+
+	/** The number of bytes in the buffer. */
+	private int count;
+
+	/** The time when the last buffer was handed over, in nanoseconds. */
+	private long lastHandOverTime = System.nanoTime();
+
+	/** The number of buffers handed over, guarded by this appender. */
+	private long handedOverBuffers;
+
+	/** The number of buffers written by the background thread, guarded by {@link #progress}. */
+	private long writtenBuffers;
+
+	/** The monitor of the progress of the background thread. */
+	private final Object progress = new Object();
+
+	/** The first error of the background thread, or <tt>null</tt>. */
+	private volatile IOException error;
+
+	/** Whether the appender is closed. */
+	private boolean closed;
+
+	/** The background thread. */
+	private final Thread writer;
+
+	/** The thread that writes the remaining messages when the JVM shuts down. */
+	private final Thread shutdownHook;
+
+	/**
+	 * Instantiates a new appender with the default buffer size and flush interval.
+	 *
+	 * @param output the stream where the log is written
+	 */
+	public AsyncLogAppender(OutputStream output) {
+		this(output, DEFAULT_BUFFER_SIZE, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	/**
+	 * Instantiates a new appender.
+	 *
+	 * @param output the stream where the log is written
+	 * @param bufferSize the size of the buffers, in bytes
+	 * @param flushInterval the maximum time a message waits before it is handed over to the
+	 *            background thread, in milliseconds, checked when a message is written
+	 */
+	public AsyncLogAppender(OutputStream output, int bufferSize, long flushInterval) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("The buffer size must be positive");
+		}
+		this.output = output;
+		this.flushInterval = flushInterval * 1000000;
+		buffer = new byte[bufferSize];
+
+		writer = new Thread("AsyncLogAppender") {
+
+			@Override
+			public void run() {
+				writePendingBuffers();
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+
+		shutdownHook = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					flush();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+		checkState();
+		while (length > 0) {
+			int copied = Math.min(length, buffer.length - count);
+			System.arraycopy(bytes, offset, buffer, count, copied);
+			count += copied;
+			offset += copied;
+			length -= copied;
+			if (count == buffer.length) {
+				handOver();
+			}
+		}
+		if (count > 0 && System.nanoTime() - lastHandOverTime >= flushInterval) {
+			handOver();
+		}
+	}
+
+	/**
+	 * Hands over all the bytes written so far, then waits until the background thread wrote
+	 * them and flushed the stream where the log is written.
+	 */
+	@Override
+	public void flush() throws IOException {
+		long buffers;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			if (count > 0) {
+				handOver();
+			}
+			buffers = handedOverBuffers;
+		}
+		waitUntilWritten(buffers);
+		checkState();
+	}
+
+	/**
+	 * Writes all the bytes written so far, then stops the background thread. The stream where
+	 * the log is written is not closed, as it usually is the standard output.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			if (count > 0) {
+				handOver();
+			}
+			closed = true;
+			putPendingBuffer(END);
+		}
+		try {
+			writer.join();
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IllegalStateException e) {
+			// the JVM is shutting down
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * Hands over the bytes in the buffer to the background thread, waiting if it is behind by
+	 * too many buffers.
+	 */
+	private void handOver() {
+		putPendingBuffer(Arrays.copyOf(buffer, count));
+		count = 0;
+		handedOverBuffers++;
+		lastHandOverTime = System.nanoTime();
+	}
+
+	/**
+	 * Puts a buffer in the queue of the background thread.
+	 *
+	 * @param pendingBuffer the buffer
+	 */
+	private void putPendingBuffer(byte[] pendingBuffer) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				pendingBuffers.put(pendingBuffer);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Waits until the background thread wrote a number of buffers.
+	 *
+	 * @param buffers the number of buffers
+	 */
+	private void waitUntilWritten(long buffers) {
+		boolean interrupted = false;
+		synchronized (progress) {
+			while (writtenBuffers < buffers) {
+				try {
+					progress.wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Checks that the appender is not closed and that the background thread didn't fail.
+	 *
+	 * @throws IOException if the appender is closed or the background thread failed
+	 */
+	private void checkState() throws IOException {
+		if (error != null) {
+			throw error;
+		}
+		if (closed) {
+			throw new IOException("The appender is closed");
+		}
+	}
+
+	/**
+	 * Writes the buffers handed over until the appender is closed. The stream is flushed when
+	 * there is no buffer left to write. After an error, the buffers are discarded, so that
+	 * the simulation doesn't wait for the background thread.
+	 */
+	private void writePendingBuffers() {
+		while (true) {
+			byte[] pendingBuffer;
+			try {
+				pendingBuffer = pendingBuffers.take();
+			} catch (InterruptedException e) {
+				continue;
+			}
+			if (pendingBuffer == END) {
+				return;
+			}
+			if (error == null) {
+				try {
+					output.write(pendingBuffer);
+					if (pendingBuffers.isEmpty()) {
+						output.flush();
+					}
+				} catch (IOException e) {
+					error = e;
+				}
+			}
+			synchronized (progress) {
+				writtenBuffers++;
+				progress.notifyAll();
+			}
+		}
+	}
+
+}
@@ -30,7 +30,7 @@ public abstract class CloudletScheduler {
 	private double previousTime;
 
 	/** The list of current mips share available for the VM using the scheduler. */
-	private List<Double> currentMipsShare;
+	private MipsShare currentMipsShare;
 
 	/** The list of cloudlet waiting to be executed on the VM. */
 	protected List<? extends ResCloudlet> cloudletWaitingList;
@@ -200,6 +200,17 @@ public abstract class CloudletScheduler {
 	 */
 	public abstract List<Double> getCurrentRequestedMips();
 
+	/**
+	 * Gets the current requested mips into a given MIPS share, replacing its MIPS. The share
+	 * is filled with the MIPS of the list returned by {@link #getCurrentRequestedMips()}, but
+	 * subclasses may fill it without creating the list.
+	 * 
+	 * @param mipsShare the MIPS share to fill with the current requested mips
+	 */
+	public void getCurrentRequestedMips(MipsShare mipsShare) {
+		mipsShare.setAll(getCurrentRequestedMips());
+	}
+
 	/**
 	 * Gets the total current available mips for the Cloudlet.
 	 * 
@@ -269,12 +280,20 @@ public abstract class CloudletScheduler {
 	}
 
 	/**
-	 * Sets the current mips share.
+	 * Sets the current mips share. The MIPS are copied into a share of the scheduler, so that
+	 * the VM scheduler that allocated them can reuse the given list.
 	 * 
 	 * @param currentMipsShare the new current mips share
 	 */
 	protected void setCurrentMipsShare(List<Double> currentMipsShare) {
-		this.currentMipsShare = currentMipsShare;
+		if (currentMipsShare == null) {
+			this.currentMipsShare = null;
+		} else {
+			if (this.currentMipsShare == null) {
+				this.currentMipsShare = new MipsShare(currentMipsShare.size());
+			}
+			this.currentMipsShare.setAll(currentMipsShare);
+		}
 	}
 
 	/**
@@ -169,6 +169,16 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 		return currentMips;
 	}
 
+	@Override
+	public void getCurrentRequestedMips(MipsShare mipsShare) {
+		if (getCachePreviousTime() == getPreviousTime()) {
+			mipsShare.setAll(getCacheCurrentRequestedMips());
+			return;
+		}
+		double totalMips = getTotalUtilizationOfCpu(getPreviousTime()) * getTotalMips();
+		mipsShare.fill(getNumberOfPes(), totalMips / getNumberOfPes());
+	}
+
 	@Override
 	public double getTotalCurrentRequestedMipsForCloudlet(ResCloudlet rcl, double time) {
 		return rcl.getCloudlet().getUtilizationOfCpu(time) * getTotalMips();
@@ -179,8 +189,8 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 		double totalCurrentMips = 0.0;
 		if (mipsShare != null) {
 			int neededPEs = rcl.getNumberOfPes();
-			for (double mips : mipsShare) {
-				totalCurrentMips += mips;
+			for (int i = 0; i < mipsShare.size(); i++) {
+				totalCurrentMips += MipsShare.getMips(mipsShare, i);
 				neededPEs--;
 				if (neededPEs <= 0) {
 					break;
@@ -420,6 +420,15 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 		return mipsShare;
 	}
 
+	@Override
+	public void getCurrentRequestedMips(MipsShare mipsShare) {
+		if (getCurrentMipsShare() != null) {
+			mipsShare.setAll(getCurrentMipsShare());
+		} else {
+			mipsShare.clear();
+		}
+	}
+
 	@Override
 	public double getTotalCurrentAvailableMipsForCloudlet(ResCloudlet rcl, List<Double> mipsShare) {
                 /*@todo The param rcl is not being used.*/
@@ -94,7 +94,8 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 	protected double getCapacity(List<Double> mipsShare) {
 		double capacity = 0.0;
 		int cpus = 0;
-		for (Double mips : mipsShare) {
+		for (int i = 0; i < mipsShare.size(); i++) {
+			double mips = MipsShare.getMips(mipsShare, i);
 			capacity += mips;
 			if (mips > 0.0) {
 				cpus++;
@@ -321,6 +322,11 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		return mipsShare;
 	}
 
+	@Override
+	public void getCurrentRequestedMips(MipsShare mipsShare) {
+		mipsShare.clear();
+	}
+
 	@Override
 	public double getTotalCurrentAvailableMipsForCloudlet(ResCloudlet rcl, List<Double> mipsShare) {
             /*@todo It isn't being used any the the given parameters.*/
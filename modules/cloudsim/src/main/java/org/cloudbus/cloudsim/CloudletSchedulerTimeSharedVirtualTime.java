@@ -0,0 +1,303 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * CloudletSchedulerTimeSharedVirtualTime implements the same time-shared policy as
+ * {@link CloudletSchedulerTimeShared}, but tracks the progress of the cloudlets with a single
+ * virtual time instead of updating every running cloudlet at each event.
+ * <p/>
+ * As all the running cloudlets share the capacity of the VM equally, each of their PEs executes
+ * the same number of MI over any period. The virtual time is the number of MI executed by a PE
+ * since the scheduler was created, so a cloudlet finishes when the virtual time reaches the
+ * virtual time it started at plus its length divided by its number of PEs. The running cloudlets
+ * are kept in a min-heap ordered by that virtual finish time, which doesn't change when the
+ * capacity of the VM does. An update of the scheduler costs O(log n) per finished cloudlet,
+ * instead of O(n) per update, and the progress of a cloudlet is only computed when it leaves
+ * the execution list.
+ * <p/>
+ * As the progress isn't rounded to the instruction at each update, the finish times may differ
+ * from the ones of {@link CloudletSchedulerTimeShared} by a fraction of MI. The order of the
+ * execution list isn't the submission order.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class CloudletSchedulerTimeSharedVirtualTime extends CloudletSchedulerTimeShared {
+
+	/** The number of MI executed by each PE of a running cloudlet since the scheduler was created. */
+	private double virtualTime;
+
+	/** The running cloudlets, ordered by virtual finish time. */
+	private final PriorityQueue<VirtualResCloudlet> finishQueue;
+
+	/** The number of PEs used by the running cloudlets. */
+	private int pesInUse;
+
+	/** The number of cloudlets started so far, to order the cloudlets finishing at the same virtual time. */
+	private long started;
+
+	/**
+	 * Creates a new CloudletSchedulerTimeSharedVirtualTime object. This method must be invoked
+	 * before starting the actual simulation.
+	 */
+	public CloudletSchedulerTimeSharedVirtualTime() {
+		super();
+		finishQueue = new PriorityQueue<VirtualResCloudlet>(11, new Comparator<VirtualResCloudlet>() {
+
+			@Override
+			public int compare(VirtualResCloudlet first, VirtualResCloudlet second) {
+				int result = Double.compare(first.virtualFinishTime, second.virtualFinishTime);
+				if (result == 0) {
+					result = first.order < second.order ? -1 : (first.order == second.order ? 0 : 1);
+				}
+				return result;
+			}
+		});
+	}
+
+	@Override
+	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		setCurrentMipsShare(mipsShare);
+
+		if (finishQueue.isEmpty()) {
+			setPreviousTime(currentTime);
+			return 0.0;
+		}
+
+		virtualTime += getCapacity(mipsShare) * (currentTime - getPreviousTime());
+
+		// finish the cloudlets with less than 1 MI left, as CloudletSchedulerTimeShared does
+		while (!finishQueue.isEmpty()) {
+			VirtualResCloudlet rcl = finishQueue.peek();
+			if ((rcl.virtualFinishTime - virtualTime) * rcl.getNumberOfPes() >= 1) {
+				break;
+			}
+			removeRunning(rcl);
+			cloudletFinish(rcl);
+		}
+
+		// estimate finish time of the next cloudlet
+		double nextEvent = Double.MAX_VALUE;
+		if (!finishQueue.isEmpty()) {
+			nextEvent = currentTime
+					+ (finishQueue.peek().virtualFinishTime - virtualTime) / getCapacity(mipsShare);
+			if (nextEvent - currentTime < CloudSim.getMinTimeBetweenEvents()) {
+				nextEvent = currentTime + CloudSim.getMinTimeBetweenEvents();
+			}
+		}
+
+		setPreviousTime(currentTime);
+		return nextEvent;
+	}
+
+	/**
+	 * Gets the individual MIPS capacity available for each PE available for the scheduler,
+	 * considering that all PEs have the same capacity. The PEs in use are counted as
+	 * cloudlets start and stop, instead of being summed at each call.
+	 *
+	 * @param mipsShare list with MIPS share of each PE available to the scheduler
+	 * @return the capacity of each PE
+	 */
+	@Override
+	protected double getCapacity(List<Double> mipsShare) {
+		double capacity = 0.0;
+		int cpus = 0;
+		for (int i = 0; i < mipsShare.size(); i++) {
+			double mips = mipsShare.get(i);
+			capacity += mips;
+			if (mips > 0.0) {
+				cpus++;
+			}
+		}
+		currentCPUs = cpus;
+
+		if (pesInUse > currentCPUs) {
+			capacity /= pesInUse;
+		} else {
+			capacity /= currentCPUs;
+		}
+		return capacity;
+	}
+
+	@Override
+	public Cloudlet cloudletCancel(int cloudletId) {
+		VirtualResCloudlet rcl = findRunning(cloudletId);
+		if (rcl == null) {
+			// looks in the finished and paused lists
+			return super.cloudletCancel(cloudletId);
+		}
+
+		removeRunning(rcl);
+		if (rcl.getRemainingCloudletLength() == 0) {
+			cloudletFinish(rcl);
+		} else {
+			rcl.setCloudletStatus(Cloudlet.CANCELED);
+		}
+		return rcl.getCloudlet();
+	}
+
+	@Override
+	public boolean cloudletPause(int cloudletId) {
+		VirtualResCloudlet rcl = findRunning(cloudletId);
+		if (rcl == null) {
+			return false;
+		}
+
+		// remove cloudlet from the exec list and put it in the paused list
+		removeRunning(rcl);
+		if (rcl.getRemainingCloudletLength() == 0) {
+			cloudletFinish(rcl);
+		} else {
+			rcl.setCloudletStatus(Cloudlet.PAUSED);
+			getCloudletPausedList().add(rcl);
+		}
+		return true;
+	}
+
+	@Override
+	public double cloudletResume(int cloudletId) {
+		List<VirtualResCloudlet> pausedList = getCloudletPausedList();
+		for (int position = 0; position < pausedList.size(); position++) {
+			if (pausedList.get(position).getCloudletId() == cloudletId) {
+				VirtualResCloudlet rcl = pausedList.remove(position);
+				rcl.setCloudletStatus(Cloudlet.INEXEC);
+				addRunning(rcl);
+
+				// calculate the expected time for cloudlet completion
+				double remainingLength = rcl.getRemainingCloudletLength();
+				return CloudSim.clock()
+						+ (remainingLength / (getCapacity(getCurrentMipsShare()) * rcl.getNumberOfPes()));
+			}
+		}
+		return 0.0;
+	}
+
+	@Override
+	public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+		VirtualResCloudlet rcl = new VirtualResCloudlet(cloudlet);
+		rcl.setCloudletStatus(Cloudlet.INEXEC);
+		for (int i = 0; i < cloudlet.getNumberOfPes(); i++) {
+			rcl.setMachineAndPeId(0, i);
+		}
+
+		// use the current capacity, including the new cloudlet, to estimate the extra amount of
+		// time to file transferring. It must be added to the cloudlet length
+		pesInUse += rcl.getNumberOfPes();
+		double extraSize = getCapacity(getCurrentMipsShare()) * fileTransferTime;
+		pesInUse -= rcl.getNumberOfPes();
+		long length = (long) (cloudlet.getCloudletLength() + extraSize);
+		cloudlet.setCloudletLength(length);
+
+		addRunning(rcl);
+		return cloudlet.getCloudletLength() / getCapacity(getCurrentMipsShare());
+	}
+
+	@Override
+	public Cloudlet migrateCloudlet() {
+		List<VirtualResCloudlet> execList = getCloudletExecList();
+		VirtualResCloudlet rcl = execList.get(0);
+		removeRunning(rcl);
+		rcl.finalizeCloudlet();
+		return rcl.getCloudlet();
+	}
+
+	/**
+	 * Adds a cloudlet to the execution list and the finish queue, starting from the current
+	 * virtual time.
+	 *
+	 * @param rcl the cloudlet
+	 */
+	private void addRunning(VirtualResCloudlet rcl) {
+		List<VirtualResCloudlet> execList = getCloudletExecList();
+		rcl.execIndex = execList.size();
+		execList.add(rcl);
+		pesInUse += rcl.getNumberOfPes();
+
+		rcl.virtualStartTime = virtualTime;
+		rcl.virtualFinishTime = virtualTime + (double) rcl.getRemainingCloudletLength() / rcl.getNumberOfPes();
+		rcl.order = started++;
+		finishQueue.add(rcl);
+	}
+
+	/**
+	 * Removes a cloudlet from the execution list and the finish queue, updating the length
+	 * it has executed so far. The last cloudlet of the execution list takes its place.
+	 *
+	 * @param rcl the cloudlet
+	 */
+	private void removeRunning(VirtualResCloudlet rcl) {
+		if (finishQueue.peek() == rcl) {
+			finishQueue.poll();
+		} else {
+			finishQueue.remove(rcl);
+		}
+
+		List<VirtualResCloudlet> execList = getCloudletExecList();
+		VirtualResCloudlet last = execList.remove(execList.size() - 1);
+		if (last != rcl) {
+			execList.set(rcl.execIndex, last);
+			last.execIndex = rcl.execIndex;
+		}
+		pesInUse -= rcl.getNumberOfPes();
+
+		rcl.updateCloudletFinishedSoFar((long) ((virtualTime - rcl.virtualStartTime) * rcl.getNumberOfPes() * Consts.MILLION));
+		rcl.virtualStartTime = virtualTime;
+	}
+
+	/**
+	 * Finds a cloudlet in the execution list.
+	 *
+	 * @param cloudletId the cloudlet id
+	 * @return the cloudlet, or <tt>null</tt> if it isn't running
+	 */
+	private VirtualResCloudlet findRunning(int cloudletId) {
+		List<VirtualResCloudlet> execList = getCloudletExecList();
+		for (VirtualResCloudlet rcl : execList) {
+			if (rcl.getCloudletId() == cloudletId) {
+				return rcl;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A cloudlet running with this scheduler, with its position in virtual time.
+	 */
+	private static class VirtualResCloudlet extends ResCloudlet {
+
+		/** The virtual time when the finished length of the cloudlet was last updated. */
+		private double virtualStartTime;
+
+		/** The virtual time when the cloudlet finishes. */
+		private double virtualFinishTime;
+
+		/** The order the cloudlet was started in. */
+		private long order;
+
+		/** The index of the cloudlet in the execution list. */
+		private int execIndex;
+
+		/**
+		 * Instantiates a new cloudlet running with this scheduler.
+		 *
+		 * @param cloudlet the cloudlet
+		 */
+		public VirtualResCloudlet(Cloudlet cloudlet) {
+			super(cloudlet);
+		}
+
+	}
+
+}
@@ -8,6 +8,7 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -17,6 +18,7 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.metrics.MetricsRegistry;
 
 /**
  * Datacenter class is a CloudResource whose hostList are virtualized. It deals with processing of
@@ -59,6 +61,18 @@ public class Datacenter extends SimEntity {
 	/** The scheduling delay to process each datacenter received event. */
 	private double schedulingInterval;
 
+	/**
+	 * Whether only the hosts whose next event is due, or whose load changed, are updated.
+	 * It is disabled by default.
+	 */
+	private boolean hostIndexEnabled;
+
+	/** The next event times of the hosts, indexed at the first update of the cloudlet processing. */
+	private HostEventIndex hostEventIndex;
+
+	/** The start time of an operation whose time is not measured. */
+	private static final long NOT_MEASURED = Long.MIN_VALUE;
+
 	/**
 	 * Allocates a new Datacenter object.
 	 * 
@@ -249,8 +263,10 @@ public class Datacenter extends SimEntity {
 				break;
 
 			case CloudSimTags.VM_DATACENTER_EVENT:
+				long startTime = startMeasurement();
 				updateCloudletProcessing();
 				checkCloudletCompletion();
+				recordTime("updateTime", startTime);
 				break;
 
 			// other unknown tags are processed by this method
@@ -440,7 +456,10 @@ public class Datacenter extends SimEntity {
 	protected void processVmCreate(SimEvent ev, boolean ack) {
 		Vm vm = (Vm) ev.getData();
 
+		prepareHostsLoadChange();
+		long startTime = startMeasurement();
 		boolean result = getVmAllocationPolicy().allocateHostForVm(vm);
+		recordTime("allocateHostForVm", startTime);
 
 		if (ack) {
 			int[] data = new int[3];
@@ -462,6 +481,7 @@ public class Datacenter extends SimEntity {
 				vm.setBeingInstantiated(false);
 			}
 
+			prepareHostLoadChange(vm.getHost());
 			vm.updateVmProcessing(CloudSim.clock(), getVmAllocationPolicy().getHost(vm).getVmScheduler()
 					.getAllocatedMipsForVm(vm));
 		}
@@ -482,6 +502,7 @@ public class Datacenter extends SimEntity {
 	 */
 	protected void processVmDestroy(SimEvent ev, boolean ack) {
 		Vm vm = (Vm) ev.getData();
+		prepareHostLoadChange(vm.getHost());
 		getVmAllocationPolicy().deallocateHostForVm(vm);
 
 		if (ack) {
@@ -519,6 +540,8 @@ public class Datacenter extends SimEntity {
 		Vm vm = (Vm) migrate.get("vm");
 		Host host = (Host) migrate.get("host");
 
+		prepareHostLoadChange(vm.getHost());
+		prepareHostLoadChange(host);
 		getVmAllocationPolicy().deallocateHostForVm(vm);
 		host.removeMigratingInVm(vm);
 		boolean result = getVmAllocationPolicy().allocateHostForVm(vm, host);
@@ -636,8 +659,9 @@ public class Datacenter extends SimEntity {
 		int destId = array[4];
 
 		// get the cloudlet
-		Cloudlet cl = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
-				.getCloudletScheduler().cloudletCancel(cloudletId);
+		Host sourceHost = getVmAllocationPolicy().getHost(vmId, userId);
+		prepareHostLoadChange(sourceHost);
+		Cloudlet cl = sourceHost.getVm(vmId,userId).getCloudletScheduler().cloudletCancel(cloudletId);
 
 		boolean failed = false;
 		if (cl == null) {// cloudlet doesn't exist
@@ -662,6 +686,7 @@ public class Datacenter extends SimEntity {
 				if (vm == null) {
 					failed = true;
 				} else {
+					prepareHostLoadChange(vm.getHost());
 					// time to transfer the files
 					double fileTransferTime = predictFileTransferTime(cl.getRequiredFiles());
 					vm.getCloudletScheduler().cloudletSubmit(cl, fileTransferTime);
@@ -745,6 +770,7 @@ public class Datacenter extends SimEntity {
 
 			Host host = getVmAllocationPolicy().getHost(vmId, userId);
 			Vm vm = host.getVm(vmId, userId);
+			prepareHostLoadChange(host);
 			CloudletScheduler scheduler = vm.getCloudletScheduler();
 			double estimatedFinishTime = scheduler.cloudletSubmit(cl, fileTransferTime);
 
@@ -812,8 +838,9 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletResume(int cloudletId, int userId, int vmId, boolean ack) {
-		double eventTime = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
-				.getCloudletScheduler().cloudletResume(cloudletId);
+		Host host = getVmAllocationPolicy().getHost(vmId, userId);
+		prepareHostLoadChange(host);
+		double eventTime = host.getVm(vmId,userId).getCloudletScheduler().cloudletResume(cloudletId);
 
 		boolean status = false;
 		if (eventTime > 0.0) { // if this cloudlet is in the exec queue
@@ -849,8 +876,9 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletPause(int cloudletId, int userId, int vmId, boolean ack) {
-		boolean status = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
-				.getCloudletScheduler().cloudletPause(cloudletId);
+		Host host = getVmAllocationPolicy().getHost(vmId, userId);
+		prepareHostLoadChange(host);
+		boolean status = host.getVm(vmId,userId).getCloudletScheduler().cloudletPause(cloudletId);
 
 		if (ack) {
 			int[] data = new int[3];
@@ -876,8 +904,9 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletCancel(int cloudletId, int userId, int vmId) {
-		Cloudlet cl = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
-				.getCloudletScheduler().cloudletCancel(cloudletId);
+		Host host = getVmAllocationPolicy().getHost(vmId, userId);
+		prepareHostLoadChange(host);
+		Cloudlet cl = host.getVm(vmId,userId).getCloudletScheduler().cloudletCancel(cloudletId);
 		sendNow(userId, CloudSimTags.CLOUDLET_CANCEL, cl);
 	}
 
@@ -885,6 +914,9 @@ public class Datacenter extends SimEntity {
 	 * Updates processing of each cloudlet running in this Datacenter. It is necessary because
 	 * Hosts and VirtualMachines are simple objects, not entities. So, they don't receive events and
 	 * updating cloudlets inside them must be called from the outside.
+	 * <p/>
+	 * When the {@link #isHostIndexEnabled() host index is enabled}, only the hosts whose next
+	 * event is due and the ones whose load changed since they were last updated are updated.
 	 * 
 	 * @pre $none
 	 * @post $none
@@ -896,14 +928,18 @@ public class Datacenter extends SimEntity {
 		if (CloudSim.clock() < 0.111 || CloudSim.clock() > getLastProcessTime() + CloudSim.getMinTimeBetweenEvents()) {
 			List<? extends Host> list = getVmAllocationPolicy().getHostList();
 			double smallerTime = Double.MAX_VALUE;
-			// for each host...
-			for (int i = 0; i < list.size(); i++) {
-				Host host = list.get(i);
-				// inform VMs to update processing
-				double time = host.updateVmsProcessing(CloudSim.clock());
-				// what time do we expect that the next cloudlet will finish?
-				if (time < smallerTime) {
-					smallerTime = time;
+			if (isHostIndexEnabled()) {
+				smallerTime = updateDueHostsProcessing(list);
+			} else {
+				// for each host...
+				for (int i = 0; i < list.size(); i++) {
+					Host host = list.get(i);
+					// inform VMs to update processing
+					double time = host.updateVmsProcessing(CloudSim.clock());
+					// what time do we expect that the next cloudlet will finish?
+					if (time < smallerTime) {
+						smallerTime = time;
+					}
 				}
 			}
 			// gurantees a minimal interval before scheduling the event
@@ -917,23 +953,149 @@ public class Datacenter extends SimEntity {
 		}
 	}
 
+	/**
+	 * Updates the processing of the hosts whose next event is due, or whose load changed
+	 * since they were last updated, and records their next event time in the host index.
+	 * As the cloudlets of a host progress linearly between the changes of its load, the
+	 * hosts that are skipped reach the same state when they are updated later.
+	 * 
+	 * @param list the host list
+	 * @return the earliest next event time of the hosts
+	 */
+	private double updateDueHostsProcessing(List<? extends Host> list) {
+		if (hostEventIndex == null || !hostEventIndex.isIndexOf(list)) {
+			hostEventIndex = new HostEventIndex(list);
+		}
+		if (CloudSim.clock() < 0.111) {
+			// the schedulers are being initialized
+			hostEventIndex.setAllDirty();
+		}
+
+		// a host whose next event is closer than the minimal interval between events
+		// would be updated now anyway, as the next event can't be scheduled before
+		BitSet hosts = hostEventIndex.pollHostsToUpdate(CloudSim.clock() + CloudSim.getMinTimeBetweenEvents());
+		for (int i = hosts.nextSetBit(0); i >= 0; i = hosts.nextSetBit(i + 1)) {
+			double time = list.get(i).updateVmsProcessing(CloudSim.clock());
+			hostEventIndex.setUpdated(i, CloudSim.clock(), time);
+		}
+		return hostEventIndex.getNextEventTime();
+	}
+
+	/**
+	 * Prepares a host for a change of its load, such as the submission of a cloudlet or the
+	 * creation of a VM. If the host was skipped by the last update of the processing, it is
+	 * brought up to that update before the change, so that its cloudlets progress as if
+	 * every host was updated each time. The host is then updated at the next update.
+	 * It does nothing when the host index isn't used.
+	 * 
+	 * @param host the host whose load is about to change
+	 */
+	protected void prepareHostLoadChange(Host host) {
+		if (!isHostIndexEnabled() || hostEventIndex == null || host == null) {
+			return;
+		}
+		int position = hostEventIndex.getPosition(host);
+		if (position < 0) {
+			return;
+		}
+		if (hostEventIndex.getUpdateTime(position) < getLastProcessTime()) {
+			double time = host.updateVmsProcessing(getLastProcessTime());
+			hostEventIndex.setUpdated(position, getLastProcessTime(), time);
+		}
+		hostEventIndex.setDirty(position);
+	}
+
+	/**
+	 * Prepares all the hosts for a change of load whose host is not known in advance, such as
+	 * the allocation of a host to a VM: the hosts skipped by the last update of the processing
+	 * are brought up to that update.
+	 * 
+	 * @see #prepareHostLoadChange(Host)
+	 */
+	protected void prepareHostsLoadChange() {
+		if (!isHostIndexEnabled() || hostEventIndex == null) {
+			return;
+		}
+		List<? extends Host> list = getVmAllocationPolicy().getHostList();
+		if (!hostEventIndex.isIndexOf(list)) {
+			return;
+		}
+		for (int i = 0; i < list.size(); i++) {
+			if (hostEventIndex.getUpdateTime(i) < getLastProcessTime()) {
+				double time = list.get(i).updateVmsProcessing(getLastProcessTime());
+				hostEventIndex.setUpdated(i, getLastProcessTime(), time);
+			}
+		}
+	}
+
+	/**
+	 * Gets the name of a metric of this datacenter in the metrics registry.
+	 * 
+	 * @param metric the name of the metric within the datacenter
+	 * @return the name of the metric in the registry
+	 * @see MetricsRegistry
+	 */
+	protected String getMetricName(String metric) {
+		return "datacenter." + getName() + "." + metric;
+	}
+
+	/**
+	 * Starts measuring the time taken by an operation, if the metrics are recorded.
+	 * 
+	 * @return the start time to pass to {@link #recordTime(String, long)}
+	 */
+	protected long startMeasurement() {
+		return CloudSim.getMetrics().isEnabled() ? System.nanoTime() : NOT_MEASURED;
+	}
+
+	/**
+	 * Records the time taken by an operation in a histogram of this datacenter.
+	 * 
+	 * @param metric the name of the histogram within the datacenter
+	 * @param startTime the time returned by {@link #startMeasurement()} when the operation started
+	 */
+	protected void recordTime(String metric, long startTime) {
+		MetricsRegistry metrics = CloudSim.getMetrics();
+		if (startTime != NOT_MEASURED && metrics.isEnabled()) {
+			metrics.histogram(getMetricName(metric)).record(System.nanoTime() - startTime);
+		}
+	}
+
 	/**
 	 * Verifies if some cloudlet inside this Datacenter already finished. 
          * If yes, send it to the User/Broker
+	 * <p/>
+	 * When the host index is used, only the hosts updated or changed since the last
+	 * verification are checked.
 	 * 
 	 * @pre $none
 	 * @post $none
 	 */
 	protected void checkCloudletCompletion() {
 		List<? extends Host> list = getVmAllocationPolicy().getHostList();
+		if (isHostIndexEnabled() && hostEventIndex != null && hostEventIndex.isIndexOf(list)) {
+			BitSet hosts = hostEventIndex.pollHostsToCheck();
+			for (int i = hosts.nextSetBit(0); i >= 0; i = hosts.nextSetBit(i + 1)) {
+				checkCloudletCompletion(list.get(i));
+			}
+			return;
+		}
 		for (int i = 0; i < list.size(); i++) {
-			Host host = list.get(i);
-			for (Vm vm : host.getVmList()) {
-				while (vm.getCloudletScheduler().isFinishedCloudlets()) {
-					Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
-					if (cl != null) {
-						sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
-					}
+			checkCloudletCompletion(list.get(i));
+		}
+	}
+
+	/**
+	 * Sends the finished cloudlets of the VMs of a host to their User/Broker.
+	 * 
+	 * @param host the host
+	 */
+	private void checkCloudletCompletion(Host host) {
+		for (Vm vm : host.getVmList()) {
+			while (vm.getCloudletScheduler().isFinishedCloudlets()) {
+				Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
+				if (cl != null) {
+					sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
 				}
 			}
 		}
@@ -1198,4 +1360,33 @@ public class Datacenter extends SimEntity {
 		this.schedulingInterval = schedulingInterval;
 	}
 
+	/**
+	 * Checks whether the host index is enabled, i.e. whether the updates of the cloudlet
+	 * processing only visit the hosts whose next event is due or whose load changed. It
+	 * requires the cloudlets of a host to progress linearly while its load doesn't change,
+	 * as they do with the time-shared and space-shared cloudlet schedulers, and the hosts
+	 * not to depend on being updated at every update, as {@link HostDynamicWorkload} does
+	 * to record its state history. It is disabled by default.
+	 *
+	 * @return <tt>true</tt> if the host index is enabled, <tt>false</tt> if all the hosts
+	 *         are updated at each update
+	 */
+	public boolean isHostIndexEnabled() {
+		return hostIndexEnabled;
+	}
+
+	/**
+	 * Sets whether the host index is enabled. It must be set before the simulation starts,
+	 * and only enabled when all the VMs use the {@link CloudletSchedulerTimeShared} or
+	 * {@link CloudletSchedulerSpaceShared} cloudlet schedulers on hosts that aren't
+	 * {@link HostDynamicWorkload} hosts.
+	 *
+	 * @param hostIndexEnabled <tt>true</tt> to update only the hosts whose next event is due
+	 *            or whose load changed, <tt>false</tt> to update all the hosts at each update
+	 * @see #isHostIndexEnabled()
+	 */
+	public void setHostIndexEnabled(boolean hostIndexEnabled) {
+		this.hostIndexEnabled = hostIndexEnabled;
+	}
+
 }
@@ -18,8 +18,7 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
-import org.cloudbus.cloudsim.lists.CloudletList;
-import org.cloudbus.cloudsim.lists.VmList;
+import org.cloudbus.cloudsim.lists.IdIndex;
 
 /**
  * DatacentreBroker represents a broker acting on behalf of a user. It hides VM management, as vm
@@ -75,6 +74,15 @@ public class DatacenterBroker extends SimEntity {
          * is a datacenter id and each value is its characteristics.. */
 	protected Map<Integer, DatacenterCharacteristics> datacenterCharacteristicsList;
 
+	/** The index of the {@link #vmList} by VM id. */
+	private final IdIndex<Vm> vmIndex = new IdIndex<Vm>(IdIndex.VM_ID);
+
+	/** The index of the {@link #vmsCreatedList} by VM id. */
+	private final IdIndex<Vm> vmsCreatedIndex = new IdIndex<Vm>(IdIndex.VM_ID);
+
+	/** The index of the {@link #cloudletList} by cloudlet id. */
+	private final IdIndex<Cloudlet> cloudletIndex = new IdIndex<Cloudlet>(IdIndex.CLOUDLET_ID);
+
 	/**
 	 * Created a new DatacenterBroker object.
 	 * 
@@ -143,7 +151,7 @@ public class DatacenterBroker extends SimEntity {
 	 * @post $none
 	 */
 	public void bindCloudletToVm(int cloudletId, int vmId) {
-		CloudletList.getById(getCloudletList(), cloudletId).setVmId(vmId);
+		cloudletIndex.get(getCloudletList(), cloudletId).setVmId(vmId);
 	}
 
 	@Override
@@ -227,10 +235,10 @@ public class DatacenterBroker extends SimEntity {
 
 		if (result == CloudSimTags.TRUE) {
 			getVmsToDatacentersMap().put(vmId, datacenterId);
-			getVmsCreatedList().add(VmList.getById(getVmList(), vmId));
+			getVmsCreatedList().add(vmIndex.get(getVmList(), vmId));
 			Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": VM #", vmId,
 					" has been created in Datacenter #", datacenterId, ", Host #",
-					VmList.getById(getVmsCreatedList(), vmId).getHost().getId());
+					vmsCreatedIndex.get(getVmsCreatedList(), vmId).getHost().getId());
 		} else {
 			Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Creation of VM #", vmId,
 					" failed in Datacenter #", datacenterId);
@@ -356,7 +364,7 @@ public class DatacenterBroker extends SimEntity {
 			if (cloudlet.getVmId() == -1) {
 				vm = getVmsCreatedList().get(vmIndex);
 			} else { // submit to the specific vm
-				vm = VmList.getById(getVmsCreatedList(), cloudlet.getVmId());
+				vm = vmsCreatedIndex.get(getVmsCreatedList(), cloudlet.getVmId());
 				if (vm == null) { // vm was not created
 					if(!Log.isDisabled()) {				    
 					    Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Postponing execution of cloudlet ",
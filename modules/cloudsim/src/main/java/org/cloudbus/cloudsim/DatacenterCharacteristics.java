@@ -12,6 +12,7 @@ import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.lists.HostList;
+import org.cloudbus.cloudsim.lists.IdIndex;
 import org.cloudbus.cloudsim.lists.PeList;
 
 /**
@@ -43,6 +44,9 @@ public class DatacenterCharacteristics {
 	/** The hosts owned by the datacenter. */
 	private List<? extends Host> hostList;
 
+	/** The index of the {@link #hostList} by host id. */
+	private final IdIndex<Host> hostIndex = new IdIndex<Host>(IdIndex.HOST_ID);
+
 	/** The time zone, defined as the difference from GMT. */
 	private double timeZone;
 
@@ -221,7 +225,7 @@ public class DatacenterCharacteristics {
 			return -1;
 		}
 
-		return PeList.getMips(HostList.getById(getHostList(), id).getPeList(), peId);
+		return PeList.getMips(hostIndex.get(getHostList(), id).getPeList(), peId);
 	}
 
 	/**
@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.IdIndex;
 import org.cloudbus.cloudsim.lists.PeList;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
@@ -58,6 +59,9 @@ public class Host {
 	/** The datacenter where the host is placed. */
 	private Datacenter datacenter;
 
+	/** The index of the VMs of the host by their {@link Vm#getKey() key}. */
+	private final IdIndex<Vm> vmIndex = new IdIndex<Vm>(IdIndex.VM_KEY);
+
 	/**
 	 * Instantiates a new host.
 	 * 
@@ -104,8 +108,7 @@ public class Host {
 		double smallerTime = Double.MAX_VALUE;
 
 		for (Vm vm : getVmList()) {
-			double time = vm.updateVmProcessing(
-                                currentTime, getVmScheduler().getAllocatedMipsForVm(vm));
+			double time = vm.updateVmProcessing(currentTime, getAllocatedMipsShare(vm));
 			if (time > 0.0 && time < smallerTime) {
 				smallerTime = time;
 			}
@@ -306,12 +309,7 @@ public class Host {
 	 * @post $none
 	 */
 	public Vm getVm(int vmId, int userId) {
-		for (Vm vm : getVmList()) {
-			if (vm.getId() == vmId && vm.getUserId() == userId) {
-				return vm;
-			}
-		}
-		return null;
+		return vmIndex.get(getVmList(), Vm.getKey(userId, vmId));
 	}
 
 	/**
@@ -377,6 +375,18 @@ public class Host {
 		return getVmScheduler().getAllocatedMipsForVm(vm);
 	}
 
+	/**
+	 * Gets the MIPS share allocated to a VM, without copying it, to pass it on to the VM
+	 * at once. The VM scheduler may reuse the share for another VM at the next allocation.
+	 * 
+	 * @param vm the vm
+	 * @return the MIPS share of the VM, or null if there is none
+	 * @see VmScheduler#getAllocatedMipsShare(Vm)
+	 */
+	protected List<Double> getAllocatedMipsShare(Vm vm) {
+		return getVmScheduler().getAllocatedMipsShare(vm);
+	}
+
 	/**
 	 * Gets the total allocated MIPS for a VM along all its PEs.
 	 * 
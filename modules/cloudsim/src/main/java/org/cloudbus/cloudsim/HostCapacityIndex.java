@@ -0,0 +1,220 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HostCapacityIndex keeps one or more capacity values for each host of a host list, such as
+ * its number of free PEs or its available MIPS, in segment trees of their maximums. It finds
+ * the host with the maximum value, or the next host whose values are at least some minimums,
+ * in logarithmic time instead of scanning the host list, and a value is updated in
+ * logarithmic time when a VM is created at or destroyed from a host.
+ * <p/>
+ * The hosts are identified by their position in the host list. On ties, the host that comes
+ * first in the list is found, as a linear scan would do. The meaning of the values is up to
+ * the VM allocation policy that keeps the index up to date.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class HostCapacityIndex {
+
+	/** The indexed host list. */
+	private final List<? extends Host> hostList;
+
+	/** The position of each host in the host list. */
+	private final Map<Host, Integer> positions;
+
+	/** The number of leaves of the trees, the smallest power of two not less than the number of hosts. */
+	private final int leafCount;
+
+	/**
+	 * The trees of each value: the value of the host at position <tt>i</tt> is at
+	 * <tt>leafCount + i</tt>, and the node <tt>n</tt> holds the maximum of the nodes
+	 * <tt>2n</tt> and <tt>2n+1</tt>.
+	 */
+	private final double[][] trees;
+
+	/**
+	 * Instantiates a new index of the hosts of a host list. All the values are
+	 * {@link Double#NEGATIVE_INFINITY} until they are set.
+	 *
+	 * @param hostList the host list
+	 * @param dimensions the number of values of each host
+	 */
+	public HostCapacityIndex(List<? extends Host> hostList, int dimensions) {
+		this.hostList = hostList;
+		int size = hostList.size();
+		positions = new IdentityHashMap<Host, Integer>(size);
+		for (int i = 0; i < size; i++) {
+			positions.put(hostList.get(i), i);
+		}
+		int leaves = 1;
+		while (leaves < size) {
+			leaves *= 2;
+		}
+		leafCount = leaves;
+		trees = new double[dimensions][2 * leafCount];
+		for (double[] tree : trees) {
+			Arrays.fill(tree, Double.NEGATIVE_INFINITY);
+		}
+	}
+
+	/**
+	 * Checks whether this index is up to date with a host list.
+	 *
+	 * @param hostList the host list
+	 * @return <tt>true</tt> if the index was created for the list and no host was added to
+	 *         or removed from it since, <tt>false</tt> otherwise
+	 */
+	public boolean isIndexOf(List<? extends Host> hostList) {
+		return this.hostList == hostList && positions.size() == hostList.size();
+	}
+
+	/**
+	 * Gets the indexed host list.
+	 *
+	 * @param <T> the generic type
+	 * @return the host list
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Host> List<T> getHostList() {
+		return (List<T>) hostList;
+	}
+
+	/**
+	 * Gets the position of a host in the host list.
+	 *
+	 * @param host the host
+	 * @return the position of the host, or -1 if it isn't indexed
+	 */
+	public int getPosition(Host host) {
+		Integer position = positions.get(host);
+		return position == null ? -1 : position;
+	}
+
+	/**
+	 * Gets the number of values of each host.
+	 *
+	 * @return the number of values
+	 */
+	public int getDimensions() {
+		return trees.length;
+	}
+
+	/**
+	 * Gets a value of a host.
+	 *
+	 * @param position the position of the host
+	 * @param dimension the index of the value
+	 * @return the value
+	 */
+	public double getValue(int position, int dimension) {
+		return trees[dimension][leafCount + position];
+	}
+
+	/**
+	 * Sets a value of a host.
+	 *
+	 * @param position the position of the host
+	 * @param dimension the index of the value
+	 * @param value the new value
+	 */
+	public void setValue(int position, int dimension, double value) {
+		if (position < 0 || position >= positions.size()) {
+			throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + positions.size());
+		}
+		double[] tree = trees[dimension];
+		int node = leafCount + position;
+		if (Double.compare(tree[node], value) == 0) {
+			return;
+		}
+		tree[node] = value;
+		for (node /= 2; node > 0; node /= 2) {
+			double max = Math.max(tree[2 * node], tree[2 * node + 1]);
+			if (Double.compare(tree[node], max) == 0) {
+				break;
+			}
+			tree[node] = max;
+		}
+	}
+
+	/**
+	 * Gets the position of the first host with the maximum value.
+	 *
+	 * @param dimension the index of the value
+	 * @return the position of the host, or -1 if there are no hosts
+	 */
+	public int getMaxPosition(int dimension) {
+		if (positions.isEmpty()) {
+			return -1;
+		}
+		double[] tree = trees[dimension];
+		int node = 1;
+		while (node < leafCount) {
+			node = tree[2 * node] >= tree[node] ? 2 * node : 2 * node + 1;
+		}
+		return node - leafCount;
+	}
+
+	/**
+	 * Gets the position of the first host, from a position on, whose values are not less than
+	 * some minimums. Whole ranges of hosts are skipped when the maximum of one of their values
+	 * is less than its minimum.
+	 *
+	 * @param from the position to start from
+	 * @param minValues the minimum of each value
+	 * @return the position of the host, or -1 if there is no such host
+	 */
+	public int nextPosition(int from, double... minValues) {
+		if (from < 0) {
+			from = 0;
+		}
+		if (from >= positions.size()) {
+			return -1;
+		}
+		return nextPosition(1, 0, leafCount, from, minValues);
+	}
+
+	/**
+	 * Gets the position of the first host of the range of a node, from a position on, whose
+	 * values are not less than some minimums.
+	 *
+	 * @param node the node
+	 * @param start the first position of the range of the node
+	 * @param end the position after the range of the node
+	 * @param from the position to start from
+	 * @param minValues the minimum of each value
+	 * @return the position of the host, or -1 if there is no such host in the range
+	 */
+	private int nextPosition(int node, int start, int end, int from, double[] minValues) {
+		if (end <= from) {
+			return -1;
+		}
+		for (int i = 0; i < minValues.length; i++) {
+			if (!(trees[i][node] >= minValues[i])) {
+				return -1;
+			}
+		}
+		if (node >= leafCount) {
+			int position = node - leafCount;
+			return position < positions.size() ? position : -1;
+		}
+		int middle = (start + end) / 2;
+		int position = nextPosition(2 * node, start, middle, from, minValues);
+		if (position < 0) {
+			position = nextPosition(2 * node + 1, middle, end, from, minValues);
+		}
+		return position;
+	}
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * HostCapacitySnapshot is an immutable copy of the resources of a {@link Host} that are
+ * available to new VMs: PE capacity, MIPS, RAM, bandwidth and storage. It answers what-if
+ * questions about the placement of VMs on the host without allocating anything: a snapshot
+ * {@link #withVm(Vm) with a VM} is a new snapshot whose resources are reduced by the ones the
+ * VM requests, and the host itself is left unchanged.
+ * <p/>
+ * The checks are the ones of {@link Host#isSuitableForVm(Vm)} and {@link Host#vmCreate(Vm)}
+ * with the simple RAM and bandwidth provisioners and the time-shared VM schedulers: the VMs
+ * are assumed not to be migrating.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class HostCapacitySnapshot {
+
+	/** The host. */
+	private final Host host;
+
+	/** The MIPS capacity of a PE of the host. */
+	private final double peCapacity;
+
+	/** The MIPS available to new VMs. */
+	private final double availableMips;
+
+	/** The RAM available to new VMs. */
+	private final int availableRam;
+
+	/** The bandwidth available to new VMs. */
+	private final long availableBw;
+
+	/** The storage available to new VMs. */
+	private final long availableStorage;
+
+	/** The VMs of the host, followed by the VMs added to the snapshot. */
+	private final List<Vm> vmList;
+
+	/** The number of VMs added to the snapshot. */
+	private final int addedVmCount;
+
+	/**
+	 * Instantiates a snapshot of the current resources and VMs of a host.
+	 *
+	 * @param host the host
+	 */
+	public HostCapacitySnapshot(Host host) {
+		this(host,
+				host.getVmScheduler().getPeCapacity(),
+				host.getVmScheduler().getAvailableMips(),
+				host.getRamProvisioner().getAvailableRam(),
+				host.getBwProvisioner().getAvailableBw(),
+				host.getStorage(),
+				new ArrayList<Vm>(host.getVmList()),
+				0);
+	}
+
+	/**
+	 * Instantiates a snapshot.
+	 *
+	 * @param host the host
+	 * @param peCapacity the MIPS capacity of a PE
+	 * @param availableMips the available MIPS
+	 * @param availableRam the available RAM
+	 * @param availableBw the available bandwidth
+	 * @param availableStorage the available storage
+	 * @param vmList the VMs, which the snapshot takes ownership of
+	 * @param addedVmCount the number of VMs added to the snapshot, at the end of the VM list
+	 */
+	private HostCapacitySnapshot(
+			Host host,
+			double peCapacity,
+			double availableMips,
+			int availableRam,
+			long availableBw,
+			long availableStorage,
+			List<Vm> vmList,
+			int addedVmCount) {
+		this.host = host;
+		this.peCapacity = peCapacity;
+		this.availableMips = availableMips;
+		this.availableRam = availableRam;
+		this.availableBw = availableBw;
+		this.availableStorage = availableStorage;
+		this.vmList = Collections.unmodifiableList(vmList);
+		this.addedVmCount = addedVmCount;
+	}
+
+	/**
+	 * Checks whether the resources of the snapshot are enough to create a VM, as
+	 * {@link Host#vmCreate(Vm)} would on the host.
+	 *
+	 * @param vm the VM
+	 * @return <tt>true</tt> if the VM could be created, <tt>false</tt> otherwise
+	 */
+	public boolean isSuitableForVm(Vm vm) {
+		return peCapacity >= vm.getCurrentRequestedMaxMips()
+				&& availableMips >= vm.getCurrentRequestedTotalMips()
+				&& availableRam >= getRequestedRam(vm)
+				&& availableBw >= vm.getCurrentRequestedBw()
+				&& availableStorage >= vm.getSize();
+	}
+
+	/**
+	 * Gets a snapshot of the host with a VM added to it. The resources of the new snapshot
+	 * are reduced by the ones requested by the VM, and the VM is added to its VM list.
+	 *
+	 * @param vm the VM
+	 * @return the snapshot with the VM
+	 * @throws IllegalArgumentException if the snapshot is not {@link #isSuitableForVm(Vm) suitable}
+	 *             for the VM
+	 */
+	public HostCapacitySnapshot withVm(Vm vm) {
+		if (!isSuitableForVm(vm)) {
+			throw new IllegalArgumentException("The host #" + host.getId()
+					+ " doesn't have enough resources for VM #" + vm.getId());
+		}
+		List<Vm> newVmList = new ArrayList<Vm>(vmList.size() + 1);
+		newVmList.addAll(vmList);
+		newVmList.add(vm);
+		return new HostCapacitySnapshot(
+				host,
+				peCapacity,
+				availableMips - vm.getCurrentRequestedTotalMips(),
+				availableRam - getRequestedRam(vm),
+				availableBw - vm.getCurrentRequestedBw(),
+				availableStorage - vm.getSize(),
+				newVmList,
+				addedVmCount + 1);
+	}
+
+	/**
+	 * Gets the RAM that would be allocated to a VM, which is not more than the RAM of the VM.
+	 *
+	 * @param vm the VM
+	 * @return the requested RAM
+	 */
+	private static int getRequestedRam(Vm vm) {
+		return Math.min(vm.getCurrentRequestedRam(), vm.getRam());
+	}
+
+	/**
+	 * Gets the host.
+	 *
+	 * @return the host
+	 */
+	public Host getHost() {
+		return host;
+	}
+
+	/**
+	 * Gets the MIPS capacity of a PE of the host.
+	 *
+	 * @return the PE capacity
+	 */
+	public double getPeCapacity() {
+		return peCapacity;
+	}
+
+	/**
+	 * Gets the MIPS available to new VMs.
+	 *
+	 * @return the available MIPS
+	 */
+	public double getAvailableMips() {
+		return availableMips;
+	}
+
+	/**
+	 * Gets the RAM available to new VMs.
+	 *
+	 * @return the available RAM
+	 */
+	public int getAvailableRam() {
+		return availableRam;
+	}
+
+	/**
+	 * Gets the bandwidth available to new VMs.
+	 *
+	 * @return the available bandwidth
+	 */
+	public long getAvailableBw() {
+		return availableBw;
+	}
+
+	/**
+	 * Gets the storage available to new VMs.
+	 *
+	 * @return the available storage
+	 */
+	public long getAvailableStorage() {
+		return availableStorage;
+	}
+
+	/**
+	 * Gets the VMs of the host when the snapshot was taken, followed by the VMs added to the
+	 * snapshot, in the order they were added.
+	 *
+	 * @return the read-only list of VMs
+	 */
+	public List<Vm> getVmList() {
+		return vmList;
+	}
+
+	/**
+	 * Gets the VMs added to the snapshot, in the order they were added.
+	 *
+	 * @return the read-only list of added VMs
+	 */
+	public List<Vm> getAddedVms() {
+		return vmList.subList(vmList.size() - addedVmCount, vmList.size());
+	}
+
+}
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.cloudbus.cloudsim.Log.Level;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.lists.PeList;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
@@ -25,6 +26,9 @@ import org.cloudbus.cloudsim.provisioners.RamProvisioner;
  */
 public class HostDynamicWorkload extends Host {
 
+	/** The log category of the hosts. */
+	private static final Log.Category LOG = Log.getCategory(HostDynamicWorkload.class);
+
 	/** The utilization mips. */
 	private double utilizationMips;
 
@@ -34,6 +38,16 @@ public class HostDynamicWorkload extends Host {
 	/** The host utilization state history. */
 	private final List<HostStateHistoryEntry> stateHistory = new LinkedList<HostStateHistoryEntry>();
 
+	/** The MIPS requested by a VM, reused to reallocate the PEs of each VM. */
+	private final MipsShare requestedMips = new MipsShare();
+
+	/**
+	 * Whether the PEs of the VMs are reallocated at once by
+	 * {@link VmScheduler#reallocatePesForVms(List)}, rather than by deallocating the PEs of each
+	 * VM, then allocating PEs for each VM.
+	 */
+	private boolean incrementalReprovisioningEnabled = true;
+
 	/**
 	 * Instantiates a new host.
 	 * 
@@ -63,24 +77,32 @@ public class HostDynamicWorkload extends Host {
 		setUtilizationMips(0);
 		double hostTotalRequestedMips = 0;
 
-		for (Vm vm : getVmList()) {
-			getVmScheduler().deallocatePesForVm(vm);
-		}
+		if (isIncrementalReprovisioningEnabled()) {
+			getVmScheduler().reallocatePesForVms(getVmList());
+		} else {
+			for (Vm vm : getVmList()) {
+				getVmScheduler().deallocatePesForVm(vm);
+			}
 
-		for (Vm vm : getVmList()) {
-			getVmScheduler().allocatePesForVm(vm, vm.getCurrentRequestedMips());
+			for (Vm vm : getVmList()) {
+				vm.getCurrentRequestedMips(requestedMips);
+				getVmScheduler().allocatePesForVm(vm, requestedMips);
+			}
 		}
 
 		for (Vm vm : getVmList()) {
 			double totalRequestedMips = vm.getCurrentRequestedTotalMips();
 			double totalAllocatedMips = getVmScheduler().getTotalAllocatedMipsForVm(vm);
 
-			if (!Log.isDisabled()) {
-				Log.formatLine(
-						"%.2f: [Host #" + getId() + "] Total allocated MIPS for VM #" + vm.getId()
-								+ " (Host #" + vm.getHost().getId()
-								+ ") is %.2f, was requested %.2f out of total %.2f (%.2f%%)",
+			if (LOG.isEnabled(Level.DEBUG)) {
+				LOG.formatLine(
+						Level.DEBUG,
+						"%.2f: [Host #%d] Total allocated MIPS for VM #%d (Host #%d) is %.2f,"
+								+ " was requested %.2f out of total %.2f (%.2f%%)",
 						CloudSim.clock(),
+						getId(),
+						vm.getId(),
+						vm.getHost().getId(),
 						totalAllocatedMips,
 						totalRequestedMips,
 						vm.getMips(),
@@ -89,23 +111,27 @@ public class HostDynamicWorkload extends Host {
 				List<Pe> pes = getVmScheduler().getPesAllocatedForVM(vm);
 				StringBuilder pesString = new StringBuilder();
 				for (Pe pe : pes) {
-					pesString.append(String.format(" PE #" + pe.getId() + ": %.2f.", pe.getPeProvisioner()
+					pesString.append(String.format(" PE #%d: %.2f.", pe.getId(), pe.getPeProvisioner()
 							.getTotalAllocatedMipsForVm(vm)));
 				}
-				Log.formatLine(
-						"%.2f: [Host #" + getId() + "] MIPS for VM #" + vm.getId() + " by PEs ("
-								+ getNumberOfPes() + " * " + getVmScheduler().getPeCapacity() + ")."
-								+ pesString,
-						CloudSim.clock());
+				LOG.formatLine(
+						Level.DEBUG,
+						"%.2f: [Host #%d] MIPS for VM #%d by PEs (%d * %s).%s",
+						CloudSim.clock(),
+						getId(),
+						vm.getId(),
+						getNumberOfPes(),
+						getVmScheduler().getPeCapacity(),
+						pesString);
 			}
 
 			if (getVmsMigratingIn().contains(vm)) {
-				Log.formatLine("%.2f: [Host #" + getId() + "] VM #" + vm.getId()
-						+ " is being migrated to Host #" + getId(), CloudSim.clock());
+				LOG.formatLine(Level.INFO, "%.2f: [Host #%d] VM #%d is being migrated to Host #%d",
+						CloudSim.clock(), getId(), vm.getId(), getId());
 			} else {
-				if (totalAllocatedMips + 0.1 < totalRequestedMips) {
-					Log.formatLine("%.2f: [Host #" + getId() + "] Under allocated MIPS for VM #" + vm.getId()
-							+ ": %.2f", CloudSim.clock(), totalRequestedMips - totalAllocatedMips);
+				if (totalAllocatedMips + 0.1 < totalRequestedMips && LOG.isEnabled(Level.DEBUG)) {
+					LOG.formatLine(Level.DEBUG, "%.2f: [Host #%d] Under allocated MIPS for VM #%d: %.2f",
+							CloudSim.clock(), getId(), vm.getId(), totalRequestedMips - totalAllocatedMips);
 				}
 
 				vm.addStateHistoryEntry(
@@ -115,9 +141,8 @@ public class HostDynamicWorkload extends Host {
 						(vm.isInMigration() && !getVmsMigratingIn().contains(vm)));
 
 				if (vm.isInMigration()) {
-					Log.formatLine(
-							"%.2f: [Host #" + getId() + "] VM #" + vm.getId() + " is in migration",
-							CloudSim.clock());
+					LOG.formatLine(Level.INFO, "%.2f: [Host #%d] VM #%d is in migration",
+							CloudSim.clock(), getId(), vm.getId());
 					totalAllocatedMips /= 0.9; // performance degradation due to migration - 10%
 				}
 			}
@@ -263,6 +288,27 @@ public class HostDynamicWorkload extends Host {
 		this.previousUtilizationMips = previousUtilizationMips;
 	}
 
+	/**
+	 * Checks whether the PEs of the VMs are reallocated at once at each update of the VMs
+	 * processing, by {@link VmScheduler#reallocatePesForVms(List)}.
+	 * 
+	 * @return true, if the incremental reprovisioning is enabled
+	 */
+	public boolean isIncrementalReprovisioningEnabled() {
+		return incrementalReprovisioningEnabled;
+	}
+
+	/**
+	 * Sets whether the PEs of the VMs are reallocated at once at each update of the VMs
+	 * processing, rather than by deallocating the PEs of each VM, then allocating PEs for each
+	 * VM. The allocation is the same either way.
+	 * 
+	 * @param incrementalReprovisioningEnabled true to enable the incremental reprovisioning
+	 */
+	public void setIncrementalReprovisioningEnabled(boolean incrementalReprovisioningEnabled) {
+		this.incrementalReprovisioningEnabled = incrementalReprovisioningEnabled;
+	}
+
 	/**
 	 * Gets the host state history.
 	 * 
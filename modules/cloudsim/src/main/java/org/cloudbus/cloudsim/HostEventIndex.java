@@ -0,0 +1,254 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * HostEventIndex keeps, for a {@link Datacenter}, the time of the next event of each host
+ * (the time the next cloudlet running in one of its VMs is expected to finish), so that only
+ * the hosts whose next event is due, or whose load changed since they were last updated,
+ * have to be updated when the processing of the datacenter is updated.
+ * <p/>
+ * The hosts are identified by their position in the host list. The next event times are kept
+ * in a priority queue whose outdated entries are discarded when they reach its head.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see Datacenter#updateCloudletProcessing()
+ */
+class HostEventIndex {
+
+	/** The indexed host list. */
+	private final List<? extends Host> hostList;
+
+	/** The position of each host in the host list. */
+	private final Map<Host, Integer> positions;
+
+	/** The time of the next event of each host. */
+	private final double[] nextEventTimes;
+
+	/** The last time each host was updated. */
+	private final double[] updateTimes;
+
+	/** The version of the next event time of each host, to recognize outdated queue entries. */
+	private final int[] versions;
+
+	/** The next event times of the hosts, including outdated ones. */
+	private final PriorityQueue<Entry> queue;
+
+	/** The hosts whose load changed since they were last updated. */
+	private final BitSet dirtyHosts;
+
+	/** The hosts that may have finished cloudlets since they were last checked. */
+	private final BitSet hostsToCheck;
+
+	/**
+	 * Instantiates a new index of the hosts of a host list. All the hosts are dirty,
+	 * as none of them has been updated yet.
+	 *
+	 * @param hostList the host list
+	 */
+	public HostEventIndex(List<? extends Host> hostList) {
+		this.hostList = hostList;
+		int size = hostList.size();
+		positions = new IdentityHashMap<Host, Integer>(size);
+		for (int i = 0; i < size; i++) {
+			positions.put(hostList.get(i), i);
+		}
+		nextEventTimes = new double[size];
+		Arrays.fill(nextEventTimes, Double.MAX_VALUE);
+		updateTimes = new double[size];
+		Arrays.fill(updateTimes, -1);
+		versions = new int[size];
+		queue = new PriorityQueue<Entry>();
+		dirtyHosts = new BitSet(size);
+		dirtyHosts.set(0, size);
+		hostsToCheck = new BitSet(size);
+	}
+
+	/**
+	 * Checks whether this index is up to date with a host list.
+	 *
+	 * @param hostList the host list
+	 * @return <tt>true</tt> if the index was created for the list and no host was added to
+	 *         or removed from it since, <tt>false</tt> otherwise
+	 */
+	public boolean isIndexOf(List<? extends Host> hostList) {
+		return this.hostList == hostList && nextEventTimes.length == hostList.size();
+	}
+
+	/**
+	 * Gets the position of a host in the host list.
+	 *
+	 * @param host the host
+	 * @return the position of the host, or -1 if it isn't indexed
+	 */
+	public int getPosition(Host host) {
+		Integer position = positions.get(host);
+		return position == null ? -1 : position;
+	}
+
+	/**
+	 * Gets the last time a host was updated.
+	 *
+	 * @param position the position of the host
+	 * @return the last time the host was updated, or -1 if it has never been updated
+	 */
+	public double getUpdateTime(int position) {
+		return updateTimes[position];
+	}
+
+	/**
+	 * Records the update of a host. The host may have finished cloudlets.
+	 *
+	 * @param position the position of the host
+	 * @param time the time the host was updated
+	 * @param nextEventTime the time of the next event of the host, as returned
+	 *            by {@link Host#updateVmsProcessing(double)}
+	 */
+	public void setUpdated(int position, double time, double nextEventTime) {
+		updateTimes[position] = time;
+		hostsToCheck.set(position);
+		if (nextEventTime == nextEventTimes[position]) {
+			return;
+		}
+		nextEventTimes[position] = nextEventTime;
+		versions[position]++;
+		if (queue.size() > 2 * nextEventTimes.length + 16) {
+			rebuildQueue();
+		} else if (nextEventTime != Double.MAX_VALUE) {
+			queue.add(new Entry(nextEventTime, position, versions[position]));
+		}
+	}
+
+	/**
+	 * Marks a host as dirty, so that it is updated at the next update of the datacenter,
+	 * and as possibly having finished cloudlets.
+	 *
+	 * @param position the position of the host
+	 */
+	public void setDirty(int position) {
+		dirtyHosts.set(position);
+		hostsToCheck.set(position);
+	}
+
+	/**
+	 * Marks all the hosts as dirty.
+	 */
+	public void setAllDirty() {
+		dirtyHosts.set(0, nextEventTimes.length);
+	}
+
+	/**
+	 * Gets the hosts that have to be updated: the dirty hosts and the ones whose next event
+	 * is due. The hosts are no longer dirty afterwards.
+	 *
+	 * @param time the time up to which the events are due
+	 * @return the positions of the hosts to update
+	 */
+	public BitSet pollHostsToUpdate(double time) {
+		BitSet hosts = (BitSet) dirtyHosts.clone();
+		dirtyHosts.clear();
+		while (!queue.isEmpty() && queue.peek().time <= time) {
+			Entry entry = queue.poll();
+			if (entry.version == versions[entry.position]) {
+				hosts.set(entry.position);
+				// the entry is removed from the queue
+				nextEventTimes[entry.position] = Double.MAX_VALUE;
+				versions[entry.position]++;
+			}
+		}
+		return hosts;
+	}
+
+	/**
+	 * Gets the earliest next event time of the hosts.
+	 *
+	 * @return the earliest next event time, or {@link Double#MAX_VALUE} if no host has a
+	 *         next event
+	 */
+	public double getNextEventTime() {
+		while (!queue.isEmpty()) {
+			Entry entry = queue.peek();
+			if (entry.version == versions[entry.position]) {
+				return entry.time;
+			}
+			queue.poll();
+		}
+		return Double.MAX_VALUE;
+	}
+
+	/**
+	 * Gets the hosts that may have finished cloudlets since they were last checked.
+	 * The hosts are no longer marked afterwards.
+	 *
+	 * @return the positions of the hosts to check
+	 */
+	public BitSet pollHostsToCheck() {
+		BitSet hosts = (BitSet) hostsToCheck.clone();
+		hostsToCheck.clear();
+		return hosts;
+	}
+
+	/**
+	 * Rebuilds the queue from the next event times, removing the outdated entries.
+	 */
+	private void rebuildQueue() {
+		queue.clear();
+		for (int i = 0; i < nextEventTimes.length; i++) {
+			if (nextEventTimes[i] != Double.MAX_VALUE) {
+				queue.add(new Entry(nextEventTimes[i], i, versions[i]));
+			}
+		}
+	}
+
+	/**
+	 * An entry of the queue: the next event time of a host.
+	 */
+	private static class Entry implements Comparable<Entry> {
+
+		/** The next event time. */
+		private final double time;
+
+		/** The position of the host. */
+		private final int position;
+
+		/** The version of the next event time of the host. */
+		private final int version;
+
+		/**
+		 * Instantiates a new entry.
+		 *
+		 * @param time the next event time
+		 * @param position the position of the host
+		 * @param version the version of the next event time of the host
+		 */
+		public Entry(double time, int position, int version) {
+			this.time = time;
+			this.position = position;
+			this.version = version;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			int result = Double.compare(time, other.time);
+			if (result == 0) {
+				result = position < other.position ? -1 : (position == other.position ? 0 : 1);
+			}
+			return result;
+		}
+
+	}
+
+}
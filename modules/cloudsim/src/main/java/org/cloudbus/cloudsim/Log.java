@@ -10,10 +10,22 @@ package org.cloudbus.cloudsim;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Formatter;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 /**
  * Logger used for performing logging of the simulation process. It provides the ability to
- * substitute the output stream by any OutputStream subclass.
+ * substitute the output stream by any OutputStream subclass, such as an
+ * {@link AsyncLogAppender} that writes the log on a background thread.
+ * <p/>
+ * Besides the static print methods, which print any message unless the logger is disabled,
+ * messages can be printed through a {@link Category} with a {@link Level}. A category prints
+ * a message only if its level is enabled, and its methods take the arguments of the message,
+ * so that nothing is formatted or concatenated for a message that is not printed. On hot
+ * paths, arguments that would be boxed are guarded by {@link Category#isEnabled(Level)}.
  * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 2.0
@@ -22,6 +34,26 @@ import java.io.OutputStream;
  */
 public class Log {
 
+	/**
+	 * The levels of the messages, from the most to the least important. A level is enabled
+	 * for a category if it is not less important than the level of the category.
+	 */
+	public enum Level {
+
+		/** Errors, after which the simulation may not go on as expected. */
+		ERROR,
+
+		/** Unexpected situations, after which the simulation goes on. */
+		WARNING,
+
+		/** The main steps of the simulation. */
+		INFO,
+
+		/** The details of each step, such as the allocation of each VM at each interval. */
+		DEBUG
+
+	}
+
 	/** The Constant LINE_SEPARATOR. */
 	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
@@ -32,8 +64,23 @@ public class Log {
          the call for any print method has no effect. */
 	private static boolean disabled;
 	
-	/** Buffer to avoid creating new string builder upon every print. */
-	private static StringBuilder buffer = new StringBuilder();		    
+	/** The level of the categories whose level is not set. */
+	private static volatile Level level = Level.DEBUG;
+
+	/** The categories, by name. */
+	private static final ConcurrentMap<String, Category> categories = new ConcurrentHashMap<String, Category>();
+
+	/**
+	 * The formatter of each thread, with its buffer, to avoid creating new formatters and
+	 * string builders upon every print.
+	 */
+	private static final ThreadLocal<Formatter> formatter = new ThreadLocal<Formatter>() {
+
+		@Override
+		protected Formatter initialValue() {
+			return new Formatter(new StringBuilder());
+		}
+	};
 
 	/**
 	 * Prints a message.
@@ -89,7 +136,7 @@ public class Log {
 	 */
 	public static void printConcat(Object... messages) {
 		if (!isDisabled()) {
-			buffer.setLength(0); // Clear the buffer		    
+			StringBuilder buffer = getBuffer();
 			for(int i = 0 ; i < messages.length ; i ++) {
 				buffer.append(String.valueOf(messages[i]));
 			}
@@ -104,7 +151,7 @@ public class Log {
 	 */
 	public static void printConcatLine(Object... messages) {
 		if (!isDisabled()) {
-			buffer.setLength(0); // Clear the buffer		    
+			StringBuilder buffer = getBuffer();
 			for(int i = 0 ; i < messages.length ; i ++) {
 				buffer.append(String.valueOf(messages[i]));
 			}
@@ -135,7 +182,7 @@ public class Log {
 	 */
 	public static void format(String format, Object... args) {
 		if (!isDisabled()) {
-			print(String.format(format, args));
+			print(getFormatter().format(format, args).out());
 		}
 	}
 
@@ -147,10 +194,35 @@ public class Log {
 	 */
 	public static void formatLine(String format, Object... args) {
 		if (!isDisabled()) {
-			printLine(String.format(format, args));
+			printLine(getFormatter().format(format, args).out());
 		}
 	}
 
+	/**
+	 * Gets the empty buffer of the formatter of the current thread.
+	 * 
+	 * @return the buffer
+	 */
+	private static StringBuilder getBuffer() {
+		return (StringBuilder) getFormatter().out();
+	}
+
+	/**
+	 * Gets the formatter of the current thread, with an empty buffer. The formatter formats
+	 * in the current default locale, as {@link String#format(String, Object...)}.
+	 * 
+	 * @return the formatter
+	 */
+	private static Formatter getFormatter() {
+		Formatter threadFormatter = formatter.get();
+		if (!threadFormatter.locale().equals(Locale.getDefault(Locale.Category.FORMAT))) {
+			threadFormatter = new Formatter(new StringBuilder());
+			formatter.set(threadFormatter);
+		}
+		((StringBuilder) threadFormatter.out()).setLength(0);
+		return threadFormatter;
+	}
+
 	/**
 	 * Sets the output stream.
 	 * 
@@ -172,6 +244,18 @@ public class Log {
 		return output;
 	}
 
+	/**
+	 * Flushes the output stream, so that all the messages printed so far are written, even if
+	 * the output is buffered.
+	 */
+	public static void flush() {
+		try {
+			getOutput().flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
 	/**
 	 * Sets the disable output flag.
 	 * 
@@ -204,4 +288,232 @@ public class Log {
 		setDisabled(false);
 	}
 
+	/**
+	 * Gets the level of the categories whose level is not set.
+	 * 
+	 * @return the level
+	 */
+	public static Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Sets the level of the categories whose level is not set. It is {@link Level#DEBUG} by
+	 * default, so that all the messages are printed.
+	 * 
+	 * @param _level the new level
+	 */
+	public static void setLevel(Level _level) {
+		level = _level;
+	}
+
+	/**
+	 * Gets the category with a given name, creating it if needed.
+	 * 
+	 * @param name the name of the category
+	 * @return the category
+	 */
+	public static Category getCategory(String name) {
+		Category category = categories.get(name);
+		if (category == null) {
+			Category newCategory = new Category(name);
+			category = categories.putIfAbsent(name, newCategory);
+			if (category == null) {
+				category = newCategory;
+			}
+		}
+		return category;
+	}
+
+	/**
+	 * Gets the category of the messages of a class, named after the class.
+	 * 
+	 * @param clazz the class
+	 * @return the category
+	 */
+	public static Category getCategory(Class<?> clazz) {
+		return getCategory(clazz.getName());
+	}
+
+	/**
+	 * A category of messages, such as the messages of a class, with its own level. The
+	 * methods of a category print a message only if the logger is enabled and the level of
+	 * the message is enabled for the category, and do nothing else otherwise.
+	 */
+	public static final class Category {
+
+		/** The name. */
+		private final String name;
+
+		/** The level, or <tt>null</tt> for the level of the logger. */
+		private volatile Level level;
+
+		/**
+		 * Instantiates a new category.
+		 * 
+		 * @param name the name
+		 */
+		private Category(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Gets the name of the category.
+		 * 
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the level of the category, which is the level of the logger if it is not set.
+		 * 
+		 * @return the level
+		 */
+		public Level getLevel() {
+			Level categoryLevel = level;
+			return categoryLevel == null ? Log.getLevel() : categoryLevel;
+		}
+
+		/**
+		 * Sets the level of the category.
+		 * 
+		 * @param level the new level, or <tt>null</tt> for the level of the logger
+		 */
+		public void setLevel(Level level) {
+			this.level = level;
+		}
+
+		/**
+		 * Checks if messages of a given level are printed.
+		 * 
+		 * @param level the level of the messages
+		 * @return true, if the logger is enabled and the level is enabled for the category
+		 */
+		public boolean isEnabled(Level level) {
+			return !isDisabled() && level.compareTo(getLevel()) <= 0;
+		}
+
+		/**
+		 * Prints an empty line.
+		 * 
+		 * @param level the level of the line
+		 */
+		public void printLine(Level level) {
+			if (isEnabled(level)) {
+				Log.printLine();
+			}
+		}
+
+		/**
+		 * Prints a message and a new line.
+		 * 
+		 * @param level the level of the message
+		 * @param message the message
+		 */
+		public void printLine(Level level, Object message) {
+			if (isEnabled(level)) {
+				Log.printLine(message);
+			}
+		}
+
+		/**
+		 * Prints a message given by a supplier, called only if the message is printed, and a
+		 * new line.
+		 * 
+		 * @param level the level of the message
+		 * @param message the supplier of the message
+		 */
+		public void printLine(Level level, Supplier<?> message) {
+			if (isEnabled(level)) {
+				Log.printLine(message.get());
+			}
+		}
+
+		/**
+		 * Prints the concatenated text representation of the arguments and a new line.
+		 * 
+		 * @param level the level of the message
+		 * @param messages the messages to print
+		 */
+		public void printConcatLine(Level level, Object... messages) {
+			if (isEnabled(level)) {
+				Log.printConcatLine(messages);
+			}
+		}
+
+		/**
+		 * Prints a string formated as in String.format(), followed by a new line.
+		 * 
+		 * @param level the level of the message
+		 * @param format the format
+		 * @param arg the argument
+		 */
+		public void formatLine(Level level, String format, Object arg) {
+			if (isEnabled(level)) {
+				Log.formatLine(format, arg);
+			}
+		}
+
+		/**
+		 * Prints a string formated as in String.format(), followed by a new line.
+		 * 
+		 * @param level the level of the message
+		 * @param format the format
+		 * @param arg1 the first argument
+		 * @param arg2 the second argument
+		 */
+		public void formatLine(Level level, String format, Object arg1, Object arg2) {
+			if (isEnabled(level)) {
+				Log.formatLine(format, arg1, arg2);
+			}
+		}
+
+		/**
+		 * Prints a string formated as in String.format(), followed by a new line.
+		 * 
+		 * @param level the level of the message
+		 * @param format the format
+		 * @param arg1 the first argument
+		 * @param arg2 the second argument
+		 * @param arg3 the third argument
+		 */
+		public void formatLine(Level level, String format, Object arg1, Object arg2, Object arg3) {
+			if (isEnabled(level)) {
+				Log.formatLine(format, arg1, arg2, arg3);
+			}
+		}
+
+		/**
+		 * Prints a string formated as in String.format(), followed by a new line.
+		 * 
+		 * @param level the level of the message
+		 * @param format the format
+		 * @param arg1 the first argument
+		 * @param arg2 the second argument
+		 * @param arg3 the third argument
+		 * @param arg4 the fourth argument
+		 */
+		public void formatLine(Level level, String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+			if (isEnabled(level)) {
+				Log.formatLine(format, arg1, arg2, arg3, arg4);
+			}
+		}
+
+		/**
+		 * Prints a string formated as in String.format(), followed by a new line.
+		 * 
+		 * @param level the level of the message
+		 * @param format the format
+		 * @param args the arguments
+		 */
+		public void formatLine(Level level, String format, Object... args) {
+			if (isEnabled(level)) {
+				Log.formatLine(format, args);
+			}
+		}
+
+	}
+
 }
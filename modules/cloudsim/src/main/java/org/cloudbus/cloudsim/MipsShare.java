@@ -0,0 +1,269 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * MipsShare is a list of MIPS, one for each PE, as requested by or allocated to a VM. The MIPS
+ * are stored in a <tt>double</tt> array that grows as needed and is kept when the share is
+ * cleared, so that a share can be refilled at each scheduling interval without creating any
+ * object.
+ * <p/>
+ * A MipsShare is a <tt>List&lt;Double&gt;</tt>, so that it can be given where the MIPS share
+ * of a VM is expected as a list. The methods that take or return <tt>double</tt>s, such as
+ * {@link #getMips(int)} and {@link #addMips(double)}, avoid boxing the MIPS.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class MipsShare extends AbstractList<Double> implements RandomAccess {
+
+	/** The MIPS of each PE, in the first {@link #size} elements. */
+	private double[] mips;
+
+	/** The number of PEs. */
+	private int size;
+
+	/**
+	 * Instantiates a new empty MIPS share.
+	 */
+	public MipsShare() {
+		this(4);
+	}
+
+	/**
+	 * Instantiates a new empty MIPS share with room for a given number of PEs.
+	 *
+	 * @param capacity the number of PEs
+	 */
+	public MipsShare(int capacity) {
+		mips = new double[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Instantiates a new MIPS share with the MIPS of a list.
+	 *
+	 * @param mipsShare the list of MIPS of each PE
+	 */
+	public MipsShare(List<Double> mipsShare) {
+		this(mipsShare.size());
+		setAll(mipsShare);
+	}
+
+	/**
+	 * Gets the MIPS of a PE.
+	 *
+	 * @param index the index of the PE
+	 * @return the MIPS
+	 */
+	public double getMips(int index) {
+		checkIndex(index);
+		return mips[index];
+	}
+
+	/**
+	 * Sets the MIPS of a PE.
+	 *
+	 * @param index the index of the PE
+	 * @param value the MIPS
+	 */
+	public void setMips(int index, double value) {
+		checkIndex(index);
+		mips[index] = value;
+	}
+
+	/**
+	 * Adds the MIPS of a PE at the end of the share.
+	 *
+	 * @param value the MIPS
+	 */
+	public void addMips(double value) {
+		if (size == mips.length) {
+			mips = Arrays.copyOf(mips, 2 * size);
+		}
+		mips[size++] = value;
+		modCount++;
+	}
+
+	/**
+	 * Replaces the MIPS of the share by the given MIPS for a number of PEs.
+	 *
+	 * @param numberOfPes the number of PEs
+	 * @param value the MIPS of each PE
+	 */
+	public void fill(int numberOfPes, double value) {
+		clear();
+		for (int i = 0; i < numberOfPes; i++) {
+			addMips(value);
+		}
+	}
+
+	/**
+	 * Replaces the MIPS of the share by the MIPS of a list.
+	 *
+	 * @param mipsShare the list of MIPS of each PE
+	 */
+	public void setAll(List<Double> mipsShare) {
+		if (mipsShare == this) {
+			return;
+		}
+		clear();
+		if (mipsShare instanceof MipsShare) {
+			MipsShare other = (MipsShare) mipsShare;
+			for (int i = 0; i < other.size; i++) {
+				addMips(other.mips[i]);
+			}
+		} else {
+			for (Double value : mipsShare) {
+				addMips(value);
+			}
+		}
+	}
+
+	/**
+	 * Gets the total MIPS of the PEs.
+	 *
+	 * @return the total MIPS
+	 */
+	public double getTotalMips() {
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += mips[i];
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the maximum MIPS of a PE.
+	 *
+	 * @return the maximum MIPS, or 0 if the share is empty
+	 */
+	public double getMaxMips() {
+		double max = 0;
+		for (int i = 0; i < size; i++) {
+			if (mips[i] > max) {
+				max = mips[i];
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public Double get(int index) {
+		return getMips(index);
+	}
+
+	@Override
+	public Double set(int index, Double value) {
+		double previous = getMips(index);
+		mips[index] = value;
+		return previous;
+	}
+
+	@Override
+	public void add(int index, Double value) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		addMips(value);
+		System.arraycopy(mips, index, mips, index + 1, size - 1 - index);
+		mips[index] = value;
+	}
+
+	@Override
+	public Double remove(int index) {
+		double previous = getMips(index);
+		System.arraycopy(mips, index + 1, mips, index, size - 1 - index);
+		size--;
+		modCount++;
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		if (size > 0) {
+			size = 0;
+			modCount++;
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the MIPS of a PE of a MIPS share given as a list, without boxing them if the list is
+	 * a {@link MipsShare}.
+	 *
+	 * @param mipsShare the list of MIPS of each PE
+	 * @param index the index of the PE
+	 * @return the MIPS
+	 */
+	public static double getMips(List<Double> mipsShare, int index) {
+		if (mipsShare instanceof MipsShare) {
+			return ((MipsShare) mipsShare).getMips(index);
+		}
+		return mipsShare.get(index);
+	}
+
+	/**
+	 * Checks that an index is the index of a PE of the share.
+	 *
+	 * @param index the index
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	/**
+	 * A pool of MIPS shares, from which the owner of shares that are often replaced, such as a
+	 * {@link VmScheduler}, takes new shares and to which it releases the shares it no longer
+	 * uses. A share must be released only once, and only when no other object refers to it.
+	 */
+	public static class Pool {
+
+		/** The shares released and not taken again. */
+		private final List<MipsShare> freeShares = new ArrayList<MipsShare>();
+
+		/**
+		 * Takes an empty share from the pool, or creates one if the pool is empty.
+		 *
+		 * @return the empty share
+		 */
+		public MipsShare take() {
+			if (freeShares.isEmpty()) {
+				return new MipsShare();
+			}
+			MipsShare mipsShare = freeShares.remove(freeShares.size() - 1);
+			mipsShare.clear();
+			return mipsShare;
+		}
+
+		/**
+		 * Releases a share to the pool. Lists other than MIPS shares are ignored.
+		 *
+		 * @param mipsShare the share, or <tt>null</tt>
+		 */
+		public void release(List<Double> mipsShare) {
+			if (mipsShare instanceof MipsShare) {
+				freeShares.add((MipsShare) mipsShare);
+			}
+		}
+
+	}
+
+}
@@ -13,8 +13,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.cloudbus.cloudsim.network.DelayMatrix_Float;
 import org.cloudbus.cloudsim.network.GraphReaderBrite;
+import org.cloudbus.cloudsim.network.LazyDelayMatrix_Float;
 import org.cloudbus.cloudsim.network.TopologicalGraph;
 import org.cloudbus.cloudsim.network.TopologicalLink;
 import org.cloudbus.cloudsim.network.TopologicalNode;
@@ -30,6 +33,9 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  * Nevertheless, each CloudSim entity must be mapped to one (and only one) BRITE node to allow
  * proper work of the network simulation. Each BRITE node can be mapped to only one entity at a
  * time.
+ * <p/>
+ * The topology is kept by the {@link SimulationContext} of the current thread, see
+ * {@link CloudSim#getContext()}.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -40,34 +46,138 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  * A private default constructor would be created to avoid instantiation.
  */
 public class NetworkTopology {
-        /**
-         * The BRITE id to use for the next node to be created in the network.
-         */
-	protected static int nextIdx = 0;
 
-	private static boolean networkEnabled = false;
+	/** The default maximum number of rows of delays cached when the delays are computed lazily. */
+	public static final int DEFAULT_CACHED_DELAY_ROWS = 256;
+
+	/**
+	 * The state of the network topology of a simulation. Each {@link SimulationContext} has its own
+	 * network topology, so that simulations running in parallel don't share it.
+	 */
+	protected static class State {
+
+		/**
+		 * The BRITE id to use for the next node to be created in the network.
+		 */
+		protected int nextIdx = 0;
+
+		private boolean networkEnabled = false;
+
+		/**
+		 * A matrix containing the delay between every pair of nodes in the network.
+		 */
+		protected DelayMatrix_Float delayMatrix = null;
+
+		/**
+		 * A matrix containing the bandwidth between every pair of nodes in the network.
+		 */
+		protected double[][] bwMatrix = null;
+
+		/**
+		 * The Topological Graph of the network.
+		 */
+		protected TopologicalGraph graph = null;
+
+		/**
+		 * The map between CloudSim entities and BRITE entities.
+		 * Each key is a CloudSim entity ID and each value the corresponding
+		 * BRITE entity ID.
+		 */
+		protected Map<Integer, Integer> map = null;
+
+		/**
+		 * Whether the delays are computed lazily from each node, see {@link LazyDelayMatrix_Float}.
+		 */
+		protected boolean lazyDelaysEnabled = false;
+
+		/**
+		 * The maximum number of rows of delays cached when the delays are computed lazily.
+		 */
+		protected int cachedDelayRows = DEFAULT_CACHED_DELAY_ROWS;
+
+	}
 
-        /**
-         * A matrix containing the delay between every pair of nodes in the network.
-         */
-	protected static DelayMatrix_Float delayMatrix = null;
+	/**
+	 * Builds a network topology from a batch of links, generating the matrices of delays and
+	 * bandwidths once, when the topology is built, instead of after each link as
+	 * {@link NetworkTopology#addLink(int, int, double, double)} does. The builder works on the
+	 * topology of the simulation context current when it is created, to which it adds the links.
+	 * The links added by {@link NetworkTopology#addLink(int, int, double, double)} once the
+	 * topology is built update the matrices incrementally.
+	 * 
+	 * <pre>
+	 * new NetworkTopology.Builder().addLink(broker.getId(), datacenter0.getId(), 10.0, 10)
+	 * 		.addLink(broker.getId(), datacenter1.getId(), 10.0, 20).build();
+	 * </pre>
+	 * 
+	 * @since CloudSim Toolkit 4.0
+	 */
+	public static class Builder {
 
-        /**
-         * A matrix containing the bandwidth between every pair of nodes in the network.
-         */
-	protected static double[][] bwMatrix = null;
+		/** The network topology state the links are added to. */
+		private final State state;
+
+		/** Whether the topology was built. */
+		private boolean built;
+
+		/**
+		 * Creates a builder adding links to the network topology of the current simulation context.
+		 */
+		public Builder() {
+			state = getState();
+		}
+
+		/**
+		 * Adds a new link in the network topology, without generating the matrices.
+		 * 
+		 * @param srcId ID of the CloudSim entity that represents the link's source node
+		 * @param destId ID of the CloudSim entity that represents the link's destination node
+		 * @param bw Link's bandwidth
+		 * @param lat link's latency
+		 * @return this builder
+		 * @throws IllegalStateException if the topology was already built
+		 * @see NetworkTopology#addLink(int, int, double, double)
+		 */
+		public Builder addLink(int srcId, int destId, double bw, double lat) {
+			if (built) {
+				throw new IllegalStateException("The network topology was already built");
+			}
+			addLinkToGraph(state, srcId, destId, bw, lat);
+			return this;
+		}
+
+		/**
+		 * Seals the topology, generating the matrices of delays and bandwidths of all its links.
+		 * 
+		 * @throws IllegalStateException if the topology was already built
+		 */
+		public void build() {
+			if (built) {
+				throw new IllegalStateException("The network topology was already built");
+			}
+			built = true;
+			if (state.graph != null) {
+				generateMatrices(state);
+			}
+		}
 
-        /**
-         * The Topological Graph of the network.
-         */
-	protected static TopologicalGraph graph = null;
+	}
 
 	/**
-         * The map between CloudSim entities and BRITE entities.
-         * Each key is a CloudSim entity ID and each value the corresponding
-         * BRITE entity ID.
-         */
-        protected static Map<Integer, Integer> map = null;
+	 * Gets the state of the network topology of the current simulation context.
+	 * 
+	 * @return the network topology state
+	 * @see CloudSim#getContext()
+	 */
+	protected static State getState() {
+		SimulationContext context = CloudSim.getContext();
+		State state = context.getComponent(State.class);
+		if (state == null) {
+			state = new State();
+			context.setComponent(State.class, state);
+		}
+		return state;
+	}
 
 	/**
 	 * Creates the network topology if the file exists and can be successfully parsed. File is
@@ -82,11 +192,12 @@ public class NetworkTopology {
 
 		// try to find the file
 		GraphReaderBrite reader = new GraphReaderBrite();
+		State state = getState();
 
 		try {
-			graph = reader.readGraphFile(fileName);
-			map = new HashMap<Integer, Integer>();
-			generateMatrices();
+			state.graph = reader.readGraphFile(fileName);
+			state.map = new HashMap<Integer, Integer>();
+			generateMatrices(state);
 		} catch (IOException e) {
 			// problem with the file. Does not simulate network
 			Log.printLine("Problem in processing BRITE file. Network simulation is disabled. Error: "
@@ -97,21 +208,82 @@ public class NetworkTopology {
 
 	/**
 	 * Generates the matrices used internally to set latency and bandwidth between elements.
+	 * 
+	 * @param state the network topology state
 	 */
-	private static void generateMatrices() {
-		// creates the delay matrix
-		delayMatrix = new DelayMatrix_Float(graph, false);
+	private static void generateMatrices(State state) {
+		if (state.lazyDelaysEnabled) {
+			state.delayMatrix = new LazyDelayMatrix_Float(state.graph, false, state.cachedDelayRows);
+
+			// a bw matrix would take as much memory as a delay matrix
+			state.bwMatrix = null;
+		} else {
+			// creates the delay matrix
+			state.delayMatrix = new DelayMatrix_Float(state.graph, false);
+
+			// creates the bw matrix
+			state.bwMatrix = createBwMatrix(state.graph, false);
+		}
 
-		// creates the bw matrix
-		bwMatrix = createBwMatrix(graph, false);
+		state.networkEnabled = true;
+	}
 
-		networkEnabled = true;
+	/**
+	 * Updates the matrices used internally after a link was added to the topology, without
+	 * generating them again.
+	 * 
+	 * @param state the network topology state
+	 * @param link the link added
+	 * @see DelayMatrix_Float#addLink(int, int, float)
+	 */
+	private static void updateMatrices(State state, TopologicalLink link) {
+		state.delayMatrix.addLink(link.getSrcNodeID(), link.getDestNodeID(), link.getLinkDelay());
+
+		if (state.bwMatrix != null) {
+			int nodes = state.graph.getNumberOfNodes();
+			if (state.bwMatrix.length < nodes) {
+				double[][] bwMatrix = new double[nodes][nodes];
+				for (int i = 0; i < state.bwMatrix.length; i++) {
+					System.arraycopy(state.bwMatrix[i], 0, bwMatrix[i], 0, state.bwMatrix.length);
+				}
+				state.bwMatrix = bwMatrix;
+			}
+			state.bwMatrix[link.getSrcNodeID()][link.getDestNodeID()] = link.getLinkBw();
+			state.bwMatrix[link.getDestNodeID()][link.getSrcNodeID()] = link.getLinkBw();
+		}
+	}
+
+	/**
+	 * Checks if the matrices can be updated incrementally after a link was added to the graph,
+	 * that is, if the link doesn't replace a link of lower delay between the same nodes, which
+	 * would make some paths longer.
+	 * 
+	 * @param graph the topological graph, including the link
+	 * @param link the link added
+	 * @return true if the matrices can be updated incrementally
+	 */
+	private static boolean isIncrementalUpdatePossible(TopologicalGraph graph, TopologicalLink link) {
+		float previousDelay = 0;
+		Iterator<TopologicalLink> iter = graph.getLinkIterator();
+		while (iter.hasNext()) {
+			TopologicalLink edge = iter.next();
+			if (edge != link
+					&& ((edge.getSrcNodeID() == link.getSrcNodeID() && edge.getDestNodeID() == link.getDestNodeID())
+					|| (edge.getSrcNodeID() == link.getDestNodeID() && edge.getDestNodeID() == link.getSrcNodeID()))) {
+				previousDelay = edge.getLinkDelay();
+			}
+		}
+		return previousDelay == 0 || (link.getLinkDelay() != 0 && link.getLinkDelay() <= previousDelay);
 	}
 
 	/**
 	 * Adds a new link in the network topology.
          * The CloudSim entities that represent the source and destination of the link
          * will be mapped to BRITE entities.
+	 * <p/>
+	 * The matrices of delays and bandwidths are generated when the first link is added, then
+	 * updated in O(N<sup>2</sup>) time for each new link, unless it replaces a link of lower
+	 * delay. To add many links at once, use a {@link Builder}.
 	 * 
 	 * @param srcId ID of the CloudSim entity that represents the link's source node
 	 * @param destId ID of the CloudSim entity that represents the link's destination node
@@ -122,33 +294,54 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void addLink(int srcId, int destId, double bw, double lat) {
+		State state = getState();
+		TopologicalLink link = addLinkToGraph(state, srcId, destId, bw, lat);
 
-		if (graph == null) {
-			graph = new TopologicalGraph();
+		if (state.delayMatrix == null || !isIncrementalUpdatePossible(state.graph, link)) {
+			generateMatrices(state);
+		} else {
+			updateMatrices(state, link);
 		}
+	}
 
-		if (map == null) {
-			map = new HashMap<Integer, Integer>();
+	/**
+	 * Adds a new link in the graph of a network topology, adding its nodes if needed, without
+	 * updating the matrices.
+	 * 
+	 * @param state the network topology state
+	 * @param srcId ID of the CloudSim entity that represents the link's source node
+	 * @param destId ID of the CloudSim entity that represents the link's destination node
+	 * @param bw Link's bandwidth
+	 * @param lat link's latency
+	 * @return the link added
+	 */
+	private static TopologicalLink addLinkToGraph(State state, int srcId, int destId, double bw, double lat) {
+		if (state.graph == null) {
+			state.graph = new TopologicalGraph();
+		}
+
+		if (state.map == null) {
+			state.map = new HashMap<Integer, Integer>();
 		}
 
 		// maybe add the nodes
-		if (!map.containsKey(srcId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(srcId, nextIdx);
-			nextIdx++;
+		if (!state.map.containsKey(srcId)) {
+			state.graph.addNode(new TopologicalNode(state.nextIdx));
+			state.map.put(srcId, state.nextIdx);
+			state.nextIdx++;
 		}
 
-		if (!map.containsKey(destId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(destId, nextIdx);
-			nextIdx++;
+		if (!state.map.containsKey(destId)) {
+			state.graph.addNode(new TopologicalNode(state.nextIdx));
+			state.map.put(destId, state.nextIdx);
+			state.nextIdx++;
 		}
 
 		// generate a new link
-		graph.addLink(new TopologicalLink(map.get(srcId), map.get(destId), (float) lat, (float) bw));
-
-		generateMatrices();
-
+		TopologicalLink link = new TopologicalLink(state.map.get(srcId), state.map.get(destId), (float) lat,
+				(float) bw);
+		state.graph.addLink(link);
+		return link;
 	}
 
 	/**
@@ -194,7 +387,9 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void mapNode(int cloudSimEntityID, int briteID) {
-		if (networkEnabled) {
+		State state = getState();
+		if (state.networkEnabled) {
+			Map<Integer, Integer> map = state.map;
 			try {
 				// this CloudSim entity was already mapped?
 				if (!map.containsKey(cloudSimEntityID)) {
@@ -222,9 +417,10 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void unmapNode(int cloudSimEntityID) {
-		if (networkEnabled) {
+		State state = getState();
+		if (state.networkEnabled) {
 			try {
-				map.remove(cloudSimEntityID);
+				state.map.remove(cloudSimEntityID);
 			} catch (Exception e) {
 				Log.printConcatLine("Error in network unmapping. CloudSim node: ", cloudSimEntityID);
 			}
@@ -242,10 +438,11 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static double getDelay(int srcID, int destID) {
-		if (networkEnabled) {
+		State state = getState();
+		if (state.networkEnabled) {
 			try {
 				// add the network latency
-				double delay = delayMatrix.getDelay(map.get(srcID), map.get(destID));
+				double delay = state.delayMatrix.getDelay(state.map.get(srcID), state.map.get(destID));
 
 				return delay;
 			} catch (Exception e) {
@@ -265,7 +462,49 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static boolean isNetworkEnabled() {
-		return networkEnabled;
+		return getState().networkEnabled;
+	}
+
+	/**
+	 * Checks if the delays are computed lazily from each node.
+	 * 
+	 * @return true if the delays are computed lazily
+	 */
+	public static boolean isLazyDelaysEnabled() {
+		return getState().lazyDelaysEnabled;
+	}
+
+	/**
+	 * Sets whether the delays are computed lazily from each node, by Dijkstra's algorithm when
+	 * they are first requested, instead of computing the delays between all pairs of nodes
+	 * when the topology is generated. This suits large sparse topologies, whose delay matrix
+	 * wouldn't fit in memory. It applies to the matrices generated next, such as by
+	 * {@link #buildNetworkTopology(String)}.
+	 * 
+	 * @param lazyDelaysEnabled true to compute the delays lazily
+	 * @see LazyDelayMatrix_Float
+	 */
+	public static void setLazyDelaysEnabled(boolean lazyDelaysEnabled) {
+		getState().lazyDelaysEnabled = lazyDelaysEnabled;
+	}
+
+	/**
+	 * Gets the maximum number of rows of delays cached when the delays are computed lazily.
+	 * 
+	 * @return the number of rows
+	 */
+	public static int getCachedDelayRows() {
+		return getState().cachedDelayRows;
+	}
+
+	/**
+	 * Sets the maximum number of rows of delays cached when the delays are computed lazily, the
+	 * least recently used rows being discarded. It applies to the matrices generated next.
+	 * 
+	 * @param cachedDelayRows the number of rows
+	 */
+	public static void setCachedDelayRows(int cachedDelayRows) {
+		getState().cachedDelayRows = cachedDelayRows;
 	}
 
 }
@@ -0,0 +1,181 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.util.WorkloadStream;
+
+/**
+ * A broker that submits the cloudlets of a {@link WorkloadStream} as the simulation clock
+ * reaches their submit time, instead of submitting a list of cloudlets created beforehand.
+ * The cloudlets that are not bound to a VM are sent to the created VMs in a round-robin way.
+ * <p/>
+ * By default, the broker doesn't keep the submitted and returned cloudlets in its
+ * {@link #getCloudletSubmittedList() submitted} and {@link #getCloudletReceivedList() received}
+ * lists, so that the memory used doesn't grow with the length of the workload.
+ * Returned cloudlets can be processed by overriding {@link #processCloudletReturn(SimEvent)}.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see org.cloudbus.cloudsim.util.WorkloadFileReader#openStream(int)
+ */
+public class StreamingDatacenterBroker extends DatacenterBroker {
+
+	/** The workload the cloudlets are read from. */
+	private final WorkloadStream workload;
+
+	/** Whether the submitted and returned cloudlets are kept in the broker lists. */
+	private boolean retainCloudlets;
+
+	/** The number of cloudlets returned to the broker. */
+	private int cloudletsReceived;
+
+	/** The index, in the created VMs list, of the VM the next unbound cloudlet is sent to. */
+	private int nextVmIndex;
+
+	/** The submit time of the cloudlets released by the pending release event. */
+	private double releaseTime;
+
+	/** Whether a release event is pending. */
+	private boolean releaseScheduled;
+
+	/**
+	 * Instantiates a new streaming datacenter broker.
+	 *
+	 * @param name name to be associated with this entity
+	 * @param workload the workload the cloudlets are read from
+	 * @throws Exception the exception
+	 */
+	public StreamingDatacenterBroker(String name, WorkloadStream workload) throws Exception {
+		super(name);
+		this.workload = workload;
+	}
+
+	/**
+	 * Releases the cloudlets whose submit time has been reached, then submits them to the VMs
+	 * and schedules the release of the next cloudlets.
+	 */
+	@Override
+	protected void submitCloudlets() {
+		releaseCloudlets(Math.max(CloudSim.clock(), releaseTime));
+		super.submitCloudlets();
+		if (!isRetainCloudlets()) {
+			getCloudletSubmittedList().clear();
+		}
+		scheduleNextRelease();
+	}
+
+	/**
+	 * Moves the cloudlets submitted until a given time from the workload to the
+	 * {@link #getCloudletList() list of cloudlets waiting to be submitted}.
+	 *
+	 * @param time the time
+	 */
+	protected void releaseCloudlets(double time) {
+		List<Cloudlet> cloudlets = getCloudletList();
+		List<Vm> vms = getVmsCreatedList();
+		while (workload.hasNext() && workload.getNextSubmitTime() <= time) {
+			Cloudlet cloudlet = workload.next();
+			cloudlet.setUserId(getId());
+			if (cloudlet.getVmId() == -1 && !vms.isEmpty()) {
+				nextVmIndex = nextVmIndex % vms.size();
+				cloudlet.setVmId(vms.get(nextVmIndex).getId());
+				nextVmIndex++;
+			}
+			cloudlets.add(cloudlet);
+		}
+	}
+
+	/**
+	 * Schedules the release of the next cloudlets of the workload, at their submit time.
+	 */
+	protected void scheduleNextRelease() {
+		if (releaseScheduled || !workload.hasNext()) {
+			return;
+		}
+		releaseTime = workload.getNextSubmitTime();
+		schedule(getId(), Math.max(0, releaseTime - CloudSim.clock()), CloudSimTags.CLOUDLET_RELEASE);
+		releaseScheduled = true;
+	}
+
+	@Override
+	protected void processCloudletReturn(SimEvent ev) {
+		Cloudlet cloudlet = (Cloudlet) ev.getData();
+		cloudletsReceived++;
+		if (isRetainCloudlets()) {
+			getCloudletReceivedList().add(cloudlet);
+		}
+		if (!Log.isDisabled()) {
+			Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Cloudlet ", cloudlet.getCloudletId(),
+					" received");
+		}
+		cloudletsSubmitted--;
+		if (workload.hasNext()) {
+			// the next cloudlets will be released by the pending release event
+			return;
+		}
+
+		if (getCloudletList().size() == 0 && cloudletsSubmitted == 0) { // all cloudlets executed
+			Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": All Cloudlets executed. Finishing...");
+			clearDatacenters();
+			finishExecution();
+		} else if (getCloudletList().size() > 0 && cloudletsSubmitted == 0) {
+			// some bound cloudlet is waiting its VM be created
+			clearDatacenters();
+			createVmsInDatacenter(0);
+		}
+	}
+
+	@Override
+	protected void processOtherEvent(SimEvent ev) {
+		if (ev != null && ev.getTag() == CloudSimTags.CLOUDLET_RELEASE) {
+			releaseScheduled = false;
+			submitCloudlets();
+			return;
+		}
+		super.processOtherEvent(ev);
+	}
+
+	@Override
+	public void shutdownEntity() {
+		workload.close();
+		super.shutdownEntity();
+	}
+
+	/**
+	 * Checks whether the submitted and returned cloudlets are kept in the broker lists.
+	 *
+	 * @return <tt>true</tt> if the cloudlets are kept, <tt>false</tt> otherwise
+	 */
+	public boolean isRetainCloudlets() {
+		return retainCloudlets;
+	}
+
+	/**
+	 * Sets whether the submitted and returned cloudlets are kept in the broker lists.
+	 *
+	 * @param retainCloudlets <tt>true</tt> to keep the cloudlets, <tt>false</tt> otherwise
+	 */
+	public void setRetainCloudlets(boolean retainCloudlets) {
+		this.retainCloudlets = retainCloudlets;
+	}
+
+	/**
+	 * Gets the number of cloudlets returned to the broker.
+	 *
+	 * @return the number of cloudlets returned
+	 */
+	public int getCloudletsReceived() {
+		return cloudletsReceived;
+	}
+
+}
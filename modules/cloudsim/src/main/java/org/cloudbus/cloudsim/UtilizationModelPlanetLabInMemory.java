@@ -4,18 +4,27 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 
+import org.cloudbus.cloudsim.util.PlanetLabTraceStore;
+
 /**
  * Defines the resource utilization model based on 
  * a <a href="https://www.planet-lab.org">PlanetLab</a>
- * datacenter trace file.
+ * datacenter trace file. The trace is either kept in memory or read from
+ * a shared, memory-mapped {@link PlanetLabTraceStore}.
  */
 public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 	
 	/** The scheduling interval. */
 	private double schedulingInterval;
 
-	/** The data (5 min * 288 = 24 hours). */
+	/** The data (5 min * 288 = 24 hours), or <tt>null</tt> if the trace is read from a store. */
 	private final double[] data; 
+
+	/** The store the trace is read from, or <tt>null</tt> if the trace is kept in memory. */
+	private final PlanetLabTraceStore store;
+
+	/** The index of the trace in the store. */
+	private final int trace;
 	
 	/**
 	 * Instantiates a new PlanetLab resource utilization model from a trace file.
@@ -28,15 +37,7 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 	public UtilizationModelPlanetLabInMemory(String inputPath, double schedulingInterval)
 			throws NumberFormatException,
 			IOException {
-		data = new double[289];
-		setSchedulingInterval(schedulingInterval);
-		BufferedReader input = new BufferedReader(new FileReader(inputPath));
-		int n = data.length;
-		for (int i = 0; i < n - 1; i++) {
-			data[i] = Integer.valueOf(input.readLine()) / 100.0;
-		}
-		data[n - 1] = data[n - 2];
-		input.close();
+		this(inputPath, schedulingInterval, 289);
 	}
 	
 	/**
@@ -51,8 +52,55 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 	public UtilizationModelPlanetLabInMemory(String inputPath, double schedulingInterval, int dataSamples)
 			throws NumberFormatException,
 			IOException {
+		this(readData(inputPath, dataSamples), schedulingInterval);
+	}
+
+	/**
+	 * Instantiates a new PlanetLab resource utilization model from trace data that was already read.
+	 * The data is not copied, so the same trace can be shared by several models, but it must not
+	 * be modified afterwards.
+	 * 
+	 * @param data the utilization samples, as returned by {@link #readData(String, int)}
+	 * @param schedulingInterval the scheduling interval
+	 */
+	public UtilizationModelPlanetLabInMemory(double[] data, double schedulingInterval) {
+		this.data = data;
+		this.store = null;
+		this.trace = -1;
+		setSchedulingInterval(schedulingInterval);
+	}
+
+	/**
+	 * Instantiates a new PlanetLab resource utilization model from a trace of a store.
+	 * The samples are not copied: they are read from the store when needed.
+	 * 
+	 * @param store the store of the traces
+	 * @param trace the index of the trace in the store
+	 * @param schedulingInterval the scheduling interval
+	 */
+	public UtilizationModelPlanetLabInMemory(PlanetLabTraceStore store, int trace, double schedulingInterval) {
+		if (trace < 0 || trace >= store.getTraceCount()) {
+			throw new IndexOutOfBoundsException("Trace " + trace + " out of " + store.getTraceCount());
+		}
+		this.data = null;
+		this.store = store;
+		this.trace = trace;
 		setSchedulingInterval(schedulingInterval);
-		data = new double[dataSamples];
+	}
+
+	/**
+	 * Reads the utilization samples of a PlanetLab datacenter trace file. The last sample is
+	 * a copy of the previous one, so the file must have at least <tt>dataSamples - 1</tt> lines.
+	 * 
+	 * @param inputPath The path of a PlanetLab datacenter trace.
+	 * @param dataSamples number of samples to read
+	 * @return the samples
+	 * @throws NumberFormatException the number format exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static double[] readData(String inputPath, int dataSamples) throws NumberFormatException,
+			IOException {
+		double[] data = new double[dataSamples];
 		BufferedReader input = new BufferedReader(new FileReader(inputPath));
 		int n = data.length;
 		for (int i = 0; i < n - 1; i++) {
@@ -60,17 +108,18 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 		}
 		data[n - 1] = data[n - 2];
 		input.close();
+		return data;
 	}
 
 	@Override
 	public double getUtilization(double time) {
 		if (time % getSchedulingInterval() == 0) {
-			return data[(int) time / (int) getSchedulingInterval()];
+			return getSample((int) time / (int) getSchedulingInterval());
 		}
 		int time1 = (int) Math.floor(time / getSchedulingInterval());
 		int time2 = (int) Math.ceil(time / getSchedulingInterval());
-		double utilization1 = data[time1];
-		double utilization2 = data[time2];
+		double utilization1 = getSample(time1);
+		double utilization2 = getSample(time2);
 		double delta = (utilization2 - utilization1) / ((time2 - time1) * getSchedulingInterval());
 		double utilization = utilization1 + delta * (time - time1 * getSchedulingInterval());
 		return utilization;
@@ -95,7 +144,28 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 		return schedulingInterval;
 	}
 	
+	/**
+	 * Gets a sample of the trace.
+	 * 
+	 * @param index the index of the sample
+	 * @return the utilization, from 0 to 1
+	 */
+	protected double getSample(int index) {
+		if (data != null) {
+			return data[index];
+		}
+		return store.getUtilization(trace, index);
+	}
+
+	/**
+	 * Gets the samples of the trace. If the trace is read from a store, this is a copy of it.
+	 * 
+	 * @return the samples
+	 */
 	public double[] getData(){
-		return data;
+		if (data != null) {
+			return data;
+		}
+		return store.getData(trace);
 	}
 }
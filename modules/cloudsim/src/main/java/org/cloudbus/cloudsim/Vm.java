@@ -169,6 +169,20 @@ public class Vm {
 		return currentRequestedMips;
 	}
 
+	/**
+	 * Gets the current requested mips into a given MIPS share, replacing its MIPS, as
+	 * {@link #getCurrentRequestedMips()} but without creating a list.
+	 * 
+	 * @param mipsShare the MIPS share to fill with the current requested mips
+	 */
+	public void getCurrentRequestedMips(MipsShare mipsShare) {
+		if (isBeingInstantiated()) {
+			mipsShare.fill(getNumberOfPes(), getMips());
+		} else {
+			getCloudletScheduler().getCurrentRequestedMips(mipsShare);
+		}
+	}
+
 	/**
 	 * Gets the current requested total mips.
 	 * 
@@ -271,6 +285,30 @@ public class Vm {
 		return userId + "-" + vmId;
 	}
 
+	/**
+	 * Gets the key of the VM, which packs the id of its user and its id in a <tt>long</tt>.
+	 * Unlike the {@link #getUid() uid}, the key of a VM can be computed from both ids
+	 * without creating any object.
+	 * 
+	 * @return the key
+	 * @see #getKey(int, int)
+	 */
+	public long getKey() {
+		return getKey(getUserId(), getId());
+	}
+
+	/**
+	 * Generate the key of a VM, which packs the id of its user in the upper 32 bits and its id
+	 * in the lower 32 bits of a <tt>long</tt>.
+	 * 
+	 * @param userId the user id
+	 * @param vmId the vm id
+	 * @return the key
+	 */
+	public static long getKey(int userId, int vmId) {
+		return (long) userId << 32 | (vmId & 0xffffffffL);
+	}
+
 	/**
 	 * Gets the VM id.
 	 * 
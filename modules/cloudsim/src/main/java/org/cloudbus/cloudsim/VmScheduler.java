@@ -82,6 +82,40 @@ public abstract class VmScheduler {
 	 */
 	public abstract boolean allocatePesForVm(Vm vm, List<Double> mipsShare);
 
+	/**
+	 * Requests the allocation of PEs for a VM, given a MIPS share that the caller reuses
+	 * afterwards. As schedulers may keep the list of MIPS they are given, the MIPS are passed
+	 * as a new list to {@link #allocatePesForVm(Vm, List)}. Schedulers that copy the MIPS
+	 * they keep override this method to pass the share itself.
+	 * 
+	 * @param vm the vm
+	 * @param mipsShare the share of MIPS requested by the VM, reused by the caller
+	 * @return $true if this policy allows a new VM in the host, $false otherwise
+	 */
+	public boolean allocatePesForVm(Vm vm, MipsShare mipsShare) {
+		return allocatePesForVm(vm, new ArrayList<Double>(mipsShare));
+	}
+
+	/**
+	 * Reallocates PEs for the VMs of the host, according to the MIPS they currently request,
+	 * as at each scheduling interval. The allocation is the same as releasing the PEs of each
+	 * VM, then requesting the allocation of PEs for each VM, in the order of the list, which
+	 * is what this method does. Schedulers override it to reallocate the PEs with less work.
+	 *
+	 * @param vms the VMs of the host
+	 * @see Vm#getCurrentRequestedMips(MipsShare)
+	 */
+	public void reallocatePesForVms(List<? extends Vm> vms) {
+		for (Vm vm : vms) {
+			deallocatePesForVm(vm);
+		}
+		MipsShare requestedMips = new MipsShare();
+		for (Vm vm : vms) {
+			vm.getCurrentRequestedMips(requestedMips);
+			allocatePesForVm(vm, requestedMips);
+		}
+	}
+
 	/**
 	 * Releases PEs allocated to a VM. After that, the PEs may be used
          * on demand by other VMs.
@@ -111,21 +145,35 @@ public abstract class VmScheduler {
 	 * Gets the pes allocated for a vm.
 	 * 
 	 * @param vm the vm
-	 * @return the pes allocated for the given vm
+	 * @return a copy of the list of pes allocated for the given vm, or null if there is none
 	 */
 	public List<Pe> getPesAllocatedForVM(Vm vm) {
-		return getPeMap().get(vm.getUid());
+		List<Pe> pes = getPeMap().get(vm.getUid());
+		return pes == null ? null : new ArrayList<Pe>(pes);
 	}
 
 	/**
 	 * Returns the MIPS share of each host's Pe that is allocated to a given VM.
 	 * 
 	 * @param vm the vm
-	 * @return an array containing the amount of MIPS of each pe that is available to the VM
+	 * @return a copy of the amount of MIPS of each pe that is available to the VM, or null
+	 *         if there is none
 	 * @pre $none
 	 * @post $none
 	 */
 	public List<Double> getAllocatedMipsForVm(Vm vm) {
+		List<Double> mipsShare = getAllocatedMipsShare(vm);
+		return mipsShare == null ? null : new MipsShare(mipsShare);
+	}
+
+	/**
+	 * Gets the MIPS share allocated to a VM, without copying it. The scheduler may reuse the
+	 * share for another VM at the next allocation, so it must not be kept.
+	 * 
+	 * @param vm the vm
+	 * @return the MIPS share of the VM, or null if there is none
+	 */
+	protected List<Double> getAllocatedMipsShare(Vm vm) {
 		return getMipsMap().get(vm.getUid());
 	}
 
@@ -137,10 +185,10 @@ public abstract class VmScheduler {
 	 */
 	public double getTotalAllocatedMipsForVm(Vm vm) {
 		double allocated = 0;
-		List<Double> mipsMap = getAllocatedMipsForVm(vm);
+		List<Double> mipsMap = getAllocatedMipsShare(vm);
 		if (mipsMap != null) {
-			for (double mips : mipsMap) {
-				allocated += mips;
+			for (int i = 0; i < mipsMap.size(); i++) {
+				allocated += MipsShare.getMips(mipsMap, i);
 			}
 		}
 		return allocated;
@@ -10,7 +10,6 @@ package org.cloudbus.cloudsim;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -39,6 +38,27 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	/** The number of host's PEs in use. */
 	private int pesInUse;
 
+	/** The pool of the MIPS shares of the {@link #mipsMapRequested} and the mips map. */
+	private final MipsShare.Pool mipsSharePool = new MipsShare.Pool();
+
+	/** The lists of PEs of the pe map no longer in use. */
+	private final List<List<Pe>> freePeLists = new ArrayList<List<Pe>>();
+
+	/** The MIPS requested by each VM at the last reallocation of PEs for the VMs. */
+	private final List<MipsShare> requestedMipsShares = new ArrayList<MipsShare>();
+
+	/** The VMs of the last reallocation of PEs for the VMs. */
+	private final List<Vm> reallocatedVms = new ArrayList<Vm>();
+
+	/** The VMs migrating in at the last reallocation of PEs for the VMs. */
+	private final List<String> reallocatedVmsMigratingIn = new ArrayList<String>();
+
+	/**
+	 * Whether the PEs were not allocated or deallocated otherwise since the last reallocation
+	 * of PEs for the VMs.
+	 */
+	private boolean reallocationUpToDate;
+
 	/**
 	 * Instantiates a new vm time-shared scheduler.
 	 * 
@@ -51,6 +71,99 @@ public class VmSchedulerTimeShared extends VmScheduler {
 
 	@Override
 	public boolean allocatePesForVm(Vm vm, List<Double> mipsShareRequested) {
+		reallocationUpToDate = false;
+		updateVmsMigratingOut(vm);
+		boolean result = allocatePesForVm(vm.getUid(), mipsShareRequested);
+		updatePeProvisioning();
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p/>
+	 * The MIPS share is passed as is, since the MIPS requested are copied.
+	 */
+	@Override
+	public boolean allocatePesForVm(Vm vm, MipsShare mipsShare) {
+		return allocatePesForVm(vm, (List<Double>) mipsShare);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p/>
+	 * The requests of all the VMs are removed at once, where deallocating the PEs of each VM
+	 * would allocate PEs for all the remaining VMs again, and the PEs are provisioned only once
+	 * PEs are allocated for all the VMs. If the PEs were not allocated or deallocated otherwise
+	 * since the last reallocation, and the VMs, the MIPS they request and their migrations
+	 * didn't change, the reallocation would give the same allocation and nothing is done.
+	 */
+	@Override
+	public void reallocatePesForVms(List<? extends Vm> vms) {
+		if (vms.isEmpty()) {
+			return;
+		}
+		while (requestedMipsShares.size() < vms.size()) {
+			requestedMipsShares.add(new MipsShare());
+		}
+		boolean changed = !reallocationUpToDate || vms.size() != reallocatedVms.size()
+				|| !getVmsMigratingIn().equals(reallocatedVmsMigratingIn);
+		for (int i = 0; i < vms.size(); i++) {
+			Vm vm = vms.get(i);
+			MipsShare requestedMips = requestedMipsShares.get(i);
+			vm.getCurrentRequestedMips(requestedMips);
+			if (!changed) {
+				changed = vm != reallocatedVms.get(i) || isVmsMigratingOutChanged(vm)
+						|| !isSameMips(requestedMips, getMipsMapRequested().get(vm.getUid()));
+			}
+		}
+		if (!changed) {
+			return;
+		}
+
+		// the allocation left by deallocating the PEs of each VM
+		for (Vm vm : vms) {
+			releaseMipsShare(getMipsMapRequested().remove(vm.getUid()));
+		}
+		setPesInUse(0);
+		clearMipsMap();
+		setAvailableMips(PeList.getTotalMips(getPeList()));
+		for (Map.Entry<String, List<Double>> entry : getMipsMapRequested().entrySet()) {
+			allocatePesForVm(entry.getKey(), entry.getValue());
+		}
+
+		allocatePesForVms(vms, requestedMipsShares);
+		updatePeProvisioning();
+
+		reallocatedVms.clear();
+		reallocatedVms.addAll(vms);
+		reallocatedVmsMigratingIn.clear();
+		reallocatedVmsMigratingIn.addAll(getVmsMigratingIn());
+		reallocationUpToDate = true;
+	}
+
+	/**
+	 * Allocates PEs for the VMs of a reallocation, one after the other, without provisioning
+	 * the PEs.
+	 *
+	 * @param vms the VMs
+	 * @param mipsSharesRequested the list of mips share requested by each VM, which may have
+	 *            more elements than VMs
+	 */
+	protected void allocatePesForVms(List<? extends Vm> vms, List<? extends List<Double>> mipsSharesRequested) {
+		for (int i = 0; i < vms.size(); i++) {
+			Vm vm = vms.get(i);
+			updateVmsMigratingOut(vm);
+			allocatePesForVm(vm.getUid(), mipsSharesRequested.get(i));
+		}
+	}
+
+	/**
+	 * Adds a VM to the VMs migrating out when its migration starts, and removes it when its
+	 * migration is over, before PEs are allocated for it.
+	 *
+	 * @param vm the vm
+	 */
+	protected void updateVmsMigratingOut(Vm vm) {
 		/*
 		 * @todo add the same to RAM and BW provisioners
 		 */
@@ -63,9 +176,38 @@ public class VmSchedulerTimeShared extends VmScheduler {
 				getVmsMigratingOut().remove(vm.getUid());
 			}
 		}
-		boolean result = allocatePesForVm(vm.getUid(), mipsShareRequested);
-		updatePeProvisioning();
-		return result;
+	}
+
+	/**
+	 * Checks whether {@link #updateVmsMigratingOut(Vm)} would change the VMs migrating out.
+	 *
+	 * @param vm the vm
+	 * @return true, if the VMs migrating out would change
+	 */
+	private boolean isVmsMigratingOutChanged(Vm vm) {
+		if (vm.isInMigration()) {
+			return !getVmsMigratingIn().contains(vm.getUid()) && !getVmsMigratingOut().contains(vm.getUid());
+		}
+		return getVmsMigratingOut().contains(vm.getUid());
+	}
+
+	/**
+	 * Checks whether two MIPS shares have exactly the same MIPS.
+	 *
+	 * @param mipsShare the MIPS share
+	 * @param other the other MIPS share, or <tt>null</tt>
+	 * @return true, if the MIPS are the same
+	 */
+	private static boolean isSameMips(MipsShare mipsShare, List<Double> other) {
+		if (other == null || other.size() != mipsShare.size()) {
+			return false;
+		}
+		for (int i = 0; i < mipsShare.size(); i++) {
+			if (Double.doubleToLongBits(mipsShare.getMips(i)) != Double.doubleToLongBits(MipsShare.getMips(other, i))) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -76,11 +218,14 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	 * @return true, if successful
 	 */
 	protected boolean allocatePesForVm(String vmUid, List<Double> mipsShareRequested) {
+		MipsShare requested = copyMipsShare(mipsShareRequested);
 		double totalRequestedMips = 0;
 		double peMips = getPeCapacity();
-		for (Double mips : mipsShareRequested) {
+		for (int i = 0; i < requested.size(); i++) {
+			double mips = requested.getMips(i);
 			// each virtual PE of a VM must require not more than the capacity of a physical PE
 			if (mips > peMips) {
+				releaseMipsShare(requested);
 				return false;
 			}
 			totalRequestedMips += mips;
@@ -88,19 +233,21 @@ public class VmSchedulerTimeShared extends VmScheduler {
 
 		// This scheduler does not allow over-subscription
 		if (getAvailableMips() < totalRequestedMips) {
+			releaseMipsShare(requested);
 			return false;
 		}
 
-		getMipsMapRequested().put(vmUid, mipsShareRequested);
-		setPesInUse(getPesInUse() + mipsShareRequested.size());
+		releaseMipsShare(getMipsMapRequested().put(vmUid, requested));
+		setPesInUse(getPesInUse() + requested.size());
 
 		if (getVmsMigratingIn().contains(vmUid)) {
 			// the destination host only experience 10% of the migrating VM's MIPS
 			totalRequestedMips *= 0.1;
 		}
 
-		List<Double> mipsShareAllocated = new ArrayList<Double>();
-		for (Double mipsRequested : mipsShareRequested) {
+		MipsShare mipsShareAllocated = takeMipsShare();
+		for (int i = 0; i < requested.size(); i++) {
+			double mipsRequested = requested.getMips(i);
 			if (getVmsMigratingOut().contains(vmUid)) {
 				// performance degradation due to migration = 10% MIPS
 				mipsRequested *= 0.9;
@@ -108,10 +255,10 @@ public class VmSchedulerTimeShared extends VmScheduler {
 				// the destination host only experience 10% of the migrating VM's MIPS
 				mipsRequested *= 0.1;
 			}
-			mipsShareAllocated.add(mipsRequested);
+			mipsShareAllocated.addMips(mipsRequested);
 		}
 
-		getMipsMap().put(vmUid, mipsShareAllocated);
+		releaseMipsShare(getMipsMap().put(vmUid, mipsShareAllocated));
 		setAvailableMips(getAvailableMips() - totalRequestedMips);
 
 		return true;
@@ -123,6 +270,7 @@ public class VmSchedulerTimeShared extends VmScheduler {
          * responsibility.
 	 */
 	protected void updatePeProvisioning() {
+		freePeLists.addAll(getPeMap().values());
 		getPeMap().clear();
 		for (Pe pe : getPeList()) {
 			pe.getPeProvisioner().deallocateMipsForAllVms();
@@ -135,18 +283,21 @@ public class VmSchedulerTimeShared extends VmScheduler {
 
 		for (Map.Entry<String, List<Double>> entry : getMipsMap().entrySet()) {
 			String vmUid = entry.getKey();
-			getPeMap().put(vmUid, new LinkedList<Pe>());
+			List<Pe> pes = takePeList();
+			getPeMap().put(vmUid, pes);
 
-			for (double mips : entry.getValue()) {
+			List<Double> mipsShare = entry.getValue();
+			for (int i = 0; i < mipsShare.size(); i++) {
+				double mips = MipsShare.getMips(mipsShare, i);
 				while (mips >= 0.1) {
 					if (availableMips >= mips) {
 						peProvisioner.allocateMipsForVm(vmUid, mips);
-						getPeMap().get(vmUid).add(pe);
+						pes.add(pe);
 						availableMips -= mips;
 						break;
 					} else {
 						peProvisioner.allocateMipsForVm(vmUid, availableMips);
-						getPeMap().get(vmUid).add(pe);
+						pes.add(pe);
 						mips -= availableMips;
 						if (mips <= 0.1) {
 							break;
@@ -166,9 +317,10 @@ public class VmSchedulerTimeShared extends VmScheduler {
 
 	@Override
 	public void deallocatePesForVm(Vm vm) {
-		getMipsMapRequested().remove(vm.getUid());
+		reallocationUpToDate = false;
+		releaseMipsShare(getMipsMapRequested().remove(vm.getUid()));
 		setPesInUse(0);
-		getMipsMap().clear();
+		clearMipsMap();
 		setAvailableMips(PeList.getTotalMips(getPeList()));
 
 		for (Pe pe : getPeList()) {
@@ -190,11 +342,73 @@ public class VmSchedulerTimeShared extends VmScheduler {
 	 */
 	@Override
 	public void deallocatePesForAllVms() {
+		reallocationUpToDate = false;
+		clearMipsMap();
 		super.deallocatePesForAllVms();
+		for (List<Double> mipsShare : getMipsMapRequested().values()) {
+			releaseMipsShare(mipsShare);
+		}
 		getMipsMapRequested().clear();
 		setPesInUse(0);
 	}
 
+	/**
+	 * Clears the mips map, releasing its MIPS shares to be reused.
+	 */
+	protected void clearMipsMap() {
+		for (List<Double> mipsShare : getMipsMap().values()) {
+			releaseMipsShare(mipsShare);
+		}
+		getMipsMap().clear();
+	}
+
+	/**
+	 * Takes an empty MIPS share to be put in the mips map or the {@link #mipsMapRequested},
+	 * reusing a share released before if possible.
+	 * 
+	 * @return the empty MIPS share
+	 */
+	protected MipsShare takeMipsShare() {
+		return mipsSharePool.take();
+	}
+
+	/**
+	 * Takes a MIPS share as {@link #takeMipsShare()} and copies the MIPS of a list into it.
+	 * 
+	 * @param mipsShare the list of MIPS
+	 * @return the copy of the list
+	 */
+	protected MipsShare copyMipsShare(List<Double> mipsShare) {
+		MipsShare copy = takeMipsShare();
+		copy.setAll(mipsShare);
+		return copy;
+	}
+
+	/**
+	 * Releases a MIPS share no longer in the mips map or the {@link #mipsMapRequested}, to be
+	 * reused. The share must not be used anymore.
+	 * 
+	 * @param mipsShare the MIPS share, or <tt>null</tt>
+	 */
+	protected void releaseMipsShare(List<Double> mipsShare) {
+		mipsSharePool.release(mipsShare);
+	}
+
+	/**
+	 * Takes an empty list for the PEs of a VM in the pe map, reusing a list no longer in use
+	 * if possible.
+	 * 
+	 * @return the empty list of PEs
+	 */
+	private List<Pe> takePeList() {
+		if (freePeLists.isEmpty()) {
+			return new ArrayList<Pe>();
+		}
+		List<Pe> pes = freePeLists.remove(freePeLists.size() - 1);
+		pes.clear();
+		return pes;
+	}
+
 	/**
 	 * Returns maximum available MIPS among all the PEs. For the time shared policy it is just all
 	 * the avaiable MIPS.
@@ -7,7 +7,6 @@
 
 package org.cloudbus.cloudsim;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -52,20 +51,22 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 
 		// if the requested mips is bigger than the capacity of a single PE, we cap
 		// the request to the PE's capacity
-		List<Double> mipsShareRequestedCapped = new ArrayList<Double>();
+		MipsShare requested = copyMipsShare(mipsShareRequested);
+		MipsShare mipsShareRequestedCapped = takeMipsShare();
 		double peMips = getPeCapacity();
-		for (Double mips : mipsShareRequested) {
+		for (int i = 0; i < requested.size(); i++) {
+			double mips = requested.getMips(i);
 			if (mips > peMips) {
-				mipsShareRequestedCapped.add(peMips);
+				mipsShareRequestedCapped.addMips(peMips);
 				totalRequestedMips += peMips;
 			} else {
-				mipsShareRequestedCapped.add(mips);
+				mipsShareRequestedCapped.addMips(mips);
 				totalRequestedMips += mips;
 			}
 		}
 
-		getMipsMapRequested().put(vmUid, mipsShareRequested);
-		setPesInUse(getPesInUse() + mipsShareRequested.size());
+		releaseMipsShare(getMipsMapRequested().put(vmUid, requested));
+		setPesInUse(getPesInUse() + requested.size());
 
 		if (getVmsMigratingIn().contains(vmUid)) {
 			// the destination host only experience 10% of the migrating VM's MIPS
@@ -73,8 +74,9 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 		}
 
 		if (getAvailableMips() >= totalRequestedMips) {
-			List<Double> mipsShareAllocated = new ArrayList<Double>();
-			for (Double mipsRequested : mipsShareRequestedCapped) {
+			MipsShare mipsShareAllocated = takeMipsShare();
+			for (int i = 0; i < mipsShareRequestedCapped.size(); i++) {
+				double mipsRequested = mipsShareRequestedCapped.getMips(i);
 				if (getVmsMigratingOut().contains(vmUid)) {
 					// performance degradation due to migration = 10% MIPS
 					mipsRequested *= 0.9;
@@ -82,18 +84,67 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 					// the destination host only experience 10% of the migrating VM's MIPS
 					mipsRequested *= 0.1;
 				}
-				mipsShareAllocated.add(mipsRequested);
+				mipsShareAllocated.addMips(mipsRequested);
 			}
 
-			getMipsMap().put(vmUid, mipsShareAllocated);
+			releaseMipsShare(getMipsMap().put(vmUid, mipsShareAllocated));
 			setAvailableMips(getAvailableMips() - totalRequestedMips);
 		} else {
 			redistributeMipsDueToOverSubscription();
 		}
+		releaseMipsShare(mipsShareRequestedCapped);
 
 		return true;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p/>
+	 * Allocating PEs for a VM that oversubscribes the host redistributes the MIPS among all
+	 * the VMs, so that only the last redistribution matters. The VMs up to the last one that
+	 * oversubscribes the host, found by following the available MIPS as the VMs are allocated,
+	 * are only added to the requests, and the MIPS are redistributed once for all of them.
+	 */
+	@Override
+	protected void allocatePesForVms(List<? extends Vm> vms, List<? extends List<Double>> mipsSharesRequested) {
+		int lastOverSubscribingVm = -1;
+		double availableMips = getAvailableMips();
+		double peMips = getPeCapacity();
+		for (int i = 0; i < vms.size(); i++) {
+			List<Double> mipsShareRequested = mipsSharesRequested.get(i);
+			double totalRequestedMips = 0;
+			for (int j = 0; j < mipsShareRequested.size(); j++) {
+				double mips = MipsShare.getMips(mipsShareRequested, j);
+				totalRequestedMips += mips > peMips ? peMips : mips;
+			}
+			if (getVmsMigratingIn().contains(vms.get(i).getUid())) {
+				// the destination host only experience 10% of the migrating VM's MIPS
+				totalRequestedMips *= 0.1;
+			}
+			if (availableMips >= totalRequestedMips) {
+				availableMips -= totalRequestedMips;
+			} else {
+				availableMips = 0;
+				lastOverSubscribingVm = i;
+			}
+		}
+
+		for (int i = 0; i < vms.size(); i++) {
+			Vm vm = vms.get(i);
+			updateVmsMigratingOut(vm);
+			List<Double> mipsShareRequested = mipsSharesRequested.get(i);
+			if (i <= lastOverSubscribingVm) {
+				releaseMipsShare(getMipsMapRequested().put(vm.getUid(), copyMipsShare(mipsShareRequested)));
+				setPesInUse(getPesInUse() + mipsShareRequested.size());
+				if (i == lastOverSubscribingVm) {
+					redistributeMipsDueToOverSubscription();
+				}
+			} else {
+				allocatePesForVm(vm.getUid(), mipsShareRequested);
+			}
+		}
+	}
+
 	/**
 	 * Recalculates distribution of MIPs among VMs, considering eventual shortage of MIPS
 	 * compared to the amount requested by VMs.
@@ -109,14 +160,15 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 			double requiredMipsByThisVm = 0.0;
 			String vmId = entry.getKey();
 			List<Double> mipsShareRequested = entry.getValue();
-			List<Double> mipsShareRequestedCapped = new ArrayList<Double>();
+			MipsShare mipsShareRequestedCapped = takeMipsShare();
 			double peMips = getPeCapacity();
-			for (Double mips : mipsShareRequested) {
+			for (int i = 0; i < mipsShareRequested.size(); i++) {
+				double mips = MipsShare.getMips(mipsShareRequested, i);
 				if (mips > peMips) {
-					mipsShareRequestedCapped.add(peMips);
+					mipsShareRequestedCapped.addMips(peMips);
 					requiredMipsByThisVm += peMips;
 				} else {
-					mipsShareRequestedCapped.add(mips);
+					mipsShareRequestedCapped.addMips(mips);
 					requiredMipsByThisVm += mips;
 				}
 			}
@@ -134,15 +186,16 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 		double scalingFactor = totalAvailableMips / totalRequiredMipsByAllVms;
 
 		// Clear the old MIPS allocation
-		getMipsMap().clear();
+		clearMipsMap();
 
 		// Update the actual MIPS allocated to the VMs
 		for (Entry<String, List<Double>> entry : mipsMapCapped.entrySet()) {
 			String vmUid = entry.getKey();
 			List<Double> requestedMips = entry.getValue();
 
-			List<Double> updatedMipsAllocation = new ArrayList<Double>();
-			for (Double mips : requestedMips) {
+			MipsShare updatedMipsAllocation = takeMipsShare();
+			for (int i = 0; i < requestedMips.size(); i++) {
+				double mips = MipsShare.getMips(requestedMips, i);
 				if (getVmsMigratingOut().contains(vmUid)) {
 					// the original amount is scaled
 					mips *= scalingFactor;
@@ -157,11 +210,12 @@ public class VmSchedulerTimeSharedOverSubscription extends VmSchedulerTimeShared
 					mips *= scalingFactor;
 				}
 
-				updatedMipsAllocation.add(Math.floor(mips));
+				updatedMipsAllocation.addMips(Math.floor(mips));
 			}
 
 			// add in the new map
 			getMipsMap().put(vmUid, updatedMipsAllocation);
+			releaseMipsShare(requestedMips);
 
 		}
 
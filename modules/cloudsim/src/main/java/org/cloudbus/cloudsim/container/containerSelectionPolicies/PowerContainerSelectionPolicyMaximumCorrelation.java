@@ -5,9 +5,13 @@ import org.cloudbus.cloudsim.container.core.PowerContainer;
 import org.cloudbus.cloudsim.container.core.PowerContainerHost;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.MultipleCorrelation;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by sareh on 31/07/15.
@@ -20,6 +24,12 @@ public class PowerContainerSelectionPolicyMaximumCorrelation extends PowerContai
      */
     private PowerContainerSelectionPolicy fallbackPolicy;
 
+    /** Whether the correlation coefficients are computed from a Gram matrix kept for each host. */
+    private boolean gramMatrixEnabled = false;
+
+    /** The multiple correlation of the containers of each host, indexed by host id. */
+    private final Map<Integer, MultipleCorrelation> correlations = new HashMap<Integer, MultipleCorrelation>();
+
     /**
      * Instantiates a new power container selection policy maximum correlation.
      *
@@ -43,7 +53,7 @@ public class PowerContainerSelectionPolicyMaximumCorrelation extends PowerContai
         }
         List<Double> metrics = null;
         try {
-            metrics = getCorrelationCoefficients(getUtilizationMatrix(migratableContainers));
+            metrics = getCorrelationCoefficients(host.getId(), getUtilizationMatrix(migratableContainers));
         } catch (IllegalArgumentException e) { // the degrees of freedom must be greater than zero
             return getFallbackPolicy().getContainerToMigrate(host);
         }
@@ -71,7 +81,7 @@ public class PowerContainerSelectionPolicyMaximumCorrelation extends PowerContai
         double[][] utilization = new double[n][m];
         for (int i = 0; i < n; i++) {
             List<Double> vmUtilization = powerContainers.get(i).getUtilizationHistory();
-            for (int j = 0; j < vmUtilization.size(); j++) {
+            for (int j = 0; j < m; j++) {
                 utilization[i][j] = vmUtilization.get(j);
             }
         }
@@ -124,6 +134,35 @@ public class PowerContainerSelectionPolicyMaximumCorrelation extends PowerContai
         return correlationCoefficients;
     }
 
+    /**
+     * Gets the correlation coefficients of the containers of a host. If the Gram matrix is enabled, they
+     * are computed from the Gram matrix of the utilization histories kept for the host, falling back
+     * to {@link #getCorrelationCoefficients(double[][])} if the matrix is singular.
+     *
+     * @param hostId the id of the host
+     * @param data the utilization matrix of the containers
+     * @return the correlation coefficients
+     * @see MultipleCorrelation
+     */
+    protected List<Double> getCorrelationCoefficients(final int hostId, final double[][] data) {
+        if (isGramMatrixEnabled() && data.length > 0) {
+            MultipleCorrelation correlation = correlations.get(hostId);
+            if (correlation == null) {
+                correlation = new MultipleCorrelation();
+                correlations.put(hostId, correlation);
+            }
+            double[] coefficients = correlation.getCoefficientsOfDetermination(data, data[0].length);
+            if (coefficients != null) {
+                List<Double> correlationCoefficients = new ArrayList<Double>(coefficients.length);
+                for (double coefficient : coefficients) {
+                    correlationCoefficients.add(coefficient);
+                }
+                return correlationCoefficients;
+            }
+        }
+        return getCorrelationCoefficients(data);
+    }
+
     /**
      * Gets the fallback policy.
      *
@@ -142,6 +181,28 @@ public class PowerContainerSelectionPolicyMaximumCorrelation extends PowerContai
         this.fallbackPolicy = fallbackPolicy;
     }
 
+    /**
+     * Checks if the correlation coefficients are computed from a Gram matrix kept for each host.
+     *
+     * @return true if the Gram matrix is enabled
+     */
+    public boolean isGramMatrixEnabled() {
+        return gramMatrixEnabled;
+    }
+
+    /**
+     * Sets whether the correlation coefficients are computed from a Gram matrix kept for each host,
+     * which gives all the coefficients of a host by a single decomposition and is updated as the
+     * histories slide, instead of fitting a regression for each of them. It is disabled by
+     * default, since the coefficients differ from the regressions' by rounding, which may
+     * change which of nearly equal coefficients is the maximum.
+     *
+     * @param gramMatrixEnabled true to compute the coefficients from a Gram matrix
+     */
+    public void setGramMatrixEnabled(final boolean gramMatrixEnabled) {
+        this.gramMatrixEnabled = gramMatrixEnabled;
+    }
+
 }
 
 
@@ -7,6 +7,8 @@ package org.cloudbus.cloudsim.container.utils;
 import org.cloudbus.cloudsim.container.containerProvisioners.ContainerPe;
 import org.cloudbus.cloudsim.container.containerVmProvisioners.ContainerVmPe;
 import org.cloudbus.cloudsim.container.core.*;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 import java.util.LinkedHashMap;
 import java.util.HashSet;
@@ -25,18 +27,27 @@ import java.util.Map;
 public final class IDs {
 
 
-    private static final Map<Class<?>, Integer> COUNTERS = new LinkedHashMap<>();
-    private static final Set<Class<?>> NO_COUNTERS = new HashSet<>();
-    private static int globalCounter = 1;
+    /**
+     * The id counters of a simulation. Each {@link SimulationContext} has its own
+     * counters, so that simulations running in parallel get the same ids as when
+     * run alone.
+     */
+    private static final class Counters {
+
+        private final Map<Class<?>, Integer> counters = new LinkedHashMap<>();
+        private final Set<Class<?>> noCounters = new HashSet<>();
+        private int globalCounter = 1;
+
+        private Counters() {
+            counters.put(ContainerCloudlet.class, 1);
+            counters.put(ContainerVm.class, 1);
+            counters.put(Container.class, 1);
+            counters.put(ContainerHost.class, 1);
+            counters.put(ContainerDatacenterBroker.class, 1);
+            counters.put(ContainerPe.class, 1);
+            counters.put(ContainerVmPe.class, 1);
+        }
 
-    static {
-        COUNTERS.put(ContainerCloudlet.class, 1);
-        COUNTERS.put(ContainerVm.class, 1);
-        COUNTERS.put(Container.class, 1);
-        COUNTERS.put(ContainerHost.class, 1);
-        COUNTERS.put(ContainerDatacenterBroker.class, 1);
-        COUNTERS.put(ContainerPe.class, 1);
-        COUNTERS.put(ContainerVmPe.class, 1);
     }
 
     private IDs() {
@@ -49,11 +60,12 @@ public final class IDs {
      * @return a valid id for the specified class.
      */
     public static synchronized int pollId(final Class<?> clazz) {
+        Counters ids = getCounters();
         Class<?> matchClass = null;
-        if (COUNTERS.containsKey(clazz)) {
+        if (ids.counters.containsKey(clazz)) {
             matchClass = clazz;
-        } else if (!NO_COUNTERS.contains(clazz)) {
-            for (Class<?> key : COUNTERS.keySet()) {
+        } else if (!ids.noCounters.contains(clazz)) {
+            for (Class<?> key : ids.counters.keySet()) {
                 if (key.isAssignableFrom(clazz)) {
                     matchClass = key;
                     break;
@@ -63,11 +75,11 @@ public final class IDs {
 
         int result = -1;
         if (matchClass == null) {
-            NO_COUNTERS.add(clazz);
-            result = pollGlobalId();
+            ids.noCounters.add(clazz);
+            result = ids.globalCounter++;
         } else {
-            result = COUNTERS.get(matchClass);
-            COUNTERS.put(matchClass, result + 1);
+            result = ids.counters.get(matchClass);
+            ids.counters.put(matchClass, result + 1);
         }
 
         if (result < 0) {
@@ -78,8 +90,20 @@ public final class IDs {
         return result;
     }
 
-    private static synchronized int pollGlobalId() {
-        return globalCounter++;
+    /**
+     * Returns the id counters of the current simulation context.
+     *
+     * @return the id counters
+     * @see CloudSim#getContext()
+     */
+    private static Counters getCounters() {
+        SimulationContext context = CloudSim.getContext();
+        Counters ids = context.getComponent(Counters.class);
+        if (ids == null) {
+            ids = new Counters();
+            context.setComponent(Counters.class, ids);
+        }
+        return ids;
     }
 
 }
@@ -3,9 +3,13 @@ package org.cloudbus.cloudsim.container.vmSelectionPolicies;
 import org.cloudbus.cloudsim.container.core.*;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.MultipleCorrelation;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by sareh on 3/08/15.
@@ -16,6 +20,12 @@ public class PowerContainerVmSelectionPolicyMaximumCorrelation extends PowerCont
         /** The fallback policy. */
         private PowerContainerVmSelectionPolicy fallbackPolicy;
 
+        /** Whether the correlation coefficients are computed from a Gram matrix kept for each host. */
+        private boolean gramMatrixEnabled = false;
+
+        /** The multiple correlation of the VMs of each host, indexed by host id. */
+        private final Map<Integer, MultipleCorrelation> correlations = new HashMap<Integer, MultipleCorrelation>();
+
         /**
          * Instantiates a new power vm selection policy maximum correlation.
          *
@@ -40,7 +50,7 @@ public class PowerContainerVmSelectionPolicyMaximumCorrelation extends PowerCont
             }
             List<Double> metrics = null;
             try {
-                metrics = getCorrelationCoefficients(getUtilizationMatrix(migratableVms));
+                metrics = getCorrelationCoefficients(host.getId(), getUtilizationMatrix(migratableVms));
             } catch (IllegalArgumentException e) { // the degrees of freedom must be greater than zero
                 return getFallbackPolicy().getVmToMigrate(host);
             }
@@ -68,7 +78,7 @@ public class PowerContainerVmSelectionPolicyMaximumCorrelation extends PowerCont
             double[][] utilization = new double[n][m];
             for (int i = 0; i < n; i++) {
                 List<Double> vmUtilization = vmList.get(i).getUtilizationHistory();
-                for (int j = 0; j < vmUtilization.size(); j++) {
+                for (int j = 0; j < m; j++) {
                     utilization[i][j] = vmUtilization.get(j);
                 }
             }
@@ -121,6 +131,35 @@ public class PowerContainerVmSelectionPolicyMaximumCorrelation extends PowerCont
             return correlationCoefficients;
         }
 
+        /**
+         * Gets the correlation coefficients of the VMs of a host. If the Gram matrix is enabled, they
+         * are computed from the Gram matrix of the utilization histories kept for the host, falling back
+         * to {@link #getCorrelationCoefficients(double[][])} if the matrix is singular.
+         *
+         * @param hostId the id of the host
+         * @param data the utilization matrix of the VMs
+         * @return the correlation coefficients
+         * @see MultipleCorrelation
+         */
+        protected List<Double> getCorrelationCoefficients(final int hostId, final double[][] data) {
+            if (isGramMatrixEnabled() && data.length > 0) {
+                MultipleCorrelation correlation = correlations.get(hostId);
+                if (correlation == null) {
+                    correlation = new MultipleCorrelation();
+                    correlations.put(hostId, correlation);
+                }
+                double[] coefficients = correlation.getCoefficientsOfDetermination(data, data[0].length);
+                if (coefficients != null) {
+                    List<Double> correlationCoefficients = new ArrayList<Double>(coefficients.length);
+                    for (double coefficient : coefficients) {
+                        correlationCoefficients.add(coefficient);
+                    }
+                    return correlationCoefficients;
+                }
+            }
+            return getCorrelationCoefficients(data);
+        }
+
         /**
          * Gets the fallback policy.
          *
@@ -139,6 +178,28 @@ public class PowerContainerVmSelectionPolicyMaximumCorrelation extends PowerCont
             this.fallbackPolicy = fallbackPolicy;
         }
 
+        /**
+         * Checks if the correlation coefficients are computed from a Gram matrix kept for each host.
+         *
+         * @return true if the Gram matrix is enabled
+         */
+        public boolean isGramMatrixEnabled() {
+            return gramMatrixEnabled;
+        }
+
+        /**
+         * Sets whether the correlation coefficients are computed from a Gram matrix kept for each host,
+         * which gives all the coefficients of a host by a single decomposition and is updated as the
+         * histories slide, instead of fitting a regression for each of them. It is disabled by
+         * default, since the coefficients differ from the regressions' by rounding, which may
+         * change which of nearly equal coefficients is the maximum.
+         *
+         * @param gramMatrixEnabled true to compute the coefficients from a Gram matrix
+         */
+        public void setGramMatrixEnabled(final boolean gramMatrixEnabled) {
+            this.gramMatrixEnabled = gramMatrixEnabled;
+        }
+
     }
 
 
@@ -272,6 +272,18 @@ public class CloudSimTags {
 
 	public static final int NextCycle = BASE + 48;
 
+	/**
+	 * Denotes an internal event of a broker releasing the cloudlets of a workload whose submit
+	 * time has been reached.
+	 */
+	public static final int CLOUDLET_RELEASE = BASE + 49;
+
+	/**
+	 * Denotes an internal event of a network datacenter whose network is simulated at the flow
+	 * level, when the next flow completes.
+	 */
+	public static final int NETWORK_FLOW_COMPLETION = BASE + 50;
+
 	/** Private Constructor. */
 	private CloudSimTags() {
 		throw new UnsupportedOperationException("CloudSimTags cannot be instantiated");
@@ -8,15 +8,25 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
- * This class implements the deferred event queue used by {@link CloudSim}. 
- * The event queue uses a linked list to store the events.
- * 
+ * This class implements the deferred event queue used by {@link CloudSim}.
+ * The events are partitioned by destination entity, so that selecting the events
+ * of an entity doesn't go through the events of the other ones.
+ * The events of each entity are kept in a linked list in temporal order and
+ * are also linked per tag, so that events can be selected by
+ * {@link PredicateAny} and {@link PredicateType} without scanning the list.
+ *
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see CloudSim
@@ -24,65 +34,376 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list of events. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The events of each entity, indexed by the entity id. */
+	private final List<EntityEvents> entityEvents = new ArrayList<EntityEvents>();
 
-	/** The max time that an added event is scheduled. */
-	private double maxTime = -1;
+	/** The total number of events. */
+	private int size = 0;
+
+	/** An incremental number used to keep the insertion order of events happening at the same time. */
+	private long serial = 0;
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
 	 * of the events.
-	 * 
+	 *
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
-		// The event has to be inserted as the last of all events
-		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
+		int destination = newEvent.getDestination();
+		while (entityEvents.size() <= destination) {
+			entityEvents.add(null);
+		}
+		EntityEvents events = entityEvents.get(destination);
+		if (events == null) {
+			events = new EntityEvents();
+			entityEvents.set(destination, events);
 		}
+		events.add(new Node(newEvent, serial++));
+		size++;
+	}
 
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
+	/**
+	 * Counts the events sent to an entity that match a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int destination, Predicate p) {
+		EntityEvents events = getEntityEvents(destination);
+		if (events == null) {
+			return 0;
+		}
+		// subclasses may override match, so only the predicates of these exact classes use the index
+		if (p.getClass() == PredicateAny.class) {
+			return events.size;
+		}
+		if (p.getClass() == PredicateType.class) {
+			PredicateType predicate = (PredicateType) p;
+			int count = 0;
+			for (int i = 0; i < predicate.getNumberOfTags(); i++) {
+				TagEvents tagEvents = events.byTag.get(predicate.getTag(i));
+				if (tagEvents != null) {
+					count += tagEvents.size;
+				}
 			}
+			return count;
 		}
 
-		list.add(newEvent);
+		int count = 0;
+		for (Node node = events.head; node != null; node = node.next) {
+			if (p.match(node.event)) {
+				count++;
+			}
+		}
+		return count;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
-	 * 
+	 * Gets the first event sent to an entity that matches a predicate, without removing it.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the first matching event or <tt>null</tt> if there is none
+	 */
+	public SimEvent findFirst(int destination, Predicate p) {
+		Node node = findFirstNode(destination, p);
+		return node == null ? null : node.event;
+	}
+
+	/**
+	 * Removes and returns the first event sent to an entity that matches a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the first matching event or <tt>null</tt> if there is none
+	 */
+	public SimEvent select(int destination, Predicate p) {
+		Node node = findFirstNode(destination, p);
+		if (node == null) {
+			return null;
+		}
+		getEntityEvents(destination).remove(node);
+		size--;
+		return node.event;
+	}
+
+	/**
+	 * Gets the last event of the queue, that is, the one happening later or, among the events
+	 * happening at the same time, the last one added.
+	 *
+	 * @return the last event or <tt>null</tt> if the queue is empty
+	 */
+	public SimEvent last() {
+		Node last = null;
+		for (EntityEvents events : entityEvents) {
+			if (events != null && events.tail != null && (last == null || last.isBefore(events.tail))) {
+				last = events.tail;
+			}
+		}
+		return last == null ? null : last.event;
+	}
+
+	/**
+	 * Returns an iterator to the events in the queue. The events of each entity
+	 * are returned in temporal order, but the events of different entities are not merged.
+	 *
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		return new Iterator<SimEvent>() {
+			private int entity = -1;
+			private Node next = null;
+			private Node current = null;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null && entity + 1 < entityEvents.size()) {
+					EntityEvents events = entityEvents.get(++entity);
+					next = events == null ? null : events.head;
+				}
+				return next != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				current = next;
+				next = next.next;
+				return current.event;
+			}
+
+			@Override
+			public void remove() {
+				if (current == null) {
+					throw new IllegalStateException();
+				}
+				entityEvents.get(entity).remove(current);
+				size--;
+				current = null;
+			}
+		};
 	}
 
 	/**
 	 * Returns the size of this event queue.
-	 * 
+	 *
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		entityEvents.clear();
+		size = 0;
+	}
+
+	/**
+	 * Gets the events of an entity.
+	 *
+	 * @param destination the id of the entity
+	 * @return the events of the entity or <tt>null</tt> if no event was ever sent to it
+	 */
+	private EntityEvents getEntityEvents(int destination) {
+		if (destination < 0 || destination >= entityEvents.size()) {
+			return null;
+		}
+		return entityEvents.get(destination);
+	}
+
+	/**
+	 * Finds the node of the first event sent to an entity that matches a predicate.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param p the predicate
+	 * @return the node or <tt>null</tt> if there is no matching event
+	 */
+	private Node findFirstNode(int destination, Predicate p) {
+		EntityEvents events = getEntityEvents(destination);
+		if (events == null) {
+			return null;
+		}
+		if (p.getClass() == PredicateAny.class) {
+			return events.head;
+		}
+		if (p.getClass() == PredicateType.class) {
+			PredicateType predicate = (PredicateType) p;
+			Node first = null;
+			for (int i = 0; i < predicate.getNumberOfTags(); i++) {
+				TagEvents tagEvents = events.byTag.get(predicate.getTag(i));
+				if (tagEvents != null && tagEvents.head != null
+						&& (first == null || tagEvents.head.isBefore(first))) {
+					first = tagEvents.head;
+				}
+			}
+			return first;
+		}
+
+		for (Node node = events.head; node != null; node = node.next) {
+			if (p.match(node.event)) {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A deferred event, linked both in the list of events of its destination entity
+	 * and in the list of events with the same tag.
+	 */
+	private static final class Node {
+
+		final SimEvent event;
+
+		/** The insertion order of the event. */
+		final long serial;
+
+		Node previous;
+
+		Node next;
+
+		Node previousWithTag;
+
+		Node nextWithTag;
+
+		Node(SimEvent event, long serial) {
+			this.event = event;
+			this.serial = serial;
+		}
+
+		/**
+		 * Checks if this event comes before another one in the queue, that is, if it happens
+		 * earlier or at the same time but was added first.
+		 *
+		 * @param other the other node
+		 * @return true if this event comes first
+		 */
+		boolean isBefore(Node other) {
+			double time = event.eventTime();
+			double otherTime = other.event.eventTime();
+			return time < otherTime || (time == otherTime && serial < other.serial);
+		}
+
+	}
+
+	/**
+	 * The events with a given tag sent to an entity, in temporal order.
+	 */
+	private static final class TagEvents {
+
+		Node head;
+
+		Node tail;
+
+		int size;
+
+	}
+
+	/**
+	 * The events sent to an entity, in temporal order.
+	 */
+	private static final class EntityEvents {
+
+		Node head;
+
+		Node tail;
+
+		int size;
+
+		/** The events of the entity grouped by tag. */
+		final Map<Integer, TagEvents> byTag = new HashMap<Integer, TagEvents>();
+
+		/**
+		 * Inserts a node as the last of all events with the same or an earlier time.
+		 * Events are usually added in temporal order, so the search starts from the tail.
+		 *
+		 * @param node the node to be added
+		 */
+		void add(Node node) {
+			double time = node.event.eventTime();
+
+			Node previous = tail;
+			while (previous != null && previous.event.eventTime() > time) {
+				previous = previous.previous;
+			}
+			node.previous = previous;
+			node.next = previous == null ? head : previous.next;
+			if (node.next == null) {
+				tail = node;
+			} else {
+				node.next.previous = node;
+			}
+			if (previous == null) {
+				head = node;
+			} else {
+				previous.next = node;
+			}
+			size++;
+
+			int tag = node.event.getTag();
+			TagEvents tagEvents = byTag.get(tag);
+			if (tagEvents == null) {
+				tagEvents = new TagEvents();
+				byTag.put(tag, tagEvents);
+			}
+			previous = tagEvents.tail;
+			while (previous != null && previous.event.eventTime() > time) {
+				previous = previous.previousWithTag;
+			}
+			node.previousWithTag = previous;
+			node.nextWithTag = previous == null ? tagEvents.head : previous.nextWithTag;
+			if (node.nextWithTag == null) {
+				tagEvents.tail = node;
+			} else {
+				node.nextWithTag.previousWithTag = node;
+			}
+			if (previous == null) {
+				tagEvents.head = node;
+			} else {
+				previous.nextWithTag = node;
+			}
+			tagEvents.size++;
+		}
+
+		/**
+		 * Unlinks a node from the lists.
+		 *
+		 * @param node the node to be removed
+		 */
+		void remove(Node node) {
+			if (node.previous == null) {
+				head = node.next;
+			} else {
+				node.previous.next = node.next;
+			}
+			if (node.next == null) {
+				tail = node.previous;
+			} else {
+				node.next.previous = node.previous;
+			}
+			size--;
+
+			TagEvents tagEvents = byTag.get(node.event.getTag());
+			if (node.previousWithTag == null) {
+				tagEvents.head = node.nextWithTag;
+			} else {
+				node.previousWithTag.nextWithTag = node.nextWithTag;
+			}
+			if (node.nextWithTag == null) {
+				tagEvents.tail = node.previousWithTag;
+			} else {
+				node.nextWithTag.previousWithTag = node.previousWithTag;
+			}
+			tagEvents.size--;
+		}
+
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Iterator;
+
+/**
+ * The interface of the data structures used by the {@link FutureQueue} to store
+ * the events that are yet to happen (the so called future event list or event calendar).
+ * <p>
+ * Implementations must keep the events ordered according to
+ * {@link SimEvent#compareTo(SimEvent)}, that is, by event time and,
+ * for events happening at the same time, by their serial number.
+ * The serial number is assigned by the {@link FutureQueue} before an event
+ * is added, thus implementations must not change it.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see FutureQueue
+ * @see FutureEventListTreeSet
+ * @see FutureEventListHeap
+ * @see FutureEventListCalendarQueue
+ * @see FutureEventListTimingWheel
+ */
+public interface FutureEventList extends Iterable<SimEvent> {
+
+	/**
+	 * Adds an event to the list.
+	 *
+	 * @param event the event to be added
+	 */
+	void add(SimEvent event);
+
+	/**
+	 * Gets the first event of the list, without removing it.
+	 *
+	 * @return the event with the lowest time and serial number, or <tt>null</tt> if the list is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Removes and returns the first event of the list.
+	 *
+	 * @return the event with the lowest time and serial number, or <tt>null</tt> if the list is empty
+	 */
+	SimEvent poll();
+
+	/**
+	 * Removes a given event from the list.
+	 *
+	 * @param event the event to be removed
+	 * @return true if the event was in the list, false otherwise
+	 */
+	boolean remove(SimEvent event);
+
+	/**
+	 * Gets the number of events in the list.
+	 *
+	 * @return the number of events
+	 */
+	int size();
+
+	/**
+	 * Removes all the events from the list.
+	 */
+	void clear();
+
+	/**
+	 * Returns an iterator over the events in the list. Implementations
+	 * are not required to return the events in time order, nor to support
+	 * {@link Iterator#remove()}. The list must not be changed while
+	 * the iterator is being used.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	Iterator<SimEvent> iterator();
+
+}
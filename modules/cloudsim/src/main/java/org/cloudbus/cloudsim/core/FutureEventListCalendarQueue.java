@@ -0,0 +1,383 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link FutureEventList} implemented as a calendar queue, as proposed by R. Brown in
+ * "Calendar Queues: A Fast O(1) Priority Queue Implementation for the Simulation
+ * Event Set Problem" (Communications of the ACM, 1988).
+ * <p>
+ * The time axis is divided into "days" of a fixed width, which are mapped
+ * circularly into an array of buckets (a "year"). Each bucket keeps its events sorted,
+ * so, when the bucket width fits the event distribution, adding and polling events
+ * cost O(1) on average. The number of buckets and their width are recomputed
+ * whenever the number of events doubles or halves.
+ * <p>
+ * Removing an arbitrary event costs O(bucket size) and the iterator does not
+ * return the events in time order.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class FutureEventListCalendarQueue implements FutureEventList {
+
+	/** The minimum number of buckets. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The maximum number of events used to estimate the bucket width. */
+	private static final int WIDTH_SAMPLE_SIZE = 25;
+
+	/** The buckets, i.e., the days of the calendar year. */
+	private Bucket[] buckets;
+
+	/** The time interval covered by each bucket. */
+	private double width;
+
+	/**
+	 * The number of the day (the event time divided by the {@link #width}) where the
+	 * search for the first event starts. No event in the queue belongs to an earlier day.
+	 */
+	private long currentDay;
+
+	/** The number of events in the queue. */
+	private int size;
+
+	/**
+	 * Creates a calendar queue with buckets of width 1.0.
+	 * The width is adjusted as events are added.
+	 */
+	public FutureEventListCalendarQueue() {
+		this(1.0);
+	}
+
+	/**
+	 * Creates a calendar queue.
+	 *
+	 * @param initialWidth the initial width of the buckets, which is adjusted as events are added
+	 */
+	public FutureEventListCalendarQueue(double initialWidth) {
+		if (initialWidth <= 0) {
+			throw new IllegalArgumentException("The bucket width should be positive, but is: " + initialWidth);
+		}
+		width = initialWidth;
+		buckets = newBuckets(MIN_BUCKETS);
+	}
+
+	@Override
+	public void add(SimEvent event) {
+		insert(event);
+		size++;
+		if (size > 2 * buckets.length) {
+			resize(2 * buckets.length);
+		}
+	}
+
+	@Override
+	public SimEvent peek() {
+		int index = findFirst();
+		return index < 0 ? null : buckets[index].last();
+	}
+
+	@Override
+	public SimEvent poll() {
+		int index = findFirst();
+		if (index < 0) {
+			return null;
+		}
+		SimEvent first = buckets[index].removeLast();
+		size--;
+		if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length / 2);
+		}
+		return first;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		if (buckets[indexOf(dayOf(event.eventTime()))].remove(event)) {
+			size--;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		buckets = newBuckets(MIN_BUCKETS);
+		currentDay = 0;
+		size = 0;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+			private int bucket = 0;
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				while (bucket < buckets.length && index >= buckets[bucket].size) {
+					bucket++;
+					index = 0;
+				}
+				return bucket < buckets.length;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return buckets[bucket].events[index++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
+	}
+
+	/**
+	 * Gets the current width of the buckets.
+	 *
+	 * @return the bucket width
+	 */
+	public double getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the current number of buckets.
+	 *
+	 * @return the number of buckets
+	 */
+	public int getNumberOfBuckets() {
+		return buckets.length;
+	}
+
+	/**
+	 * Puts an event into its bucket, without updating the queue size.
+	 *
+	 * @param event the event
+	 */
+	private void insert(SimEvent event) {
+		long day = dayOf(event.eventTime());
+		if (size == 0 || day < currentDay) {
+			currentDay = day;
+		}
+		buckets[indexOf(day)].add(event);
+	}
+
+	/**
+	 * Finds the bucket holding the first event of the queue. The search walks
+	 * one calendar year starting from the {@link #currentDay} and, if no event
+	 * is found in this year, falls back to a direct search over the first event of each bucket.
+	 *
+	 * @return the bucket index, or -1 if the queue is empty
+	 */
+	private int findFirst() {
+		if (size == 0) {
+			return -1;
+		}
+
+		long day = currentDay;
+		for (int i = 0; i < buckets.length; i++, day++) {
+			int index = indexOf(day);
+			Bucket bucket = buckets[index];
+			if (bucket.size > 0 && dayOf(bucket.last().eventTime()) == day) {
+				currentDay = day;
+				return index;
+			}
+		}
+
+		int first = -1;
+		for (int i = 0; i < buckets.length; i++) {
+			Bucket bucket = buckets[i];
+			if (bucket.size > 0 && (first < 0 || bucket.last().compareTo(buckets[first].last()) < 0)) {
+				first = i;
+			}
+		}
+		currentDay = dayOf(buckets[first].last().eventTime());
+		return first;
+	}
+
+	/**
+	 * Redistributes the events over a new number of buckets, estimating
+	 * the bucket width from the average separation between the first events.
+	 *
+	 * @param numberOfBuckets the new number of buckets
+	 */
+	private void resize(int numberOfBuckets) {
+		SimEvent[] events = new SimEvent[size];
+		int count = 0;
+		for (Bucket bucket : buckets) {
+			System.arraycopy(bucket.events, 0, events, count, bucket.size);
+			count += bucket.size;
+		}
+		Arrays.sort(events);
+
+		double newWidth = estimateWidth(events);
+		if (newWidth > 0) {
+			width = newWidth;
+		}
+
+		buckets = newBuckets(numberOfBuckets);
+		size = 0;
+		for (SimEvent event : events) {
+			insert(event);
+			size++;
+		}
+	}
+
+	/**
+	 * Estimates the bucket width as three times the average separation between
+	 * the first events in the queue, ignoring separations larger than twice the average.
+	 *
+	 * @param events the events sorted in time order
+	 * @return the estimated width, or zero if it cannot be estimated
+	 */
+	private static double estimateWidth(SimEvent[] events) {
+		int samples = Math.min(events.length, WIDTH_SAMPLE_SIZE);
+		if (samples < 2) {
+			return 0;
+		}
+
+		double average = (events[samples - 1].eventTime() - events[0].eventTime()) / (samples - 1);
+		double sum = 0;
+		int count = 0;
+		for (int i = 1; i < samples; i++) {
+			double separation = events[i].eventTime() - events[i - 1].eventTime();
+			if (separation <= 2 * average) {
+				sum += separation;
+				count++;
+			}
+		}
+		return count == 0 ? 0 : 3 * sum / count;
+	}
+
+	/**
+	 * Gets the day a given time belongs to.
+	 *
+	 * @param time the time
+	 * @return the day number
+	 */
+	private long dayOf(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	/**
+	 * Gets the index of the bucket a given day is mapped to.
+	 *
+	 * @param day the day number
+	 * @return the bucket index
+	 */
+	private int indexOf(long day) {
+		return (int) Math.floorMod(day, (long) buckets.length);
+	}
+
+	/**
+	 * Creates an array of empty buckets.
+	 *
+	 * @param numberOfBuckets the number of buckets
+	 * @return the buckets
+	 */
+	private static Bucket[] newBuckets(int numberOfBuckets) {
+		Bucket[] newBuckets = new Bucket[numberOfBuckets];
+		for (int i = 0; i < numberOfBuckets; i++) {
+			newBuckets[i] = new Bucket();
+		}
+		return newBuckets;
+	}
+
+	/**
+	 * A calendar bucket, which keeps its events sorted in descending order
+	 * so that the first event can be removed from the end of the array.
+	 */
+	static final class Bucket {
+
+		/** The events, from the last to the first one. */
+		SimEvent[] events = new SimEvent[4];
+
+		/** The number of events in the bucket. */
+		int size;
+
+		/**
+		 * Inserts an event keeping the descending order.
+		 *
+		 * @param event the event
+		 */
+		void add(SimEvent event) {
+			if (size == events.length) {
+				events = Arrays.copyOf(events, size * 2);
+			}
+			// Binary search for the first position holding an event lower than the new one
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (events[mid].compareTo(event) > 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			System.arraycopy(events, low, events, low + 1, size - low);
+			events[low] = event;
+			size++;
+		}
+
+		/**
+		 * Gets the first event of the bucket.
+		 *
+		 * @return the event with the lowest time and serial
+		 */
+		SimEvent last() {
+			return events[size - 1];
+		}
+
+		/**
+		 * Removes the first event of the bucket.
+		 *
+		 * @return the event with the lowest time and serial
+		 */
+		SimEvent removeLast() {
+			SimEvent event = events[--size];
+			events[size] = null;
+			return event;
+		}
+
+		/**
+		 * Removes a given event from the bucket.
+		 *
+		 * @param event the event
+		 * @return true if the event was in the bucket, false otherwise
+		 */
+		boolean remove(SimEvent event) {
+			for (int i = 0; i < size; i++) {
+				if (events[i] == event) {
+					System.arraycopy(events, i + 1, events, i, size - i - 1);
+					events[--size] = null;
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+}
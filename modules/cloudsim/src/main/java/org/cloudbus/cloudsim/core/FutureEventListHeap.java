@@ -0,0 +1,198 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link FutureEventList} implemented as an array-backed d-ary min-heap.
+ * Adding and polling events cost O(log<sub>d</sub> n) and, differently from a
+ * {@link java.util.TreeSet}, no node object is allocated per event.
+ * A higher arity makes the heap shallower and more cache friendly,
+ * at the cost of more comparisons when an event is polled.
+ * <p>
+ * Removing an arbitrary event costs O(n) and the iterator does not
+ * return the events in time order.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class FutureEventListHeap implements FutureEventList {
+
+	/** The default arity of the heap. */
+	public static final int DEFAULT_ARITY = 4;
+
+	/** The default initial capacity of the heap. */
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/** The number of children of each heap node. */
+	private final int arity;
+
+	/** The heap array, where the children of the node at index i start at index i * arity + 1. */
+	private SimEvent[] heap;
+
+	/** The number of events in the heap. */
+	private int size;
+
+	/**
+	 * Creates a 4-ary heap.
+	 */
+	public FutureEventListHeap() {
+		this(DEFAULT_ARITY);
+	}
+
+	/**
+	 * Creates a heap with a given arity.
+	 *
+	 * @param arity the number of children of each heap node
+	 */
+	public FutureEventListHeap(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("The heap arity must be at least 2, but is: " + arity);
+		}
+		this.arity = arity;
+		heap = new SimEvent[DEFAULT_CAPACITY];
+	}
+
+	@Override
+	public void add(SimEvent event) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, heap.length * 2);
+		}
+		siftUp(size++, event);
+	}
+
+	@Override
+	public SimEvent peek() {
+		return size == 0 ? null : heap[0];
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = heap[0];
+		removeAt(0);
+		return first;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		for (int i = 0; i < size; i++) {
+			if (heap[i] == event) {
+				removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<SimEvent>() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (index >= size) {
+					throw new NoSuchElementException();
+				}
+				return heap[index++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
+	}
+
+	/**
+	 * Removes the event at a given position of the heap, replacing it by the last event.
+	 *
+	 * @param index the position of the event to be removed
+	 */
+	private void removeAt(int index) {
+		SimEvent last = heap[--size];
+		heap[size] = null;
+		if (index == size) {
+			return;
+		}
+		siftDown(index, last);
+		if (heap[index] == last) {
+			siftUp(index, last);
+		}
+	}
+
+	/**
+	 * Moves an event up the heap until its parent is lower than it.
+	 *
+	 * @param index the position where the event starts
+	 * @param event the event to be placed
+	 */
+	private void siftUp(int index, SimEvent event) {
+		while (index > 0) {
+			int parent = (index - 1) / arity;
+			SimEvent parentEvent = heap[parent];
+			if (event.compareTo(parentEvent) >= 0) {
+				break;
+			}
+			heap[index] = parentEvent;
+			index = parent;
+		}
+		heap[index] = event;
+	}
+
+	/**
+	 * Moves an event down the heap until all its children are greater than it.
+	 *
+	 * @param index the position where the event starts
+	 * @param event the event to be placed
+	 */
+	private void siftDown(int index, SimEvent event) {
+		while (true) {
+			int firstChild = index * arity + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int lastChild = Math.min(firstChild + arity, size);
+			int minChild = firstChild;
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				if (heap[child].compareTo(heap[minChild]) < 0) {
+					minChild = child;
+				}
+			}
+			if (heap[minChild].compareTo(event) >= 0) {
+				break;
+			}
+			heap[index] = heap[minChild];
+			index = minChild;
+		}
+		heap[index] = event;
+	}
+
+}
@@ -0,0 +1,235 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.FutureEventListCalendarQueue.Bucket;
+
+/**
+ * A {@link FutureEventList} implemented as a bucketed timing wheel.
+ * The time axis is divided into ticks of a fixed length and the wheel has one slot
+ * per tick, covering a time window (the wheel horizon) that starts at the tick
+ * of the last polled event. Events inside the horizon are put directly in their slot,
+ * while events beyond it are kept in an overflow {@link FutureEventListHeap} and moved
+ * into the wheel as it turns.
+ * <p>
+ * When most events are scheduled within the horizon, as the periodic
+ * {@link CloudSimTags#VM_DATACENTER_EVENT} ones, adding an event costs O(1) and
+ * polling it costs the number of empty slots skipped since the previous event.
+ * The tick length should be in the order of the minimal time between events.
+ * <p>
+ * Removing an arbitrary event costs O(slot size) for events inside the horizon
+ * and O(n) for overflow ones. The iterator does not return the events in time order.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class FutureEventListTimingWheel implements FutureEventList {
+
+	/** The default length of a tick. */
+	public static final double DEFAULT_TICK = 0.1;
+
+	/** The default number of slots of the wheel. */
+	public static final int DEFAULT_SLOTS = 4096;
+
+	/** The length of each tick. */
+	private final double tick;
+
+	/** The slots of the wheel, each one holding the events of a tick inside the horizon. */
+	private final Bucket[] slots;
+
+	/** The events beyond the wheel horizon. */
+	private final FutureEventListHeap overflow = new FutureEventListHeap();
+
+	/** The tick where the wheel horizon starts. */
+	private long currentTick;
+
+	/** The number of events in the wheel slots. */
+	private int wheelSize;
+
+	/**
+	 * Creates a timing wheel with the {@link #DEFAULT_SLOTS default number of slots}
+	 * and {@link #DEFAULT_TICK default tick length}.
+	 */
+	public FutureEventListTimingWheel() {
+		this(DEFAULT_TICK, DEFAULT_SLOTS);
+	}
+
+	/**
+	 * Creates a timing wheel.
+	 *
+	 * @param tick the length of each tick
+	 * @param numberOfSlots the number of slots of the wheel, so that the wheel horizon
+	 *            is <tt>tick * numberOfSlots</tt>
+	 */
+	public FutureEventListTimingWheel(double tick, int numberOfSlots) {
+		if (tick <= 0) {
+			throw new IllegalArgumentException("The tick length should be positive, but is: " + tick);
+		}
+		if (numberOfSlots <= 0) {
+			throw new IllegalArgumentException("The number of slots should be positive, but is: "
+					+ numberOfSlots);
+		}
+		this.tick = tick;
+		slots = new Bucket[numberOfSlots];
+		for (int i = 0; i < numberOfSlots; i++) {
+			slots[i] = new Bucket();
+		}
+	}
+
+	@Override
+	public void add(SimEvent event) {
+		long eventTick = tickOf(event.eventTime());
+		if (size() == 0) {
+			currentTick = eventTick;
+		}
+		if (eventTick - currentTick >= slots.length) {
+			overflow.add(event);
+		} else {
+			// An event earlier than the horizon is still lower than any other, so it goes to the
+			// first slot
+			slots[indexOf(Math.max(eventTick, currentTick))].add(event);
+			wheelSize++;
+		}
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (wheelSize == 0) {
+			return overflow.peek();
+		}
+		return slots[findFirst()].last();
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (wheelSize == 0) {
+			if (overflow.size() == 0) {
+				return null;
+			}
+			advanceTo(tickOf(overflow.peek().eventTime()));
+		}
+		int index = findFirst();
+		advanceTo(currentTick + Math.floorMod(index - indexOf(currentTick), slots.length));
+		wheelSize--;
+		return slots[index].removeLast();
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		long eventTick = Math.max(tickOf(event.eventTime()), currentTick);
+		if (eventTick - currentTick < slots.length && slots[indexOf(eventTick)].remove(event)) {
+			wheelSize--;
+			return true;
+		}
+		return overflow.remove(event);
+	}
+
+	@Override
+	public int size() {
+		return wheelSize + overflow.size();
+	}
+
+	@Override
+	public void clear() {
+		for (Bucket slot : slots) {
+			while (slot.size > 0) {
+				slot.removeLast();
+			}
+		}
+		overflow.clear();
+		wheelSize = 0;
+		currentTick = 0;
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		final Iterator<SimEvent> overflowIterator = overflow.iterator();
+		return new Iterator<SimEvent>() {
+			private int slot = 0;
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				while (slot < slots.length && index >= slots[slot].size) {
+					slot++;
+					index = 0;
+				}
+				return slot < slots.length || overflowIterator.hasNext();
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				if (slot < slots.length) {
+					return slots[slot].events[index++];
+				}
+				return overflowIterator.next();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("remove");
+			}
+		};
+	}
+
+	/**
+	 * Finds the first non-empty slot, starting from the current tick.
+	 * The wheel must not be empty.
+	 *
+	 * @return the slot index
+	 */
+	private int findFirst() {
+		int index = indexOf(currentTick);
+		while (slots[index].size == 0) {
+			index = index + 1 == slots.length ? 0 : index + 1;
+		}
+		return index;
+	}
+
+	/**
+	 * Turns the wheel until a given tick, moving into the wheel the overflow events
+	 * that fall inside the new horizon.
+	 *
+	 * @param tick the tick where the new horizon starts
+	 */
+	private void advanceTo(long tick) {
+		currentTick = tick;
+		while (overflow.size() > 0 && tickOf(overflow.peek().eventTime()) - currentTick < slots.length) {
+			SimEvent event = overflow.poll();
+			slots[indexOf(tickOf(event.eventTime()))].add(event);
+			wheelSize++;
+		}
+	}
+
+	/**
+	 * Gets the tick a given time belongs to.
+	 *
+	 * @param time the time
+	 * @return the tick number
+	 */
+	private long tickOf(double time) {
+		return (long) Math.floor(time / tick);
+	}
+
+	/**
+	 * Gets the index of the slot a given tick is mapped to.
+	 *
+	 * @param tick the tick number
+	 * @return the slot index
+	 */
+	private int indexOf(long tick) {
+		return (int) Math.floorMod(tick, (long) slots.length);
+	}
+
+}
@@ -10,30 +10,55 @@ package org.cloudbus.cloudsim.core;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.List;
 
 /**
  * This class implements the future event queue used by {@link CloudSim}. 
- * The event queue uses a {@link TreeSet} in order to store the events.
+ * The events are stored in a {@link FutureEventList}, which by default is a
+ * {@link FutureEventListTreeSet}.
  * 
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
  * @see Simulation
- * @see java.util.TreeSet
+ * @see FutureEventList
  * 
  * @todo It would be used a common interface for queues
  * such as this one and {@link DeferredQueue}
  */
 public class FutureQueue {
 
-	/** The sorted set of events. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
+	/** The list of events. */
+	private final FutureEventList events;
 
 	/** A incremental number used for {@link SimEvent#serial} event attribute.
          */
 	private long serial = 0;
 
+	/**
+	 * An incremental number used for the {@link SimEvent#serial} attribute of the events added
+	 * to the head of the queue, which is lower than the serial of any other event.
+	 */
+	private long firstSerial = Long.MIN_VALUE;
+
+	/**
+	 * Creates a future event queue backed by a {@link FutureEventListTreeSet}.
+	 */
+	public FutureQueue() {
+		this(new FutureEventListTreeSet());
+	}
+
+	/**
+	 * Creates a future event queue backed by a given event list.
+	 * 
+	 * @param events the empty list where the events will be stored
+	 */
+	public FutureQueue(FutureEventList events) {
+		if (events.size() > 0) {
+			throw new IllegalArgumentException("The future event list must be empty.");
+		}
+		this.events = events;
+	}
+
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order of
 	 * the events in the queue.
@@ -42,26 +67,69 @@ public class FutureQueue {
 	 */
 	public void addEvent(SimEvent newEvent) {
 		newEvent.setSerial(serial++);
-		sortedSet.add(newEvent);
+		events.add(newEvent);
 	}
 
 	/**
-	 * Adds a new event to the head of the queue.
+	 * Adds a new event to the head of the queue, that is, before all the events
+	 * happening at the same time that were added by {@link #addEvent(SimEvent)}.
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
 	public void addEventFirst(SimEvent newEvent) {
-		newEvent.setSerial(0);
-		sortedSet.add(newEvent);
+		newEvent.setSerial(firstSerial++);
+		events.add(newEvent);
+	}
+
+	/**
+	 * Gets the first event of the queue, without removing it.
+	 * 
+	 * @return the first event or <tt>null</tt> if the queue is empty
+	 */
+	public SimEvent peek() {
+		return events.peek();
+	}
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 * 
+	 * @return the first event or <tt>null</tt> if the queue is empty
+	 */
+	public SimEvent poll() {
+		return events.poll();
+	}
+
+	/**
+	 * Removes the first event of the queue and all the other events happening at the same time,
+	 * putting them into a given list in the order they would be polled.
+	 * 
+	 * @param batch the list where the events are put, which is cleared first
+	 * @return the number of events removed from the queue
+	 */
+	public int pollSameTime(List<SimEvent> batch) {
+		batch.clear();
+		SimEvent first = events.poll();
+		if (first == null) {
+			return 0;
+		}
+		batch.add(first);
+
+		SimEvent next = events.peek();
+		while (next != null && next.eventTime() == first.eventTime()) {
+			batch.add(events.poll());
+			next = events.peek();
+		}
+		return batch.size();
 	}
 
 	/**
-	 * Returns an iterator to the queue.
+	 * Returns an iterator to the queue. The events are returned in time order
+	 * only if the underlying {@link FutureEventList} does so.
 	 * 
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return sortedSet.iterator();
+		return events.iterator();
 	}
 
 	/**
@@ -70,7 +138,7 @@ public class FutureQueue {
 	 * @return the size
 	 */
 	public int size() {
-		return sortedSet.size();
+		return events.size();
 	}
 
 	/**
@@ -80,7 +148,7 @@ public class FutureQueue {
 	 * @return true, if successful
 	 */
 	public boolean remove(SimEvent event) {
-		return sortedSet.remove(event);
+		return events.remove(event);
 	}
 
 	/**
@@ -90,14 +158,18 @@ public class FutureQueue {
 	 * @return true, if successful
 	 */
 	public boolean removeAll(Collection<SimEvent> events) {
-		return sortedSet.removeAll(events);
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= this.events.remove(event);
+		}
+		return changed;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		sortedSet.clear();
+		events.clear();
 	}
 
 }
\ No newline at end of file
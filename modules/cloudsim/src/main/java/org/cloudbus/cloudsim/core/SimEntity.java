@@ -8,6 +8,9 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.NetworkTopology;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
@@ -46,6 +49,9 @@ public abstract class SimEntity implements Cloneable {
 	/** The entity's current state. */
 	private int state;
 
+	/** The buffer reused to deliver batches of events to {@link #processEventBatch(List)}. */
+	private List<SimEvent> eventBatch;
+
 	/**
 	 * Creates a new entity.
 	 * 
@@ -423,7 +429,11 @@ public abstract class SimEntity implements Cloneable {
 		SimEvent ev = evbuf != null ? evbuf : getNextEvent();
 
 		while (ev != null) {
-			processEvent(ev);
+			if (isBatchProcessingEnabled(ev.getTag())) {
+				processBatchStartingWith(ev);
+			} else {
+				processEvent(ev);
+			}
 			if (state != RUNNABLE) {
 				break;
 			}
@@ -434,6 +444,62 @@ public abstract class SimEntity implements Cloneable {
 		evbuf = null;
 	}
 
+	/**
+	 * Checks if the events with a given tag have to be delivered in batches,
+	 * through {@link #processEventBatch(List)}, instead of one by one through
+	 * {@link #processEvent(SimEvent)}. By default, batch processing is disabled for all tags.
+	 * 
+	 * @param tag the event tag
+	 * @return true if the events with the tag are processed in batches
+	 */
+	protected boolean isBatchProcessingEnabled(int tag) {
+		return false;
+	}
+
+	/**
+	 * Processes a batch of events, which is formed by consecutive events in the entity's
+	 * deferred queue that happen at the same time and have the same tag, such as all the
+	 * cloudlets submitted to a datacenter at a given time. It is only invoked for tags
+	 * for which {@link #isBatchProcessingEnabled(int)} returns true.
+	 * <p>
+	 * The whole batch is delivered even if the entity stops being {@link #RUNNABLE} while
+	 * processing it. The list is reused for the next batches, so neither it nor its
+	 * iterators must be kept after this method returns. By default, the events are passed
+	 * one by one to {@link #processEvent(SimEvent)}.
+	 * 
+	 * @param events the events of the batch, in the order they were received
+	 */
+	protected void processEventBatch(List<SimEvent> events) {
+		for (int i = 0; i < events.size(); i++) {
+			processEvent(events.get(i));
+		}
+	}
+
+	/**
+	 * Gathers into the {@link #eventBatch} the deferred events that can be processed together
+	 * with a given one and passes them to {@link #processEventBatch(List)}.
+	 * 
+	 * @param first the first event of the batch
+	 */
+	private void processBatchStartingWith(SimEvent first) {
+		if (eventBatch == null) {
+			eventBatch = new ArrayList<SimEvent>();
+		}
+		eventBatch.add(first);
+
+		SimEvent next = CloudSim.selectNext(id, first.getTag(), first.eventTime());
+		while (next != null) {
+			eventBatch.add(next);
+			next = CloudSim.selectNext(id, first.getTag(), first.eventTime());
+		}
+
+		try {
+			processEventBatch(eventBatch);
+		} finally {
+			eventBatch.clear();
+		}
+	}
+
 	/**
 	 * Gets a clone of the entity. This is used when independent replications have been specified as
 	 * an output analysis method. Clones or backups of the entities are made in the beginning of the
@@ -448,6 +514,7 @@ public abstract class SimEntity implements Cloneable {
 		SimEntity copy = (SimEntity) super.clone();
 		copy.setName(name);
 		copy.setEventBuffer(null);
+		copy.eventBatch = null;
 		return copy;
 	}
 
@@ -502,6 +569,9 @@ public abstract class SimEntity implements Cloneable {
 	 */
 	protected void setState(int state) {
 		this.state = state;
+		if (state == RUNNABLE) {
+			CloudSim.setEntityReady(id);
+		}
 	}
 
 	/**
@@ -8,6 +8,8 @@
 
 package org.cloudbus.cloudsim.core.predicates;
 
+import java.util.Arrays;
+
 import org.cloudbus.cloudsim.core.SimEvent;
 
 /**
@@ -34,11 +36,51 @@ public class PredicateType extends Predicate {
 
 	/**
 	 * Constructor used to select events with a tag value equal to any of the specified tags.
+	 * A tag specified more than once is kept once.
 	 * 
 	 * @param tags the list of tags
 	 */
 	public PredicateType(int[] tags) {
-		this.tags = tags.clone();
+		int[] distinctTags = new int[tags.length];
+		int numberOfTags = 0;
+		for (int tag : tags) {
+			boolean duplicate = false;
+			for (int i = 0; i < numberOfTags && !duplicate; i++) {
+				duplicate = distinctTags[i] == tag;
+			}
+			if (!duplicate) {
+				distinctTags[numberOfTags++] = tag;
+			}
+		}
+		this.tags = numberOfTags == tags.length ? distinctTags : Arrays.copyOf(distinctTags, numberOfTags);
+	}
+
+	/**
+	 * Gets the tags of the events selected by this predicate.
+	 * 
+	 * @return a copy of the {@link #tags} array
+	 */
+	public int[] getTags() {
+		return tags.clone();
+	}
+
+	/**
+	 * Gets the number of distinct tags of the events selected by this predicate.
+	 * 
+	 * @return the number of tags
+	 */
+	public int getNumberOfTags() {
+		return tags.length;
+	}
+
+	/**
+	 * Gets a tag of the events selected by this predicate, without copying the {@link #tags} array.
+	 * 
+	 * @param index the index of the tag, between 0 and {@link #getNumberOfTags()} - 1
+	 * @return the tag
+	 */
+	public int getTag(int index) {
+		return tags[index];
 	}
 
 	/**
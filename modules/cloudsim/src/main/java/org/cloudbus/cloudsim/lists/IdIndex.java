@@ -0,0 +1,155 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.LongIntHashMap;
+
+/**
+ * IdIndex finds the first element of a list with a given key in constant time, where
+ * {@link VmList#getById(List, int)} and the like scan the list. It maps the key of each
+ * element to the position of the first element with that key.
+ * <p/>
+ * The index doesn't need to be told about the changes of the list: it is rebuilt when the
+ * list is a different one, when its size or its last element changed, or when an element
+ * found is no longer at its indexed position. A lookup thus returns the same element as a
+ * scan of the list, unless elements were replaced or inserted in the middle of the list
+ * without changing its size or its last element. Lists whose elements are added at the end
+ * and removed, as the VM and cloudlet lists of the simulation entities, are indexed exactly.
+ * The list should have constant time positional access, as an {@link java.util.ArrayList}.
+ *
+ * @param <T> the type of the elements
+ * @since CloudSim Toolkit 4.0
+ */
+public class IdIndex<T> {
+
+	/**
+	 * The key of an element of an index.
+	 *
+	 * @param <T> the type of the elements
+	 */
+	public interface KeyFunction<T> {
+
+		/**
+		 * Gets the key of an element.
+		 *
+		 * @param element the element
+		 * @return the key
+		 */
+		long getKey(T element);
+
+	}
+
+	/** The key of a VM given by its id. */
+	public static final KeyFunction<Vm> VM_ID = new KeyFunction<Vm>() {
+
+		@Override
+		public long getKey(Vm vm) {
+			return vm.getId();
+		}
+	};
+
+	/** The key of a VM given by its id and the id of its user, as {@link Vm#getKey()}. */
+	public static final KeyFunction<Vm> VM_KEY = new KeyFunction<Vm>() {
+
+		@Override
+		public long getKey(Vm vm) {
+			return vm.getKey();
+		}
+	};
+
+	/** The key of a host given by its id. */
+	public static final KeyFunction<Host> HOST_ID = new KeyFunction<Host>() {
+
+		@Override
+		public long getKey(Host host) {
+			return host.getId();
+		}
+	};
+
+	/** The key of a cloudlet given by its id. */
+	public static final KeyFunction<Cloudlet> CLOUDLET_ID = new KeyFunction<Cloudlet>() {
+
+		@Override
+		public long getKey(Cloudlet cloudlet) {
+			return cloudlet.getCloudletId();
+		}
+	};
+
+	/** The key of the elements. */
+	private final KeyFunction<? super T> keyFunction;
+
+	/** The positions of the first elements with each key. */
+	private final LongIntHashMap positions = new LongIntHashMap();
+
+	/** The list indexed, or <tt>null</tt> if the index was not built yet. */
+	private List<? extends T> list;
+
+	/** The size of the list when the index was built. */
+	private int size;
+
+	/** The last element of the list when the index was built. */
+	private T last;
+
+	/**
+	 * Instantiates a new index.
+	 *
+	 * @param keyFunction the key of the elements
+	 */
+	public IdIndex(KeyFunction<? super T> keyFunction) {
+		this.keyFunction = keyFunction;
+	}
+
+	/**
+	 * Gets the first element of a list with a given key. The list may be a different one than
+	 * at the previous lookup, in which case the index is rebuilt for the new list.
+	 *
+	 * @param <E> the type of the elements of the list
+	 * @param list the list
+	 * @param key the key
+	 * @return the first element with the key, or <tt>null</tt> if there is none
+	 */
+	public <E extends T> E get(List<E> list, long key) {
+		if (list != this.list || list.size() != size || (size > 0 && list.get(size - 1) != last)) {
+			rebuild(list);
+		}
+		int position = positions.get(key, -1);
+		if (position < 0) {
+			return null;
+		}
+		E element = list.get(position);
+		if (keyFunction.getKey(element) != key) {
+			rebuild(list);
+			position = positions.get(key, -1);
+			element = position < 0 ? null : list.get(position);
+		}
+		return element;
+	}
+
+	/**
+	 * Indexes the positions of the elements of a list.
+	 *
+	 * @param list the list
+	 */
+	private void rebuild(List<? extends T> list) {
+		positions.clear();
+		int position = 0;
+		for (T element : list) {
+			positions.putIfAbsent(keyFunction.getKey(element), position++);
+		}
+		this.list = list;
+		size = position;
+		last = size > 0 ? list.get(size - 1) : null;
+	}
+
+}
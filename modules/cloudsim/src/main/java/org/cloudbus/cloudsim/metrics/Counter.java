@@ -0,0 +1,50 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A metric counting occurrences, such as the events processed by the simulation. A counter can
+ * be incremented by several threads and read at any time by another one.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see MetricsRegistry#counter(String)
+ */
+public class Counter {
+
+	/** The count. */
+	private final LongAdder count = new LongAdder();
+
+	/**
+	 * Increments the count by one.
+	 */
+	public void increment() {
+		count.increment();
+	}
+
+	/**
+	 * Increments the count.
+	 *
+	 * @param amount the amount added to the count
+	 */
+	public void add(long amount) {
+		count.add(amount);
+	}
+
+	/**
+	 * Gets the count.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+}
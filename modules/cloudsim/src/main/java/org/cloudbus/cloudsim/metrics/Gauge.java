@@ -0,0 +1,42 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.metrics;
+
+/**
+ * A metric holding the last value of a quantity, such as the number of events in a queue. The
+ * value is set by the thread running the simulation, which owns the quantity, so that other
+ * threads can read it without accessing the simulation state.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see MetricsRegistry#gauge(String)
+ */
+public class Gauge {
+
+	/** The value. */
+	private volatile double value;
+
+	/**
+	 * Sets the value.
+	 *
+	 * @param value the value
+	 */
+	public void set(double value) {
+		this.value = value;
+	}
+
+	/**
+	 * Gets the value.
+	 *
+	 * @return the last value set, or 0 if none was set
+	 */
+	public double getValue() {
+		return value;
+	}
+
+}
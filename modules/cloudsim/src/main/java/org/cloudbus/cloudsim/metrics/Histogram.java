@@ -0,0 +1,225 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A metric recording the distribution of non-negative values, such as latencies in nanoseconds.
+ * As in HDR histograms, the values are counted in buckets of a fixed relative width, so that the
+ * histogram takes a fixed amount of memory and recording a value takes constant time whatever
+ * the range of the values: the values lower than 128 have a bucket each, and each power of two
+ * above is split into 64 buckets, so the percentiles are within 1/64 of the recorded values.
+ * <p/>
+ * A histogram can be recorded by several threads and read at any time by another one.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see MetricsRegistry#histogram(String)
+ */
+public class Histogram {
+
+	/** The number of buckets of each power of two above the exact values. */
+	private static final int SUB_BUCKET_COUNT = 64;
+
+	/** The number of values counted exactly, each in its own bucket. */
+	private static final int EXACT_COUNT = 2 * SUB_BUCKET_COUNT;
+
+	/** The number of buckets, enough for all the positive longs. */
+	private static final int BUCKET_COUNT = EXACT_COUNT + 56 * SUB_BUCKET_COUNT;
+
+	/** The number of values recorded in each bucket. */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	/** The sum of the values recorded. */
+	private final AtomicLong sum = new AtomicLong();
+
+	/** The lowest value recorded. */
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+	/** The highest value recorded. */
+	private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value the value, negative values being recorded as 0
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(getBucket(value));
+		sum.addAndGet(value);
+		long current;
+		while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+			// retry
+		}
+		while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+			// retry
+		}
+	}
+
+	/**
+	 * Gets the number of values recorded.
+	 *
+	 * @return the number of values
+	 */
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	/**
+	 * Takes a snapshot of the distribution of the values recorded so far.
+	 *
+	 * @return the snapshot
+	 */
+	public Snapshot snapshot() {
+		long[] bucketCounts = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			bucketCounts[i] = counts.get(i);
+		}
+		return new Snapshot(bucketCounts, sum.get(), min.get(), max.get());
+	}
+
+	/**
+	 * Gets the bucket where a value is counted.
+	 *
+	 * @param value the non-negative value
+	 * @return the index of the bucket
+	 */
+	static int getBucket(long value) {
+		if (value < EXACT_COUNT) {
+			return (int) value;
+		}
+		// the shift brings the value between SUB_BUCKET_COUNT and EXACT_COUNT
+		int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+		return EXACT_COUNT + (shift - 1) * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+	}
+
+	/**
+	 * Gets the highest value counted in a bucket.
+	 *
+	 * @param bucket the index of the bucket
+	 * @return the highest value
+	 */
+	static long getHighestValue(int bucket) {
+		if (bucket < EXACT_COUNT) {
+			return bucket;
+		}
+		int shift = (bucket - EXACT_COUNT) / SUB_BUCKET_COUNT + 1;
+		long subBucket = (bucket - EXACT_COUNT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return (subBucket << shift) + (1L << shift) - 1;
+	}
+
+	/**
+	 * The distribution of the values recorded by a histogram at some point.
+	 */
+	public static final class Snapshot {
+
+		/** The number of values in each bucket. */
+		private final long[] counts;
+
+		/** The number of values. */
+		private final long count;
+
+		/** The sum of the values. */
+		private final long sum;
+
+		/** The lowest value. */
+		private final long min;
+
+		/** The highest value. */
+		private final long max;
+
+		/**
+		 * Instantiates a new snapshot.
+		 *
+		 * @param counts the number of values in each bucket
+		 * @param sum the sum of the values
+		 * @param min the lowest value
+		 * @param max the highest value
+		 */
+		private Snapshot(long[] counts, long sum, long min, long max) {
+			this.counts = counts;
+			long count = 0;
+			for (long bucketCount : counts) {
+				count += bucketCount;
+			}
+			this.count = count;
+			this.sum = sum;
+			this.min = count == 0 ? 0 : min;
+			this.max = count == 0 ? 0 : max;
+		}
+
+		/**
+		 * Gets the number of values.
+		 *
+		 * @return the number of values
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Gets the lowest value.
+		 *
+		 * @return the lowest value, or 0 if there is none
+		 */
+		public long getMin() {
+			return min;
+		}
+
+		/**
+		 * Gets the highest value.
+		 *
+		 * @return the highest value, or 0 if there is none
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Gets the mean of the values.
+		 *
+		 * @return the mean, or 0 if there is no value
+		 */
+		public double getMean() {
+			return count == 0 ? 0 : (double) sum / count;
+		}
+
+		/**
+		 * Gets a percentile of the values, that is, the highest value counted in the same
+		 * bucket as the value below which the given percentage of the values fall.
+		 *
+		 * @param percentile the percentage, between 0 and 100
+		 * @return the percentile, or 0 if there is no value
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+			long total = 0;
+			for (int i = 0; i < counts.length; i++) {
+				total += counts[i];
+				if (total >= rank) {
+					return Math.max(min, Math.min(max, getHighestValue(i)));
+				}
+			}
+			return max;
+		}
+
+	}
+
+}
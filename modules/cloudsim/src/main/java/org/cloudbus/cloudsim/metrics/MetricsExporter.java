@@ -0,0 +1,316 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MetricsExporter writes snapshots of the metrics of a registry, either on demand or periodically
+ * on a background thread while a simulation runs. The snapshots are written as CSV, one row per
+ * value with the columns <tt>time,metric,type,statistic,value</tt>, or as JSON, one object per
+ * line. Histograms are written as their count, mean, minimum, maximum and 50th, 90th, 99th and
+ * 99.9th percentiles. An exporter is used as follows:
+ *
+ * <pre>
+ * CloudSim.getMetrics().setEnabled(true);
+ * MetricsExporter exporter = new MetricsExporter(CloudSim.getMetrics(), new FileWriter(&quot;metrics.csv&quot;),
+ * 		MetricsExporter.Format.CSV);
+ * exporter.start(1000);
+ * CloudSim.startSimulation();
+ * exporter.close();
+ * </pre>
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class MetricsExporter implements Closeable {
+
+	/**
+	 * The formats of the snapshots.
+	 */
+	public enum Format {
+		CSV, JSON
+	}
+
+	/** The percentiles written for each histogram. */
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	/** The names of the percentiles written for each histogram. */
+	private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p99.9" };
+
+	/** The registry whose metrics are exported. */
+	private final MetricsRegistry registry;
+
+	/** The writer where the snapshots are written. */
+	private final Writer output;
+
+	/** The format of the snapshots. */
+	private final Format format;
+
+	/** Whether the CSV header was written. */
+	private boolean headerWritten;
+
+	/** The executor writing the snapshots periodically, or <tt>null</tt> if not started. */
+	private ScheduledExecutorService executor;
+
+	/** The first error of the periodic export, or <tt>null</tt>. */
+	private volatile IOException error;
+
+	/**
+	 * Instantiates a new exporter.
+	 *
+	 * @param registry the registry whose metrics are exported
+	 * @param output the writer where the snapshots are written
+	 * @param format the format of the snapshots
+	 */
+	public MetricsExporter(MetricsRegistry registry, Writer output, Format format) {
+		this.registry = registry;
+		this.output = output;
+		this.format = format;
+	}
+
+	/**
+	 * Writes a snapshot of the current values of the metrics.
+	 *
+	 * @throws IOException if the snapshot can't be written
+	 */
+	public synchronized void export() throws IOException {
+		MetricsSnapshot snapshot = registry.snapshot();
+		if (format == Format.CSV) {
+			writeCsv(snapshot);
+		} else {
+			writeJson(snapshot);
+		}
+		output.flush();
+	}
+
+	/**
+	 * Starts writing a snapshot periodically on a background thread, until the exporter is
+	 * stopped.
+	 *
+	 * @param period the time between two snapshots, in milliseconds
+	 * @throws IllegalStateException if the exporter is already started
+	 */
+	public synchronized void start(long period) {
+		if (executor != null) {
+			throw new IllegalStateException("The exporter is already started");
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "MetricsExporter");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.scheduleAtFixedRate(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					export();
+				} catch (IOException e) {
+					if (error == null) {
+						error = e;
+					}
+				}
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops writing snapshots periodically, then writes a last snapshot.
+	 *
+	 * @throws IOException if a snapshot couldn't be written
+	 */
+	public void stop() throws IOException {
+		ScheduledExecutorService stoppedExecutor;
+		synchronized (this) {
+			stoppedExecutor = executor;
+			executor = null;
+		}
+		if (stoppedExecutor != null) {
+			stoppedExecutor.shutdown();
+			try {
+				stoppedExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (error != null) {
+			IOException e = error;
+			error = null;
+			throw e;
+		}
+		export();
+	}
+
+	/**
+	 * Stops the exporter, writes a last snapshot and closes the writer.
+	 *
+	 * @throws IOException if a snapshot couldn't be written or the writer couldn't be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			stop();
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Writes a snapshot as CSV rows, preceded by the header if it is the first snapshot.
+	 *
+	 * @param snapshot the snapshot
+	 * @throws IOException if the snapshot can't be written
+	 */
+	private void writeCsv(MetricsSnapshot snapshot) throws IOException {
+		if (!headerWritten) {
+			output.write("time,metric,type,statistic,value\n");
+			headerWritten = true;
+		}
+		long time = snapshot.getTime();
+		for (Map.Entry<String, Long> entry : snapshot.getCounters().entrySet()) {
+			writeCsvRow(time, entry.getKey(), "counter", "count", String.valueOf(entry.getValue()));
+		}
+		for (Map.Entry<String, Double> entry : snapshot.getGauges().entrySet()) {
+			writeCsvRow(time, entry.getKey(), "gauge", "value", formatDouble(entry.getValue()));
+		}
+		for (Map.Entry<String, Histogram.Snapshot> entry : snapshot.getHistograms().entrySet()) {
+			Histogram.Snapshot histogram = entry.getValue();
+			String name = entry.getKey();
+			writeCsvRow(time, name, "histogram", "count", String.valueOf(histogram.getCount()));
+			writeCsvRow(time, name, "histogram", "mean", formatDouble(histogram.getMean()));
+			writeCsvRow(time, name, "histogram", "min", String.valueOf(histogram.getMin()));
+			writeCsvRow(time, name, "histogram", "max", String.valueOf(histogram.getMax()));
+			for (int i = 0; i < PERCENTILES.length; i++) {
+				writeCsvRow(time, name, "histogram", PERCENTILE_NAMES[i],
+						String.valueOf(histogram.getValueAtPercentile(PERCENTILES[i])));
+			}
+		}
+	}
+
+	/**
+	 * Writes a CSV row.
+	 *
+	 * @param time the time of the snapshot
+	 * @param metric the name of the metric
+	 * @param type the type of the metric
+	 * @param statistic the name of the value
+	 * @param value the value
+	 * @throws IOException if the row can't be written
+	 */
+	private void writeCsvRow(long time, String metric, String type, String statistic, String value)
+			throws IOException {
+		output.write(String.valueOf(time));
+		output.write(',');
+		if (metric.indexOf(',') >= 0 || metric.indexOf('"') >= 0 || metric.indexOf('\n') >= 0) {
+			output.write('"');
+			output.write(metric.replace("\"", "\"\""));
+			output.write('"');
+		} else {
+			output.write(metric);
+		}
+		output.write(',');
+		output.write(type);
+		output.write(',');
+		output.write(statistic);
+		output.write(',');
+		output.write(value);
+		output.write('\n');
+	}
+
+	/**
+	 * Writes a snapshot as a JSON object on a single line.
+	 *
+	 * @param snapshot the snapshot
+	 * @throws IOException if the snapshot can't be written
+	 */
+	private void writeJson(MetricsSnapshot snapshot) throws IOException {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"time\":").append(snapshot.getTime()).append(",\"counters\":{");
+		String separator = "";
+		for (Map.Entry<String, Long> entry : snapshot.getCounters().entrySet()) {
+			json.append(separator);
+			appendJsonString(json, entry.getKey());
+			json.append(':').append(entry.getValue());
+			separator = ",";
+		}
+		json.append("},\"gauges\":{");
+		separator = "";
+		for (Map.Entry<String, Double> entry : snapshot.getGauges().entrySet()) {
+			json.append(separator);
+			appendJsonString(json, entry.getKey());
+			json.append(':').append(formatDouble(entry.getValue()));
+			separator = ",";
+		}
+		json.append("},\"histograms\":{");
+		separator = "";
+		for (Map.Entry<String, Histogram.Snapshot> entry : snapshot.getHistograms().entrySet()) {
+			Histogram.Snapshot histogram = entry.getValue();
+			json.append(separator);
+			appendJsonString(json, entry.getKey());
+			json.append(":{\"count\":").append(histogram.getCount());
+			json.append(",\"mean\":").append(formatDouble(histogram.getMean()));
+			json.append(",\"min\":").append(histogram.getMin());
+			json.append(",\"max\":").append(histogram.getMax());
+			for (int i = 0; i < PERCENTILES.length; i++) {
+				json.append(",\"").append(PERCENTILE_NAMES[i]).append("\":")
+						.append(histogram.getValueAtPercentile(PERCENTILES[i]));
+			}
+			json.append('}');
+			separator = ",";
+		}
+		json.append("}}\n");
+		output.write(json.toString());
+	}
+
+	/**
+	 * Appends a string to a JSON document, quoted and escaped.
+	 *
+	 * @param json the JSON document
+	 * @param value the string
+	 */
+	private static void appendJsonString(StringBuilder json, String value) {
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+	/**
+	 * Formats a double, writing <tt>NaN</tt> and infinite values as <tt>null</tt>.
+	 *
+	 * @param value the value
+	 * @return the formatted value
+	 */
+	private static String formatDouble(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return "null";
+		}
+		return String.valueOf(value);
+	}
+
+}
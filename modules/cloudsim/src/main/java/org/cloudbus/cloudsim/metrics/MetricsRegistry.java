@@ -0,0 +1,161 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The metrics of the simulations run in a context, indexed by name. Each simulation context has
+ * its own registry, which is cleared when a simulation is initialised and which can be read from
+ * any thread, either by taking a {@link #snapshot()} or by a {@link MetricsExporter}.
+ * <p/>
+ * The metrics are not recorded unless the registry is enabled, which is checked by the code
+ * recording them before measuring anything. When enabled, the engine and the datacenters
+ * record the following metrics, where the times are in nanoseconds:
+ * <ul>
+ * <li><tt>simulation.events.&lt;tag&gt;</tt>, counters of the events processed with each tag,
+ * <tt>untagged</tt> being the events without tag</li>
+ * <li><tt>simulation.clock</tt>, <tt>simulation.futureQueue.size</tt> and
+ * <tt>simulation.deferredQueue.size</tt>, gauges updated at each clock tick</li>
+ * <li><tt>datacenter.&lt;name&gt;.updateTime</tt>, a histogram of the time taken by the
+ * periodic updates of the processing of a datacenter</li>
+ * <li><tt>datacenter.&lt;name&gt;.allocateHostForVm</tt> and
+ * <tt>datacenter.&lt;name&gt;.optimizeAllocation</tt>, histograms of the time taken by the
+ * decisions of the VM allocation policy of a datacenter</li>
+ * <li><tt>datacenter.&lt;name&gt;.migrations</tt>, a counter of the migrations started by a
+ * power-aware datacenter, and <tt>datacenter.&lt;name&gt;.migrationsPerInterval</tt>, a
+ * histogram of the number of migrations started at each optimization of the allocation</li>
+ * </ul>
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see org.cloudbus.cloudsim.core.CloudSim#getMetrics()
+ */
+public class MetricsRegistry {
+
+	/** Whether the metrics are recorded. */
+	private volatile boolean enabled;
+
+	/** The counters, indexed by name. */
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+	/** The gauges, indexed by name. */
+	private final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+
+	/** The histograms, indexed by name. */
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	/**
+	 * Checks if the metrics are recorded.
+	 *
+	 * @return true if the metrics are recorded
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets whether the metrics are recorded. They are not by default, so that simulations don't
+	 * pay for measurements nobody reads.
+	 *
+	 * @param enabled true to record the metrics
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Gets a counter, creating it if needed.
+	 *
+	 * @param name the name of the counter
+	 * @return the counter
+	 */
+	public Counter counter(String name) {
+		Counter counter = counters.get(name);
+		if (counter == null) {
+			counter = new Counter();
+			Counter previous = counters.putIfAbsent(name, counter);
+			if (previous != null) {
+				counter = previous;
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Gets a gauge, creating it if needed.
+	 *
+	 * @param name the name of the gauge
+	 * @return the gauge
+	 */
+	public Gauge gauge(String name) {
+		Gauge gauge = gauges.get(name);
+		if (gauge == null) {
+			gauge = new Gauge();
+			Gauge previous = gauges.putIfAbsent(name, gauge);
+			if (previous != null) {
+				gauge = previous;
+			}
+		}
+		return gauge;
+	}
+
+	/**
+	 * Gets a histogram, creating it if needed.
+	 *
+	 * @param name the name of the histogram
+	 * @return the histogram
+	 */
+	public Histogram histogram(String name) {
+		Histogram histogram = histograms.get(name);
+		if (histogram == null) {
+			histogram = new Histogram();
+			Histogram previous = histograms.putIfAbsent(name, histogram);
+			if (previous != null) {
+				histogram = previous;
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Takes a snapshot of the current values of all the metrics.
+	 *
+	 * @return the snapshot
+	 */
+	public MetricsSnapshot snapshot() {
+		long time = System.currentTimeMillis();
+		SortedMap<String, Long> counterValues = new TreeMap<String, Long>();
+		for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+			counterValues.put(entry.getKey(), entry.getValue().getCount());
+		}
+		SortedMap<String, Double> gaugeValues = new TreeMap<String, Double>();
+		for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+			gaugeValues.put(entry.getKey(), entry.getValue().getValue());
+		}
+		SortedMap<String, Histogram.Snapshot> histogramValues = new TreeMap<String, Histogram.Snapshot>();
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			histogramValues.put(entry.getKey(), entry.getValue().snapshot());
+		}
+		return new MetricsSnapshot(time, counterValues, gaugeValues, histogramValues);
+	}
+
+	/**
+	 * Removes all the metrics. The metrics obtained before are not part of the registry anymore.
+	 */
+	public void clear() {
+		counters.clear();
+		gauges.clear();
+		histograms.clear();
+	}
+
+}
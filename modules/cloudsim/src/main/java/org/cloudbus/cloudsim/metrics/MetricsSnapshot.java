@@ -0,0 +1,89 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.metrics;
+
+import java.util.Collections;
+import java.util.SortedMap;
+
+/**
+ * The values of the metrics of a registry at some point, sorted by name.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see MetricsRegistry#snapshot()
+ */
+public class MetricsSnapshot {
+
+	/** The time the snapshot was taken, in milliseconds since the epoch. */
+	private final long time;
+
+	/** The counts of the counters. */
+	private final SortedMap<String, Long> counters;
+
+	/** The values of the gauges. */
+	private final SortedMap<String, Double> gauges;
+
+	/** The snapshots of the histograms. */
+	private final SortedMap<String, Histogram.Snapshot> histograms;
+
+	/**
+	 * Instantiates a new snapshot.
+	 *
+	 * @param time the time the snapshot was taken, in milliseconds since the epoch
+	 * @param counters the counts of the counters
+	 * @param gauges the values of the gauges
+	 * @param histograms the snapshots of the histograms
+	 */
+	public MetricsSnapshot(
+			long time,
+			SortedMap<String, Long> counters,
+			SortedMap<String, Double> gauges,
+			SortedMap<String, Histogram.Snapshot> histograms) {
+		this.time = time;
+		this.counters = Collections.unmodifiableSortedMap(counters);
+		this.gauges = Collections.unmodifiableSortedMap(gauges);
+		this.histograms = Collections.unmodifiableSortedMap(histograms);
+	}
+
+	/**
+	 * Gets the time the snapshot was taken.
+	 *
+	 * @return the time, in milliseconds since the epoch
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Gets the counts of the counters, indexed by name.
+	 *
+	 * @return the counts
+	 */
+	public SortedMap<String, Long> getCounters() {
+		return counters;
+	}
+
+	/**
+	 * Gets the values of the gauges, indexed by name.
+	 *
+	 * @return the values
+	 */
+	public SortedMap<String, Double> getGauges() {
+		return gauges;
+	}
+
+	/**
+	 * Gets the snapshots of the histograms, indexed by name.
+	 *
+	 * @return the snapshots
+	 */
+	public SortedMap<String, Histogram.Snapshot> getHistograms() {
+		return histograms;
+	}
+
+}
@@ -30,10 +30,15 @@ public class DelayMatrix_Float {
 	protected int mTotalNodeNum = 0;
 
 	/**
-	 * Private constructor to ensure that only an correct initialized delay-matrix could be created.
+	 * Indicates if the matrix is directed.
 	 */
-	@SuppressWarnings("unused")
-	private DelayMatrix_Float() {
+	protected boolean mDirected = false;
+
+	/**
+	 * Constructor for the subclasses that compute the delays in another way. Otherwise, it
+	 * ensures that only an correct initialized delay-matrix could be created.
+	 */
+	protected DelayMatrix_Float() {
 	}
 
 	/**
@@ -43,6 +48,7 @@ public class DelayMatrix_Float {
 	 * @param directed indicates if an directed matrix should be computed (true) or not (false)
 	 */
 	public DelayMatrix_Float(TopologicalGraph graph, boolean directed) {
+		mDirected = directed;
 
 		// lets preinitialize the Delay-Matrix
 		createDelayMatrix(graph, directed);
@@ -67,6 +73,66 @@ public class DelayMatrix_Float {
 		return mDelayMatrix[srcID][destID];
 	}
 
+	/**
+	 * Updates the delays after a link was added to the graph the matrix was created from, in
+	 * O(N<sup>2</sup>) time instead of computing the shortest paths again: the delay between
+	 * two nodes is reduced when the path through the new link is shorter. The nodes of the link
+	 * that are not in the matrix yet are added to it.
+	 * <p/>
+	 * As the delays can only be reduced, the link must not replace a link of lower delay
+	 * between the same nodes; the matrix has to be created again in that case. As in the
+	 * creation of the matrix, a link of zero delay is considered as no link.
+	 * 
+	 * @param srcID the id of the source node of the link
+	 * @param destID the id of the destination node of the link
+	 * @param delay the delay of the link
+	 */
+	public void addLink(int srcID, int destID, float delay) {
+		int nodes = Math.max(mTotalNodeNum, Math.max(srcID, destID) + 1);
+		if (nodes > mTotalNodeNum) {
+			float[][] delayMatrix = new float[nodes][nodes];
+			for (int row = 0; row < nodes; ++row) {
+				for (int col = 0; col < nodes; ++col) {
+					if (row < mTotalNodeNum && col < mTotalNodeNum) {
+						delayMatrix[row][col] = mDelayMatrix[row][col];
+					} else if (row != col) {
+						delayMatrix[row][col] = Float.MAX_VALUE;
+					}
+				}
+			}
+			mDelayMatrix = delayMatrix;
+			mTotalNodeNum = nodes;
+		}
+		if (delay == 0 || srcID == destID) {
+			return;
+		}
+
+		// the delays from and to the nodes of the link before it was added
+		float[] toSrc = new float[mTotalNodeNum];
+		float[] toDest = new float[mTotalNodeNum];
+		for (int row = 0; row < mTotalNodeNum; ++row) {
+			toSrc[row] = mDelayMatrix[row][srcID];
+			toDest[row] = mDelayMatrix[row][destID];
+		}
+		float[] fromSrc = mDelayMatrix[srcID].clone();
+		float[] fromDest = mDelayMatrix[destID].clone();
+
+		for (int row = 0; row < mTotalNodeNum; ++row) {
+			float[] delays = mDelayMatrix[row];
+			for (int col = 0; col < mTotalNodeNum; ++col) {
+				if (row != col) {
+					float pathDelay = toSrc[row] + delay + fromDest[col];
+					if (!mDirected) {
+						pathDelay = Math.min(pathDelay, toDest[row] + delay + fromSrc[col]);
+					}
+					if (pathDelay < delays[col]) {
+						delays[col] = pathDelay;
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Creates all internal necessary network-distance structures from the given graph. 
          * For similarity, we assume all communication-distances are symmetrical, 
@@ -111,8 +177,18 @@ public class DelayMatrix_Float {
 	private void calculateShortestPath() {
 		FloydWarshall_Float floyd = new FloydWarshall_Float();
 
+		// the delays are computed in a single array, then copied back to the rows
+		float[] delays = new float[mTotalNodeNum * mTotalNodeNum];
+		for (int row = 0; row < mTotalNodeNum; ++row) {
+			System.arraycopy(mDelayMatrix[row], 0, delays, row * mTotalNodeNum, mTotalNodeNum);
+		}
+
 		floyd.initialize(mTotalNodeNum);
-		mDelayMatrix = floyd.allPairsShortestPaths(mDelayMatrix);
+		floyd.allPairsShortestPaths(delays);
+
+		for (int row = 0; row < mTotalNodeNum; ++row) {
+			System.arraycopy(delays, row * mTotalNodeNum, mDelayMatrix[row], 0, mTotalNodeNum);
+		}
 	}
 
 	@Override
@@ -8,10 +8,20 @@
 
 package org.cloudbus.cloudsim.network;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
- * FloydWarshall algorithm to calculate the predecessor matrix 
+ * FloydWarshall algorithm to calculate the predecessor matrix
  * and the delay between all pairs of nodes.
- * 
+ * <p/>
+ * The delays are stored row by row in a single array and computed in place by the blocked
+ * algorithm: the matrix is divided in square tiles that fit in the processor cache, and for
+ * each block of intermediate nodes, the diagonal tile is computed first, then the tiles of
+ * its row and column, then all the other tiles. The tiles of a phase are independent, so they
+ * are computed in parallel on a {@link ForkJoinPool}, with the same result whatever the number
+ * of threads. The predecessor matrix is only computed if the paths are enabled.
+ *
  * @author Rahul Simha
  * @author Weishuai Yang
  * @version 1.2, 6/20/2005
@@ -19,119 +29,312 @@ package org.cloudbus.cloudsim.network;
  */
 public class FloydWarshall_Float {
 
+	/**
+	 * The default number of rows and columns of the tiles, whose delays take 16 KB.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64;
+
 	/**
 	 * Number of vertices (nodes).
 	 */
 	private int numVertices;
 
 	/**
-	 * Matrices used in dynamic programming.
+	 * The predecessor matrix, stored row by row, or null if the paths are not enabled.
+	 */
+	private int[] predecessors;
+
+	/**
+	 * Whether the predecessor matrix is computed.
+	 */
+	private boolean pathsEnabled = false;
+
+	/**
+	 * The number of rows and columns of the tiles.
 	 */
-	private float[][] Dk, Dk_minus_one;
+	private int blockSize = DEFAULT_BLOCK_SIZE;
 
 	/**
-	 * The predecessor matrix. Matrix used by dynamic programming.
+	 * The pool the tiles are computed on, or null to compute them on the current thread.
 	 */
-	private int[][] Pk;
-        
-        /**
-         * Matrix used by dynamic programming.
-         */
-        private int[][] Pk_minus_one;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
 
 	/**
 	 * Initialization the matrix.
-	 * 
+	 *
 	 * @param numVertices number of nodes
          * @todo The class doesn't have a constructor. This should be the constructor.
 	 */
 	public void initialize(int numVertices) {
 		this.numVertices = numVertices;
+		predecessors = null;
+	}
 
-		// Initialize Dk matrices.
-		Dk = new float[numVertices][];
-		Dk_minus_one = new float[numVertices][];
+	/**
+	 * Calculates the delay between all pairs of nodes.
+	 *
+	 * @param adjMatrix original delay matrix
+	 * @return the delay matrix
+	 */
+	public float[][] allPairsShortestPaths(float[][] adjMatrix) {
+		float[] delays = new float[numVertices * numVertices];
 		for (int i = 0; i < numVertices; i++) {
-			Dk[i] = new float[numVertices];
-			Dk_minus_one[i] = new float[numVertices];
+			System.arraycopy(adjMatrix[i], 0, delays, i * numVertices, numVertices);
 		}
 
-		// Initialize Pk matrices.
-		Pk = new int[numVertices][];
-		Pk_minus_one = new int[numVertices][];
+		allPairsShortestPaths(delays);
+
+		float[][] Dk = new float[numVertices][numVertices];
 		for (int i = 0; i < numVertices; i++) {
-			Pk[i] = new int[numVertices];
-			Pk_minus_one[i] = new int[numVertices];
+			System.arraycopy(delays, i * numVertices, Dk[i], 0, numVertices);
 		}
-
+		return Dk;
 	}
 
 	/**
-	 * Calculates the delay between all pairs of nodes.
-	 * 
-	 * @param adjMatrix original delay matrix
+	 * Calculates in place the delay between all pairs of nodes. A delay of zero between two
+	 * different nodes means that there is no link between them, and the delay between the
+	 * nodes that are not connected is {@link Float#MAX_VALUE}.
+	 *
+	 * @param delays the delay matrix stored row by row, whose values are the delays of the
+	 *            links before the call and the delays between the nodes after it
 	 * @return the delay matrix
 	 */
-	public float[][] allPairsShortestPaths(float[][] adjMatrix) {
-		// Dk_minus_one = weights when k = -1
+	public float[] allPairsShortestPaths(float[] delays) {
+		predecessors = isPathsEnabled() ? new int[numVertices * numVertices] : null;
 		for (int i = 0; i < numVertices; i++) {
 			for (int j = 0; j < numVertices; j++) {
-				if (adjMatrix[i][j] != 0) {
-					Dk_minus_one[i][j] = adjMatrix[i][j];
-					Pk_minus_one[i][j] = i;
-				} else {
-					Dk_minus_one[i][j] = Float.MAX_VALUE;
-					Pk_minus_one[i][j] = -1;
+				int index = i * numVertices + j;
+				if (i == j) {
+					delays[index] = 0;
+				} else if (delays[index] == 0) {
+					// NOTE: we set the value to infinity and will exploit
+					// this to avoid a comparison.
+					delays[index] = Float.MAX_VALUE;
+				}
+				if (predecessors != null) {
+					predecessors[index] = i == j || delays[index] == Float.MAX_VALUE ? -1 : i;
 				}
-				// NOTE: we have set the value to infinity and will exploit
-				// this to avoid a comparison.
 			}
 		}
 
-		// Now iterate over k.
+		int blocks = (numVertices + blockSize - 1) / blockSize;
+		for (int block = 0; block < blocks; block++) {
+			int from = block * blockSize;
+			int to = Math.min(numVertices, from + blockSize);
+			relax(delays, from, to, from, to, from, to);
+			computeTiles(delays, block, blocks, true);
+			computeTiles(delays, block, blocks, false);
+		}
+		return delays;
+	}
 
-		for (int k = 0; k < numVertices; k++) {
+	/**
+	 * Computes the tiles of a phase of an iteration of the blocked algorithm.
+	 *
+	 * @param delays the delay matrix
+	 * @param block the block of the intermediate nodes of the iteration
+	 * @param blocks the number of blocks
+	 * @param crossing true for the tiles in the row and the column of the diagonal tile, false
+	 *            for the other tiles
+	 */
+	private void computeTiles(float[] delays, int block, int blocks, boolean crossing) {
+		int tiles = crossing ? 2 * (blocks - 1) : (blocks - 1) * (blocks - 1);
+		if (pool == null || tiles <= 1) {
+			for (int tile = 0; tile < tiles; tile++) {
+				computeTile(delays, block, blocks, crossing, tile);
+			}
+		} else {
+			pool.invoke(new TileTask(delays, block, blocks, crossing, 0, tiles));
+		}
+	}
 
-			// Compute Dk[i][j], for each i,j
+	/**
+	 * Computes a tile of a phase of an iteration of the blocked algorithm.
+	 *
+	 * @param delays the delay matrix
+	 * @param block the block of the intermediate nodes of the iteration
+	 * @param blocks the number of blocks
+	 * @param crossing true for the tiles in the row and the column of the diagonal tile, false
+	 *            for the other tiles
+	 * @param tile the index of the tile in the phase
+	 */
+	private void computeTile(float[] delays, int block, int blocks, boolean crossing, int tile) {
+		int rowBlock;
+		int colBlock;
+		if (crossing) {
+			int other = tile % (blocks - 1);
+			if (other >= block) {
+				other++;
+			}
+			rowBlock = tile < blocks - 1 ? block : other;
+			colBlock = tile < blocks - 1 ? other : block;
+		} else {
+			rowBlock = tile / (blocks - 1);
+			colBlock = tile % (blocks - 1);
+			if (rowBlock >= block) {
+				rowBlock++;
+			}
+			if (colBlock >= block) {
+				colBlock++;
+			}
+		}
+		relax(delays,
+				rowBlock * blockSize, Math.min(numVertices, (rowBlock + 1) * blockSize),
+				colBlock * blockSize, Math.min(numVertices, (colBlock + 1) * blockSize),
+				block * blockSize, Math.min(numVertices, (block + 1) * blockSize));
+	}
 
-			for (int i = 0; i < numVertices; i++) {
-				for (int j = 0; j < numVertices; j++) {
-					if (i != j) {
+	/**
+	 * Reduces the delays of a tile through a range of intermediate nodes.
+	 *
+	 * @param delays the delay matrix
+	 * @param rowFrom the first row of the tile
+	 * @param rowTo the row after the last row of the tile
+	 * @param colFrom the first column of the tile
+	 * @param colTo the column after the last column of the tile
+	 * @param kFrom the first intermediate node
+	 * @param kTo the node after the last intermediate node
+	 */
+	private void relax(float[] delays, int rowFrom, int rowTo, int colFrom, int colTo, int kFrom, int kTo) {
+		for (int k = kFrom; k < kTo; k++) {
+			int kRow = k * numVertices;
+			for (int i = rowFrom; i < rowTo; i++) {
+				int iRow = i * numVertices;
+				float dik = delays[iRow + k];
+				if (dik == Float.MAX_VALUE) {
+					// no path through k can be shorter
+					continue;
+				}
 
-						// D_k[i][j] = min ( D_k-1[i][j], D_k-1[i][k] + D_k-1[k][j].
-						if (Dk_minus_one[i][j] <= Dk_minus_one[i][k] + Dk_minus_one[k][j]) {
-							Dk[i][j] = Dk_minus_one[i][j];
-							Pk[i][j] = Pk_minus_one[i][j];
-						} else {
-							Dk[i][j] = Dk_minus_one[i][k] + Dk_minus_one[k][j];
-							Pk[i][j] = Pk_minus_one[k][j];
+				// D_k[i][j] = min ( D_k-1[i][j], D_k-1[i][k] + D_k-1[k][j] ).
+				if (predecessors == null) {
+					for (int j = colFrom; j < colTo; j++) {
+						float delay = dik + delays[kRow + j];
+						if (delay < delays[iRow + j]) {
+							delays[iRow + j] = delay;
+						}
+					}
+				} else {
+					for (int j = colFrom; j < colTo; j++) {
+						float delay = dik + delays[kRow + j];
+						if (delay < delays[iRow + j]) {
+							delays[iRow + j] = delay;
+							predecessors[iRow + j] = predecessors[kRow + j];
 						}
-					} else {
-						Pk[i][j] = -1;
 					}
 				}
 			}
+		}
+	}
 
-			// Now store current Dk into D_k-1
-			for (int i = 0; i < numVertices; i++) {
-				for (int j = 0; j < numVertices; j++) {
-					Dk_minus_one[i][j] = Dk[i][j];
-					Pk_minus_one[i][j] = Pk[i][j];
-				}
-			}
+	/**
+	 * Gets predecessor matrix.
+	 *
+	 * @return predecessor matrix, or null if the paths are not enabled
+	 */
+	public int[][] getPK() {
+		if (predecessors == null) {
+			return null;
+		}
+		int[][] Pk = new int[numVertices][numVertices];
+		for (int i = 0; i < numVertices; i++) {
+			System.arraycopy(predecessors, i * numVertices, Pk[i], 0, numVertices);
+		}
+		return Pk;
+	}
 
-		} // end-outermost-for
+	/**
+	 * Checks if the predecessor matrix is computed, which takes as much memory as the delays.
+	 *
+	 * @return true if the paths are enabled
+	 */
+	public boolean isPathsEnabled() {
+		return pathsEnabled;
+	}
 
-		return Dk;
+	/**
+	 * Sets whether the predecessor matrix is computed, to reconstruct the shortest paths.
+	 *
+	 * @param pathsEnabled true to compute the predecessor matrix
+	 */
+	public void setPathsEnabled(boolean pathsEnabled) {
+		this.pathsEnabled = pathsEnabled;
+	}
 
+	/**
+	 * Gets the number of rows and columns of the tiles.
+	 *
+	 * @return the block size
+	 */
+	public int getBlockSize() {
+		return blockSize;
 	}
 
 	/**
-	 * Gets predecessor matrix.
-	 * 
-	 * @return predecessor matrix
+	 * Sets the number of rows and columns of the tiles.
+	 *
+	 * @param blockSize the block size
 	 */
-	public int[][] getPK() {
-		return Pk;
+	public void setBlockSize(int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("The block size must be positive");
+		}
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Gets the pool the tiles are computed on.
+	 *
+	 * @return the pool, or null if the tiles are computed on the current thread
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Sets the pool the tiles are computed on, {@link ForkJoinPool#commonPool()} by default.
+	 *
+	 * @param pool the pool, or null to compute the tiles on the current thread
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
 	}
+
+	/**
+	 * A task that computes a range of tiles of a phase, splitting it in halves until there is
+	 * a single tile.
+	 */
+	@SuppressWarnings("serial")
+	private class TileTask extends RecursiveAction {
+
+		private final float[] delays;
+		private final int block;
+		private final int blocks;
+		private final boolean crossing;
+		private final int from;
+		private final int to;
+
+		public TileTask(float[] delays, int block, int blocks, boolean crossing, int from, int to) {
+			this.delays = delays;
+			this.block = block;
+			this.blocks = blocks;
+			this.crossing = crossing;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				computeTile(delays, block, blocks, crossing, from);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new TileTask(delays, block, blocks, crossing, from, middle),
+						new TileTask(delays, block, blocks, crossing, middle, to));
+			}
+		}
+
+	}
+
 }
@@ -0,0 +1,245 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A delay matrix that computes the delays from a node only when they are first requested, by
+ * running Dijkstra's algorithm from that node, instead of computing the delays between all pairs
+ * of nodes upfront. The rows of delays most recently used are cached, so the memory taken is
+ * proportional to the number of links and of cached rows rather than to the square of the
+ * number of nodes. It suits large sparse topologies, such as the ones generated by BRITE, whose
+ * full matrix doesn't fit in memory.
+ * <p/>
+ * The delays are the ones of {@link DelayMatrix_Float}: the links of zero delay are ignored, as
+ * well as the links replaced by a later link between the same nodes.
+ * 
+ * @since CloudSim Toolkit 4.0
+ */
+public class LazyDelayMatrix_Float extends DelayMatrix_Float {
+
+	/** The graph the delays are computed from. */
+	private final TopologicalGraph graph;
+
+	/** The index of the first link from each node in {@link #linkDestinations}. */
+	private int[] linkOffsets;
+
+	/** The destination nodes of the links, grouped by source node. */
+	private int[] linkDestinations;
+
+	/** The delays of the links, grouped by source node. */
+	private float[] linkDelays;
+
+	/** The rows of delays computed, indexed by source node, from the least recently used one. */
+	private final Map<Integer, float[]> rows;
+
+	/**
+	 * Creates a delay matrix computing the delays lazily.
+	 * 
+	 * @param graph the network topological graph
+	 * @param directed indicates if an directed matrix should be computed (true) or not (false)
+	 * @param cachedRows the maximum number of rows of delays cached
+	 */
+	public LazyDelayMatrix_Float(TopologicalGraph graph, boolean directed, final int cachedRows) {
+		super();
+		if (cachedRows <= 0) {
+			throw new IllegalArgumentException("The number of cached rows must be positive");
+		}
+		this.graph = graph;
+		mDirected = directed;
+		rows = new LinkedHashMap<Integer, float[]>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, float[]> eldest) {
+				return size() > cachedRows;
+			}
+		};
+		createLinks();
+	}
+
+	@Override
+	public float getDelay(int srcID, int destID) {
+		if (srcID > mTotalNodeNum || destID > mTotalNodeNum) {
+			throw new ArrayIndexOutOfBoundsException("srcID or destID is higher than highest stored node-ID!");
+		}
+
+		float[] row = rows.get(srcID);
+		if (row == null) {
+			row = computeDelays(srcID);
+			rows.put(srcID, row);
+		}
+		return row[destID];
+	}
+
+	/**
+	 * Updates the delays after a link was added to the graph. The links are indexed again and
+	 * the cached rows are discarded.
+	 */
+	@Override
+	public void addLink(int srcID, int destID, float delay) {
+		createLinks();
+		rows.clear();
+	}
+
+	/**
+	 * Indexes the links of the graph by source node. As in {@link DelayMatrix_Float}, only the
+	 * last link between two nodes is kept and the links of zero delay are ignored.
+	 */
+	private void createLinks() {
+		mTotalNodeNum = graph.getNumberOfNodes();
+
+		Map<Long, Float> delays = new LinkedHashMap<Long, Float>();
+		Iterator<TopologicalLink> iterator = graph.getLinkIterator();
+		while (iterator.hasNext()) {
+			TopologicalLink link = iterator.next();
+			delays.put(getKey(link.getSrcNodeID(), link.getDestNodeID()), link.getLinkDelay());
+			if (!mDirected) {
+				delays.put(getKey(link.getDestNodeID(), link.getSrcNodeID()), link.getLinkDelay());
+			}
+		}
+
+		linkOffsets = new int[mTotalNodeNum + 1];
+		int links = 0;
+		for (Map.Entry<Long, Float> entry : delays.entrySet()) {
+			int src = (int) (entry.getKey() >>> 32);
+			if (src != (int) (long) entry.getKey() && entry.getValue() != 0) {
+				linkOffsets[src + 1]++;
+				links++;
+			}
+		}
+		for (int i = 0; i < mTotalNodeNum; i++) {
+			linkOffsets[i + 1] += linkOffsets[i];
+		}
+		linkDestinations = new int[links];
+		linkDelays = new float[links];
+		int[] next = Arrays.copyOf(linkOffsets, mTotalNodeNum);
+		for (Map.Entry<Long, Float> entry : delays.entrySet()) {
+			int src = (int) (entry.getKey() >>> 32);
+			int dest = (int) (long) entry.getKey();
+			if (src != dest && entry.getValue() != 0) {
+				linkDestinations[next[src]] = dest;
+				linkDelays[next[src]] = entry.getValue();
+				next[src]++;
+			}
+		}
+	}
+
+	/**
+	 * Gets the key of a pair of nodes.
+	 * 
+	 * @param srcID the id of the source node
+	 * @param destID the id of the destination node
+	 * @return the key
+	 */
+	private static long getKey(int srcID, int destID) {
+		return ((long) srcID << 32) | (destID & 0xffffffffL);
+	}
+
+	/**
+	 * Computes the delays from a node to all the nodes by Dijkstra's algorithm.
+	 * 
+	 * @param srcID the id of the source node
+	 * @return the delays, {@link Float#MAX_VALUE} for the unreachable nodes
+	 */
+	private float[] computeDelays(int srcID) {
+		float[] delays = new float[mTotalNodeNum];
+		Arrays.fill(delays, Float.MAX_VALUE);
+		delays[srcID] = 0;
+
+		// The queue holds the candidate delays with their nodes, ordered by delay since the bits
+		// of a non-negative float are ordered as the float
+		long[] queue = new long[16];
+		int size = 0;
+		queue[size++] = srcID & 0xffffffffL;
+		while (size > 0) {
+			long head = queue[0];
+			queue[0] = queue[--size];
+			siftDown(queue, size);
+
+			int node = (int) head;
+			float delay = Float.intBitsToFloat((int) (head >>> 32));
+			if (delay > delays[node]) {
+				continue;
+			}
+			for (int i = linkOffsets[node]; i < linkOffsets[node + 1]; i++) {
+				int dest = linkDestinations[i];
+				float newDelay = delay + linkDelays[i];
+				if (newDelay < delays[dest]) {
+					delays[dest] = newDelay;
+					if (size == queue.length) {
+						queue = Arrays.copyOf(queue, size * 2);
+					}
+					queue[size] = ((long) Float.floatToIntBits(newDelay) << 32) | (dest & 0xffffffffL);
+					siftUp(queue, size++);
+				}
+			}
+		}
+		return delays;
+	}
+
+	/**
+	 * Moves the last element of a binary heap up to its place.
+	 * 
+	 * @param heap the heap
+	 * @param index the index of the element
+	 */
+	private static void siftUp(long[] heap, int index) {
+		long element = heap[index];
+		while (index > 0) {
+			int parent = (index - 1) >>> 1;
+			if (heap[parent] <= element) {
+				break;
+			}
+			heap[index] = heap[parent];
+			index = parent;
+		}
+		heap[index] = element;
+	}
+
+	/**
+	 * Moves the first element of a binary heap down to its place.
+	 * 
+	 * @param heap the heap
+	 * @param size the number of elements of the heap
+	 */
+	private static void siftDown(long[] heap, int size) {
+		if (size == 0) {
+			return;
+		}
+		long element = heap[0];
+		int index = 0;
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (element <= heap[child]) {
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = element;
+	}
+
+	@Override
+	public String toString() {
+		return "lazy delay matrix of " + mTotalNodeNum + " nodes with " + rows.size() + " cached rows";
+	}
+
+}
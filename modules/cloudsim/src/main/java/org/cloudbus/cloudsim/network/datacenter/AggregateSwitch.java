@@ -68,7 +68,11 @@ public class AggregateSwitch extends Switch {
 		if (level == NetworkConstants.Agg_LEVEL) {
 			// packet is coming from root so need to be sent to edgelevel swich
 			// find the id for edgelevel switch
-			int switchid = dc.VmToSwitchid.get(recvVMid);
+			Integer switchid = dc.VmToSwitchid.get(recvVMid);
+			if (switchid == null) {
+				dropPacket(hspkt);
+				return;
+			}
 			List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
 			if (pktlist == null) {
 				pktlist = new ArrayList<NetworkPacket>();
@@ -97,13 +101,12 @@ public class AggregateSwitch extends Switch {
 			// packet is coming from edge level router so need to be sent to
 			// either root or another edge level swich
 			// find the id for edgelevel switch
-			int switchid = dc.VmToSwitchid.get(recvVMid);
-			boolean flagtoswtich = false;
-			for (Switch sw : downlinkswitches) {
-				if (switchid == sw.getId()) {
-					flagtoswtich = true;
-				}
+			Integer switchid = dc.VmToSwitchid.get(recvVMid);
+			if (switchid == null) {
+				dropPacket(hspkt);
+				return;
 			}
+			boolean flagtoswtich = getDownlinkSwitchId(switchid) == switchid;
 			if (flagtoswtich) {
 				List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
 				if (pktlist == null) {
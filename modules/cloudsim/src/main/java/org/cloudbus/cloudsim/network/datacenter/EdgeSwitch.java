@@ -72,7 +72,11 @@ public class EdgeSwitch extends Switch {
 		// packet is recieved from host
 		// packet is to be sent to aggregate level or to another host in the same level
 
-		int hostid = dc.VmtoHostlist.get(recvVMid);
+		Integer hostid = dc.VmtoHostlist.get(recvVMid);
+		if (hostid == null) {
+			dropPacket(hspkt);
+			return;
+		}
 		NetworkHost hs = hostlist.get(hostid);
 		hspkt.recieverhostid = hostid;
 
@@ -0,0 +1,409 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network.datacenter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+
+/**
+ * FlowNetwork simulates the network of a {@link NetworkDatacenter} at the flow level: each
+ * packet sent between hosts is a flow that crosses the links of the switches between them at a
+ * rate given by max-min fair sharing of the bandwidth of the links, instead of being forwarded
+ * from switch to switch by events. The rates are computed again only when flows start or
+ * finish, and a single event is scheduled for the next flow completion, when the packets of the
+ * flows that finished are delivered to their hosts.
+ * <p/>
+ * The links are the uplinks of the hosts to their edge switches, and the uplinks and downlinks
+ * of the switches, whose bandwidths are {@link NetworkHost#bandwidth},
+ * {@link Switch#uplinkbandwidth} and {@link Switch#downlinkbandwidth}. A flow takes
+ * <tt>1000 * data / rate</tt> to transfer its data, as a packet takes to cross a link in the
+ * packet model, plus the switching delay and latency of the switches it crosses. As in the
+ * packet model, an edge switch is connected to a single aggregate switch, which is connected to
+ * a single root switch.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see NetworkDatacenter#setFlowModelEnabled(boolean)
+ */
+public class FlowNetwork {
+
+	/** The datacenter whose network is simulated. */
+	private final NetworkDatacenter datacenter;
+
+	/** The uplinks of the hosts to their edge switches, indexed by host id. */
+	private final Map<Integer, Link> hostUplinks = new HashMap<Integer, Link>();
+
+	/** The links of the edge switches to their hosts, indexed by host id. */
+	private final Map<Integer, Link> hostDownlinks = new HashMap<Integer, Link>();
+
+	/** The links between switches, indexed by the ids of their source and destination switches. */
+	private final Map<Long, Link> switchLinks = new HashMap<Long, Link>();
+
+	/** The flows being transferred. */
+	private final List<Flow> flows = new ArrayList<Flow>();
+
+	/** The time the transferred data of the flows was last updated. */
+	private double lastUpdateTime;
+
+	/** The time of the earliest completion event scheduled, or {@link Double#MAX_VALUE}. */
+	private double nextEventTime = Double.MAX_VALUE;
+
+	/**
+	 * Instantiates the flow network of a datacenter.
+	 *
+	 * @param datacenter the datacenter
+	 */
+	public FlowNetwork(NetworkDatacenter datacenter) {
+		this.datacenter = datacenter;
+	}
+
+	/**
+	 * Starts the flows of packets sent by a host to other hosts.
+	 *
+	 * @param source the host sending the packets
+	 * @param packets the packets
+	 */
+	public void startFlows(NetworkHost source, List<NetworkPacket> packets) {
+		if (packets.isEmpty()) {
+			return;
+		}
+		double currentTime = CloudSim.clock();
+		updateTransferredData(currentTime);
+		for (NetworkPacket packet : packets) {
+			Flow flow = createFlow(source, packet);
+			if (flow != null) {
+				flows.add(flow);
+			}
+		}
+		computeRates(flows);
+		scheduleNextCompletion(currentTime);
+	}
+
+	/**
+	 * Processes a completion event, delivering the packets of the flows that finished to their
+	 * hosts.
+	 *
+	 * @return true if packets were delivered
+	 */
+	public boolean processFlowCompletion() {
+		double currentTime = CloudSim.clock();
+		if (currentTime >= nextEventTime) {
+			nextEventTime = Double.MAX_VALUE;
+		}
+		updateTransferredData(currentTime);
+
+		boolean delivered = false;
+		Iterator<Flow> iterator = flows.iterator();
+		while (iterator.hasNext()) {
+			Flow flow = iterator.next();
+			if (flow.getCompletionTime(currentTime) <= currentTime + CloudSim.getMinTimeBetweenEvents()) {
+				iterator.remove();
+				for (Link link : flow.links) {
+					link.flows.remove(flow);
+				}
+				flow.destination.packetrecieved.add(flow.packet);
+				delivered = true;
+			}
+		}
+		if (delivered) {
+			computeRates(flows);
+		}
+		scheduleNextCompletion(currentTime);
+		return delivered;
+	}
+
+	/**
+	 * Gets the number of flows being transferred.
+	 *
+	 * @return the number of flows
+	 */
+	public int getNumberOfFlows() {
+		return flows.size();
+	}
+
+	/**
+	 * Creates the flow of a packet along the links between its hosts.
+	 *
+	 * @param source the host sending the packet
+	 * @param packet the packet
+	 * @return the flow, or null if the packet is dropped because its receiver VM is not placed
+	 *         at a host of the datacenter
+	 */
+	private Flow createFlow(NetworkHost source, NetworkPacket packet) {
+		NetworkHost destination = datacenter.getVmHost(packet.recievervmid);
+		if (destination == null) {
+			Log.printConcatLine(CloudSim.clock(), ": ", datacenter.getName(), ": Dropping the packet from VM #",
+					packet.sendervmid, " to VM #", packet.recievervmid, ", which is not placed at a host");
+			return null;
+		}
+		Switch destinationEdge = destination.sw;
+		packet.recieverhostid = destination.getId();
+
+		Flow flow = new Flow(packet, destination, packet.pkt.data, CloudSim.clock());
+		Switch sourceEdge = source.sw;
+		flow.addLink(getLink(hostUplinks, source.getId(), source.bandwidth));
+		flow.latency += getLatency(sourceEdge);
+		if (sourceEdge != destinationEdge) {
+			Switch sourceAggregate = sourceEdge.uplinkswitches.get(0);
+			Switch destinationAggregate = destinationEdge.uplinkswitches.get(0);
+			flow.addLink(getLink(sourceEdge, sourceAggregate, sourceEdge.uplinkbandwidth));
+			flow.latency += getLatency(sourceAggregate);
+			if (sourceAggregate != destinationAggregate) {
+				Switch root = sourceAggregate.uplinkswitches.get(0);
+				flow.addLink(getLink(sourceAggregate, root, sourceAggregate.uplinkbandwidth));
+				flow.addLink(getLink(root, destinationAggregate, root.downlinkbandwidth));
+				flow.latency += getLatency(root) + getLatency(destinationAggregate);
+			}
+			flow.addLink(getLink(destinationAggregate, destinationEdge, destinationAggregate.downlinkbandwidth));
+			flow.latency += getLatency(destinationEdge);
+		}
+		flow.addLink(getLink(hostDownlinks, destination.getId(), destinationEdge.downlinkbandwidth));
+		return flow;
+	}
+
+	/**
+	 * Gets the link between two switches, creating it if needed.
+	 *
+	 * @param source the source switch
+	 * @param destination the destination switch
+	 * @param bandwidth the bandwidth of the link
+	 * @return the link
+	 */
+	private Link getLink(Switch source, Switch destination, double bandwidth) {
+		long key = ((long) source.getId() << 32) | (destination.getId() & 0xffffffffL);
+		Link link = switchLinks.get(key);
+		if (link == null) {
+			link = new Link(bandwidth);
+			switchLinks.put(key, link);
+		}
+		return link;
+	}
+
+	/**
+	 * Gets the link between a host and its edge switch, creating it if needed.
+	 *
+	 * @param links the links of the hosts in the same direction
+	 * @param hostId the id of the host
+	 * @param bandwidth the bandwidth of the link
+	 * @return the link
+	 */
+	private static Link getLink(Map<Integer, Link> links, int hostId, double bandwidth) {
+		Link link = links.get(hostId);
+		if (link == null) {
+			link = new Link(bandwidth);
+			links.put(hostId, link);
+		}
+		return link;
+	}
+
+	/**
+	 * Gets the time a packet takes to cross a switch, besides its transfer.
+	 *
+	 * @param sw the switch
+	 * @return the switching delay and latency of the switch
+	 */
+	private static double getLatency(Switch sw) {
+		return sw.switching_delay + sw.latency;
+	}
+
+	/**
+	 * Updates the data left to transfer of the flows at their current rates.
+	 *
+	 * @param currentTime the current simulation time
+	 */
+	private void updateTransferredData(double currentTime) {
+		if (currentTime > lastUpdateTime) {
+			for (Flow flow : flows) {
+				flow.updateRemainingData(lastUpdateTime, currentTime);
+			}
+		}
+		lastUpdateTime = currentTime;
+	}
+
+	/**
+	 * Schedules the completion event of the flow that finishes first, unless an event is already
+	 * scheduled before.
+	 *
+	 * @param currentTime the current simulation time
+	 */
+	private void scheduleNextCompletion(double currentTime) {
+		double completionTime = Double.MAX_VALUE;
+		for (Flow flow : flows) {
+			completionTime = Math.min(completionTime, flow.getCompletionTime(currentTime));
+		}
+		if (completionTime < nextEventTime) {
+			nextEventTime = completionTime;
+			CloudSim.send(datacenter.getId(), datacenter.getId(), completionTime - currentTime,
+					CloudSimTags.NETWORK_FLOW_COMPLETION, null);
+		}
+	}
+
+	/**
+	 * Computes the rates of flows by max-min fair sharing of the bandwidth of their links: the
+	 * bandwidth of the most constrained link is shared equally by its flows, which are then
+	 * removed from the other links, until all the flows have a rate.
+	 *
+	 * @param flows the flows
+	 */
+	static void computeRates(List<Flow> flows) {
+		List<Link> links = new ArrayList<Link>();
+		for (Flow flow : flows) {
+			flow.rate = -1;
+			for (Link link : flow.links) {
+				if (link.unassignedFlows == 0) {
+					link.remainingBandwidth = link.bandwidth;
+					links.add(link);
+				}
+				link.unassignedFlows++;
+			}
+		}
+
+		int unassignedFlows = flows.size();
+		while (unassignedFlows > 0) {
+			Link bottleneck = null;
+			double share = Double.MAX_VALUE;
+			for (Link link : links) {
+				if (link.unassignedFlows > 0
+						&& (bottleneck == null || link.remainingBandwidth / link.unassignedFlows < share)) {
+					bottleneck = link;
+					share = link.remainingBandwidth / link.unassignedFlows;
+				}
+			}
+			share = Math.max(0, share);
+			for (Flow flow : bottleneck.flows) {
+				if (flow.rate < 0) {
+					flow.rate = share;
+					unassignedFlows--;
+					for (Link link : flow.links) {
+						link.remainingBandwidth -= share;
+						link.unassignedFlows--;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A link of the network, in one direction.
+	 */
+	static class Link {
+
+		/** The bandwidth of the link. */
+		final double bandwidth;
+
+		/** The flows crossing the link. */
+		final List<Flow> flows = new ArrayList<Flow>();
+
+		/** The bandwidth not assigned to flows yet, while the rates are computed. */
+		double remainingBandwidth;
+
+		/** The number of flows without a rate yet, while the rates are computed. */
+		int unassignedFlows;
+
+		Link(double bandwidth) {
+			this.bandwidth = bandwidth;
+		}
+
+	}
+
+	/**
+	 * The flow of a packet between two hosts.
+	 */
+	static class Flow {
+
+		/** The packet. */
+		final NetworkPacket packet;
+
+		/** The host receiving the packet. */
+		final NetworkHost destination;
+
+		/** The time the flow started. */
+		final double startTime;
+
+		/** The links crossed by the flow. */
+		final List<Link> links = new ArrayList<Link>();
+
+		/** The time the packet takes to cross the switches, besides its transfer. */
+		double latency;
+
+		/** The data left to transfer. */
+		double remainingData;
+
+		/** The time the transfer of the data finished, or -1 while there is data left to transfer. */
+		double transferEndTime = -1;
+
+		/** The rate of the flow. */
+		double rate;
+
+		Flow(NetworkPacket packet, NetworkHost destination, double data, double startTime) {
+			this.packet = packet;
+			this.destination = destination;
+			this.startTime = startTime;
+			remainingData = data;
+			if (data <= 0) {
+				transferEndTime = startTime;
+			}
+		}
+
+		/**
+		 * Adds a link to the path of the flow.
+		 *
+		 * @param link the link
+		 */
+		void addLink(Link link) {
+			links.add(link);
+			link.flows.add(this);
+		}
+
+		/**
+		 * Updates the data left to transfer at the rate of the flow since the last update, and
+		 * records the time the transfer finished if no data is left.
+		 *
+		 * @param lastUpdateTime the time of the last update
+		 * @param currentTime the current simulation time
+		 */
+		void updateRemainingData(double lastUpdateTime, double currentTime) {
+			if (transferEndTime >= 0) {
+				return;
+			}
+			double transferredData = rate * (currentTime - lastUpdateTime) / 1000;
+			if (transferredData >= remainingData) {
+				transferEndTime = lastUpdateTime + 1000 * remainingData / rate;
+				remainingData = 0;
+			} else {
+				remainingData -= transferredData;
+			}
+		}
+
+		/**
+		 * Gets the time the flow finishes at its current rate: the time its transfer finishes
+		 * plus the time the packet takes to cross the switches.
+		 *
+		 * @param currentTime the current simulation time
+		 * @return the completion time, or {@link Double#MAX_VALUE} if the flow has no bandwidth
+		 */
+		double getCompletionTime(double currentTime) {
+			if (transferEndTime >= 0) {
+				return transferEndTime + latency;
+			}
+			if (rate <= 0) {
+				return Double.MAX_VALUE;
+			}
+			return currentTime + 1000 * remainingData / rate + latency;
+		}
+
+	}
+
+}
@@ -73,6 +73,24 @@ public class NetworkDatacenter extends Datacenter {
          */
 	public Map<Integer, Integer> VmtoHostlist;
 
+	/**
+	 * The routing table of the datacenter: a map between VMs and their hosts, where each key is a
+	 * VM id and the corresponding value is the host where the VM is placed. It is kept up to date
+	 * with {@link #VmtoHostlist} and {@link #VmToSwitchid} when VMs are created, destroyed or
+	 * migrated.
+	 */
+	private final Map<Integer, NetworkHost> vmHosts = new HashMap<Integer, NetworkHost>();
+
+	/**
+	 * Whether the network is simulated at the flow level instead of by packet events.
+	 */
+	private boolean flowModelEnabled = false;
+
+	/**
+	 * The network simulated at the flow level, created when the flow model is enabled.
+	 */
+	private FlowNetwork flowNetwork;
+
 	/**
 	 * Instantiates a new NetworkDatacenter object.
 	 * 
@@ -108,6 +126,111 @@ public class NetworkDatacenter extends Datacenter {
 		Switchlist = new HashMap<Integer, Switch>();
 	}
 
+	/**
+	 * Checks if the network is simulated at the flow level.
+	 *
+	 * @return true if the flow model is enabled
+	 */
+	public boolean isFlowModelEnabled() {
+		return flowModelEnabled;
+	}
+
+	/**
+	 * Sets whether the network is simulated at the flow level: the packets sent between hosts
+	 * are flows sharing the bandwidth of the links of the switches in a max-min fair way, and
+	 * a single event is scheduled per flow completion, instead of the events of each packet at
+	 * each switch. It suits data-intensive applications, whose packets would otherwise generate
+	 * most of the events. It is disabled by default.
+	 *
+	 * @param flowModelEnabled true to simulate the network at the flow level
+	 * @see FlowNetwork
+	 */
+	public void setFlowModelEnabled(boolean flowModelEnabled) {
+		this.flowModelEnabled = flowModelEnabled;
+		if (flowModelEnabled && flowNetwork == null) {
+			flowNetwork = new FlowNetwork(this);
+		}
+	}
+
+	/**
+	 * Gets the network simulated at the flow level.
+	 *
+	 * @return the flow network, or <tt>null</tt> if the flow model was never enabled
+	 */
+	public FlowNetwork getFlowNetwork() {
+		return flowNetwork;
+	}
+
+	@Override
+	protected void processVmCreate(SimEvent ev, boolean ack) {
+		super.processVmCreate(ev, ack);
+		Vm vm = (Vm) ev.getData();
+		if (vm.getHost() instanceof NetworkHost) {
+			addRoute(vm);
+		}
+	}
+
+	@Override
+	protected void processVmDestroy(SimEvent ev, boolean ack) {
+		Vm vm = (Vm) ev.getData();
+		super.processVmDestroy(ev, ack);
+		removeRoute(vm);
+	}
+
+	@Override
+	protected void processVmMigrate(SimEvent ev, boolean ack) {
+		super.processVmMigrate(ev, ack);
+		addRoute((Vm) ((Map<?, ?>) ev.getData()).get("vm"));
+	}
+
+	/**
+	 * Gets the host of a VM from the routing table, in constant time.
+	 *
+	 * @param vmId the id of the VM
+	 * @return the host of the VM, or <tt>null</tt> if the VM isn't placed at a host of the datacenter
+	 */
+	public NetworkHost getVmHost(int vmId) {
+		return vmHosts.get(vmId);
+	}
+
+	/**
+	 * Adds to the routing table the route to a VM placed at a host.
+	 *
+	 * @param vm the VM
+	 */
+	protected void addRoute(Vm vm) {
+		NetworkHost host = (NetworkHost) vm.getHost();
+		vmHosts.put(vm.getId(), host);
+		VmtoHostlist.put(vm.getId(), host.getId());
+		if (host.sw != null) {
+			VmToSwitchid.put(vm.getId(), host.sw.getId());
+		}
+	}
+
+	/**
+	 * Removes from the routing table the route to a VM destroyed.
+	 *
+	 * @param vm the VM
+	 */
+	protected void removeRoute(Vm vm) {
+		vmHosts.remove(vm.getId());
+		VmtoHostlist.remove(vm.getId());
+		VmToSwitchid.remove(vm.getId());
+	}
+
+	@Override
+	protected void processOtherEvent(SimEvent ev) {
+		if (ev != null && ev.getTag() == CloudSimTags.NETWORK_FLOW_COMPLETION) {
+			if (flowNetwork.processFlowCompletion()) {
+				// the hosts receive the packets
+				updateCloudletProcessing();
+				checkCloudletCompletion();
+			}
+			return;
+		}
+		super.processOtherEvent(ev);
+	}
+
 	/**
 	 * Gets a map of all EdgeSwitches in the Datacenter network. 
          * One can design similar functions for other type of switches.
@@ -135,11 +258,12 @@ public class NetworkDatacenter extends Datacenter {
 	 */
 	public boolean processVmCreateNetwork(Vm vm) {
 
+		long startTime = startMeasurement();
 		boolean result = getVmAllocationPolicy().allocateHostForVm(vm);
+		recordTime("allocateHostForVm", startTime);
 
 		if (result) {
-			VmToSwitchid.put(vm.getId(), ((NetworkHost) vm.getHost()).sw.getId());
-			VmtoHostlist.put(vm.getId(), vm.getHost().getId());
+			addRoute(vm);
 			System.out.println(vm.getId() + " VM is created on " + vm.getHost().getId());
 
 			getVmList().add(vm);
@@ -13,13 +13,14 @@ import java.util.List;
 import java.util.Map.Entry;
 
 import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Pe;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmScheduler;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.lists.IdIndex;
 import org.cloudbus.cloudsim.lists.PeList;
-import org.cloudbus.cloudsim.lists.VmList;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
 
@@ -76,6 +77,9 @@ public class NetworkHost extends Host {
          **/
 	public double fintime = 0;
 
+	/** The index of the VMs of the host by VM id, to deliver the packets. */
+	private final IdIndex<Vm> vmIdIndex = new IdIndex<Vm>(IdIndex.VM_ID);
+
 	public NetworkHost(
 			int id,
 			RamProvisioner ramProvisioner,
@@ -97,8 +101,7 @@ public class NetworkHost extends Host {
 		// insert in each vm packet recieved
 		recvpackets();
 		for (Vm vm : super.getVmList()) {
-			double time = ((NetworkVm) vm).updateVmProcessing(currentTime, getVmScheduler()
-					.getAllocatedMipsForVm(vm));
+			double time = ((NetworkVm) vm).updateVmProcessing(currentTime, getAllocatedMipsShare(vm));
 			if (time > 0.0 && time < smallerTime) {
 				smallerTime = time;
 			}
@@ -118,7 +121,13 @@ public class NetworkHost extends Host {
 			hs.pkt.recievetime = CloudSim.clock();
 
 			// insert the packet in recievedlist of VM
-			Vm vm = VmList.getById(getVmList(), hs.pkt.reciever);
+			Vm vm = vmIdIndex.get(getVmList(), hs.pkt.reciever);
+			if (vm == null) {
+				// the VM was destroyed or migrated while the packet was in flight
+				Log.printConcatLine(CloudSim.clock(), ": [Host #", getId(), "] Dropping the packet from VM #",
+						hs.pkt.sender, " to VM #", hs.pkt.reciever, ", which is not placed at the host");
+				continue;
+			}
 			List<HostPacket> pktlist = ((NetworkCloudletSpaceSharedScheduler) vm.getCloudletScheduler()).pktrecv
 					.get(hs.pkt.sender);
 
@@ -146,7 +155,7 @@ public class NetworkHost extends Host {
                         List<HostPacket> pktlist = es.getValue();
                         for (HostPacket pkt : pktlist) {
                                 NetworkPacket hpkt = new NetworkPacket(getId(), pkt, vm.getId(), pkt.sender);
-                                Vm vm2 = VmList.getById(this.getVmList(), hpkt.recievervmid);
+                                Vm vm2 = vmIdIndex.get(this.getVmList(), hpkt.recievervmid);
                                 if (vm2 != null) {
                                         packetTosendLocal.add(hpkt);
                                 } else {
@@ -164,7 +173,7 @@ public class NetworkHost extends Host {
                     hs.stime = hs.rtime;
                     hs.pkt.recievetime = CloudSim.clock();
                     // insertthe packet in recievedlist
-                    Vm vm = VmList.getById(getVmList(), hs.pkt.reciever);
+                    Vm vm = vmIdIndex.get(getVmList(), hs.pkt.reciever);
 
                     List<HostPacket> pktlist = ((NetworkCloudletSpaceSharedScheduler) vm.getCloudletScheduler()).pktrecv
                                     .get(hs.pkt.sender);
@@ -178,12 +187,22 @@ public class NetworkHost extends Host {
 		}
 		if (flag) {
                     for (Vm vm : super.getVmList()) {
-                        vm.updateVmProcessing(CloudSim.clock(), getVmScheduler().getAllocatedMipsForVm(vm));
+                        vm.updateVmProcessing(CloudSim.clock(), getAllocatedMipsShare(vm));
                     }
 		}
 
 		// Sending packet to other VMs therefore packet is forwarded to a Edge switch
 		packetTosendLocal.clear();
+		if (getDatacenter() instanceof NetworkDatacenter
+				&& ((NetworkDatacenter) getDatacenter()).isFlowModelEnabled()) {
+			// the packets are flows of the network instead of events to the switch
+			for (NetworkPacket hs : packetTosendGlobal) {
+				NetworkConstants.totaldatatransfer += hs.pkt.data;
+			}
+			((NetworkDatacenter) getDatacenter()).getFlowNetwork().startFlows(this, packetTosendGlobal);
+			packetTosendGlobal.clear();
+			return;
+		}
 		double avband = bandwidth / packetTosendGlobal.size();
 		for (NetworkPacket hs : packetTosendGlobal) {
                     double delay = (1000 * hs.pkt.data) / avband;
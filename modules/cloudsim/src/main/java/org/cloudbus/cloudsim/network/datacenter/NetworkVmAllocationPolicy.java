@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.HostCapacityIndex;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
@@ -41,6 +42,9 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 	/** The free pes. */
 	private List<Integer> freePes;
 
+	/** The index of the number of free Pes of each host, to find the host with most free Pes. */
+	private HostCapacityIndex freePesIndex;
+
 	/**
 	 * Creates a new VmAllocationPolicySimple object.
 	 * 
@@ -53,9 +57,10 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 		super(list);
 
 		setFreePes(new ArrayList<Integer>());
+		freePesIndex = new HostCapacityIndex(getHostList(), 1);
 		for (Host host : getHostList()) {
 			getFreePes().add(host.getNumberOfPes());
-
+			freePesIndex.setValue(getFreePes().size() - 1, 0, host.getNumberOfPes());
 		}
 
 		setVmTable(new HashMap<String, Host>());
@@ -78,23 +83,12 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 		int requiredPes = vm.getNumberOfPes();
 		boolean result = false;
 		int tries = 0;
-		List<Integer> freePesTmp = new ArrayList<Integer>();
-		for (Integer freePes : getFreePes()) {
-			freePesTmp.add(freePes);
-		}
+		List<Integer> triedHosts = new ArrayList<Integer>();
 
 		if (!getVmTable().containsKey(vm.getUid())) { // if this vm was not created
 			do {// we still trying until we find a host or until we try all of them
-				int moreFree = Integer.MIN_VALUE;
-				int idx = -1;
-
 				// we want the host with less pes in use
-				for (int i = 0; i < freePesTmp.size(); i++) {
-					if (freePesTmp.get(i) > moreFree) {
-						moreFree = freePesTmp.get(i);
-						idx = i;
-					}
-				}
+				int idx = freePesIndex.getMaxPosition(0);
 
 				NetworkHost host = this.<NetworkHost> getHostList().get(idx);
 				result = host.vmCreate(vm);
@@ -102,15 +96,20 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 				if (result) { // if vm were succesfully created in the host
 					getVmTable().put(vm.getUid(), host);
 					getUsedPes().put(vm.getUid(), requiredPes);
-					getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
+					updateFreePes(idx, getFreePes().get(idx) - requiredPes);
 					result = true;
 					break;
 				} else {
-					freePesTmp.set(idx, Integer.MIN_VALUE);
+					// hides the host from the index until the allocation is done
+					freePesIndex.setValue(idx, 0, Double.NEGATIVE_INFINITY);
+					triedHosts.add(idx);
 				}
 				tries++;
 			} while (!result && tries < getFreePes().size());
 
+			for (int idx : triedHosts) {
+				freePesIndex.setValue(idx, 0, getFreePes().get(idx));
+			}
 		}
 
 		return result;
@@ -148,14 +147,25 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 	@Override
 	public void deallocateHostForVm(Vm vm) {
 		Host host = getVmTable().remove(vm.getUid());
-		int idx = getHostList().indexOf(host);
+		int idx = freePesIndex.getPosition(host);
 		int pes = getUsedPes().remove(vm.getUid());
 		if (host != null) {
 			host.vmDestroy(vm);
-			getFreePes().set(idx, getFreePes().get(idx) + pes);
+			updateFreePes(idx, getFreePes().get(idx) + pes);
 		}
 	}
 
+	/**
+	 * Sets the number of free Pes of a host, keeping the index of free Pes up to date.
+	 *
+	 * @param idx the index of the host in the host list
+	 * @param pes the number of free Pes
+	 */
+	private void updateFreePes(int idx, int pes) {
+		getFreePes().set(idx, pes);
+		freePesIndex.setValue(idx, 0, pes);
+	}
+
 	@Override
 	public Host getHost(Vm vm) {
 		return getVmTable().get(vm.getUid());
@@ -233,9 +243,9 @@ public class NetworkVmAllocationPolicy extends VmAllocationPolicy {
 			getVmTable().put(vm.getUid(), host);
 
 			int requiredPes = vm.getNumberOfPes();
-			int idx = getHostList().indexOf(host);
+			int idx = freePesIndex.getPosition(host);
 			getUsedPes().put(vm.getUid(), requiredPes);
-			getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
+			updateFreePes(idx, getFreePes().get(idx) - requiredPes);
 
 			Log.formatLine(
 					"%.2f: VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),
@@ -66,18 +66,13 @@ public class RootSwitch extends Switch {
 
 		if (level == NetworkConstants.ROOT_LEVEL) {
 			// get id of edge router
-			int edgeswitchid = dc.VmToSwitchid.get(recvVMid);
-			// search which aggregate switch has it
-			int aggSwtichid = -1;
-			;
-			for (Switch sw : downlinkswitches) {
-				for (Switch edge : sw.downlinkswitches) {
-					if (edge.getId() == edgeswitchid) {
-						aggSwtichid = sw.getId();
-						break;
-					}
-				}
+			Integer edgeswitchid = dc.VmToSwitchid.get(recvVMid);
+			if (edgeswitchid == null) {
+				dropPacket(hspkt);
+				return;
 			}
+			// search which aggregate switch has it
+			int aggSwtichid = getDownlinkSwitchId(edgeswitchid);
 			if (aggSwtichid < 0) {
 				System.out.println(" No destination for this packet");
 			} else {
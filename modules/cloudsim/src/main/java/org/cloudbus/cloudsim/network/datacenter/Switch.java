@@ -152,6 +152,17 @@ public class Switch extends SimEntity {
          */
 	public Map<Integer, NetworkVm> Vmlist = new HashMap<Integer, NetworkVm>();
 
+        /**
+         * The downlink switch through which each switch below this switch is reached, where each
+         * key is a switch id and the corresponding value is the id of the downlink switch.
+         * It is built from {@link #downlinkswitches} when first needed, and built again when
+         * downlink switches are added.
+         */
+	private Map<Integer, Integer> downlinkRoutes;
+
+        /** The number of downlink switches {@link #downlinkRoutes} was built from. */
+	private int downlinkRoutesSize;
+
 	public Switch(String name, int level, NetworkDatacenter dc) {
 		super(name);
 		this.level = level;
@@ -224,7 +235,11 @@ public class Switch extends SimEntity {
 		schedule(getId(), latency, CloudSimTags.Network_Event_send);
 		if (level == NetworkConstants.EDGE_LEVEL) {
 			// packet is to be recieved by host
-			int hostid = dc.VmtoHostlist.get(recvVMid);
+			Integer hostid = dc.VmtoHostlist.get(recvVMid);
+			if (hostid == null) {
+				dropPacket(hspkt);
+				return;
+			}
 			hspkt.recieverhostid = hostid;
 			List<NetworkPacket> pktlist = packetTohost.get(hostid);
 			if (pktlist == null) {
@@ -237,7 +252,11 @@ public class Switch extends SimEntity {
 		if (level == NetworkConstants.Agg_LEVEL) {
 			// packet is coming from root so need to be sent to edgelevel swich
 			// find the id for edgelevel switch
-			int switchid = dc.VmToSwitchid.get(recvVMid);
+			Integer switchid = dc.VmToSwitchid.get(recvVMid);
+			if (switchid == null) {
+				dropPacket(hspkt);
+				return;
+			}
 			List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
 			if (pktlist == null) {
 				pktlist = new ArrayList<NetworkPacket>();
@@ -270,7 +289,11 @@ public class Switch extends SimEntity {
 			// packet is to be sent to aggregate level or to another host in the
 			// same level
 
-			int hostid = dc.VmtoHostlist.get(recvVMid);
+			Integer hostid = dc.VmtoHostlist.get(recvVMid);
+			if (hostid == null) {
+				dropPacket(hspkt);
+				return;
+			}
 			NetworkHost hs = hostlist.get(hostid);
 			hspkt.recieverhostid = hostid;
 			if (hs != null) {
@@ -300,13 +323,12 @@ public class Switch extends SimEntity {
 			// packet is coming from edge level router so need to be sent to
 			// either root or another edge level swich
 			// find the id for edgelevel switch
-			int switchid = dc.VmToSwitchid.get(recvVMid);
-			boolean flagtoswtich = false;
-			for (Switch sw : downlinkswitches) {
-				if (switchid == sw.getId()) {
-					flagtoswtich = true;
-				}
+			Integer switchid = dc.VmToSwitchid.get(recvVMid);
+			if (switchid == null) {
+				dropPacket(hspkt);
+				return;
 			}
+			boolean flagtoswtich = getDownlinkSwitchId(switchid) == switchid;
 			if (flagtoswtich) {
 				List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
 				if (pktlist == null) {
@@ -327,18 +349,13 @@ public class Switch extends SimEntity {
 		}
 		if (level == NetworkConstants.ROOT_LEVEL) {
 			// get id of edge router
-			int edgeswitchid = dc.VmToSwitchid.get(recvVMid);
-			// search which aggregate switch has it
-			int aggSwtichid = -1;
-			;
-			for (Switch sw : downlinkswitches) {
-				for (Switch edge : sw.downlinkswitches) {
-					if (edge.getId() == edgeswitchid) {
-						aggSwtichid = sw.getId();
-						break;
-					}
-				}
+			Integer edgeswitchid = dc.VmToSwitchid.get(recvVMid);
+			if (edgeswitchid == null) {
+				dropPacket(hspkt);
+				return;
 			}
+			// search which aggregate switch has it
+			int aggSwtichid = getDownlinkSwitchId(edgeswitchid);
 			if (aggSwtichid < 0) {
 				System.out.println(" No destination for this packet");
 			} else {
@@ -352,6 +369,17 @@ public class Switch extends SimEntity {
 		}
 	}
         
+        /**
+         * Drops a packet to a VM that is not placed at a host of the datacenter,
+         * such as a packet that was in flight when the VM was destroyed.
+         * 
+         * @param hspkt the packet
+         */
+	protected void dropPacket(NetworkPacket hspkt) {
+		Log.printConcatLine(CloudSim.clock(), ": ", getName(), ": Dropping the packet from VM #",
+				hspkt.pkt.sender, " to VM #", hspkt.pkt.reciever, ", which is not placed at a host");
+	}
+
         /**
          * Register a host that is connected to the switch.
          * @param ev 
@@ -457,6 +485,11 @@ public class Switch extends SimEntity {
          * @return the host of the VM
          */
 	protected NetworkHost getHostwithVM(int vmid) {
+		if (dc != null) {
+			// the datacenter keeps the host of each VM
+			NetworkHost host = dc.getVmHost(vmid);
+			return host != null && hostlist.get(host.getId()) == host ? host : null;
+		}
 		for (Entry<Integer, NetworkHost> es : hostlist.entrySet()) {
 			Vm vm = VmList.getById(es.getValue().getVmList(), vmid);
 			if (vm != null) {
@@ -506,6 +539,33 @@ public class Switch extends SimEntity {
 		return freehostls;
 	}
 
+        /**
+         * Gets the downlink switch through which a switch below this switch is reached.
+         * 
+         * @param switchid the id of the switch below this switch, such as an edge switch
+         * @return the id of the downlink switch, which is the given id if the switch
+         *         is a downlink switch, or -1 if the switch is not below this switch
+         */
+	protected int getDownlinkSwitchId(int switchid) {
+		if (downlinkswitches == null) {
+			return -1;
+		}
+		if (downlinkRoutes == null || downlinkRoutesSize != downlinkswitches.size()) {
+			downlinkRoutes = new HashMap<Integer, Integer>();
+			downlinkRoutesSize = downlinkswitches.size();
+			for (Switch sw : downlinkswitches) {
+				downlinkRoutes.put(sw.getId(), sw.getId());
+				if (sw.downlinkswitches != null) {
+					for (Switch below : sw.downlinkswitches) {
+						downlinkRoutes.put(below.getId(), sw.getId());
+					}
+				}
+			}
+		}
+		Integer downlinkSwitchId = downlinkRoutes.get(switchid);
+		return downlinkSwitchId == null ? -1 : downlinkSwitchId;
+	}
+
 	@Override
 	public void shutdownEntity() {
 		Log.printConcatLine(getName(), " is shutting down...");
@@ -0,0 +1,92 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.power;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelHostEvaluator runs independent evaluations of the hosts of a list, such as overload
+ * checks or the evaluation of the candidate hosts for a VM, on a {@link ForkJoinPool}.
+ * Each evaluation stores its result at the index of its host, and the caller reduces the
+ * results in the order of the list, as a sequential loop would. The result is therefore the
+ * same whatever the number of threads, provided the evaluations of different hosts don't
+ * change any shared state.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+class ParallelHostEvaluator {
+
+	/** The maximum number of hosts evaluated by a single task. */
+	static final int GRAIN = 16;
+
+	/**
+	 * The evaluation of a host.
+	 */
+	interface Evaluation {
+
+		/**
+		 * Evaluates a host and stores the result.
+		 *
+		 * @param index the index of the host in the list
+		 */
+		void evaluate(int index);
+
+	}
+
+	/**
+	 * Evaluates the hosts of a list. The hosts are evaluated on a pool if it is given and
+	 * there are enough hosts, or one after the other on the current thread otherwise.
+	 *
+	 * @param pool the pool, or <tt>null</tt> to evaluate the hosts on the current thread
+	 * @param size the number of hosts
+	 * @param evaluation the evaluation of a host
+	 */
+	static void evaluate(ForkJoinPool pool, int size, Evaluation evaluation) {
+		if (pool == null || size <= GRAIN) {
+			for (int i = 0; i < size; i++) {
+				evaluation.evaluate(i);
+			}
+		} else {
+			pool.invoke(new EvaluationTask(evaluation, 0, size));
+		}
+	}
+
+	/**
+	 * A task that evaluates a range of hosts, splitting it in halves until there are not more
+	 * than {@link ParallelHostEvaluator#GRAIN} hosts.
+	 */
+	@SuppressWarnings("serial")
+	private static class EvaluationTask extends RecursiveAction {
+
+		private final Evaluation evaluation;
+		private final int from;
+		private final int to;
+
+		public EvaluationTask(Evaluation evaluation, int from, int to) {
+			this.evaluation = evaluation;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= GRAIN) {
+				for (int i = from; i < to; i++) {
+					evaluation.evaluate(i);
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new EvaluationTask(evaluation, from, middle), new EvaluationTask(evaluation, middle, to));
+			}
+		}
+
+	}
+
+}
@@ -14,6 +14,7 @@ import java.util.Map;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Log.Level;
 import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
@@ -21,6 +22,7 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.cloudbus.cloudsim.metrics.MetricsRegistry;
 
 /**
  * PowerDatacenter is a class that enables simulation of power-aware data centers.
@@ -40,6 +42,9 @@ import org.cloudbus.cloudsim.core.predicates.PredicateType;
  */
 public class PowerDatacenter extends Datacenter {
 
+	/** The log category of the power datacenters. */
+	private static final Log.Category LOG = Log.getCategory(PowerDatacenter.class);
+
 	/** The datacenter consumed power. */
 	private double power;
 
@@ -92,8 +97,11 @@ public class PowerDatacenter extends Datacenter {
 			double minTime = updateCloudetProcessingWithoutSchedulingFutureEventsForce();
 
 			if (!isDisableMigrations()) {
+				long startTime = startMeasurement();
 				List<Map<String, Object>> migrationMap = getVmAllocationPolicy().optimizeAllocation(
 						getVmList());
+				recordTime("optimizeAllocation", startTime);
+				recordMigrations(migrationMap);
 
 				if (migrationMap != null) {
 					for (Map<String, Object> migrate : migrationMap) {
@@ -102,13 +110,15 @@ public class PowerDatacenter extends Datacenter {
 						PowerHost oldHost = (PowerHost) vm.getHost();
 
 						if (oldHost == null) {
-							Log.formatLine(
+							LOG.formatLine(
+									Level.INFO,
 									"%.2f: Migration of VM #%d to Host #%d is started",
 									currentTime,
 									vm.getId(),
 									targetHost.getId());
 						} else {
-							Log.formatLine(
+							LOG.formatLine(
+									Level.INFO,
 									"%.2f: Migration of VM #%d from Host #%d to Host #%d is started",
 									currentTime,
 									vm.getId(),
@@ -172,26 +182,30 @@ public class PowerDatacenter extends Datacenter {
 		double timeDiff = currentTime - getLastProcessTime();
 		double timeFrameDatacenterEnergy = 0.0;
 
-		Log.printLine("\n\n--------------------------------------------------------------\n\n");
-		Log.formatLine("New resource usage for the time frame starting at %.2f:", currentTime);
+		LOG.printLine(Level.INFO, "\n\n--------------------------------------------------------------\n\n");
+		LOG.formatLine(Level.INFO, "New resource usage for the time frame starting at %.2f:", currentTime);
 
 		for (PowerHost host : this.<PowerHost> getHostList()) {
-			Log.printLine();
+			LOG.printLine(Level.DEBUG);
 
 			double time = host.updateVmsProcessing(currentTime); // inform VMs to update processing
 			if (time < minTime) {
 				minTime = time;
 			}
 
-			Log.formatLine(
-					"%.2f: [Host #%d] utilization is %.2f%%",
-					currentTime,
-					host.getId(),
-					host.getUtilizationOfCpu() * 100);
+			if (LOG.isEnabled(Level.DEBUG)) {
+				LOG.formatLine(
+						Level.DEBUG,
+						"%.2f: [Host #%d] utilization is %.2f%%",
+						currentTime,
+						host.getId(),
+						host.getUtilizationOfCpu() * 100);
+			}
 		}
 
 		if (timeDiff > 0) {
-			Log.formatLine(
+			LOG.formatLine(
+					Level.INFO,
 					"\nEnergy consumption for the last time frame from %.2f to %.2f:",
 					getLastProcessTime(),
 					currentTime);
@@ -205,22 +219,27 @@ public class PowerDatacenter extends Datacenter {
 						timeDiff);
 				timeFrameDatacenterEnergy += timeFrameHostEnergy;
 
-				Log.printLine();
-				Log.formatLine(
-						"%.2f: [Host #%d] utilization at %.2f was %.2f%%, now is %.2f%%",
-						currentTime,
-						host.getId(),
-						getLastProcessTime(),
-						previousUtilizationOfCpu * 100,
-						utilizationOfCpu * 100);
-				Log.formatLine(
-						"%.2f: [Host #%d] energy is %.2f W*sec",
-						currentTime,
-						host.getId(),
-						timeFrameHostEnergy);
+				if (LOG.isEnabled(Level.DEBUG)) {
+					LOG.printLine(Level.DEBUG);
+					LOG.formatLine(
+							Level.DEBUG,
+							"%.2f: [Host #%d] utilization at %.2f was %.2f%%, now is %.2f%%",
+							currentTime,
+							host.getId(),
+							getLastProcessTime(),
+							previousUtilizationOfCpu * 100,
+							utilizationOfCpu * 100);
+					LOG.formatLine(
+							Level.DEBUG,
+							"%.2f: [Host #%d] energy is %.2f W*sec",
+							currentTime,
+							host.getId(),
+							timeFrameHostEnergy);
+				}
 			}
 
-			Log.formatLine(
+			LOG.formatLine(
+					Level.INFO,
 					"\n%.2f: Data center's energy is %.2f W*sec\n",
 					currentTime,
 					timeFrameDatacenterEnergy);
@@ -235,11 +254,11 @@ public class PowerDatacenter extends Datacenter {
 			for (Vm vm : host.getCompletedVms()) {
 				getVmAllocationPolicy().deallocateHostForVm(vm);
 				getVmList().remove(vm);
-				Log.printLine("VM #" + vm.getId() + " has been deallocated from host #" + host.getId());
+				LOG.formatLine(Level.INFO, "VM #%d has been deallocated from host #%d", vm.getId(), host.getId());
 			}
 		}
 
-		Log.printLine();
+		LOG.printLine(Level.INFO);
 
 		setLastProcessTime(currentTime);
 		return minTime;
@@ -356,4 +375,19 @@ public class PowerDatacenter extends Datacenter {
 		setMigrationCount(getMigrationCount() + 1);
 	}
 
+	/**
+	 * Records the number of migrations decided by an optimization of the VM allocation, if
+	 * the metrics are recorded.
+	 * 
+	 * @param migrationMap the migrations decided, or <tt>null</tt> if there is none
+	 */
+	protected void recordMigrations(List<Map<String, Object>> migrationMap) {
+		MetricsRegistry metrics = CloudSim.getMetrics();
+		if (metrics.isEnabled()) {
+			int migrations = migrationMap == null ? 0 : migrationMap.size();
+			metrics.counter(getMetricName("migrations")).add(migrations);
+			metrics.histogram(getMetricName("migrationsPerInterval")).record(migrations);
+		}
+	}
+
 }
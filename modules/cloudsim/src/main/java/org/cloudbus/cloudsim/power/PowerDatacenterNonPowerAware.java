@@ -129,8 +129,11 @@ public class PowerDatacenterNonPowerAware extends PowerDatacenter {
 			Log.printLine();
 
 			if (!isDisableMigrations()) {
+				long startTime = startMeasurement();
 				List<Map<String, Object>> migrationMap = getVmAllocationPolicy().optimizeAllocation(
 						getVmList());
+				recordTime("optimizeAllocation", startTime);
+				recordMigrations(migrationMap);
 
 				if (migrationMap != null) {
 					for (Map<String, Object> migrate : migrationMap) {
@@ -0,0 +1,273 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.power;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.HostCapacityIndex;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+
+/**
+ * PowerHostCapacityIndex narrows down the hosts a power-aware VM allocation policy has to
+ * evaluate to find a host for a VM, out of a host list where most hosts may be idle.
+ * <p/>
+ * The hosts that have VMs are kept in a {@link HostCapacityIndex} by available MIPS, so that
+ * only the ones with enough MIPS available for the VM are evaluated. The idle hosts, which
+ * have no VMs, are grouped into classes of identical hosts: same power model, same capacities,
+ * including storage, and same current utilization. Placing a VM at any host of a class leads to the same power
+ * increase, so only the first host of each class has to be evaluated, as a linear scan keeps
+ * the first of the hosts with the minimum power increase.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see PowerVmAllocationPolicyMigrationAbstract#findHostForVm(org.cloudbus.cloudsim.Vm, Set)
+ */
+class PowerHostCapacityIndex {
+
+	/** The index of the MIPS available at a host. */
+	private static final int AVAILABLE_MIPS = 0;
+
+	/** The index of the value that is 1 if a host has VMs, or 0 if it is idle. */
+	private static final int ACTIVE = 1;
+
+	/** The available MIPS of the hosts with VMs. */
+	private final HostCapacityIndex index;
+
+	/** The class of each idle host, or <tt>null</tt> for the hosts with VMs. */
+	private final IdleHostClass[] idleHostClasses;
+
+	/** The positions of the idle hosts of each class. */
+	private final Map<IdleHostClass, TreeSet<Integer>> idleHosts = new HashMap<IdleHostClass, TreeSet<Integer>>();
+
+	/**
+	 * Instantiates a new index of the hosts of a host list.
+	 *
+	 * @param hostList the host list
+	 */
+	public PowerHostCapacityIndex(List<? extends PowerHost> hostList) {
+		index = new HostCapacityIndex(hostList, 2);
+		idleHostClasses = new IdleHostClass[hostList.size()];
+		updateAll();
+	}
+
+	/**
+	 * Checks whether this index is up to date with a host list.
+	 *
+	 * @param hostList the host list
+	 * @return <tt>true</tt> if the index was created for the list and no host was added to
+	 *         or removed from it since, <tt>false</tt> otherwise
+	 */
+	public boolean isIndexOf(List<? extends Host> hostList) {
+		return index.isIndexOf(hostList);
+	}
+
+	/**
+	 * Updates the index with the current VMs and resources of all the hosts.
+	 */
+	public void updateAll() {
+		for (int i = 0; i < idleHostClasses.length; i++) {
+			update(i);
+		}
+	}
+
+	/**
+	 * Updates the index with the current VMs and resources of a host.
+	 *
+	 * @param host the host
+	 */
+	public void update(Host host) {
+		int position = index.getPosition(host);
+		if (position >= 0) {
+			update(position);
+		}
+	}
+
+	/**
+	 * Updates the index with the current VMs and resources of a host.
+	 *
+	 * @param position the position of the host
+	 */
+	private void update(int position) {
+		PowerHost host = index.<PowerHost> getHostList().get(position);
+		index.setValue(position, AVAILABLE_MIPS, host.getVmScheduler().getAvailableMips());
+
+		IdleHostClass idleHostClass = idleHostClasses[position];
+		if (host.getVmList().isEmpty()) {
+			if (idleHostClass == null || !idleHostClass.matches(host)) {
+				setIdleHostClass(position, new IdleHostClass(host));
+			}
+		} else if (idleHostClass != null) {
+			setIdleHostClass(position, null);
+		}
+		index.setValue(position, ACTIVE, idleHostClasses[position] == null ? 1 : 0);
+	}
+
+	/**
+	 * Moves a host to another class of idle hosts.
+	 *
+	 * @param position the position of the host
+	 * @param idleHostClass the new class, or <tt>null</tt> if the host has VMs
+	 */
+	private void setIdleHostClass(int position, IdleHostClass idleHostClass) {
+		IdleHostClass previousClass = idleHostClasses[position];
+		if (previousClass != null) {
+			TreeSet<Integer> positions = idleHosts.get(previousClass);
+			positions.remove(position);
+			if (positions.isEmpty()) {
+				idleHosts.remove(previousClass);
+			}
+		}
+		if (idleHostClass != null) {
+			TreeSet<Integer> positions = idleHosts.get(idleHostClass);
+			if (positions == null) {
+				positions = new TreeSet<Integer>();
+				idleHosts.put(idleHostClass, positions);
+			}
+			positions.add(position);
+		}
+		idleHostClasses[position] = idleHostClass;
+	}
+
+	/**
+	 * Gets the hosts that may be the first host with the best evaluation for a VM, in the
+	 * order of the host list: the hosts with VMs that have enough MIPS available for the VM,
+	 * and the first idle host of each class.
+	 *
+	 * @param requestedMips the total MIPS requested by the VM
+	 * @param excludedHosts the hosts that can't be selected
+	 * @return the candidate hosts
+	 */
+	public List<PowerHost> getCandidateHosts(double requestedMips, Set<? extends Host> excludedHosts) {
+		List<PowerHost> hostList = index.getHostList();
+		List<Integer> positions = new ArrayList<Integer>();
+		for (int position = index.nextPosition(0, requestedMips, 1);
+				position >= 0;
+				position = index.nextPosition(position + 1, requestedMips, 1)) {
+			if (!excludedHosts.contains(hostList.get(position))) {
+				positions.add(position);
+			}
+		}
+		for (TreeSet<Integer> idleHostPositions : idleHosts.values()) {
+			for (int position : idleHostPositions) {
+				if (!excludedHosts.contains(hostList.get(position))) {
+					positions.add(position);
+					break;
+				}
+			}
+		}
+		Collections.sort(positions);
+
+		List<PowerHost> candidateHosts = new ArrayList<PowerHost>(positions.size());
+		for (int position : positions) {
+			candidateHosts.add(hostList.get(position));
+		}
+		return candidateHosts;
+	}
+
+	/**
+	 * The properties an idle host is evaluated on. Two idle hosts with the same properties
+	 * are evaluated the same for any VM.
+	 */
+	private static class IdleHostClass {
+
+		private final Class<?> hostClass;
+		private final Class<?> vmSchedulerClass;
+		private final Class<?> ramProvisionerClass;
+		private final Class<?> bwProvisionerClass;
+		private final PowerModel powerModel;
+		private final int numberOfPes;
+		private final double totalMips;
+		private final double peCapacity;
+		private final double availableMips;
+		private final int availableRam;
+		private final long availableBw;
+		private final long availableStorage;
+		private final double utilizationMips;
+
+		public IdleHostClass(PowerHost host) {
+			hostClass = host.getClass();
+			vmSchedulerClass = host.getVmScheduler().getClass();
+			ramProvisionerClass = host.getRamProvisioner().getClass();
+			bwProvisionerClass = host.getBwProvisioner().getClass();
+			powerModel = host.getPowerModel();
+			numberOfPes = host.getNumberOfPes();
+			totalMips = host.getTotalMips();
+			peCapacity = host.getVmScheduler().getPeCapacity();
+			availableMips = host.getVmScheduler().getAvailableMips();
+			availableRam = host.getRamProvisioner().getAvailableRam();
+			availableBw = host.getBwProvisioner().getAvailableBw();
+			availableStorage = host.getStorage();
+			utilizationMips = host.getUtilizationMips();
+		}
+
+		/**
+		 * Checks whether a host is still of this class.
+		 *
+		 * @param host the host
+		 * @return <tt>true</tt> if the host has the properties of this class, <tt>false</tt> otherwise
+		 */
+		public boolean matches(PowerHost host) {
+			return hostClass == host.getClass()
+					&& vmSchedulerClass == host.getVmScheduler().getClass()
+					&& ramProvisionerClass == host.getRamProvisioner().getClass()
+					&& bwProvisionerClass == host.getBwProvisioner().getClass()
+					&& powerModel == host.getPowerModel()
+					&& numberOfPes == host.getNumberOfPes()
+					&& Double.compare(totalMips, host.getTotalMips()) == 0
+					&& Double.compare(peCapacity, host.getVmScheduler().getPeCapacity()) == 0
+					&& Double.compare(availableMips, host.getVmScheduler().getAvailableMips()) == 0
+					&& availableRam == host.getRamProvisioner().getAvailableRam()
+					&& availableBw == host.getBwProvisioner().getAvailableBw()
+					&& availableStorage == host.getStorage()
+					&& Double.compare(utilizationMips, host.getUtilizationMips()) == 0;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof IdleHostClass)) {
+				return false;
+			}
+			IdleHostClass other = (IdleHostClass) obj;
+			return hostClass == other.hostClass
+					&& vmSchedulerClass == other.vmSchedulerClass
+					&& ramProvisionerClass == other.ramProvisionerClass
+					&& bwProvisionerClass == other.bwProvisionerClass
+					&& powerModel == other.powerModel
+					&& numberOfPes == other.numberOfPes
+					&& Double.compare(totalMips, other.totalMips) == 0
+					&& Double.compare(peCapacity, other.peCapacity) == 0
+					&& Double.compare(availableMips, other.availableMips) == 0
+					&& availableRam == other.availableRam
+					&& availableBw == other.availableBw
+					&& availableStorage == other.availableStorage
+					&& Double.compare(utilizationMips, other.utilizationMips) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = System.identityHashCode(powerModel);
+			hash = 31 * hash + numberOfPes;
+			hash = 31 * hash + Double.valueOf(totalMips).hashCode();
+			hash = 31 * hash + Double.valueOf(availableMips).hashCode();
+			hash = 31 * hash + availableRam;
+			hash = 31 * hash + (int) (availableBw ^ (availableBw >>> 32));
+			hash = 31 * hash + (int) (availableStorage ^ (availableStorage >>> 32));
+			hash = 31 * hash + Double.valueOf(utilizationMips).hashCode();
+			return hash;
+		}
+
+	}
+
+}
@@ -8,14 +8,18 @@
 
 package org.cloudbus.cloudsim.power;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmScheduler;
 import org.cloudbus.cloudsim.power.models.PowerModel;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+import org.cloudbus.cloudsim.util.DoubleRingBuffer;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.SlidingWindowStatistics;
 
 /**
  * A host that stores its CPU utilization percentage history. The history is used by VM allocation
@@ -36,6 +40,31 @@ import org.cloudbus.cloudsim.util.MathUtil;
  */
 public class PowerHostUtilizationHistory extends PowerHost {
 
+	/** The host CPU utilization percentage history, followed by zeros. */
+	private final double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+
+	/** The number of values of the host CPU utilization percentage history. */
+	private int utilizationHistoryLength;
+
+	/** The VMs whose histories were aggregated into the host history. */
+	private PowerVm[] aggregatedVms = new PowerVm[0];
+
+	/** The number of changes of the history of each VM, when it was aggregated. */
+	private long[] aggregatedModificationCounts = new long[0];
+
+	/** The MIPS of each VM, when its history was aggregated. */
+	private double[] aggregatedVmMips = new double[0];
+
+	/** The total MIPS of the host, when the VM histories were aggregated. */
+	private double aggregatedHostMips = -1;
+
+	/** The statistics of the host CPU utilization percentage history. */
+	private final SlidingWindowStatistics utilizationHistoryStatistics =
+			new SlidingWindowStatistics(PowerVm.HISTORY_LENGTH);
+
+	/** Whether the statistics were updated since the history was last aggregated. */
+	private boolean utilizationHistoryStatisticsUpToDate;
+
 	/**
 	 * Instantiates a new PowerHostUtilizationHistory.
 	 * 
@@ -64,14 +93,136 @@ public class PowerHostUtilizationHistory extends PowerHost {
 	 * @return the host CPU utilization percentage history
 	 */
 	protected double[] getUtilizationHistory() {
-		double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+		updateUtilizationHistory();
+		return Arrays.copyOf(utilizationHistory, utilizationHistoryLength);
+	}
+
+	/**
+	 * Gets the host CPU utilization percentage history the host would have if VMs were added
+	 * to it, without adding them. The histories of the added VMs are aggregated after the ones
+	 * of the VMs of the host, as if they were the last VMs created at the host.
+	 * 
+	 * @param addedVms the VMs added to the host
+	 * @return the host CPU utilization percentage history with the added VMs
+	 */
+	protected double[] getUtilizationHistory(List<? extends Vm> addedVms) {
+		updateUtilizationHistory();
+		if (addedVms.isEmpty()) {
+			return Arrays.copyOf(utilizationHistory, utilizationHistoryLength);
+		}
+		double[] history = utilizationHistory.clone();
+		double hostMips = getTotalMips();
+		for (Vm vm : addedVms) {
+			addUtilizationHistory(history, (PowerVm) vm, hostMips);
+		}
+		return Arrays.copyOf(history, MathUtil.countNonZeroBeginning(history));
+	}
+
+	/**
+	 * Gets the host CPU utilization percentage history without copying it. The history is the
+	 * first {@link #getUtilizationHistoryLength()} values of the returned array, from the most
+	 * recent to the oldest one. The array must not be modified, and its content changes when
+	 * the history of the VMs changes.
+	 * 
+	 * @return the array storing the host CPU utilization percentage history
+	 */
+	protected double[] getUtilizationHistoryView() {
+		updateUtilizationHistory();
+		return utilizationHistory;
+	}
+
+	/**
+	 * Gets the length of the host CPU utilization percentage history.
+	 * 
+	 * @return the number of values of the history
+	 */
+	protected int getUtilizationHistoryLength() {
+		updateUtilizationHistory();
+		return utilizationHistoryLength;
+	}
+
+	/**
+	 * Gets the statistics of the host CPU utilization percentage history. They are updated
+	 * incrementally when the history gets a new value.
+	 * 
+	 * @return the statistics of the host CPU utilization percentage history
+	 */
+	protected SlidingWindowStatistics getUtilizationHistoryStatistics() {
+		updateUtilizationHistory();
+		if (!utilizationHistoryStatisticsUpToDate) {
+			utilizationHistoryStatistics.update(utilizationHistory, utilizationHistoryLength);
+			utilizationHistoryStatisticsUpToDate = true;
+		}
+		return utilizationHistoryStatistics;
+	}
+
+	/**
+	 * Aggregates the utilization histories of the VMs into the host history, if a VM was added
+	 * or removed, or the history of a VM changed, since they were last aggregated. The values
+	 * are summed in the same order each time, so they don't depend on when they are aggregated.
+	 */
+	private void updateUtilizationHistory() {
+		List<PowerVm> vmList = getVmList();
 		double hostMips = getTotalMips();
-		for (PowerVm vm : this.<PowerVm> getVmList()) {
-			for (int i = 0; i < vm.getUtilizationHistory().size(); i++) {
-				utilizationHistory[i] += vm.getUtilizationHistory().get(i) * vm.getMips() / hostMips;
+		if (isUtilizationHistoryUpToDate(vmList, hostMips)) {
+			return;
+		}
+
+		int n = vmList.size();
+		if (aggregatedVms.length != n) {
+			aggregatedVms = new PowerVm[n];
+			aggregatedModificationCounts = new long[n];
+			aggregatedVmMips = new double[n];
+		}
+		Arrays.fill(utilizationHistory, 0);
+		for (int i = 0; i < n; i++) {
+			PowerVm vm = vmList.get(i);
+			addUtilizationHistory(utilizationHistory, vm, hostMips);
+			aggregatedVms[i] = vm;
+			aggregatedModificationCounts[i] = vm.getUtilizationHistoryBuffer().getModificationCount();
+			aggregatedVmMips[i] = vm.getMips();
+		}
+		aggregatedHostMips = hostMips;
+		utilizationHistoryLength = MathUtil.countNonZeroBeginning(utilizationHistory);
+		utilizationHistoryStatisticsUpToDate = false;
+	}
+
+	/**
+	 * Adds the utilization history of a VM, weighted by its share of the host MIPS, to a host history.
+	 * 
+	 * @param history the host history
+	 * @param vm the VM
+	 * @param hostMips the total MIPS of the host
+	 */
+	private static void addUtilizationHistory(double[] history, PowerVm vm, double hostMips) {
+		DoubleRingBuffer vmHistory = vm.getUtilizationHistoryBuffer();
+		double[] values = vmHistory.getArray();
+		int offset = vmHistory.getOffset();
+		for (int j = 0; j < vmHistory.size(); j++) {
+			history[j] += values[offset + j] * vm.getMips() / hostMips;
+		}
+	}
+
+	/**
+	 * Checks whether the host history was aggregated from the current histories of the VMs.
+	 * 
+	 * @param vmList the VMs of the host
+	 * @param hostMips the total MIPS of the host
+	 * @return <tt>true</tt> if the history is up to date, <tt>false</tt> otherwise
+	 */
+	private boolean isUtilizationHistoryUpToDate(List<PowerVm> vmList, double hostMips) {
+		if (aggregatedVms.length != vmList.size() || aggregatedHostMips != hostMips) {
+			return false;
+		}
+		for (int i = 0; i < aggregatedVms.length; i++) {
+			PowerVm vm = vmList.get(i);
+			if (aggregatedVms[i] != vm
+					|| aggregatedModificationCounts[i] != vm.getUtilizationHistoryBuffer().getModificationCount()
+					|| aggregatedVmMips[i] != vm.getMips()) {
+				return false;
 			}
 		}
-		return MathUtil.trimZeroTail(utilizationHistory);
+		return true;
 	}
 
 }
@@ -8,12 +8,12 @@
 
 package org.cloudbus.cloudsim.power;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.util.DoubleRingBuffer;
 import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
@@ -38,8 +38,8 @@ public class PowerVm extends Vm {
 	/** The Constant HISTORY_LENGTH. */
 	public static final int HISTORY_LENGTH = 30;
 
-	/** The CPU utilization percentage history. */
-	private final List<Double> utilizationHistory = new LinkedList<Double>();
+	/** The CPU utilization percentage history, from the most recent to the oldest value. */
+	private final DoubleRingBuffer utilizationHistory = new DoubleRingBuffer(HISTORY_LENGTH);
 
 	/** The previous time that cloudlets were processed. */
 	private double previousTime;
@@ -99,15 +99,12 @@ public class PowerVm extends Vm {
 	 */
 	public double getUtilizationMad() {
 		double mad = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
-			double median = MathUtil.median(getUtilizationHistory());
+		if (!utilizationHistory.isEmpty()) {
+			int n = utilizationHistory.size();
+			double median = MathUtil.median(utilizationHistory.toArray());
 			double[] deviationSum = new double[n];
 			for (int i = 0; i < n; i++) {
-				deviationSum[i] = Math.abs(median - getUtilizationHistory().get(i));
+				deviationSum[i] = Math.abs(median - utilizationHistory.get(i));
 			}
 			mad = MathUtil.median(deviationSum);
 		}
@@ -121,13 +118,10 @@ public class PowerVm extends Vm {
 	 */
 	public double getUtilizationMean() {
 		double mean = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
+		if (!utilizationHistory.isEmpty()) {
+			int n = utilizationHistory.size();
 			for (int i = 0; i < n; i++) {
-				mean += getUtilizationHistory().get(i);
+				mean += utilizationHistory.get(i);
 			}
 			mean /= n;
 		}
@@ -142,13 +136,10 @@ public class PowerVm extends Vm {
 	public double getUtilizationVariance() {
 		double mean = getUtilizationMean();
 		double variance = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
+		if (!utilizationHistory.isEmpty()) {
+			int n = utilizationHistory.size();
 			for (int i = 0; i < n; i++) {
-				double tmp = getUtilizationHistory().get(i) * getMips() - mean;
+				double tmp = utilizationHistory.get(i) * getMips() - mean;
 				variance += tmp * tmp;
 			}
 			variance /= n;
@@ -162,18 +153,25 @@ public class PowerVm extends Vm {
 	 * @param utilization the CPU utilization percentage to add
 	 */
 	public void addUtilizationHistoryValue(final double utilization) {
-		getUtilizationHistory().add(0, utilization);
-		if (getUtilizationHistory().size() > HISTORY_LENGTH) {
-			getUtilizationHistory().remove(HISTORY_LENGTH);
-		}
+		utilizationHistory.addFirst(utilization);
 	}
 
 	/**
-	 * Gets the CPU utilization percentage history.
+	 * Gets a read-only view of the CPU utilization percentage history,
+	 * from the most recent to the oldest value.
 	 * 
 	 * @return the CPU utilization percentage history
 	 */
 	protected List<Double> getUtilizationHistory() {
+		return utilizationHistory.asList();
+	}
+
+	/**
+	 * Gets the CPU utilization percentage history, without boxing its values.
+	 * 
+	 * @return the CPU utilization percentage history
+	 */
+	public DoubleRingBuffer getUtilizationHistoryBuffer() {
 		return utilizationHistory;
 	}
 
@@ -9,10 +9,13 @@
 package org.cloudbus.cloudsim.power;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.HostCapacitySnapshot;
 import org.cloudbus.cloudsim.HostDynamicWorkload;
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Log.Level;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.power.lists.PowerVmList;
@@ -37,6 +40,9 @@ import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
  */
 public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAllocationPolicyAbstract {
 
+	/** The log category of the VM allocation policies with migration. */
+	private static final Log.Category LOG = Log.getCategory(PowerVmAllocationPolicyMigrationAbstract.class);
+
 	/** The vm selection policy. */
 	private PowerVmSelectionPolicy vmSelectionPolicy;
 
@@ -88,6 +94,22 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
          */
 	private final List<Double> executionTimeHistoryTotal = new LinkedList<Double>();
 
+	/** Whether the candidate hosts for a VM are narrowed down by a {@link PowerHostCapacityIndex}. */
+	private boolean hostCapacityIndexEnabled = true;
+
+	/** The index of the hosts, created on first use. */
+	private PowerHostCapacityIndex hostCapacityIndex;
+
+	/**
+	 * Whether the host capacity index is kept up to date as VMs are created at and destroyed
+	 * from hosts, during the optimization of the VM allocation. Otherwise, it is updated with
+	 * all the hosts before it is used.
+	 */
+	private boolean hostCapacityIndexUpToDate;
+
+	/** The pool the hosts are evaluated on, or <tt>null</tt> to evaluate them one after the other. */
+	private ForkJoinPool parallelEvaluationPool;
+
 	/**
 	 * Instantiates a new PowerVmAllocationPolicyMigrationAbstract.
 	 * 
@@ -121,21 +143,27 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 
 		saveAllocation();
 
+		if (isHostCapacityIndexEnabled()) {
+			getHostCapacityIndex().updateAll();
+			hostCapacityIndexUpToDate = true;
+		}
+
 		ExecutionTimeMeasurer.start("optimizeAllocationVmSelection");
 		List<? extends Vm> vmsToMigrate = getVmsToMigrateFromHosts(overUtilizedHosts);
 		getExecutionTimeHistoryVmSelection().add(ExecutionTimeMeasurer.end("optimizeAllocationVmSelection"));
 
-		Log.printLine("Reallocation of VMs from the over-utilized hosts:");
+		LOG.printLine(Level.INFO, "Reallocation of VMs from the over-utilized hosts:");
 		ExecutionTimeMeasurer.start("optimizeAllocationVmReallocation");
 		List<Map<String, Object>> migrationMap = getNewVmPlacement(vmsToMigrate, new HashSet<Host>(
 				overUtilizedHosts));
 		getExecutionTimeHistoryVmReallocation().add(
 				ExecutionTimeMeasurer.end("optimizeAllocationVmReallocation"));
-		Log.printLine();
+		LOG.printLine(Level.INFO);
 
 		migrationMap.addAll(getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts));
 
 		restoreAllocation();
+		hostCapacityIndexUpToDate = false;
 
 		getExecutionTimeHistoryTotal().add(ExecutionTimeMeasurer.end("optimizeAllocationTotal"));
 
@@ -176,7 +204,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 				break;
 			}
 
-			Log.printConcatLine("Under-utilized host: host #", underUtilizedHost.getId(), "\n");
+			LOG.formatLine(Level.INFO, "Under-utilized host: host #%d\n", underUtilizedHost.getId());
 
 			excludedHostsForFindingUnderUtilizedHost.add(underUtilizedHost);
 			excludedHostsForFindingNewVmPlacement.add(underUtilizedHost);
@@ -186,13 +214,13 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 				continue;
 			}
 
-			Log.print("Reallocation of VMs from the under-utilized host: ");
-			if (!Log.isDisabled()) {
+			if (LOG.isEnabled(Level.INFO)) {
+				Log.print("Reallocation of VMs from the under-utilized host: ");
 				for (Vm vm : vmsToMigrateFromUnderUtilizedHost) {
 					Log.print(vm.getId() + " ");
 				}
+				Log.printLine();
 			}
-			Log.printLine();
 
 			List<Map<String, Object>> newVmPlacement = getNewVmPlacementFromUnderUtilizedHost(
 					vmsToMigrateFromUnderUtilizedHost,
@@ -201,7 +229,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			excludedHostsForFindingUnderUtilizedHost.addAll(extractHostListFromMigrationMap(newVmPlacement));
 
 			migrationMap.addAll(newVmPlacement);
-			Log.printLine();
+			LOG.printLine(Level.INFO);
 		}
 
 		return migrationMap;
@@ -213,7 +241,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @param overUtilizedHosts the over utilized hosts
 	 */
 	protected void printOverUtilizedHosts(List<PowerHostUtilizationHistory> overUtilizedHosts) {
-		if (!Log.isDisabled()) {
+		if (LOG.isEnabled(Level.INFO)) {
 			Log.printLine("Over-utilized hosts:");
 			for (PowerHostUtilizationHistory host : overUtilizedHosts) {
 				Log.printConcatLine("Host #", host.getId());
@@ -232,49 +260,208 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @param excludedHosts the excluded hosts
 	 * @return the host found to host the VM
 	 */
-	public PowerHost findHostForVm(Vm vm, Set<? extends Host> excludedHosts) {
+	public PowerHost findHostForVm(final Vm vm, final Set<? extends Host> excludedHosts) {
+		final List<PowerHost> candidateHosts = getCandidateHosts(vm, excludedHosts);
+		final double[] powerDiffs = new double[candidateHosts.size()];
+		if (isParallelEvaluationEnabled()) {
+			prepareForParallelEvaluation(vm);
+		}
+		evaluateHosts(candidateHosts.size(), new ParallelHostEvaluator.Evaluation() {
+			@Override
+			public void evaluate(int index) {
+				powerDiffs[index] = getPowerDiffAfterAllocation(candidateHosts.get(index), vm, excludedHosts);
+			}
+		});
+
 		double minPower = Double.MAX_VALUE;
 		PowerHost allocatedHost = null;
-
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
-				continue;
+		for (int i = 0; i < powerDiffs.length; i++) {
+			if (powerDiffs[i] < minPower) {
+				minPower = powerDiffs[i];
+				allocatedHost = candidateHosts.get(i);
 			}
-			if (host.isSuitableForVm(vm)) {
-				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
-					continue;
-				}
+		}
+		return allocatedHost;
+	}
 
-				try {
-					double powerAfterAllocation = getPowerAfterAllocation(host, vm);
-					if (powerAfterAllocation != -1) {
-						double powerDiff = powerAfterAllocation - host.getPower();
-						if (powerDiff < minPower) {
-							minPower = powerDiff;
-							allocatedHost = host;
-						}
-					}
-				} catch (Exception e) {
-				}
+	/**
+	 * Gets the increase of the power consumption of a candidate host if a VM is placed at it.
+	 * The VM is not in fact placed at the host.
+	 *
+	 * @param host the candidate host
+	 * @param vm the VM
+	 * @param excludedHosts the excluded hosts
+	 * @return the power increase, or {@link Double#NaN} if the host can't be selected for the VM
+	 */
+	private double getPowerDiffAfterAllocation(PowerHost host, Vm vm, Set<? extends Host> excludedHosts) {
+		if (excludedHosts.contains(host) || !host.isSuitableForVm(vm)) {
+			return Double.NaN;
+		}
+		if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
+			return Double.NaN;
+		}
+		try {
+			double powerAfterAllocation = getPowerAfterAllocation(host, vm);
+			if (powerAfterAllocation != -1) {
+				return powerAfterAllocation - host.getPower();
 			}
+		} catch (Exception e) {
 		}
-		return allocatedHost;
+		return Double.NaN;
 	}
 
 	/**
 	 * Checks if a host will be over utilized after placing of a candidate VM.
+	 * The VM is not in fact placed at the host: the check is made on a
+	 * {@link HostCapacitySnapshot snapshot} of the host capacity with the VM.
 	 * 
 	 * @param host the host to verify
 	 * @param vm the candidate vm 
 	 * @return true, if the host will be over utilized after VM placement; false otherwise
 	 */
 	protected boolean isHostOverUtilizedAfterAllocation(PowerHost host, Vm vm) {
-		boolean isHostOverUtilizedAfterAllocation = true;
-		if (host.vmCreate(vm)) {
-			isHostOverUtilizedAfterAllocation = isHostOverUtilized(host);
-			host.vmDestroy(vm);
+		HostCapacitySnapshot snapshot = new HostCapacitySnapshot(host);
+		if (!snapshot.isSuitableForVm(vm)) {
+			return true;
+		}
+		return isHostOverUtilized(snapshot.withVm(vm));
+	}
+
+	/**
+	 * Gets the hosts that have to be evaluated to find a host for a VM, in the order of the
+	 * host list. When the host capacity index is enabled, the hosts that can't be the first one
+	 * with the best evaluation are left out: the hosts with VMs that don't have enough MIPS
+	 * available for the VM, and the idle hosts identical to an idle host before them in the list.
+	 * Otherwise, it is the host list.
+	 *
+	 * @param vm the VM
+	 * @param excludedHosts the excluded hosts
+	 * @return the candidate hosts
+	 * @see #isHostCapacityIndexEnabled()
+	 */
+	protected List<PowerHost> getCandidateHosts(Vm vm, Set<? extends Host> excludedHosts) {
+		if (!isHostCapacityIndexEnabled()) {
+			return getHostList();
+		}
+		PowerHostCapacityIndex index = getHostCapacityIndex();
+		if (!hostCapacityIndexUpToDate) {
+			index.updateAll();
 		}
-		return isHostOverUtilizedAfterAllocation;
+		return index.getCandidateHosts(vm.getCurrentRequestedTotalMips(), excludedHosts);
+	}
+
+	/**
+	 * Gets the host capacity index, creating it if there is none for the current host list.
+	 *
+	 * @return the host capacity index
+	 */
+	private PowerHostCapacityIndex getHostCapacityIndex() {
+		if (hostCapacityIndex == null || !hostCapacityIndex.isIndexOf(getHostList())) {
+			hostCapacityIndex = new PowerHostCapacityIndex(this.<PowerHost> getHostList());
+		}
+		return hostCapacityIndex;
+	}
+
+	/**
+	 * Updates the host capacity index after a VM is created at or destroyed from a host during
+	 * the optimization of the VM allocation. Subclasses that change the VMs of a host in
+	 * other ways than the methods of this class have to call it.
+	 *
+	 * @param host the host
+	 */
+	protected void updateHostCapacityIndex(Host host) {
+		if (hostCapacityIndex != null) {
+			hostCapacityIndex.update(host);
+		}
+	}
+
+	/**
+	 * Checks whether the candidate hosts for a VM are narrowed down by a host capacity index.
+	 *
+	 * @return true, if the host capacity index is enabled
+	 * @see #getCandidateHosts(Vm, Set)
+	 */
+	public boolean isHostCapacityIndexEnabled() {
+		return hostCapacityIndexEnabled;
+	}
+
+	/**
+	 * Sets whether the candidate hosts for a VM are narrowed down by a host capacity index.
+	 *
+	 * @param hostCapacityIndexEnabled true to enable the host capacity index
+	 */
+	public void setHostCapacityIndexEnabled(boolean hostCapacityIndexEnabled) {
+		this.hostCapacityIndexEnabled = hostCapacityIndexEnabled;
+	}
+
+	/**
+	 * Evaluates the hosts of a list, in parallel if it is enabled.
+	 *
+	 * @param size the number of hosts
+	 * @param evaluation the evaluation of a host
+	 * @see #isParallelEvaluationEnabled()
+	 */
+	private void evaluateHosts(int size, ParallelHostEvaluator.Evaluation evaluation) {
+		ParallelHostEvaluator.evaluate(isParallelEvaluationEnabled() ? getParallelEvaluationPool() : null, size, evaluation);
+	}
+
+	/**
+	 * Computes the resources requested by a VM before it is evaluated against hosts in
+	 * parallel, as the cloudlet scheduler and the utilization models of the VM cache them
+	 * on first use.
+	 *
+	 * @param vm the VM
+	 */
+	private void prepareForParallelEvaluation(Vm vm) {
+		vm.getCurrentRequestedMips();
+		vm.getCurrentRequestedRam();
+		vm.getCurrentRequestedBw();
+	}
+
+	/**
+	 * Checks whether the hosts are evaluated in parallel: the overload check of each host
+	 * in {@link #getOverUtilizedHosts()}, and the evaluation of each candidate host in
+	 * {@link #findHostForVm(Vm, Set)}. It is enabled if a parallel evaluation pool is set
+	 * and the policy supports it. The results are the same as a sequential evaluation.
+	 *
+	 * @return true, if the hosts are evaluated in parallel
+	 * @see #setParallelEvaluationPool(ForkJoinPool)
+	 * @see #isParallelEvaluationSupported()
+	 */
+	public boolean isParallelEvaluationEnabled() {
+		return getParallelEvaluationPool() != null && isParallelEvaluationSupported();
+	}
+
+	/**
+	 * Checks whether the overload checks of this policy can run in parallel for different
+	 * hosts: whether {@link #isHostOverUtilized(PowerHost)} and
+	 * {@link #isHostOverUtilized(HostCapacitySnapshot)} don't change any state shared
+	 * between hosts, nor the VMs of the host. This implementation returns false, as the
+	 * default snapshot check creates the VMs at the host.
+	 *
+	 * @return true, if the hosts can be evaluated in parallel
+	 */
+	protected boolean isParallelEvaluationSupported() {
+		return false;
+	}
+
+	/**
+	 * Gets the pool the hosts are evaluated on.
+	 *
+	 * @return the parallel evaluation pool, or <tt>null</tt> if the hosts are evaluated one after the other
+	 */
+	public ForkJoinPool getParallelEvaluationPool() {
+		return parallelEvaluationPool;
+	}
+
+	/**
+	 * Sets the pool the hosts are evaluated on, such as {@link ForkJoinPool#commonPool()}.
+	 *
+	 * @param parallelEvaluationPool the parallel evaluation pool, or <tt>null</tt> to evaluate
+	 *            the hosts one after the other
+	 */
+	public void setParallelEvaluationPool(ForkJoinPool parallelEvaluationPool) {
+		this.parallelEvaluationPool = parallelEvaluationPool;
 	}
 
 	@Override
@@ -316,7 +503,8 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
 			if (allocatedHost != null) {
 				allocatedHost.vmCreate(vm);
-				Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
+				updateHostCapacityIndex(allocatedHost);
+				LOG.formatLine(Level.INFO, "VM #%d allocated to host #%d", vm.getId(), allocatedHost.getId());
 
 				Map<String, Object> migrate = new HashMap<String, Object>();
 				migrate.put("vm", vm);
@@ -343,16 +531,18 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
 			if (allocatedHost != null) {
 				allocatedHost.vmCreate(vm);
-				Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
+				updateHostCapacityIndex(allocatedHost);
+				LOG.formatLine(Level.INFO, "VM #%d allocated to host #%d", vm.getId(), allocatedHost.getId());
 
 				Map<String, Object> migrate = new HashMap<String, Object>();
 				migrate.put("vm", vm);
 				migrate.put("host", allocatedHost);
 				migrationMap.add(migrate);
 			} else {
-				Log.printLine("Not all VMs can be reallocated from the host, reallocation cancelled");
+				LOG.printLine(Level.INFO, "Not all VMs can be reallocated from the host, reallocation cancelled");
 				for (Map<String, Object> map : migrationMap) {
 					((Host) map.get("host")).vmDestroy((Vm) map.get("vm"));
+					updateHostCapacityIndex((Host) map.get("host"));
 				}
 				migrationMap.clear();
 				break;
@@ -378,6 +568,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 				}
 				vmsToMigrate.add(vm);
 				host.vmDestroy(vm);
+				updateHostCapacityIndex(host);
 				if (!isHostOverUtilized(host)) {
 					break;
 				}
@@ -408,10 +599,27 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return the over utilized hosts
 	 */
 	protected List<PowerHostUtilizationHistory> getOverUtilizedHosts() {
+		final List<PowerHostUtilizationHistory> hostList = getHostList();
+		final boolean[] overUtilized = new boolean[hostList.size()];
+		if (isParallelEvaluationEnabled()) {
+			for (PowerHostUtilizationHistory host : hostList) {
+				for (Vm vm : host.getVmList()) {
+					// the cloudlet scheduler of the VM caches the requested MIPS on first use
+					vm.getCurrentRequestedMips();
+				}
+			}
+		}
+		evaluateHosts(hostList.size(), new ParallelHostEvaluator.Evaluation() {
+			@Override
+			public void evaluate(int index) {
+				overUtilized[index] = isHostOverUtilized(hostList.get(index));
+			}
+		});
+
 		List<PowerHostUtilizationHistory> overUtilizedHosts = new LinkedList<PowerHostUtilizationHistory>();
-		for (PowerHostUtilizationHistory host : this.<PowerHostUtilizationHistory> getHostList()) {
-			if (isHostOverUtilized(host)) {
-				overUtilizedHosts.add(host);
+		for (int i = 0; i < overUtilized.length; i++) {
+			if (overUtilized[i]) {
+				overUtilizedHosts.add(hostList.get(i));
 			}
 		}
 		return overUtilizedHosts;
@@ -482,12 +690,43 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	protected abstract boolean isHostOverUtilized(PowerHost host);
 
 	/**
-	 * Adds an entry for each history map of a host.
+	 * Checks if a host would be over utilized with the VMs of a snapshot of its capacity,
+	 * including the VMs added to the snapshot but not placed at the host.
+	 * This implementation temporarily creates the added VMs at the host to check it.
+	 * The policies that can compute the check from the snapshot override it, so that
+	 * the host is left unchanged.
+	 * 
+	 * @param snapshot the snapshot of the host capacity
+	 * @return true, if the host would be over utilized; false otherwise
+	 */
+	protected boolean isHostOverUtilized(HostCapacitySnapshot snapshot) {
+		PowerHost host = (PowerHost) snapshot.getHost();
+		List<Vm> createdVms = new ArrayList<Vm>();
+		for (Vm vm : snapshot.getAddedVms()) {
+			if (!host.vmCreate(vm)) {
+				break;
+			}
+			createdVms.add(vm);
+		}
+		boolean isHostOverUtilized = true;
+		if (createdVms.size() == snapshot.getAddedVms().size()) {
+			isHostOverUtilized = isHostOverUtilized(host);
+		}
+		for (Vm vm : createdVms) {
+			host.vmDestroy(vm);
+		}
+		updateHostCapacityIndex(host);
+		return isHostOverUtilized;
+	}
+
+	/**
+	 * Adds an entry for each history map of a host. It is synchronized, as the overload
+	 * checks of different hosts may add their entries concurrently.
 	 * 
 	 * @param host the host to add metric history entries
 	 * @param metric the metric to be added to the metric history map
 	 */
-	protected void addHistoryEntry(HostDynamicWorkload host, double metric) {
+	protected synchronized void addHistoryEntry(HostDynamicWorkload host, double metric) {
 		int hostId = host.getId();
 		if (!getTimeHistory().containsKey(hostId)) {
 			getTimeHistory().put(hostId, new LinkedList<Double>());
@@ -537,7 +776,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			Vm vm = (Vm) map.get("vm");
 			PowerHost host = (PowerHost) map.get("host");
 			if (!host.vmCreate(vm)) {
-				Log.printConcatLine("Couldn't restore VM #", vm.getId(), " on host #", host.getId());
+				LOG.formatLine(Level.ERROR, "Couldn't restore VM #%d on host #%d", vm.getId(), host.getId());
 				System.exit(0);
 			}
 			getVmTable().put(vm.getUid(), host);
@@ -9,8 +9,10 @@
 package org.cloudbus.cloudsim.power;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.HostCapacitySnapshot;
 import org.cloudbus.cloudsim.HostDynamicWorkload;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
@@ -88,6 +90,22 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract_MU extends PowerV
      */
     private final List<Double> executionTimeHistoryTotal = new LinkedList<Double>();
 
+    /** Whether the candidate hosts for a VM are narrowed down by a {@link PowerHostCapacityIndex}. */
+    private boolean hostCapacityIndexEnabled = true;
+
+    /** The index of the hosts, created on first use. */
+    private PowerHostCapacityIndex hostCapacityIndex;
+
+    /**
+     * Whether the host capacity index is kept up to date as VMs are created at and destroyed
+     * from hosts, during the optimization of the VM allocation. Otherwise, it is updated with
+     * all the hosts before it is used.
+     */
+    private boolean hostCapacityIndexUpToDate;
+
+    /** The pool the hosts are evaluated on, or <tt>null</tt> to evaluate them one after the other. */
+    private ForkJoinPool parallelEvaluationPool;
+
     /**
      * Instantiates a new PowerVmAllocationPolicyMigrationAbstract.
      *
@@ -121,6 +139,11 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract_MU extends PowerV
 
         saveAllocation();
 
+        if (isHostCapacityIndexEnabled()) {
+            getHostCapacityIndex().updateAll();
+            hostCapacityIndexUpToDate = true;
+        }
+
         ExecutionTimeMeasurer.start("optimizeAllocationVmSelection");
         List<? extends Vm> vmsToMigrate = getVmsToMigrateFromHosts(overUtilizedHosts);
         getExecutionTimeHistoryVmSelection().add(ExecutionTimeMeasurer.end("optimizeAllocationVmSelection"));
@@ -136,6 +159,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract_MU extends PowerV
         migrationMap.addAll(getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts));
 
         restoreAllocation();
+        hostCapacityIndexUpToDate = false;
 
         getExecutionTimeHistoryTotal().add(ExecutionTimeMeasurer.end("optimizeAllocationTotal"));
 
@@ -232,43 +256,202 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract_MU extends PowerV
      * @param excludedHosts the excluded hosts
      * @return the host found to host the VM
      */
-    public PowerHost findHostForVm(Vm vm, Set<? extends Host> excludedHosts) {
-        double maxUtilization = -100;
-        PowerHost allocatedHost = null;
-
-        for (PowerHost host : this.<PowerHost> getHostList()) {
-            if (excludedHosts.contains(host)) {
-                continue;
+    public PowerHost findHostForVm(final Vm vm, final Set<? extends Host> excludedHosts) {
+        final List<PowerHost> candidateHosts = getCandidateHosts(vm, excludedHosts);
+        final double[] hostUtilizations = new double[candidateHosts.size()];
+        if (isParallelEvaluationEnabled()) {
+            prepareForParallelEvaluation(vm);
+        }
+        evaluateHosts(candidateHosts.size(), new ParallelHostEvaluator.Evaluation() {
+            @Override
+            public void evaluate(int index) {
+                hostUtilizations[index] = getUtilizationMipsBeforeAllocation(candidateHosts.get(index), vm, excludedHosts);
             }
-            if (host.isSuitableForVm(vm)) {
-                if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
-                    continue;
-                }
+        });
 
-                double hostUtilization = host.getUtilizationMips();
-                if (maxUtilization < hostUtilization) {
-                    maxUtilization = hostUtilization;
-                    allocatedHost = host;
-                }
+        double maxUtilization = -100;
+        PowerHost allocatedHost = null;
+        for (int i = 0; i < hostUtilizations.length; i++) {
+            if (maxUtilization < hostUtilizations[i]) {
+                maxUtilization = hostUtilizations[i];
+                allocatedHost = candidateHosts.get(i);
             }
         }
         return allocatedHost;
     }
 
+    /**
+     * Gets the current utilization of a candidate host for a VM, if the VM can be placed at it.
+     * The VM is not in fact placed at the host.
+     *
+     * @param host the candidate host
+     * @param vm the VM
+     * @param excludedHosts the excluded hosts
+     * @return the utilization of the host in MIPS, or {@link Double#NaN} if the host can't be
+     *         selected for the VM
+     */
+    private double getUtilizationMipsBeforeAllocation(PowerHost host, Vm vm, Set<? extends Host> excludedHosts) {
+        if (excludedHosts.contains(host) || !host.isSuitableForVm(vm)) {
+            return Double.NaN;
+        }
+        if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
+            return Double.NaN;
+        }
+        return host.getUtilizationMips();
+    }
+
     /**
      * Checks if a host will be over utilized after placing of a candidate VM.
+     * The VM is not in fact placed at the host: the check is made on a
+     * {@link HostCapacitySnapshot snapshot} of the host capacity with the VM.
      *
      * @param host the host to verify
      * @param vm the candidate vm
      * @return true, if the host will be over utilized after VM placement; false otherwise
      */
     protected boolean isHostOverUtilizedAfterAllocation(PowerHost host, Vm vm) {
-        boolean isHostOverUtilizedAfterAllocation = true;
-        if (host.vmCreate(vm)) {
-            isHostOverUtilizedAfterAllocation = isHostOverUtilized(host);
-            host.vmDestroy(vm);
+        HostCapacitySnapshot snapshot = new HostCapacitySnapshot(host);
+        if (!snapshot.isSuitableForVm(vm)) {
+            return true;
+        }
+        return isHostOverUtilized(snapshot.withVm(vm));
+    }
+
+    /**
+     * Gets the hosts that have to be evaluated to find a host for a VM, in the order of the
+     * host list. When the host capacity index is enabled, the hosts that can't be the first one
+     * with the best evaluation are left out: the hosts with VMs that don't have enough MIPS
+     * available for the VM, and the idle hosts identical to an idle host before them in the list.
+     * Otherwise, it is the host list.
+     *
+     * @param vm the VM
+     * @param excludedHosts the excluded hosts
+     * @return the candidate hosts
+     * @see #isHostCapacityIndexEnabled()
+     */
+    protected List<PowerHost> getCandidateHosts(Vm vm, Set<? extends Host> excludedHosts) {
+        if (!isHostCapacityIndexEnabled()) {
+            return getHostList();
+        }
+        PowerHostCapacityIndex index = getHostCapacityIndex();
+        if (!hostCapacityIndexUpToDate) {
+            index.updateAll();
+        }
+        return index.getCandidateHosts(vm.getCurrentRequestedTotalMips(), excludedHosts);
+    }
+
+    /**
+     * Gets the host capacity index, creating it if there is none for the current host list.
+     *
+     * @return the host capacity index
+     */
+    private PowerHostCapacityIndex getHostCapacityIndex() {
+        if (hostCapacityIndex == null || !hostCapacityIndex.isIndexOf(getHostList())) {
+            hostCapacityIndex = new PowerHostCapacityIndex(this.<PowerHost> getHostList());
+        }
+        return hostCapacityIndex;
+    }
+
+    /**
+     * Updates the host capacity index after a VM is created at or destroyed from a host during
+     * the optimization of the VM allocation. Subclasses that change the VMs of a host in
+     * other ways than the methods of this class have to call it.
+     *
+     * @param host the host
+     */
+    protected void updateHostCapacityIndex(Host host) {
+        if (hostCapacityIndex != null) {
+            hostCapacityIndex.update(host);
         }
-        return isHostOverUtilizedAfterAllocation;
+    }
+
+    /**
+     * Checks whether the candidate hosts for a VM are narrowed down by a host capacity index.
+     *
+     * @return true, if the host capacity index is enabled
+     * @see #getCandidateHosts(Vm, Set)
+     */
+    public boolean isHostCapacityIndexEnabled() {
+        return hostCapacityIndexEnabled;
+    }
+
+    /**
+     * Sets whether the candidate hosts for a VM are narrowed down by a host capacity index.
+     *
+     * @param hostCapacityIndexEnabled true to enable the host capacity index
+     */
+    public void setHostCapacityIndexEnabled(boolean hostCapacityIndexEnabled) {
+        this.hostCapacityIndexEnabled = hostCapacityIndexEnabled;
+    }
+
+    /**
+     * Evaluates the hosts of a list, in parallel if it is enabled.
+     *
+     * @param size the number of hosts
+     * @param evaluation the evaluation of a host
+     * @see #isParallelEvaluationEnabled()
+     */
+    private void evaluateHosts(int size, ParallelHostEvaluator.Evaluation evaluation) {
+        ParallelHostEvaluator.evaluate(isParallelEvaluationEnabled() ? getParallelEvaluationPool() : null, size, evaluation);
+    }
+
+    /**
+     * Computes the resources requested by a VM before it is evaluated against hosts in
+     * parallel, as the cloudlet scheduler and the utilization models of the VM cache them
+     * on first use.
+     *
+     * @param vm the VM
+     */
+    private void prepareForParallelEvaluation(Vm vm) {
+        vm.getCurrentRequestedMips();
+        vm.getCurrentRequestedRam();
+        vm.getCurrentRequestedBw();
+    }
+
+    /**
+     * Checks whether the hosts are evaluated in parallel: the overload check of each host
+     * in {@link #getOverUtilizedHosts()}, and the evaluation of each candidate host in
+     * {@link #findHostForVm(Vm, Set)}. It is enabled if a parallel evaluation pool is set
+     * and the policy supports it. The results are the same as a sequential evaluation.
+     *
+     * @return true, if the hosts are evaluated in parallel
+     * @see #setParallelEvaluationPool(ForkJoinPool)
+     * @see #isParallelEvaluationSupported()
+     */
+    public boolean isParallelEvaluationEnabled() {
+        return getParallelEvaluationPool() != null && isParallelEvaluationSupported();
+    }
+
+    /**
+     * Checks whether the overload checks of this policy can run in parallel for different
+     * hosts: whether {@link #isHostOverUtilized(PowerHost)} and
+     * {@link #isHostOverUtilized(HostCapacitySnapshot)} don't change any state shared
+     * between hosts, nor the VMs of the host. This implementation returns false, as the
+     * default snapshot check creates the VMs at the host.
+     *
+     * @return true, if the hosts can be evaluated in parallel
+     */
+    protected boolean isParallelEvaluationSupported() {
+        return false;
+    }
+
+    /**
+     * Gets the pool the hosts are evaluated on.
+     *
+     * @return the parallel evaluation pool, or <tt>null</tt> if the hosts are evaluated one after the other
+     */
+    public ForkJoinPool getParallelEvaluationPool() {
+        return parallelEvaluationPool;
+    }
+
+    /**
+     * Sets the pool the hosts are evaluated on, such as {@link ForkJoinPool#commonPool()}.
+     *
+     * @param parallelEvaluationPool the parallel evaluation pool, or <tt>null</tt> to evaluate
+     *            the hosts one after the other
+     */
+    public void setParallelEvaluationPool(ForkJoinPool parallelEvaluationPool) {
+        this.parallelEvaluationPool = parallelEvaluationPool;
     }
 
     @Override
@@ -311,6 +494,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract_MU extends PowerV
             PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
             if (allocatedHost != null) {
                 allocatedHost.vmCreate(vm);
+                updateHostCapacityIndex(allocatedHost);
                 Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
                 Map<String, Object> migrate = new HashMap<String, Object>();
@@ -339,6 +523,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract_MU extends PowerV
             PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
             if (allocatedHost != null) {
                 allocatedHost.vmCreate(vm);
+                updateHostCapacityIndex(allocatedHost);
                 Log.printConcatLine("VM #", vm.getId(), " allocated to host #", allocatedHost.getId());
 
                 Map<String, Object> migrate = new HashMap<String, Object>();
@@ -349,6 +534,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract_MU extends PowerV
                 Log.printLine("Not all VMs can be reallocated from the host, reallocation cancelled");
                 for (Map<String, Object> map : migrationMap) {
                     ((Host) map.get("host")).vmDestroy((Vm) map.get("vm"));
+                    updateHostCapacityIndex((Host) map.get("host"));
                 }
                 migrationMap.clear();
                 break;
@@ -374,6 +560,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract_MU extends PowerV
                 }
                 vmsToMigrate.add(vm);
                 host.vmDestroy(vm);
+                updateHostCapacityIndex(host);
                 if (!isHostOverUtilized(host)) {
                     break;
                 }
@@ -404,10 +591,27 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract_MU extends PowerV
      * @return the over utilized hosts
      */
     protected List<PowerHostUtilizationHistory> getOverUtilizedHosts() {
+        final List<PowerHostUtilizationHistory> hostList = getHostList();
+        final boolean[] overUtilized = new boolean[hostList.size()];
+        if (isParallelEvaluationEnabled()) {
+            for (PowerHostUtilizationHistory host : hostList) {
+                for (Vm vm : host.getVmList()) {
+                    // the cloudlet scheduler of the VM caches the requested MIPS on first use
+                    vm.getCurrentRequestedMips();
+                }
+            }
+        }
+        evaluateHosts(hostList.size(), new ParallelHostEvaluator.Evaluation() {
+            @Override
+            public void evaluate(int index) {
+                overUtilized[index] = isHostOverUtilized(hostList.get(index));
+            }
+        });
+
         List<PowerHostUtilizationHistory> overUtilizedHosts = new LinkedList<PowerHostUtilizationHistory>();
-        for (PowerHostUtilizationHistory host : this.<PowerHostUtilizationHistory> getHostList()) {
-            if (isHostOverUtilized(host)) {
-                overUtilizedHosts.add(host);
+        for (int i = 0; i < overUtilized.length; i++) {
+            if (overUtilized[i]) {
+                overUtilizedHosts.add(hostList.get(i));
             }
         }
         return overUtilizedHosts;
@@ -478,12 +682,43 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract_MU extends PowerV
     protected abstract boolean isHostOverUtilized(PowerHost host);
 
     /**
-     * Adds an entry for each history map of a host.
+     * Checks if a host would be over utilized with the VMs of a snapshot of its capacity,
+     * including the VMs added to the snapshot but not placed at the host.
+     * This implementation temporarily creates the added VMs at the host to check it.
+     * The policies that can compute the check from the snapshot override it, so that
+     * the host is left unchanged.
+     *
+     * @param snapshot the snapshot of the host capacity
+     * @return true, if the host would be over utilized; false otherwise
+     */
+    protected boolean isHostOverUtilized(HostCapacitySnapshot snapshot) {
+        PowerHost host = (PowerHost) snapshot.getHost();
+        List<Vm> createdVms = new ArrayList<Vm>();
+        for (Vm vm : snapshot.getAddedVms()) {
+            if (!host.vmCreate(vm)) {
+                break;
+            }
+            createdVms.add(vm);
+        }
+        boolean isHostOverUtilized = true;
+        if (createdVms.size() == snapshot.getAddedVms().size()) {
+            isHostOverUtilized = isHostOverUtilized(host);
+        }
+        for (Vm vm : createdVms) {
+            host.vmDestroy(vm);
+        }
+        updateHostCapacityIndex(host);
+        return isHostOverUtilized;
+    }
+
+    /**
+     * Adds an entry for each history map of a host. It is synchronized, as the overload
+     * checks of different hosts may add their entries concurrently.
      *
      * @param host the host to add metric history entries
      * @param metric the metric to be added to the metric history map
      */
-    protected void addHistoryEntry(HostDynamicWorkload host, double metric) {
+    protected synchronized void addHistoryEntry(HostDynamicWorkload host, double metric) {
         int hostId = host.getId();
         if (!getTimeHistory().containsKey(hostId)) {
             getTimeHistory().put(hostId, new LinkedList<Double>());
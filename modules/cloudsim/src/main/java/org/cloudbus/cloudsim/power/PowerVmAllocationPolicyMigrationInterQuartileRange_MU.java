@@ -9,10 +9,13 @@
 package org.cloudbus.cloudsim.power;
 
 import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.HostCapacitySnapshot;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.SlidingWindowStatistics;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -107,9 +110,49 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange_MU extends
 		} catch (IllegalArgumentException e) {
 			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
 		}
+		return isHostOverUtilized(_host, host.getVmList(), upperThreshold);
+	}
+
+	/**
+	 * {@inheritDoc} The overload check of this policy only reads the host and its VMs,
+	 * so it is supported if the fallback policy supports it.
+	 */
+	@Override
+	protected boolean isParallelEvaluationSupported() {
+		return getFallbackVmAllocationPolicy().isParallelEvaluationSupported();
+	}
+
+	/**
+	 * Checks if the host is over utilized with the VMs of a snapshot of its capacity, based on CPU utilization.
+	 * 
+	 * @param snapshot the snapshot of the host capacity
+	 * @return true, if the host is over utilized; false otherwise
+	 */
+	@Override
+	protected boolean isHostOverUtilized(HostCapacitySnapshot snapshot) {
+		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) snapshot.getHost();
+		double upperThreshold = 0;
+		try {
+			upperThreshold = 1 - getSafetyParameter() * getHostUtilizationIqr(_host, snapshot.getAddedVms());
+		} catch (IllegalArgumentException e) {
+			return getFallbackVmAllocationPolicy().isHostOverUtilized(snapshot);
+		}
+		return isHostOverUtilized(_host, snapshot.getVmList(), upperThreshold);
+	}
+
+	/**
+	 * Checks if a host is over utilized with a list of VMs, given its upper utilization threshold.
+	 * 
+	 * @param host the host
+	 * @param vmList the VMs of the host, followed by the VMs that would be added to it
+	 * @param upperThreshold the upper utilization threshold
+	 * @return true, if the host is over utilized; false otherwise
+	 */
+	private boolean isHostOverUtilized(PowerHostUtilizationHistory host, List<? extends Vm> vmList,
+			double upperThreshold) {
 		addHistoryEntry(host, upperThreshold);
 		double totalRequestedMips = 0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
 		}
 		double utilization = totalRequestedMips / host.getTotalMips();
@@ -123,9 +166,28 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange_MU extends
 	 * @return the host CPU utilization percentage IQR
 	 */
 	protected double getHostUtilizationIqr(PowerHostUtilizationHistory host) throws IllegalArgumentException {
-		double[] data = host.getUtilizationHistory();
-		if (MathUtil.countNonZeroBeginning(data) >= 12) { // 12 has been suggested as a safe value
-			return MathUtil.iqr(data);
+		return getHostUtilizationIqr(host, Collections.<Vm> emptyList());
+	}
+
+	/**
+	 * Gets the host CPU utilization percentage IQR the host would have if VMs were added to it.
+	 * 
+	 * @param host the host
+	 * @param addedVms the VMs added to the host
+	 * @return the host CPU utilization percentage IQR with the added VMs
+	 */
+	protected double getHostUtilizationIqr(PowerHostUtilizationHistory host, List<? extends Vm> addedVms)
+			throws IllegalArgumentException {
+		if (addedVms.isEmpty()) {
+			SlidingWindowStatistics statistics = host.getUtilizationHistoryStatistics();
+			if (statistics.size() >= 12) { // 12 has been suggested as a safe value
+				return statistics.getIqr();
+			}
+		} else {
+			double[] data = host.getUtilizationHistory(addedVms);
+			if (data.length >= 12) {
+				return MathUtil.iqr(data);
+			}
 		}
 		throw new IllegalArgumentException();
 	}
@@ -11,8 +11,9 @@ package org.cloudbus.cloudsim.power;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.HostCapacitySnapshot;
 import org.cloudbus.cloudsim.Vm;
-import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.LoessRegression;
 
 /**
  * A VM allocation policy that uses Local Regression (LR) to predict host utilization (load)
@@ -57,6 +58,17 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
          * data to be computed. */
 	private PowerVmAllocationPolicyMigrationAbstract fallbackVmAllocationPolicy;
 
+	/**
+	 * The local regression used to estimate the host utilization, one for each thread
+	 * checking hosts, as it reuses its work arrays.
+	 */
+	private final ThreadLocal<LoessRegression> loessRegression = new ThreadLocal<LoessRegression>() {
+		@Override
+		protected LoessRegression initialValue() {
+			return new LoessRegression();
+		}
+	};
+
 	/**
 	 * Instantiates a new PowerVmAllocationPolicyMigrationLocalRegression.
 	 * 
@@ -108,11 +120,66 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	@Override
 	protected boolean isHostOverUtilized(PowerHost host) {
 		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
-		double[] utilizationHistory = _host.getUtilizationHistory();
-		int length = 10; // we use 10 to make the regression responsive enough to latest values
-		if (utilizationHistory.length < length) {
+		double predictedUtilization = getPredictedUtilization(_host, _host.getUtilizationHistoryView(),
+				_host.getUtilizationHistoryLength(), host.getVmList());
+		if (Double.isNaN(predictedUtilization)) {
 			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
 		}
+		return predictedUtilization >= 1;
+	}
+
+	/**
+	 * {@inheritDoc} The overload check of this policy only reads the host and its VMs,
+	 * so it is supported if the fallback policy supports it.
+	 */
+	@Override
+	protected boolean isParallelEvaluationSupported() {
+		return getFallbackVmAllocationPolicy().isParallelEvaluationSupported();
+	}
+
+	/**
+	 * Checks if a host is over utilized with the VMs of a snapshot of its capacity.
+	 * 
+	 * @param snapshot the snapshot of the host capacity
+	 * @return true, if is host over utilized; false otherwise
+	 */
+	@Override
+	protected boolean isHostOverUtilized(HostCapacitySnapshot snapshot) {
+		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) snapshot.getHost();
+		double[] utilizationHistory;
+		int utilizationHistoryLength;
+		if (snapshot.getAddedVms().isEmpty()) {
+			utilizationHistory = _host.getUtilizationHistoryView();
+			utilizationHistoryLength = _host.getUtilizationHistoryLength();
+		} else {
+			utilizationHistory = _host.getUtilizationHistory(snapshot.getAddedVms());
+			utilizationHistoryLength = utilizationHistory.length;
+		}
+		double predictedUtilization = getPredictedUtilization(_host, utilizationHistory,
+				utilizationHistoryLength, snapshot.getVmList());
+		if (Double.isNaN(predictedUtilization)) {
+			return getFallbackVmAllocationPolicy().isHostOverUtilized(snapshot);
+		}
+		return predictedUtilization >= 1;
+	}
+
+	/**
+	 * Predicts the utilization of a host by local regression of its latest utilization values,
+	 * at the time its VMs could be migrated.
+	 * 
+	 * @param host the host
+	 * @param utilizationHistory the utilization history of the host, the latest value first
+	 * @param utilizationHistoryLength the number of values of the utilization history
+	 * @param vmList the VMs of the host, followed by the VMs that would be added to it
+	 * @return the predicted utilization, or {@link Double#NaN} if the utilization history is
+	 *         too short or the regression fails
+	 */
+	private double getPredictedUtilization(PowerHostUtilizationHistory host, double[] utilizationHistory,
+			int utilizationHistoryLength, List<? extends Vm> vmList) {
+		int length = 10; // we use 10 to make the regression responsive enough to latest values
+		if (utilizationHistoryLength < length) {
+			return Double.NaN;
+		}
 		double[] utilizationHistoryReversed = new double[length];
 		for (int i = 0; i < length; i++) {
 			utilizationHistoryReversed[i] = utilizationHistory[length - i - 1];
@@ -121,15 +188,15 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 		try {
 			estimates = getParameterEstimates(utilizationHistoryReversed);
 		} catch (IllegalArgumentException e) {
-			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
+			return Double.NaN;
 		}
-		double migrationIntervals = Math.ceil(getMaximumVmMigrationTime(_host) / getSchedulingInterval());
+		double migrationIntervals = Math.ceil(getMaximumVmMigrationTime(host, vmList) / getSchedulingInterval());
 		double predictedUtilization = estimates[0] + estimates[1] * (length + migrationIntervals);
 		predictedUtilization *= getSafetyParameter();
 
 		addHistoryEntry(host, predictedUtilization);
 
-		return predictedUtilization >= 1;
+		return predictedUtilization;
 	}
 
 	/**
@@ -139,7 +206,17 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	 * @return the utilization estimates
 	 */
 	protected double[] getParameterEstimates(double[] utilizationHistoryReversed) {
-		return MathUtil.getLoessParameterEstimates(utilizationHistoryReversed);
+		return getLoessRegression().getLoessParameterEstimates(utilizationHistoryReversed);
+	}
+
+	/**
+	 * Gets the local regression of the current thread used to estimate the host utilization,
+	 * which reuses its work arrays from one host to the next.
+	 * 
+	 * @return the local regression
+	 */
+	protected LoessRegression getLoessRegression() {
+		return loessRegression.get();
 	}
 
 	/**
@@ -149,8 +226,29 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	 * @return the maximum vm migration time
 	 */
 	protected double getMaximumVmMigrationTime(PowerHost host) {
+		return getMaximumVmMigrationTime(host, host.getVmList());
+	}
+
+	/**
+	 * Gets the maximum vm migration time with the VMs of a snapshot of a host capacity.
+	 * 
+	 * @param snapshot the snapshot of the host capacity
+	 * @return the maximum vm migration time
+	 */
+	protected double getMaximumVmMigrationTime(HostCapacitySnapshot snapshot) {
+		return getMaximumVmMigrationTime(snapshot.getHost(), snapshot.getVmList());
+	}
+
+	/**
+	 * Gets the maximum vm migration time of a list of VMs of a host.
+	 * 
+	 * @param host the host
+	 * @param vmList the VMs
+	 * @return the maximum vm migration time
+	 */
+	private static double getMaximumVmMigrationTime(Host host, List<? extends Vm> vmList) {
 		int maxRam = Integer.MIN_VALUE;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			int ram = vm.getRam();
 			if (ram > maxRam) {
 				maxRam = ram;
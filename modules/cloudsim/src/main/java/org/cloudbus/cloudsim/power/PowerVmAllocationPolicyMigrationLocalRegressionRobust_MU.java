@@ -9,7 +9,6 @@
 package org.cloudbus.cloudsim.power;
 
 import org.cloudbus.cloudsim.Host;
-import org.cloudbus.cloudsim.util.MathUtil;
 
 import java.util.List;
 
@@ -83,7 +82,7 @@ public class PowerVmAllocationPolicyMigrationLocalRegressionRobust_MU extends
 	 */
 	@Override
 	protected double[] getParameterEstimates(double[] utilizationHistoryReversed) {
-		return MathUtil.getRobustLoessParameterEstimates(utilizationHistoryReversed);
+		return getLoessRegression().getRobustLoessParameterEstimates(utilizationHistoryReversed);
 	}
 
 }
@@ -1,6 +1,7 @@
 package org.cloudbus.cloudsim.power;
 
 import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.HostCapacitySnapshot;
 import org.cloudbus.cloudsim.Vm;
 
 import java.util.List;
@@ -12,9 +13,23 @@ public class PowerVmAllocationPolicyMigrationMini_MU extends PowerVmAllocationPo
 
     @Override
     protected boolean isHostOverUtilized(PowerHost host) {
+        return isHostOverUtilized(host, host.getVmList());
+    }
+
+    @Override
+    protected boolean isParallelEvaluationSupported() {
+        return true;
+    }
+
+    @Override
+    protected boolean isHostOverUtilized(HostCapacitySnapshot snapshot) {
+        return isHostOverUtilized((PowerHost) snapshot.getHost(), snapshot.getVmList());
+    }
+
+    private boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList) {
         addHistoryEntry(host, getUtilizationThreshold());
         double totalRequestedMips = 0;
-        for (Vm vm : host.getVmList()) {
+        for (Vm vm : vmList) {
             totalRequestedMips += vm.getCurrentRequestedTotalMips();
         }
         double utilization = totalRequestedMips / host.getTotalMips();
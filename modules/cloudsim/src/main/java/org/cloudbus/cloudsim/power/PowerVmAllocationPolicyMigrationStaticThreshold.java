@@ -11,6 +11,7 @@ package org.cloudbus.cloudsim.power;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.HostCapacitySnapshot;
 import org.cloudbus.cloudsim.Vm;
 
 /**
@@ -60,9 +61,39 @@ public class PowerVmAllocationPolicyMigrationStaticThreshold extends PowerVmAllo
 	 */
 	@Override
 	protected boolean isHostOverUtilized(PowerHost host) {
+		return isHostOverUtilized(host, host.getVmList());
+	}
+
+	/**
+	 * {@inheritDoc} The overload check of this policy only reads the host and its VMs.
+	 */
+	@Override
+	protected boolean isParallelEvaluationSupported() {
+		return true;
+	}
+
+	/**
+	 * Checks if a host is over utilized with the VMs of a snapshot of its capacity, based on CPU usage.
+	 * 
+	 * @param snapshot the snapshot of the host capacity
+	 * @return true, if the host is over utilized; false otherwise
+	 */
+	@Override
+	protected boolean isHostOverUtilized(HostCapacitySnapshot snapshot) {
+		return isHostOverUtilized((PowerHost) snapshot.getHost(), snapshot.getVmList());
+	}
+
+	/**
+	 * Checks if a host is over utilized with a list of VMs, based on CPU usage.
+	 * 
+	 * @param host the host
+	 * @param vmList the VMs of the host, followed by the VMs that would be added to it
+	 * @return true, if the host is over utilized; false otherwise
+	 */
+	private boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList) {
 		addHistoryEntry(host, getUtilizationThreshold());
 		double totalRequestedMips = 0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
 		}
 		double utilization = totalRequestedMips / host.getTotalMips();
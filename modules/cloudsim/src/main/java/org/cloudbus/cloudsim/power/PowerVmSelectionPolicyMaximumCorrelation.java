@@ -8,12 +8,17 @@
 
 package org.cloudbus.cloudsim.power;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.DoubleRingBuffer;
 import org.cloudbus.cloudsim.util.MathUtil;
+import org.cloudbus.cloudsim.util.MultipleCorrelation;
 
 /**
  * A VM selection policy that selects for migration the VM with the Maximum Correlation Coefficient (MCC) among 
@@ -38,6 +43,12 @@ public class PowerVmSelectionPolicyMaximumCorrelation extends PowerVmSelectionPo
          * the  Maximum Correlation policy doesn't have data to be computed. */
 	private PowerVmSelectionPolicy fallbackPolicy;
 
+	/** Whether the correlation coefficients are computed from a Gram matrix kept for each host. */
+	private boolean gramMatrixEnabled = false;
+
+	/** The multiple correlation of the VMs of each host, indexed by host id. */
+	private final Map<Integer, MultipleCorrelation> correlations = new HashMap<Integer, MultipleCorrelation>();
+
 	/**
 	 * Instantiates a new PowerVmSelectionPolicyMaximumCorrelation.
 	 * 
@@ -56,7 +67,7 @@ public class PowerVmSelectionPolicyMaximumCorrelation extends PowerVmSelectionPo
 		}
 		List<Double> metrics = null;
 		try {
-			metrics = getCorrelationCoefficients(getUtilizationMatrix(migratableVms));
+			metrics = getCorrelationCoefficients(host.getId(), getUtilizationMatrix(migratableVms));
 		} catch (IllegalArgumentException e) { // the degrees of freedom must be greater than zero
 			return getFallbackPolicy().getVmToMigrate(host);
 		}
@@ -81,17 +92,12 @@ public class PowerVmSelectionPolicyMaximumCorrelation extends PowerVmSelectionPo
 	 */
 	protected double[][] getUtilizationMatrix(final List<PowerVm> vmList) {
 		int n = vmList.size();
-                /*@todo It gets the min size of the history among all VMs considering
-                that different VMs can have different history sizes.
-                However, the j loop is not using the m variable
-                but the size of the vm list. If a VM list has 
-                a size greater than m, it will thow an exception.
-                It as to be included a test case for that.*/
+		// The VMs may have histories of different sizes, of which the most recent m values are used
 		int m = getMinUtilizationHistorySize(vmList);
 		double[][] utilization = new double[n][m];
 		for (int i = 0; i < n; i++) {
-			List<Double> vmUtilization = vmList.get(i).getUtilizationHistory();
-			for (int j = 0; j < vmUtilization.size(); j++) {
+			DoubleRingBuffer vmUtilization = vmList.get(i).getUtilizationHistoryBuffer();
+			for (int j = 0; j < m; j++) {
 				utilization[i][j] = vmUtilization.get(j);
 			}
 		}
@@ -107,7 +113,7 @@ public class PowerVmSelectionPolicyMaximumCorrelation extends PowerVmSelectionPo
 	protected int getMinUtilizationHistorySize(final List<PowerVm> vmList) {
 		int minSize = Integer.MAX_VALUE;
 		for (PowerVm vm : vmList) {
-			int size = vm.getUtilizationHistory().size();
+			int size = vm.getUtilizationHistoryBuffer().size();
 			if (size < minSize) {
 				minSize = size;
 			}
@@ -144,6 +150,35 @@ public class PowerVmSelectionPolicyMaximumCorrelation extends PowerVmSelectionPo
 		return correlationCoefficients;
 	}
 
+	/**
+	 * Gets the correlation coefficients of the VMs of a host. If the Gram matrix is enabled, they
+	 * are computed from the Gram matrix of the utilization histories kept for the host, falling back
+	 * to {@link #getCorrelationCoefficients(double[][])} if the matrix is singular.
+	 *
+	 * @param hostId the id of the host
+	 * @param data the utilization matrix of the VMs
+	 * @return the correlation coefficients
+	 * @see MultipleCorrelation
+	 */
+	protected List<Double> getCorrelationCoefficients(final int hostId, final double[][] data) {
+		if (isGramMatrixEnabled() && data.length > 0) {
+			MultipleCorrelation correlation = correlations.get(hostId);
+			if (correlation == null) {
+				correlation = new MultipleCorrelation();
+				correlations.put(hostId, correlation);
+			}
+			double[] coefficients = correlation.getCoefficientsOfDetermination(data, data[0].length);
+			if (coefficients != null) {
+				List<Double> correlationCoefficients = new ArrayList<Double>(coefficients.length);
+				for (double coefficient : coefficients) {
+					correlationCoefficients.add(coefficient);
+				}
+				return correlationCoefficients;
+			}
+		}
+		return getCorrelationCoefficients(data);
+	}
+
 	/**
 	 * Gets the fallback policy.
 	 * 
@@ -162,4 +197,26 @@ public class PowerVmSelectionPolicyMaximumCorrelation extends PowerVmSelectionPo
 		this.fallbackPolicy = fallbackPolicy;
 	}
 
+	/**
+	 * Checks if the correlation coefficients are computed from a Gram matrix kept for each host.
+	 *
+	 * @return true if the Gram matrix is enabled
+	 */
+	public boolean isGramMatrixEnabled() {
+		return gramMatrixEnabled;
+	}
+
+	/**
+	 * Sets whether the correlation coefficients are computed from a Gram matrix kept for each host,
+	 * which gives all the coefficients of a host by a single decomposition and is updated as the
+	 * histories slide, instead of fitting a regression for each of them. It is disabled by
+	 * default, since the coefficients differ from the regressions' by rounding, which may
+	 * change which of nearly equal coefficients is the maximum.
+	 *
+	 * @param gramMatrixEnabled true to compute the coefficients from a Gram matrix
+	 */
+	public void setGramMatrixEnabled(final boolean gramMatrixEnabled) {
+		this.gramMatrixEnabled = gramMatrixEnabled;
+	}
+
 }
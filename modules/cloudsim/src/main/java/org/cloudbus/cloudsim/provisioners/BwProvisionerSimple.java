@@ -79,13 +79,8 @@ public class BwProvisionerSimple extends BwProvisioner {
 
 	@Override
 	public boolean isSuitableForVm(Vm vm, long bw) {
-		long allocatedBw = getAllocatedBwForVm(vm);
-		boolean result = allocateBwForVm(vm, bw);
-		deallocateBwForVm(vm);
-		if (allocatedBw > 0) {
-			allocateBwForVm(vm, allocatedBw);
-		}
-		return result;
+		// the bandwidth already allocated to the VM would be released by allocateBwForVm
+		return getAvailableBw() + getAllocatedBwForVm(vm) >= bw;
 	}
 
 	/**
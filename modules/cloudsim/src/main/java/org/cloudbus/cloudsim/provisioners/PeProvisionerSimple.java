@@ -13,6 +13,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.MipsShare;
 import org.cloudbus.cloudsim.Vm;
 
 /**
@@ -31,6 +32,9 @@ public class PeProvisionerSimple extends PeProvisioner {
          * allocated to that VM. */
 	private Map<String, List<Double>> peTable;
 
+	/** The pool of the MIPS shares of the {@link #peTable}. */
+	private final MipsShare.Pool mipsSharePool = new MipsShare.Pool();
+
 	/**
 	 * Instantiates a new pe provisioner simple.
 	 * 
@@ -60,10 +64,14 @@ public class PeProvisionerSimple extends PeProvisioner {
 		if (getPeTable().containsKey(vmUid)) {
 			allocatedMips = getPeTable().get(vmUid);
 		} else {
-			allocatedMips = new ArrayList<Double>();
+			allocatedMips = mipsSharePool.take();
 		}
 
-		allocatedMips.add(mips);
+		if (allocatedMips instanceof MipsShare) {
+			((MipsShare) allocatedMips).addMips(mips);
+		} else {
+			allocatedMips.add(mips);
+		}
 
 		setAvailableMips(getAvailableMips() - mips);
 		getPeTable().put(vmUid, allocatedMips);
@@ -84,7 +92,9 @@ public class PeProvisionerSimple extends PeProvisioner {
 
 		setAvailableMips(getAvailableMips() + getTotalAllocatedMipsForVm(vm) - totalMipsToAllocate);
 
-		getPeTable().put(vm.getUid(), mips);
+		MipsShare allocatedMips = mipsSharePool.take();
+		allocatedMips.setAll(mips);
+		mipsSharePool.release(getPeTable().put(vm.getUid(), allocatedMips));
 
 		return true;
 	}
@@ -92,6 +102,9 @@ public class PeProvisionerSimple extends PeProvisioner {
 	@Override
 	public void deallocateMipsForAllVms() {
 		super.deallocateMipsForAllVms();
+		for (List<Double> allocatedMips : getPeTable().values()) {
+			mipsSharePool.release(allocatedMips);
+		}
 		getPeTable().clear();
 	}
 
@@ -106,10 +119,16 @@ public class PeProvisionerSimple extends PeProvisioner {
 		return 0;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @return a copy of the list of allocated virtual PEs' MIPS, as the provisioner reuses it
+	 *         for another VM once the MIPS are deallocated, or null if there is none
+	 */
 	@Override
 	public List<Double> getAllocatedMipsForVm(Vm vm) {
 		if (getPeTable().containsKey(vm.getUid())) {
-			return getPeTable().get(vm.getUid());
+			return new MipsShare(getPeTable().get(vm.getUid()));
 		}
 		return null;
 	}
@@ -118,8 +137,9 @@ public class PeProvisionerSimple extends PeProvisioner {
 	public double getTotalAllocatedMipsForVm(Vm vm) {
 		if (getPeTable().containsKey(vm.getUid())) {
 			double totalAllocatedMips = 0.0;
-			for (double mips : getPeTable().get(vm.getUid())) {
-				totalAllocatedMips += mips;
+			List<Double> allocatedMips = getPeTable().get(vm.getUid());
+			for (int i = 0; i < allocatedMips.size(); i++) {
+				totalAllocatedMips += MipsShare.getMips(allocatedMips, i);
 			}
 			return totalAllocatedMips;
 		}
@@ -129,10 +149,11 @@ public class PeProvisionerSimple extends PeProvisioner {
 	@Override
 	public void deallocateMipsForVm(Vm vm) {
 		if (getPeTable().containsKey(vm.getUid())) {
-			for (double mips : getPeTable().get(vm.getUid())) {
-				setAvailableMips(getAvailableMips() + mips);
+			List<Double> allocatedMips = getPeTable().remove(vm.getUid());
+			for (int i = 0; i < allocatedMips.size(); i++) {
+				setAvailableMips(getAvailableMips() + MipsShare.getMips(allocatedMips, i));
 			}
-			getPeTable().remove(vm.getUid());
+			mipsSharePool.release(allocatedMips);
 		}
 	}
 
@@ -87,13 +87,8 @@ public class RamProvisionerSimple extends RamProvisioner {
 
 	@Override
 	public boolean isSuitableForVm(Vm vm, int ram) {
-		int allocatedRam = getAllocatedRamForVm(vm);
-		boolean result = allocateRamForVm(vm, ram);
-		deallocateRamForVm(vm);
-		if (allocatedRam > 0) {
-			allocateRamForVm(vm, allocatedRam);
-		}
-		return result;
+		// the RAM already allocated to the VM would be released by allocateRamForVm
+		return getAvailableRam() + getAllocatedRamForVm(vm) >= Math.min(ram, vm.getRam());
 	}
 
 	/**
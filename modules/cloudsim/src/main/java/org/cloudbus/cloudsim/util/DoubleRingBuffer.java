@@ -0,0 +1,202 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A fixed-capacity history of <tt>double</tt> values, ordered from the most recent to the
+ * oldest one. Adding a value to a full history drops the oldest value.
+ * <p/>
+ * The values are stored twice in an array of twice the capacity, so that the values of the
+ * history are always contiguous in the {@link #getArray() array}, from the
+ * {@link #getOffset() offset} on. They can be read without copying or boxing them.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class DoubleRingBuffer {
+
+	/** The values, stored twice. */
+	private final double[] values;
+
+	/** The capacity. */
+	private final int capacity;
+
+	/** The position of the most recent value. */
+	private int head;
+
+	/** The number of values. */
+	private int size;
+
+	/** The number of changes of the history so far. */
+	private long modificationCount;
+
+	/**
+	 * Instantiates a new empty history.
+	 *
+	 * @param capacity the maximum number of values
+	 */
+	public DoubleRingBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The capacity must be greater than zero");
+		}
+		this.capacity = capacity;
+		values = new double[2 * capacity];
+	}
+
+	/**
+	 * Adds a value as the most recent one. The oldest value is dropped if the history is full.
+	 *
+	 * @param value the value
+	 */
+	public void addFirst(double value) {
+		head = head == 0 ? capacity - 1 : head - 1;
+		values[head] = value;
+		values[head + capacity] = value;
+		if (size < capacity) {
+			size++;
+		}
+		modificationCount++;
+	}
+
+	/**
+	 * Removes the oldest value.
+	 *
+	 * @return the value removed
+	 * @throws java.util.NoSuchElementException if the history is empty
+	 */
+	public double removeLast() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		size--;
+		modificationCount++;
+		return values[head + size];
+	}
+
+	/**
+	 * Gets a value.
+	 *
+	 * @param index the index of the value, 0 being the most recent one
+	 * @return the value
+	 * @throws IndexOutOfBoundsException if the index is not lower than the size
+	 */
+	public double get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return values[head + index];
+	}
+
+	/**
+	 * Gets the number of values.
+	 *
+	 * @return the number of values
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks whether the history is empty.
+	 *
+	 * @return <tt>true</tt> if there are no values, <tt>false</tt> otherwise
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the maximum number of values.
+	 *
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of changes of the history since it was created. It is increased each
+	 * time a value is added or removed, so it can be used to detect the changes of the history.
+	 *
+	 * @return the number of changes
+	 */
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * Removes all the values.
+	 */
+	public void clear() {
+		head = 0;
+		size = 0;
+		modificationCount++;
+	}
+
+	/**
+	 * Gets the array storing the values. The values of the history are the {@link #size()}
+	 * elements starting from the {@link #getOffset() offset}, from the most recent to the oldest
+	 * one. The array must not be modified, and its content changes when a value is added.
+	 *
+	 * @return the array storing the values
+	 */
+	public double[] getArray() {
+		return values;
+	}
+
+	/**
+	 * Gets the position of the most recent value in the {@link #getArray() array}.
+	 *
+	 * @return the offset of the values
+	 */
+	public int getOffset() {
+		return head;
+	}
+
+	/**
+	 * Copies the values to a new array, from the most recent to the oldest one.
+	 *
+	 * @return the values
+	 */
+	public double[] toArray() {
+		return Arrays.copyOfRange(values, head, head + size);
+	}
+
+	/**
+	 * Gets a read-only list view of the values, from the most recent to the oldest one.
+	 *
+	 * @return the list view
+	 */
+	public List<Double> asList() {
+		return new ListView();
+	}
+
+	/**
+	 * A read-only list view of the values.
+	 */
+	private class ListView extends AbstractList<Double> implements RandomAccess {
+
+		@Override
+		public Double get(int index) {
+			return DoubleRingBuffer.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.stat.regression.SimpleRegression;
+
+/**
+ * Computes the same local regression (Loess) parameter estimates as
+ * {@link MathUtil#getLoessParameterEstimates(double[])} and
+ * {@link MathUtil#getRobustLoessParameterEstimates(double[])}, reusing its regressions,
+ * weights and work arrays from one estimation to the next instead of allocating them.
+ * The tricube weights only depend on the number of values, so they are computed once.
+ * <p/>
+ * The data is added to the regressions in the same order as by {@link MathUtil}, so the
+ * estimates are exactly the same. An instance must not be used by several threads at once.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class LoessRegression {
+
+	/** The regression of the values with the tricube weights. */
+	private final SimpleRegression tricubeRegression = new SimpleRegression();
+
+	/** The regression of the values with the tricube bisquare weights. */
+	private final SimpleRegression bisquareRegression = new SimpleRegression();
+
+	/** The tricube weights, for the current number of values. */
+	private double[] tricubeWeights = new double[0];
+
+	/** The tricube bisquare weights. */
+	private double[] bisquareWeights = new double[0];
+
+	/** The residuals of the tricube regression. */
+	private double[] residuals = new double[0];
+
+	/** The absolute residuals of the tricube regression, in ascending order. */
+	private double[] sortedResiduals = new double[0];
+
+	/**
+	 * Gets the Loess parameter estimates.
+	 *
+	 * @param y the y array
+	 * @return the Loess parameter estimates
+	 * @see MathUtil#getLoessParameterEstimates(double[])
+	 */
+	public double[] getLoessParameterEstimates(final double[] y) {
+		setLength(y.length);
+		addWeightedData(tricubeRegression, y, tricubeWeights);
+		return tricubeRegression.regress().getParameterEstimates();
+	}
+
+	/**
+	 * Gets the robust Loess parameter estimates.
+	 *
+	 * @param y the y array
+	 * @return the robust Loess parameter estimates
+	 * @see MathUtil#getRobustLoessParameterEstimates(double[])
+	 */
+	public double[] getRobustLoessParameterEstimates(final double[] y) {
+		int n = y.length;
+		setLength(n);
+		addWeightedData(tricubeRegression, y, tricubeWeights);
+		for (int i = 0; i < n; i++) {
+			residuals[i] = y[i] - tricubeRegression.predict(i + 1);
+		}
+		setTricubeBisquareWeights(n);
+		addWeightedData(bisquareRegression, y, bisquareWeights);
+
+		double[] estimates = bisquareRegression.regress().getParameterEstimates();
+		if (Double.isNaN(estimates[0]) || Double.isNaN(estimates[1])) {
+			return tricubeRegression.regress().getParameterEstimates();
+		}
+		return estimates;
+	}
+
+	/**
+	 * Prepares the weights and work arrays for a number of values.
+	 *
+	 * @param n the number of values
+	 */
+	private void setLength(final int n) {
+		if (tricubeWeights.length != n) {
+			tricubeWeights = MathUtil.getTricubeWeigts(n);
+			bisquareWeights = new double[n];
+			residuals = new double[n];
+			sortedResiduals = new double[n];
+		}
+	}
+
+	/**
+	 * Computes the tricube bisquare weights of the residuals, as
+	 * {@link MathUtil#getTricubeBisquareWeigts(double[])} does.
+	 *
+	 * @param n the number of values
+	 */
+	private void setTricubeBisquareWeights(final int n) {
+		for (int i = 0; i < n; i++) {
+			sortedResiduals[i] = Math.abs(residuals[i]);
+		}
+		Arrays.sort(sortedResiduals);
+		double s6 = SlidingWindowStatistics.median(sortedResiduals, n) * 6;
+		for (int i = 2; i < n; i++) {
+			double k = Math.pow(1 - Math.pow(residuals[i] / s6, 2), 2);
+			if (k > 0) {
+				bisquareWeights[i] = (1 / k) * tricubeWeights[i];
+			} else {
+				bisquareWeights[i] = Double.MAX_VALUE;
+			}
+		}
+		bisquareWeights[0] = bisquareWeights[1] = bisquareWeights[2];
+	}
+
+	/**
+	 * Adds the weighted values to a cleared regression, with x from 1 to the number of values,
+	 * as {@link MathUtil#createWeigthedLinearRegression(double[], double[], double[])} does.
+	 *
+	 * @param regression the regression
+	 * @param y the y array
+	 * @param weights the weights
+	 */
+	private static void addWeightedData(final SimpleRegression regression, final double[] y,
+			final double[] weights) {
+		int numZeroWeights = 0;
+		for (int i = 0; i < weights.length; i++) {
+			if (weights[i] <= 0) {
+				numZeroWeights++;
+			}
+		}
+
+		regression.clear();
+		for (int i = 0; i < y.length; i++) {
+			double x = i + 1;
+			if (numZeroWeights >= 0.4 * weights.length) {
+				regression.addData(Math.sqrt(weights[i]) * x, Math.sqrt(weights[i]) * y[i]);
+			} else {
+				regression.addData(x, y[i]);
+			}
+		}
+	}
+
+}
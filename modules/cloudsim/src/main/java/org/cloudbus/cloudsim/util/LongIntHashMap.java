@@ -0,0 +1,245 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from <tt>long</tt> keys to <tt>int</tt> values. The keys and values are stored
+ * in arrays with open addressing and linear probing, so that neither are boxed and a lookup
+ * doesn't create any object.
+ * <p/>
+ * Ids that identify an entity together with the id of its user, such as the ids of VMs, can
+ * be packed in a single key, as done by {@link org.cloudbus.cloudsim.Vm#getKey()}.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class LongIntHashMap {
+
+	/** The minimum capacity of the arrays. */
+	private static final int MIN_CAPACITY = 8;
+
+	/** The keys of the entries, at the slots given by their hash. */
+	private long[] keys;
+
+	/** The values of the entries. */
+	private int[] values;
+
+	/** Whether each slot holds an entry. */
+	private boolean[] used;
+
+	/** The number of entries. */
+	private int size;
+
+	/**
+	 * Instantiates a new empty map.
+	 */
+	public LongIntHashMap() {
+		this(MIN_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new empty map with room for a given number of entries.
+	 *
+	 * @param expectedSize the number of entries expected
+	 */
+	public LongIntHashMap(int expectedSize) {
+		allocate(getCapacity(expectedSize));
+	}
+
+	/**
+	 * Gets the value of a key.
+	 *
+	 * @param key the key
+	 * @param defaultValue the value to return if the map doesn't contain the key
+	 * @return the value of the key, or the default value if the map doesn't contain the key
+	 */
+	public int get(long key, int defaultValue) {
+		int slot = findSlot(key);
+		return used[slot] ? values[slot] : defaultValue;
+	}
+
+	/**
+	 * Checks if the map contains a key.
+	 *
+	 * @param key the key
+	 * @return true if the map contains the key
+	 */
+	public boolean containsKey(long key) {
+		return used[findSlot(key)];
+	}
+
+	/**
+	 * Sets the value of a key.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return true if the key was added, false if the map already contained it and its value
+	 *         was replaced
+	 */
+	public boolean put(long key, int value) {
+		int slot = findSlot(key);
+		values[slot] = value;
+		if (used[slot]) {
+			return false;
+		}
+		addEntry(slot, key);
+		return true;
+	}
+
+	/**
+	 * Sets the value of a key unless the map already contains it.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return true if the key was added, false if the map already contained it
+	 */
+	public boolean putIfAbsent(long key, int value) {
+		int slot = findSlot(key);
+		if (used[slot]) {
+			return false;
+		}
+		values[slot] = value;
+		addEntry(slot, key);
+		return true;
+	}
+
+	/**
+	 * Removes a key.
+	 *
+	 * @param key the key
+	 * @return true if the map contained the key
+	 */
+	public boolean remove(long key) {
+		int slot = findSlot(key);
+		if (!used[slot]) {
+			return false;
+		}
+		int mask = keys.length - 1;
+		// moves back the following entries of the run that would not be found past the hole
+		int hole = slot;
+		for (int next = (hole + 1) & mask; used[next]; next = (next + 1) & mask) {
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				values[hole] = values[next];
+				hole = next;
+			}
+		}
+		used[hole] = false;
+		size--;
+		return true;
+	}
+
+	/**
+	 * Removes all the entries.
+	 */
+	public void clear() {
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map is empty.
+	 *
+	 * @return true if the map has no entries
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Finds the slot of a key, or the free slot where it would be added.
+	 *
+	 * @param key the key
+	 * @return the slot
+	 */
+	private int findSlot(long key) {
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (used[slot] && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Adds the entry of a key at a free slot, growing the arrays if they are more than half
+	 * full.
+	 *
+	 * @param slot the free slot of the key
+	 * @param key the key, whose value is already set
+	 */
+	private void addEntry(int slot, long key) {
+		keys[slot] = key;
+		used[slot] = true;
+		size++;
+		if (2 * size > keys.length) {
+			long[] oldKeys = keys;
+			int[] oldValues = values;
+			boolean[] oldUsed = used;
+			allocate(2 * oldKeys.length);
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldUsed[i]) {
+					int newSlot = findSlot(oldKeys[i]);
+					keys[newSlot] = oldKeys[i];
+					values[newSlot] = oldValues[i];
+					used[newSlot] = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Allocates the arrays.
+	 *
+	 * @param capacity the number of slots, a power of two
+	 */
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+	}
+
+	/**
+	 * Gets the number of slots needed to keep a given number of entries at most half full.
+	 *
+	 * @param expectedSize the number of entries
+	 * @return the number of slots, a power of two
+	 */
+	private static int getCapacity(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < 2 * expectedSize) {
+			capacity *= 2;
+		}
+		return capacity;
+	}
+
+	/**
+	 * Spreads the bits of a key, so that consecutive ids in the lower or the upper half of a
+	 * packed key don't fall in consecutive slots.
+	 *
+	 * @param key the key
+	 * @return the hash of the key
+	 */
+	private static int hash(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+}
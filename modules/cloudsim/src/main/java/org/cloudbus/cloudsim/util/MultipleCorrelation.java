@@ -0,0 +1,319 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+/**
+ * Multiple correlation of each series of a set of series with the other ones, over a window of
+ * their most recent values, such as the CPU utilization histories of the VMs of a host. The
+ * coefficient of determination (R<sup>2</sup>) of the linear regression of each series on the
+ * other ones, with an intercept, is computed from the covariance matrix C of the series by the
+ * leave-one-out identity R<sub>i</sub><sup>2</sup> = 1 - 1 / (C<sub>ii</sub>
+ * (C<sup>-1</sup>)<sub>ii</sub>), so that a single Cholesky decomposition gives all the
+ * coefficients instead of fitting one regression per series.
+ * <p/>
+ * The covariance matrix is derived from the sums and the Gram matrix of the series, which are
+ * kept between two computations: when the series are the ones of the previous computation
+ * shifted by some new values, only the values that entered and left the window are added and
+ * removed, and when they are some of the previous series, the other ones are dropped. The sums
+ * are computed again from the whole window once the window has been renewed, so that rounding
+ * errors don't accumulate.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class MultipleCorrelation {
+
+	/**
+	 * The pivot of the Cholesky decomposition, relative to the variance of the series, below
+	 * which the covariance matrix is considered singular.
+	 */
+	private static final double SINGULARITY_THRESHOLD = 1e-10;
+
+	/** The values of the window of each series, from the most recent to the oldest one. */
+	private double[][] window;
+
+	/** The number of values of the window. */
+	private int length;
+
+	/** The value subtracted from each series before it is summed, to limit cancellations. */
+	private double[] offsets;
+
+	/** The sum of the values of each series, minus its offset. */
+	private double[] sums;
+
+	/** The Gram matrix of the series minus their offsets, of which the lower half is kept. */
+	private double[][] products;
+
+	/** The number of values added to the window since the sums were computed from it. */
+	private int addedValues;
+
+	/** The covariance matrix, decomposed in place. */
+	private double[][] covariance;
+
+	/** The row of values entering or leaving the window. */
+	private double[] row;
+
+	/**
+	 * Computes the coefficient of determination of the linear regression of each series on the
+	 * other ones, over the first values of the series.
+	 *
+	 * @param data the series, each from the most recent to the oldest value
+	 * @param length the number of values of the window, at most the size of each series
+	 * @return the coefficients of determination, or <tt>null</tt> if they can't be computed
+	 *         because there are less than two series, not more values than series or the
+	 *         series are collinear
+	 */
+	public double[] getCoefficientsOfDetermination(double[][] data, int length) {
+		int n = data.length;
+		if (n < 2 || length <= n) {
+			return null;
+		}
+		update(data, length);
+
+		double[] variances = new double[n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j <= i; j++) {
+				covariance[i][j] = products[i][j] - sums[i] * sums[j] / length;
+			}
+			variances[i] = covariance[i][i];
+		}
+
+		// Cholesky decomposition C = L L', L being stored in the lower half of the covariance
+		for (int j = 0; j < n; j++) {
+			double pivot = covariance[j][j];
+			for (int k = 0; k < j; k++) {
+				pivot -= covariance[j][k] * covariance[j][k];
+			}
+			if (!(pivot > SINGULARITY_THRESHOLD * variances[j])) {
+				return null;
+			}
+			double diagonal = Math.sqrt(pivot);
+			covariance[j][j] = diagonal;
+			for (int i = j + 1; i < n; i++) {
+				double value = covariance[i][j];
+				for (int k = 0; k < j; k++) {
+					value -= covariance[i][k] * covariance[j][k];
+				}
+				covariance[i][j] = value / diagonal;
+			}
+		}
+
+		// The diagonal of the inverse of C is the sum of the squares of each column of the
+		// inverse of L, which is computed by forward substitution
+		double[] inverseDiagonal = new double[n];
+		for (int j = 0; j < n; j++) {
+			for (int i = j; i < n; i++) {
+				double value = i == j ? 1 : 0;
+				for (int k = j; k < i; k++) {
+					value -= covariance[i][k] * row[k];
+				}
+				row[i] = value / covariance[i][i];
+				inverseDiagonal[j] += row[i] * row[i];
+			}
+		}
+
+		double[] coefficients = new double[n];
+		for (int i = 0; i < n; i++) {
+			coefficients[i] = 1 - 1 / (variances[i] * inverseDiagonal[i]);
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Updates the window to the first values of the series. If the series are some of the
+	 * series of the window, such as when a VM left the host, the other series are just
+	 * dropped. If they are the series of the window shifted by some new values, only the values
+	 * that entered and left the window are added and removed.
+	 *
+	 * @param data the series, each from the most recent to the oldest value
+	 * @param length the number of values of the window
+	 */
+	private void update(double[][] data, int length) {
+		int n = data.length;
+		if (window != null && window.length > n && this.length == length && retainSeries(data)) {
+			return;
+		}
+		if (window == null || window.length != n || this.length != length) {
+			allocate(n, length);
+			compute(data);
+			return;
+		}
+
+		int shift = getShift(data);
+		if (shift < 0) {
+			compute(data);
+			return;
+		}
+		for (int t = length - shift; t < length; t++) {
+			for (int i = 0; i < n; i++) {
+				row[i] = window[i][t] - offsets[i];
+			}
+			addRow(-1);
+		}
+		for (int t = shift - 1; t >= 0; t--) {
+			for (int i = 0; i < n; i++) {
+				row[i] = data[i][t] - offsets[i];
+			}
+			addRow(1);
+		}
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(data[i], 0, window[i], 0, length);
+		}
+		addedValues += shift;
+	}
+
+	/**
+	 * Keeps only the series of the window that are in the given series, if all of them are.
+	 *
+	 * @param data the series, each from the most recent to the oldest value, in the same order
+	 *            as in the window
+	 * @return true if the window was reduced to the given series
+	 */
+	private boolean retainSeries(double[][] data) {
+		int n = data.length;
+		int[] retained = new int[n];
+		int k = 0;
+		for (int i = 0; i < window.length && k < n; i++) {
+			if (isSameSeries(data[k], window[i])) {
+				retained[k++] = i;
+			}
+		}
+		if (k < n) {
+			return false;
+		}
+
+		double[][] previousWindow = window;
+		double[] previousOffsets = offsets;
+		double[] previousSums = sums;
+		double[][] previousProducts = products;
+		int previousLength = length;
+		allocate(n, previousLength);
+		for (int i = 0; i < n; i++) {
+			window[i] = previousWindow[retained[i]];
+			offsets[i] = previousOffsets[retained[i]];
+			sums[i] = previousSums[retained[i]];
+			for (int j = 0; j <= i; j++) {
+				products[i][j] = previousProducts[retained[i]][retained[j]];
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a series has the same values as a series of the window.
+	 *
+	 * @param series the series
+	 * @param windowSeries the series of the window
+	 * @return true if the first values of the series are the ones of the window
+	 */
+	private boolean isSameSeries(double[] series, double[] windowSeries) {
+		for (int t = 0; t < length; t++) {
+			if (series[t] != windowSeries[t]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Allocates the window and the matrices for a number of series.
+	 *
+	 * @param n the number of series
+	 * @param length the number of values of the window
+	 */
+	private void allocate(int n, int length) {
+		window = new double[n][length];
+		this.length = length;
+		offsets = new double[n];
+		sums = new double[n];
+		products = new double[n][n];
+		covariance = new double[n][n];
+		row = new double[n];
+	}
+
+	/**
+	 * Gets the number of new values by which the series are the ones of the window shifted,
+	 * as long as the window doesn't need to be computed again.
+	 *
+	 * @param data the series, each from the most recent to the oldest value
+	 * @return the number of new values, or -1 if the series are not the window shifted
+	 */
+	private int getShift(double[][] data) {
+		for (int shift = 0; shift < length && addedValues + shift <= length; shift++) {
+			if (isShifted(data, shift)) {
+				return shift;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks if the series are the ones of the window shifted by some new values.
+	 *
+	 * @param data the series, each from the most recent to the oldest value
+	 * @param shift the number of new values
+	 * @return true if the series are the window shifted
+	 */
+	private boolean isShifted(double[][] data, int shift) {
+		for (int i = 0; i < data.length; i++) {
+			double[] series = data[i];
+			double[] windowSeries = window[i];
+			for (int t = shift; t < length; t++) {
+				if (series[t] != windowSeries[t - shift]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the sums and the Gram matrix of the series from the whole window.
+	 *
+	 * @param data the series, each from the most recent to the oldest value
+	 */
+	private void compute(double[][] data) {
+		int n = data.length;
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(data[i], 0, window[i], 0, length);
+			double sum = 0;
+			for (int t = 0; t < length; t++) {
+				sum += window[i][t];
+			}
+			offsets[i] = sum / length;
+			sums[i] = 0;
+			for (int j = 0; j <= i; j++) {
+				products[i][j] = 0;
+			}
+		}
+		for (int t = length - 1; t >= 0; t--) {
+			for (int i = 0; i < n; i++) {
+				row[i] = window[i][t] - offsets[i];
+			}
+			addRow(1);
+		}
+		addedValues = 0;
+	}
+
+	/**
+	 * Adds the row of values to the sums and the Gram matrix, or removes it.
+	 *
+	 * @param sign 1 to add the row, -1 to remove it
+	 */
+	private void addRow(int sign) {
+		for (int i = 0; i < row.length; i++) {
+			double value = sign * row[i];
+			sums[i] += value;
+			double[] productsRow = products[i];
+			for (int j = 0; j <= i; j++) {
+				productsRow[j] += value * row[j];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,269 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A read-only store of <a href="https://www.planet-lab.org">PlanetLab</a> traces, kept in
+ * a binary file that is memory-mapped, so that the traces are read on demand from a single
+ * off-heap copy shared by all the utilization models, simulations and threads of the JVM.
+ * <p/>
+ * A store is created from a folder of PlanetLab text traces by {@link #convert(String, String, int)},
+ * also available from the command line through {@link #main(String[])}. The store file has
+ * a header with the number of traces, the number of samples per trace and the names of the trace
+ * files, followed by the samples of each trace, as 16-bit CPU utilization percentages.
+ * The traces are kept in the order the files are listed in the folder, which is the order
+ * they are read by the PlanetLab examples.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory
+ */
+public class PlanetLabTraceStore {
+
+	/** The first bytes of a store file. */
+	private static final int MAGIC = 0x43535054;
+
+	/** The version of the file format. */
+	private static final int VERSION = 1;
+
+	/** The stores opened so far, indexed by the canonical path of their files. */
+	private static final ConcurrentMap<String, PlanetLabTraceStore> stores = new ConcurrentHashMap<String, PlanetLabTraceStore>();
+
+	/** The names of the trace files. */
+	private final String[] traceNames;
+
+	/** The index of each trace, indexed by the name of its file. */
+	private final Map<String, Integer> traceIndexes = new HashMap<String, Integer>();
+
+	/** The number of samples of each trace. */
+	private final int dataSamples;
+
+	/** The memory-mapped samples. */
+	private final ByteBuffer samples;
+
+	/**
+	 * Maps a store file.
+	 *
+	 * @param path the path of the store file
+	 * @throws IOException Signals that an I/O exception has occurred or the file is not a store file.
+	 */
+	private PlanetLabTraceStore(String path) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(path, "r");
+		try {
+			if (file.readInt() != MAGIC || file.readInt() != VERSION) {
+				throw new IOException("Not a PlanetLab trace store file: " + path);
+			}
+			int traceCount = file.readInt();
+			dataSamples = file.readInt();
+			traceNames = new String[traceCount];
+			for (int i = 0; i < traceCount; i++) {
+				traceNames[i] = file.readUTF();
+				traceIndexes.put(traceNames[i], i);
+			}
+			long size = 2L * traceCount * dataSamples;
+			if (file.length() - file.getFilePointer() < size) {
+				throw new IOException("Truncated PlanetLab trace store file: " + path);
+			}
+			// The mapping remains valid after the file is closed
+			samples = file.getChannel().map(FileChannel.MapMode.READ_ONLY, file.getFilePointer(), size);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Opens a store. A store file is mapped only once: opening it again returns the same store,
+	 * until the file is created again by {@link #convert(String, String, int)}.
+	 *
+	 * @param path the path of the store file
+	 * @return the store
+	 * @throws IOException Signals that an I/O exception has occurred or the file is not a store file.
+	 */
+	public static PlanetLabTraceStore open(String path) throws IOException {
+		String key = new File(path).getCanonicalPath();
+		PlanetLabTraceStore store = stores.get(key);
+		if (store == null) {
+			store = new PlanetLabTraceStore(key);
+			PlanetLabTraceStore opened = stores.putIfAbsent(key, store);
+			if (opened != null) {
+				store = opened;
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * Creates a store file from a folder of PlanetLab trace files. As done by
+	 * {@link org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory}, the first
+	 * <tt>dataSamples - 1</tt> lines of each file are read and the last sample is a copy
+	 * of the previous one.
+	 * <p/>
+	 * The store is written to a temporary file that then replaces the store file, so that a
+	 * store already open on that file keeps reading its own mapping, which is never truncated.
+	 * Opening the file again maps the new store.
+	 *
+	 * @param inputFolder the folder of the trace files
+	 * @param outputPath the path of the store file to create
+	 * @param dataSamples the number of samples of each trace
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void convert(String inputFolder, String outputPath, int dataSamples) throws IOException {
+		File[] files = new File(inputFolder).listFiles();
+		if (files == null) {
+			throw new FileNotFoundException("Not a folder: " + inputFolder);
+		}
+		if (dataSamples < 2) {
+			throw new IllegalArgumentException("The number of samples should be at least 2, but is: " + dataSamples);
+		}
+
+		File outputFile = new File(outputPath).getCanonicalFile();
+		File tempFile = File.createTempFile(outputFile.getName(), ".tmp", outputFile.getParentFile());
+		boolean written = false;
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(files.length);
+			output.writeInt(dataSamples);
+			for (File file : files) {
+				output.writeUTF(file.getName());
+			}
+			for (File file : files) {
+				BufferedReader input = new BufferedReader(new FileReader(file));
+				try {
+					int sample = 0;
+					for (int i = 0; i < dataSamples - 1; i++) {
+						sample = Integer.parseInt(input.readLine());
+						if (sample < Short.MIN_VALUE || sample > Short.MAX_VALUE) {
+							throw new IOException("Utilization out of range in " + file + ": " + sample);
+						}
+						output.writeShort(sample);
+					}
+					output.writeShort(sample);
+				} finally {
+					input.close();
+				}
+			}
+			output.close();
+			Files.move(tempFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			written = true;
+		} finally {
+			output.close();
+			if (!written) {
+				tempFile.delete();
+			}
+		}
+		stores.remove(outputFile.getPath());
+	}
+
+	/**
+	 * Gets the number of traces.
+	 *
+	 * @return the number of traces
+	 */
+	public int getTraceCount() {
+		return traceNames.length;
+	}
+
+	/**
+	 * Gets the number of samples of each trace.
+	 *
+	 * @return the number of samples
+	 */
+	public int getDataSamples() {
+		return dataSamples;
+	}
+
+	/**
+	 * Gets the name of the file a trace was read from.
+	 *
+	 * @param trace the index of the trace
+	 * @return the file name
+	 */
+	public String getTraceName(int trace) {
+		return traceNames[trace];
+	}
+
+	/**
+	 * Gets the index of a trace.
+	 *
+	 * @param traceName the name of the file the trace was read from
+	 * @return the index of the trace or -1 if there is no such trace
+	 */
+	public int getTraceIndex(String traceName) {
+		Integer index = traceIndexes.get(traceName);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Gets a sample of a trace.
+	 *
+	 * @param trace the index of the trace
+	 * @param sample the index of the sample
+	 * @return the CPU utilization, from 0 to 1
+	 */
+	public double getUtilization(int trace, int sample) {
+		if (sample < 0 || sample >= dataSamples) {
+			throw new IndexOutOfBoundsException("Sample " + sample + " out of " + dataSamples);
+		}
+		return samples.getShort(2 * (trace * dataSamples + sample)) / 100.0;
+	}
+
+	/**
+	 * Gets a copy of the samples of a trace.
+	 *
+	 * @param trace the index of the trace
+	 * @return the CPU utilization samples, from 0 to 1
+	 */
+	public double[] getData(int trace) {
+		double[] data = new double[dataSamples];
+		for (int i = 0; i < dataSamples; i++) {
+			data[i] = getUtilization(trace, i);
+		}
+		return data;
+	}
+
+	/**
+	 * Creates a store file from a folder of PlanetLab trace files.
+	 * The arguments are the folder, the store file and, optionally, the number of samples
+	 * of each trace (289 by default).
+	 *
+	 * @param args the arguments
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: PlanetLabTraceStore <inputFolder> <outputFile> [dataSamples]");
+			return;
+		}
+		int dataSamples = args.length > 2 ? Integer.parseInt(args[2]) : 289;
+		convert(args[0], args[1], dataSamples);
+		PlanetLabTraceStore store = open(args[1]);
+		System.out.println("Converted " + store.getTraceCount() + " traces of " + store.getDataSamples()
+				+ " samples to " + args[1]);
+	}
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.Arrays;
+
+/**
+ * Order statistics of a window of the most recent values of a history, such as the CPU
+ * utilization history of a host. The window is kept sorted as it slides: when the history
+ * gets a new value, the value is inserted and the values that left the window are removed,
+ * each by a binary search, instead of sorting the whole window again. The statistics are
+ * then read from the sorted window without allocating memory.
+ * <p/>
+ * The statistics are the same as the ones of {@link MathUtil#median(double[])},
+ * {@link MathUtil#mad(double[])} and {@link MathUtil#iqr(double[])}, which compute the
+ * median as the legacy 50th percentile of Apache Commons Math.
+ *
+ * @since CloudSim Toolkit 4.0
+ */
+public class SlidingWindowStatistics {
+
+	/** The values of the window, from the most recent to the oldest one. */
+	private final DoubleRingBuffer window;
+
+	/** The values of the window, in ascending order. */
+	private final double[] sorted;
+
+	/**
+	 * Instantiates new statistics of an empty window.
+	 *
+	 * @param capacity the maximum number of values of the window
+	 */
+	public SlidingWindowStatistics(int capacity) {
+		window = new DoubleRingBuffer(capacity);
+		sorted = new double[capacity];
+	}
+
+	/**
+	 * Updates the window to the first values of an array. If the values are the ones of the
+	 * window shifted by a new value, only the new value is inserted and the values that left
+	 * the window are removed. Otherwise, the window is sorted again.
+	 *
+	 * @param values the values, from the most recent to the oldest one
+	 * @param length the number of values of the window
+	 * @throws IllegalArgumentException if the length is greater than the capacity
+	 */
+	public void update(double[] values, int length) {
+		if (length > window.getCapacity()) {
+			throw new IllegalArgumentException("The length is greater than the capacity of the window");
+		}
+		if (length == window.size() && isWindow(values, 0, length)) {
+			return;
+		}
+		if (length > 0 && length - 1 <= window.size() && isWindow(values, 1, length - 1)) {
+			while (window.size() > length - 1) {
+				remove(window.removeLast());
+			}
+			insert(values[0]);
+			window.addFirst(values[0]);
+			return;
+		}
+
+		window.clear();
+		for (int i = length - 1; i >= 0; i--) {
+			window.addFirst(values[i]);
+		}
+		System.arraycopy(values, 0, sorted, 0, length);
+		Arrays.sort(sorted, 0, length);
+	}
+
+	/**
+	 * Gets the number of values of the window.
+	 *
+	 * @return the number of values
+	 */
+	public int size() {
+		return window.size();
+	}
+
+	/**
+	 * Gets the median of the window.
+	 *
+	 * @return the median, or {@link Double#NaN} if the window is empty
+	 */
+	public double getMedian() {
+		return median(sorted, window.size());
+	}
+
+	/**
+	 * Gets the median absolute deviation (MAD) of the window. The absolute deviations from the
+	 * median are the values below the median in descending order, and the ones above it in
+	 * ascending order: their median is found by merging both runs up to the middle.
+	 *
+	 * @return the MAD, or 0 if the window is empty
+	 */
+	public double getMad() {
+		int n = window.size();
+		if (n == 0) {
+			return 0;
+		}
+		double median = median(sorted, n);
+		if (n == 1) {
+			return Math.abs(median - sorted[0]);
+		}
+
+		double position = 0.5 * (n + 1);
+		double floor = Math.floor(position);
+		int index = (int) floor;
+		double dif = position - floor;
+
+		// merge the deviations of the values below and above the median
+		int above = 0;
+		while (above < n && sorted[above] < median) {
+			above++;
+		}
+		int below = above - 1;
+		double lower = 0;
+		double upper = 0;
+		for (int i = 0; i <= index; i++) {
+			double deviation;
+			if (below >= 0 && (above >= n || Math.abs(median - sorted[below]) <= Math.abs(median - sorted[above]))) {
+				deviation = Math.abs(median - sorted[below--]);
+			} else {
+				deviation = Math.abs(median - sorted[above++]);
+			}
+			if (i == index - 1) {
+				lower = deviation;
+			} else if (i == index) {
+				upper = deviation;
+			}
+		}
+		return lower + dif * (upper - lower);
+	}
+
+	/**
+	 * Gets the interquartile range (IQR) of the window.
+	 *
+	 * @return the IQR
+	 * @throws ArrayIndexOutOfBoundsException if the window has too few values to get the quartiles
+	 */
+	public double getIqr() {
+		int n = window.size();
+		int q1 = (int) Math.round(0.25 * (n + 1)) - 1;
+		int q3 = (int) Math.round(0.75 * (n + 1)) - 1;
+		if (q1 < 0 || q3 >= n) {
+			throw new ArrayIndexOutOfBoundsException(q1 < 0 ? q1 : q3);
+		}
+		return sorted[q3] - sorted[q1];
+	}
+
+	/**
+	 * Gets the median of sorted values, as the legacy 50th percentile of Apache Commons Math.
+	 *
+	 * @param sorted the values, in ascending order
+	 * @param n the number of values
+	 * @return the median, or {@link Double#NaN} if there are no values
+	 */
+	static double median(double[] sorted, int n) {
+		if (n == 0) {
+			return Double.NaN;
+		}
+		if (n == 1) {
+			return sorted[0];
+		}
+		double position = 0.5 * (n + 1);
+		double floor = Math.floor(position);
+		int index = (int) floor;
+		double dif = position - floor;
+		double lower = sorted[index - 1];
+		double upper = sorted[index];
+		return lower + dif * (upper - lower);
+	}
+
+	/**
+	 * Checks whether values are the first values of the window.
+	 *
+	 * @param values the values
+	 * @param from the position of the first value
+	 * @param length the number of values
+	 * @return <tt>true</tt> if the values are the first ones of the window, <tt>false</tt> otherwise
+	 */
+	private boolean isWindow(double[] values, int from, int length) {
+		for (int i = 0; i < length; i++) {
+			if (Double.doubleToLongBits(values[from + i]) != Double.doubleToLongBits(window.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Inserts a value in the sorted values.
+	 *
+	 * @param value the value
+	 */
+	private void insert(double value) {
+		int n = window.size();
+		int position = Arrays.binarySearch(sorted, 0, n, value);
+		if (position < 0) {
+			position = -position - 1;
+		}
+		System.arraycopy(sorted, position, sorted, position + 1, n - position);
+		sorted[position] = value;
+	}
+
+	/**
+	 * Removes a value from the sorted values, once it has been removed from the window.
+	 *
+	 * @param value the value
+	 */
+	private void remove(double value) {
+		int n = window.size() + 1;
+		int position = Arrays.binarySearch(sorted, 0, n, value);
+		System.arraycopy(sorted, position + 1, sorted, position, n - position - 1);
+	}
+
+}
@@ -16,11 +16,13 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.NoSuchElementException;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.UtilizationModelFull;
 
@@ -35,7 +37,8 @@ import org.cloudbus.cloudsim.UtilizationModelFull;
  * <li>If you need to load multiple trace files, then you need to create multiple instances of this
  * class <tt>each with a unique entity name</tt>.
  * <li>If size of the trace file is huge or contains lots of traces, please increase the JVM heap
- * size accordingly by using <tt>java -Xmx</tt> option when running the simulation.
+ * size accordingly by using <tt>java -Xmx</tt> option when running the simulation, or stream
+ * the trace with {@link #openStream(int)}, which keeps only a bounded number of jobs in memory.
  * <li>The default job file size for sending to and receiving from a resource is
  * {@link gridsim.net.Link#DEFAULT_MTU}. However, you can specify the file size by using
  * {@link #setCloudletFileSize(int)}.
@@ -145,9 +148,22 @@ public class WorkloadFileReader implements WorkloadModel {
     private static final int IRRELEVANT = -1; 
 
     /**
-     * A temp array storing all the fields read from a line of the trace file.
+     * Temp arrays storing the start and end index, in the line, of each field
+     * read from a line of the trace file.
      */
-    private String[] fieldArray = null; 
+    private int[] fieldStarts = null; 
+
+    private int[] fieldEnds = null; 
+
+    /**
+     * The number of fields read from the line of the trace file being parsed.
+     */
+    private int fieldCount = 0; 
+
+    /**
+     * The submit time of the last job read from the trace file.
+     */
+    private long lastSubmitTime = 0; 
 
     /**
      * Create a new WorkloadFileReader object.
@@ -192,8 +208,8 @@ public class WorkloadFileReader implements WorkloadModel {
             if (jobs == null) {
                     jobs = new ArrayList<Cloudlet>();
 
-                    // create a temp array
-                    fieldArray = new String[MAX_FIELD];
+                    // create the temp arrays
+                    initFields();
 
                     try {
                             /*@todo It would be implemented
@@ -215,6 +231,26 @@ public class WorkloadFileReader implements WorkloadModel {
             return jobs;
     }
 
+    /**
+     * Opens a stream reading the jobs from the trace file one at a time, as they are
+     * consumed, instead of reading the whole file at once as {@link #generateWorkload()} does.
+     * At most <tt>readAhead</tt> jobs are parsed ahead, so the memory used doesn't depend
+     * on the length of the trace. Each call opens a new, independent stream.
+     * 
+     * @param readAhead the maximum number of jobs read ahead
+     * @return the stream of jobs, in the order of the trace file
+     * @throws IOException if the trace file can't be opened
+     * @throws IllegalArgumentException if <tt>readAhead</tt> is not positive
+     * @see org.cloudbus.cloudsim.StreamingDatacenterBroker
+     */
+    public WorkloadStream openStream(final int readAhead) throws IOException {
+            if (readAhead <= 0) {
+                    throw new IllegalArgumentException("Read-ahead must be > 0.");
+            }
+            initFields();
+            return new FileWorkloadStream(readAhead);
+    }
+
     /**
      * Sets the string that identifies the start of a comment line.
      * 
@@ -307,7 +343,17 @@ public class WorkloadFileReader implements WorkloadModel {
     // ------------------- PRIVATE METHODS -------------------
 
     /**
-     * Creates a Cloudlet with the given information and adds to the list of {@link #jobs}.
+     * Creates the temp arrays storing the fields of a line of the trace file.
+     */
+    private void initFields() {
+            if (fieldStarts == null || fieldStarts.length != MAX_FIELD) {
+                    fieldStarts = new int[MAX_FIELD];
+                    fieldEnds = new int[MAX_FIELD];
+            }
+    }
+
+    /**
+     * Creates a Cloudlet with the given information.
      * 
      * @param id a Cloudlet ID
      * @param submitTime Cloudlet's submit time
@@ -318,6 +364,7 @@ public class WorkloadFileReader implements WorkloadModel {
      * (@todo the parameter is not being used and it is not clear what it is)
      * @param userID user id
      * @param groupID user's group id
+     * @return the cloudlet
      * @pre id >= 0
      * @pre submitTime >= 0
      * @pre runTime >= 0
@@ -325,7 +372,7 @@ public class WorkloadFileReader implements WorkloadModel {
      * @post $none
      * @see #rating
      */
-    private void createJob(
+    private Cloudlet createJob(
                     final int id,
                     final long submitTime,
                     final int runTime,
@@ -345,48 +392,42 @@ public class WorkloadFileReader implements WorkloadModel {
                             utilizationModel,
                             utilizationModel,
                             utilizationModel);
-            jobs.add(wgl);
+            return wgl;
     }
 
     /**
-     * Extracts relevant information from a given array of fields,
-     * representing a line from the trace file, and create a cloudlet 
+     * Extracts relevant information from the fields of a line of the trace file,
+     * previously found by {@link #splitFields(String)}, and create a cloudlet 
      * using this information.
      * 
-     * @param array the array of fields generated from a line of the trace file.
-     * @param line the line number
-     * @pre array != null
-     * @pre line > 0
+     * @param line a line from the trace file
+     * @param generatedId the job number, if it is not read from the trace file
+     * @return the cloudlet or <code>null</code> if a field is invalid
+     * @pre line != null
      * @todo The name of the method doesn't describe what it in fact does.
      */
-    private void extractField(final String[] array, final int line) {
+    private Cloudlet extractField(final String line, final int generatedId) {
             try {
-                    Integer obj = null;
-
                     // get the job number
                     int id = 0;
                     if (JOB_NUM == IRRELEVANT) {
-                            id = jobs.size() + 1;
+                            id = generatedId;
                     } else {
-                            obj = new Integer(array[JOB_NUM].trim());
-                            id = obj.intValue();
+                            id = parseIntField(line, JOB_NUM);
                     }
 
                     // get the submit time
-                    final Long l = new Long(array[SUBMIT_TIME].trim());
-                    final long submitTime = l.intValue();
+                    final long submitTime = (int) parseLongField(line, SUBMIT_TIME);
 
                     // get the user estimated run time
-                    obj = new Integer(array[REQ_RUN_TIME].trim());
-                    final int reqRunTime = obj.intValue();
+                    final int reqRunTime = parseIntField(line, REQ_RUN_TIME);
 
                     // if the required run time field is ignored, then use
                     // the actual run time
-                    obj = new Integer(array[RUN_TIME].trim());
-                    int runTime = obj.intValue();
+                    int runTime = parseIntField(line, RUN_TIME);
 
-                    final int userID = new Integer(array[USER_ID].trim()).intValue();
-                    final int groupID = new Integer(array[GROUP_ID].trim()).intValue();
+                    final int userID = parseIntField(line, USER_ID);
+                    final int groupID = parseIntField(line, GROUP_ID);
 
                     // according to the SWF manual, runtime of 0 is possible due
                     // to rounding down. E.g. runtime is 0.4 seconds -> runtime = 0
@@ -395,61 +436,155 @@ public class WorkloadFileReader implements WorkloadModel {
                     }
 
                     // get the number of allocated processors
-                    obj = new Integer(array[REQ_NUM_PROC].trim());
-                    int numProc = obj.intValue();
+                    int numProc = parseIntField(line, REQ_NUM_PROC);
 
                     // if the required num of allocated processors field is ignored
                     // or zero, then use the actual field
                     if (numProc == IRRELEVANT || numProc == 0) {
-                            obj = new Integer(array[NUM_PROC].trim());
-                            numProc = obj.intValue();
+                            numProc = parseIntField(line, NUM_PROC);
                     }
 
                     // finally, check if the num of PEs required is valid or not
                     if (numProc <= 0) {
                             numProc = 1;
                     }
-                    createJob(id, submitTime, runTime, numProc, reqRunTime, userID, groupID);
-            } catch (final Exception e) {
+                    lastSubmitTime = submitTime;
+                    return createJob(id, submitTime, runTime, numProc, reqRunTime, userID, groupID);
+            } catch (final NumberFormatException e) {
+                    return null;
+            }
+    }
 
+    /**
+     * Parses a field of the line of the trace file as an int, without creating
+     * a String for the field.
+     * 
+     * @param line a line from the trace file
+     * @param field the index of the field
+     * @return the value of the field
+     * @throws NumberFormatException if the field is missing or is not an int
+     */
+    private int parseIntField(final String line, final int field) {
+            final long value = parseLongField(line, field);
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Field " + (field + 1) + " out of range.");
             }
+            return (int) value;
     }
 
     /**
-     * Breaks a line from the trace file into many fields into the
-     * {@link #fieldArray}.
+     * Parses a field of the line of the trace file as a long, without creating
+     * a String for the field.
      * 
      * @param line a line from the trace file
-     * @param lineNum the line number
+     * @param field the index of the field
+     * @return the value of the field
+     * @throws NumberFormatException if the field is missing or is not a long
+     */
+    private long parseLongField(final String line, final int field) {
+            if (field < 0 || field >= fieldCount) {
+                    throw new NumberFormatException("Missing field " + (field + 1) + ".");
+            }
+            int i = fieldStarts[field];
+            final int end = fieldEnds[field];
+            final char sign = line.charAt(i);
+            if (sign == '-' || sign == '+') {
+                    i++;
+            }
+            if (i == end) {
+                    throw new NumberFormatException("Invalid field " + (field + 1) + ".");
+            }
+
+            long value = 0;
+            for (; i < end; i++) {
+                    final int digit = line.charAt(i) - '0';
+                    if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                            throw new NumberFormatException("Invalid field " + (field + 1) + ".");
+                    }
+                    value = value * 10 + digit;
+            }
+            return sign == '-' ? -value : value;
+    }
+
+    /**
+     * Breaks a line from the trace file into fields, separated by white spaces,
+     * storing their positions into {@link #fieldStarts} and {@link #fieldEnds}.
+     * 
+     * @param line a line from the trace file
+     * @return the number of fields, or -1 if there are more than {@link #MAX_FIELD} fields
      * @pre line != null
-     * @pre lineNum > 0
-     * @post $none
      */
-    private void parseValue(final String line, final int lineNum) {
-            // skip a comment line
-            if (line.startsWith(COMMENT)) {
-                    return;
+    private int splitFields(final String line) {
+            final int length = line.length();
+            fieldCount = 0;
+            int i = 0;
+            while (i < length) {
+                    // skip the spaces before the field
+                    while (i < length && isSpace(line.charAt(i))) {
+                            i++;
+                    }
+                    if (i == length) {
+                            break;
+                    }
+                    if (fieldCount == MAX_FIELD) {
+                            fieldCount = 0;
+                            return -1;
+                    }
+                    fieldStarts[fieldCount] = i;
+                    while (i < length && !isSpace(line.charAt(i))) {
+                            i++;
+                    }
+                    fieldEnds[fieldCount] = i;
+                    fieldCount++;
             }
+            return fieldCount;
+    }
 
-            final String[] sp = line.split("\\s+"); // split the fields based on a
-            // space
-            int len = 0; // length of a string
-            int index = 0; // the index of an array
+    /**
+     * Checks whether a character is a white space separating fields, 
+     * as the <tt>\s</tt> regular expression does.
+     * 
+     * @param c the character
+     * @return <code>true</code> if it is a white space, <code>false</code> otherwise
+     */
+    private static boolean isSpace(final char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
 
-            // check for each field in the array
-            for (final String elem : sp) {
-                    len = elem.length(); // get the length of a string
+    /**
+     * Parses a line from the trace file and creates the respective cloudlet.
+     * 
+     * @param line a line from the trace file
+     * @param generatedId the job number, if it is not read from the trace file
+     * @return the cloudlet, or <code>null</code> if the line is a comment or is invalid
+     * @pre line != null
+     */
+    private Cloudlet parseJob(final String line, final int generatedId) {
+            // skip a comment line
+            if (line.startsWith(COMMENT)) {
+                    return null;
+            }
 
-                    // if it is empty then ignore
-                    if (len == 0) {
-                            continue;
-                    }
-                    fieldArray[index] = elem;
-                    index++;
+            if (splitFields(line) != MAX_FIELD) {
+                    return null;
             }
+            return extractField(line, generatedId);
+    }
 
-            if (index == MAX_FIELD) {
-                    extractField(fieldArray, lineNum);
+    /**
+     * Parses a line from the trace file and adds the respective cloudlet,
+     * if any, to the list of {@link #jobs}.
+     * 
+     * @param line a line from the trace file
+     * @param lineNum the line number
+     * @pre line != null
+     * @pre lineNum > 0
+     * @post $none
+     */
+    private void parseValue(final String line, final int lineNum) {
+            final Cloudlet job = parseJob(line, jobs.size() + 1);
+            if (job != null) {
+                    jobs.add(job);
             }
     }
 
@@ -560,4 +695,160 @@ public class WorkloadFileReader implements WorkloadModel {
 
             return success;
     }
+    /**
+     * A stream of the jobs of the trace file, parsing the file as the jobs are consumed.
+     * The jobs read ahead are kept in a ring buffer of fixed capacity.
+     */
+    private class FileWorkloadStream implements WorkloadStream {
+
+            /**
+             * The jobs read ahead.
+             */
+            private final Cloudlet[] buffer;
+
+            /**
+             * The submit time of the jobs read ahead.
+             */
+            private final long[] submitTimes;
+
+            /**
+             * The index of the next job in the {@link #buffer}.
+             */
+            private int head = 0;
+
+            /**
+             * The number of jobs in the {@link #buffer}.
+             */
+            private int size = 0;
+
+            /**
+             * The number of jobs read so far.
+             */
+            private int jobCount = 0;
+
+            /**
+             * The reader of the trace file, or of the current entry of a zip file;
+             * <code>null</code> when the whole file has been read.
+             */
+            private BufferedReader reader;
+
+            /**
+             * The zip file, if the trace file is a zip file.
+             */
+            private ZipFile zipFile;
+
+            /**
+             * The entries of the zip file that were not read yet.
+             */
+            private Enumeration<? extends ZipEntry> zipEntries;
+
+            /**
+             * Opens the trace file.
+             * 
+             * @param capacity the maximum number of jobs read ahead
+             * @throws IOException if the trace file can't be opened
+             */
+            FileWorkloadStream(final int capacity) throws IOException {
+                    buffer = new Cloudlet[capacity];
+                    submitTimes = new long[capacity];
+                    if (file.getName().endsWith(".gz")) {
+                            reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file))));
+                    } else if (file.getName().endsWith(".zip")) {
+                            zipFile = new ZipFile(file);
+                            zipEntries = zipFile.entries();
+                            nextZipEntry();
+                    } else {
+                            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
+                    }
+            }
+
+            @Override
+            public boolean hasNext() {
+                    fill();
+                    return size > 0;
+            }
+
+            @Override
+            public double getNextSubmitTime() {
+                    if (!hasNext()) {
+                            throw new NoSuchElementException();
+                    }
+                    return submitTimes[head];
+            }
+
+            @Override
+            public Cloudlet next() {
+                    if (!hasNext()) {
+                            throw new NoSuchElementException();
+                    }
+                    final Cloudlet job = buffer[head];
+                    buffer[head] = null;
+                    head = (head + 1) % buffer.length;
+                    size--;
+                    return job;
+            }
+
+            @Override
+            public void close() {
+                    try {
+                            if (reader != null) {
+                                    reader.close();
+                            }
+                            if (zipFile != null) {
+                                    zipFile.close();
+                            }
+                    } catch (final IOException e) {
+                    }
+                    reader = null;
+                    zipFile = null;
+                    zipEntries = null;
+            }
+
+            /**
+             * Reads jobs ahead if the buffer is empty, until it is full or 
+             * the end of the trace file is reached.
+             */
+            private void fill() {
+                    if (size > 0) {
+                            return;
+                    }
+                    try {
+                            while (size < buffer.length && reader != null) {
+                                    final String line = reader.readLine();
+                                    if (line == null) {
+                                            reader.close();
+                                            reader = null;
+                                            nextZipEntry();
+                                            continue;
+                                    }
+                                    final Cloudlet job = parseJob(line, jobCount + 1);
+                                    if (job != null) {
+                                            final int tail = (head + size) % buffer.length;
+                                            buffer[tail] = job;
+                                            submitTimes[tail] = lastSubmitTime;
+                                            size++;
+                                            jobCount++;
+                                    }
+                            }
+                    } catch (final IOException e) {
+                            Log.printConcatLine("Error reading the workload trace ", file, ": ", e.getMessage());
+                            close();
+                    }
+                    if (reader == null) {
+                            close();
+                    }
+            }
+
+            /**
+             * Opens the reader of the next entry of the zip file, if any.
+             * 
+             * @throws IOException if the entry can't be read
+             */
+            private void nextZipEntry() throws IOException {
+                    if (zipEntries != null && zipEntries.hasMoreElements()) {
+                            reader = new BufferedReader(new InputStreamReader(zipFile.getInputStream(zipEntries.nextElement())));
+                    }
+            }
+
+    }
 }
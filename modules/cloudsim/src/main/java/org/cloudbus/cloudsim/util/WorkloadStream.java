@@ -0,0 +1,56 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.io.Closeable;
+
+import org.cloudbus.cloudsim.Cloudlet;
+
+/**
+ * A workload whose jobs ({@link Cloudlet Cloudlets}) are generated one at a time, in
+ * the order they are submitted, instead of being generated all at once as a list by a
+ * {@link WorkloadModel}. Only the jobs not consumed yet and read ahead are kept in memory,
+ * so that traces of any length can be simulated.
+ *
+ * @since CloudSim Toolkit 4.0
+ * @see WorkloadFileReader#openStream(int)
+ * @see org.cloudbus.cloudsim.StreamingDatacenterBroker
+ */
+public interface WorkloadStream extends Closeable {
+
+	/**
+	 * Checks whether there are more jobs.
+	 *
+	 * @return <tt>true</tt> if there are more jobs, <tt>false</tt> otherwise
+	 */
+	boolean hasNext();
+
+	/**
+	 * Gets the submit time of the next job.
+	 *
+	 * @return the submit time of the next job, in seconds
+	 * @throws java.util.NoSuchElementException if there are no more jobs
+	 */
+	double getNextSubmitTime();
+
+	/**
+	 * Gets the next job.
+	 *
+	 * @return the next job
+	 * @throws java.util.NoSuchElementException if there are no more jobs
+	 */
+	Cloudlet next();
+
+	/**
+	 * Releases the resources used to generate the jobs. There are no more jobs afterwards.
+	 */
+	@Override
+	void close();
+
+}
@@ -0,0 +1,80 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+public class AsyncLogAppenderTest {
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	@Test
+	public void testWriteInOrder() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		AsyncLogAppender appender = new AsyncLogAppender(output, 16, 1000);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			String line = "line " + i + "\n";
+			appender.write(line.getBytes());
+			expected.append(line);
+		}
+		appender.write('.');
+		expected.append('.');
+		appender.flush();
+		assertEquals(expected.toString(), output.toString());
+		appender.close();
+	}
+
+	@Test
+	public void testLogOutput() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		AsyncLogAppender appender = new AsyncLogAppender(output);
+		Log.setOutput(appender);
+		try {
+			Log.printLine("test");
+			Log.formatLine("%d", 123);
+			Log.flush();
+			assertEquals("test" + LINE_SEPARATOR + "123" + LINE_SEPARATOR, output.toString());
+		} finally {
+			Log.setOutput(null);
+			appender.close();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteAfterClose() throws IOException {
+		AsyncLogAppender appender = new AsyncLogAppender(new ByteArrayOutputStream());
+		appender.close();
+		appender.write('.');
+	}
+
+	@Test
+	public void testError() throws IOException {
+		AsyncLogAppender appender = new AsyncLogAppender(new OutputStream() {
+
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException();
+			}
+		});
+		appender.write('.');
+		try {
+			appender.flush();
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+		try {
+			appender.close();
+			fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CloudletSchedulerTimeSharedVirtualTimeTest {
+
+	private static final double MIPS = 1000;
+
+	private List<Double> mipsShare;
+
+	@Before
+	public void setUp() {
+		mipsShare = new ArrayList<Double>();
+		mipsShare.add(MIPS);
+		mipsShare.add(MIPS);
+	}
+
+	@Test
+	public void testSameFinishTimesAsTimeShared() {
+		CloudletScheduler expected = new CloudletSchedulerTimeShared();
+		CloudletScheduler actual = new CloudletSchedulerTimeSharedVirtualTime();
+		expected.updateVmProcessing(0, mipsShare);
+		actual.updateVmProcessing(0, mipsShare);
+
+		Random random = new Random(1);
+		int id = 0;
+		double time = 0;
+		while (id < 200 || actual.runningCloudlets() > 0) {
+			if (id < 200) {
+				// submit a few cloudlets
+				for (int i = random.nextInt(3); i >= 0; i--) {
+					int pes = 1 + random.nextInt(2);
+					long length = 1000 + random.nextInt(50000);
+					expected.cloudletSubmit(createCloudlet(id, length, pes));
+					actual.cloudletSubmit(createCloudlet(id, length, pes));
+					id++;
+				}
+			}
+
+			double expectedNext = expected.updateVmProcessing(time, mipsShare);
+			double actualNext = actual.updateVmProcessing(time, mipsShare);
+			// the time-shared scheduler rounds the remaining length down to the MI,
+			// so the cloudlets may finish slightly earlier with it
+			assertEquals(expectedNext, actualNext, 1e-3 * expectedNext);
+			assertEquals(expected.runningCloudlets(), actual.runningCloudlets());
+			while (expected.isFinishedCloudlets()) {
+				Cloudlet expectedCloudlet = expected.getNextFinishedCloudlet();
+				assertTrue(actual.isFinishedCloudlets());
+				Cloudlet actualCloudlet = actual.getNextFinishedCloudlet();
+				assertEquals(expectedCloudlet.getCloudletId(), actualCloudlet.getCloudletId());
+				assertEquals(Cloudlet.SUCCESS, actualCloudlet.getCloudletStatus());
+			}
+			assertFalse(actual.isFinishedCloudlets());
+
+			// advance to the next event, or before it to submit new cloudlets
+			time = id < 200 ? Math.min(expectedNext, time + 1 + random.nextInt(20)) : expectedNext;
+		}
+	}
+
+	@Test
+	public void testPauseResumeCancel() {
+		CloudletSchedulerTimeSharedVirtualTime scheduler = new CloudletSchedulerTimeSharedVirtualTime();
+		scheduler.updateVmProcessing(0, mipsShare);
+		scheduler.cloudletSubmit(createCloudlet(0, 10000, 1));
+		scheduler.cloudletSubmit(createCloudlet(1, 10000, 1));
+		scheduler.cloudletSubmit(createCloudlet(2, 10000, 2));
+
+		// 4 PEs in use on 2 PEs: each PE executes 500 MIPS
+		assertEquals(20, scheduler.updateVmProcessing(0, mipsShare), 1e-9);
+		assertEquals(20, scheduler.updateVmProcessing(4, mipsShare), 1e-9);
+
+		assertTrue(scheduler.cloudletPause(2));
+		assertEquals(Cloudlet.PAUSED, scheduler.getCloudletStatus(2));
+		assertEquals(2, scheduler.runningCloudlets());
+		// 2 PEs in use: each PE executes 1000 MIPS, 8000 MI left
+		assertEquals(12, scheduler.updateVmProcessing(4, mipsShare), 1e-9);
+		assertEquals(12, scheduler.updateVmProcessing(6, mipsShare), 1e-9);
+
+		scheduler.cloudletResume(2);
+		assertEquals(Cloudlet.INEXEC, scheduler.getCloudletStatus(2));
+		// the resumed cloudlet has 8000 MI left per PE and the others 6000 MI at 500 MIPS
+		assertEquals(18, scheduler.updateVmProcessing(6, mipsShare), 1e-9);
+
+		Cloudlet canceled = scheduler.cloudletCancel(1);
+		assertEquals(1, canceled.getCloudletId());
+		assertEquals(Cloudlet.CANCELED, canceled.getCloudletStatus());
+		assertNull(scheduler.cloudletCancel(1));
+		assertEquals(2, scheduler.runningCloudlets());
+
+		// 3 PEs in use: 2000 / 3 MIPS per PE, 6000 MI left for the first cloudlet
+		assertEquals(6 + 9, scheduler.updateVmProcessing(6, mipsShare), 1e-9);
+		scheduler.updateVmProcessing(15, mipsShare);
+		assertTrue(scheduler.isFinishedCloudlets());
+		assertEquals(0, scheduler.getNextFinishedCloudlet().getCloudletId());
+		assertFalse(scheduler.isFinishedCloudlets());
+
+		// 2000 MI left for the resumed cloudlet at 1000 MIPS per PE
+		assertEquals(17, scheduler.updateVmProcessing(15, mipsShare), 1e-9);
+		assertEquals(Double.MAX_VALUE, scheduler.updateVmProcessing(17, mipsShare), 0);
+		Cloudlet finished = scheduler.getNextFinishedCloudlet();
+		assertEquals(2, finished.getCloudletId());
+		assertEquals(10000, finished.getCloudletFinishedSoFar());
+		assertSame(null, scheduler.getNextFinishedCloudlet());
+		assertEquals(0, scheduler.updateVmProcessing(20, mipsShare), 0);
+	}
+
+	private Cloudlet createCloudlet(int id, long length, int pes) {
+		UtilizationModel utilizationModel = new UtilizationModelFull();
+		Cloudlet cloudlet = new Cloudlet(id, length, pes, 0, 0, utilizationModel, utilizationModel, utilizationModel);
+		cloudlet.setResourceParameter(0, 0, 0);
+		return cloudlet;
+	}
+
+}
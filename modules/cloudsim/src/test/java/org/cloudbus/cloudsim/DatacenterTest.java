@@ -0,0 +1,149 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.util.WorkloadStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DatacenterTest {
+
+	private static final int HOSTS = 20;
+
+	private static final int CLOUDLETS = 300;
+
+	@Before
+	public void setUp() {
+		Log.disable();
+	}
+
+	@After
+	public void tearDown() {
+		CloudSim.setContext(null);
+		Log.enable();
+	}
+
+	@Test
+	public void testHostIndexKeepsFinishTimes() throws Exception {
+		List<Cloudlet> expected = simulate(false);
+		List<Cloudlet> actual = simulate(true);
+
+		assertEquals(CLOUDLETS, expected.size());
+		assertEquals(CLOUDLETS, actual.size());
+		for (int i = 0; i < CLOUDLETS; i++) {
+			assertEquals(expected.get(i).getCloudletId(), actual.get(i).getCloudletId());
+			// the time-shared scheduler estimates the finish times from the remaining length
+			// rounded down to the MI, so they depend on when the hosts were last updated
+			assertEquals(expected.get(i).getExecStartTime(), actual.get(i).getExecStartTime(), 1e-2);
+			assertEquals(expected.get(i).getFinishTime(), actual.get(i).getFinishTime(), 1e-2);
+		}
+	}
+
+	private List<Cloudlet> simulate(boolean hostIndexEnabled) throws Exception {
+		CloudSim.setContext(new SimulationContext());
+		CloudSim.init(1, null, false);
+		Datacenter datacenter = createDatacenter();
+		assertFalse(datacenter.isHostIndexEnabled());
+		datacenter.setHostIndexEnabled(hostIndexEnabled);
+
+		StreamingDatacenterBroker broker = new StreamingDatacenterBroker("Broker", new RandomWorkload(1));
+		broker.setRetainCloudlets(true);
+		List<Vm> vms = new ArrayList<Vm>();
+		for (int i = 0; i < HOSTS * 2; i++) {
+			CloudletScheduler scheduler = i % 4 == 0 ? new CloudletSchedulerSpaceShared()
+					: new CloudletSchedulerTimeShared();
+			vms.add(new Vm(i, broker.getId(), 1000, 1, 512, 1000, 1000, "Xen", scheduler));
+		}
+		broker.submitVmList(vms);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		return broker.getCloudletReceivedList();
+	}
+
+	private Datacenter createDatacenter() throws Exception {
+		List<Host> hostList = new ArrayList<Host>();
+		for (int i = 0; i < HOSTS; i++) {
+			List<Pe> peList = new ArrayList<Pe>();
+			for (int j = 0; j < 2; j++) {
+				peList.add(new Pe(j, new PeProvisionerSimple(1000)));
+			}
+			hostList.add(new Host(
+					i,
+					new RamProvisionerSimple(2048),
+					new BwProvisionerSimple(10000),
+					1000000,
+					peList,
+					new VmSchedulerTimeShared(peList)));
+		}
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+				"x86", "Linux", "Xen", hostList, 10.0, 3.0, 0.05, 0.001, 0.0);
+		return new Datacenter(
+				"Datacenter",
+				characteristics,
+				new VmAllocationPolicySimple(hostList),
+				new LinkedList<Storage>(),
+				0);
+	}
+
+	/**
+	 * Cloudlets of random lengths submitted at random times.
+	 */
+	private static class RandomWorkload implements WorkloadStream {
+
+		private final Random random;
+
+		private int id;
+
+		private double submitTime;
+
+		public RandomWorkload(long seed) {
+			random = new Random(seed);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return id < CLOUDLETS;
+		}
+
+		@Override
+		public double getNextSubmitTime() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return submitTime;
+		}
+
+		@Override
+		public Cloudlet next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			UtilizationModel utilizationModel = new UtilizationModelFull();
+			long length = 1000 + random.nextInt(100000);
+			Cloudlet cloudlet = new Cloudlet(id++, length, 1, 300, 300, utilizationModel, utilizationModel,
+					utilizationModel);
+			submitTime += random.nextInt(3) * random.nextDouble() * 10;
+			return cloudlet;
+		}
+
+		@Override
+		public void close() {
+		}
+
+	}
+
+}
@@ -0,0 +1,134 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HostCapacityIndexTest {
+
+	private static final int NUMBER_OF_HOSTS = 13;
+
+	private List<Host> hostList;
+
+	private HostCapacityIndex index;
+
+	@Before
+	public void setUp() {
+		hostList = new ArrayList<Host>();
+		for (int i = 0; i < NUMBER_OF_HOSTS; i++) {
+			hostList.add(createHost(i, 1 + i % 4));
+		}
+		index = new HostCapacityIndex(hostList, 2);
+	}
+
+	@Test
+	public void testGetPosition() {
+		for (int i = 0; i < NUMBER_OF_HOSTS; i++) {
+			assertEquals(i, index.getPosition(hostList.get(i)));
+		}
+		assertEquals(-1, index.getPosition(createHost(NUMBER_OF_HOSTS, 1)));
+		assertEquals(-1, index.getPosition(null));
+		assertEquals(2, index.getDimensions());
+	}
+
+	@Test
+	public void testIsIndexOf() {
+		assertTrue(index.isIndexOf(hostList));
+		assertFalse(index.isIndexOf(new ArrayList<Host>(hostList)));
+		hostList.add(createHost(NUMBER_OF_HOSTS, 1));
+		assertFalse(index.isIndexOf(hostList));
+	}
+
+	@Test
+	public void testGetMaxPosition() {
+		for (int i = 0; i < NUMBER_OF_HOSTS; i++) {
+			index.setValue(i, 0, hostList.get(i).getNumberOfPes());
+		}
+		assertEquals(3, index.getMaxPosition(0));
+
+		index.setValue(3, 0, 0);
+		assertEquals(7, index.getMaxPosition(0));
+
+		index.setValue(12, 0, 5);
+		assertEquals(12, index.getMaxPosition(0));
+
+		index.setValue(12, 0, Double.NEGATIVE_INFINITY);
+		index.setValue(3, 0, 4);
+		assertEquals(3, index.getMaxPosition(0));
+		assertEquals(4, index.getValue(3, 0), 0);
+	}
+
+	@Test
+	public void testGetMaxPositionEmpty() {
+		assertEquals(-1, new HostCapacityIndex(new ArrayList<Host>(), 1).getMaxPosition(0));
+	}
+
+	@Test
+	public void testSameResultsAsLinearScan() {
+		Random random = new Random(0);
+		double[][] values = new double[NUMBER_OF_HOSTS][2];
+		for (int i = 0; i < NUMBER_OF_HOSTS; i++) {
+			index.setValue(i, 0, 0);
+			index.setValue(i, 1, 0);
+		}
+		for (int step = 0; step < 1000; step++) {
+			int position = random.nextInt(NUMBER_OF_HOSTS);
+			int dimension = random.nextInt(2);
+			values[position][dimension] = random.nextInt(10);
+			index.setValue(position, dimension, values[position][dimension]);
+
+			int maxPosition = 0;
+			for (int i = 1; i < NUMBER_OF_HOSTS; i++) {
+				if (values[i][0] > values[maxPosition][0]) {
+					maxPosition = i;
+				}
+			}
+			assertEquals(maxPosition, index.getMaxPosition(0));
+
+			double min0 = random.nextInt(10);
+			double min1 = random.nextInt(10);
+			int from = random.nextInt(NUMBER_OF_HOSTS + 1);
+			int nextPosition = -1;
+			for (int i = from; i < NUMBER_OF_HOSTS; i++) {
+				if (values[i][0] >= min0 && values[i][1] >= min1) {
+					nextPosition = i;
+					break;
+				}
+			}
+			assertEquals(nextPosition, index.nextPosition(from, min0, min1));
+		}
+	}
+
+	@Test
+	public void testNextPositionSkipsPadding() {
+		assertEquals(-1, index.nextPosition(0, Double.NEGATIVE_INFINITY, 0));
+		assertEquals(0, index.nextPosition(0, Double.NEGATIVE_INFINITY));
+		assertEquals(NUMBER_OF_HOSTS - 1, index.nextPosition(NUMBER_OF_HOSTS - 1, Double.NEGATIVE_INFINITY));
+		assertEquals(-1, index.nextPosition(NUMBER_OF_HOSTS, Double.NEGATIVE_INFINITY));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSetValueOutOfBounds() {
+		index.setValue(NUMBER_OF_HOSTS, 0, 1);
+	}
+
+	private static Host createHost(int id, int numberOfPes) {
+		List<Pe> peList = new ArrayList<Pe>();
+		for (int i = 0; i < numberOfPes; i++) {
+			peList.add(new Pe(i, new PeProvisionerSimple(1000)));
+		}
+		return new Host(id, new RamProvisionerSimple(1024), new BwProvisionerSimple(10000), 10000, peList,
+				new VmSchedulerTimeShared(peList));
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HostCapacitySnapshotTest {
+
+	private static final long STORAGE = 10000;
+	private static final int RAM = 1024;
+	private static final int BW = 10000;
+	private static final double MIPS = 1000;
+
+	private Host host;
+
+	@Before
+	public void setUp() {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerSimple(MIPS)));
+		peList.add(new Pe(1, new PeProvisionerSimple(MIPS)));
+		host = new Host(0, new RamProvisionerSimple(RAM), new BwProvisionerSimple(BW), STORAGE, peList,
+				new VmSchedulerTimeShared(peList));
+	}
+
+	@Test
+	public void testSameDecisionsAsVmCreate() {
+		List<Vm> vms = new ArrayList<Vm>();
+		vms.add(createVm(0, MIPS / 2, 1, RAM / 4, BW / 4, 2000));
+		vms.add(createVm(1, MIPS * 2, 1, RAM / 4, BW / 4, 2000)); // too many MIPS per PE
+		vms.add(createVm(2, MIPS / 2, 2, RAM / 4, BW / 4, 7000));
+		vms.add(createVm(3, MIPS / 4, 1, RAM / 4, BW / 4, 2000)); // not enough storage
+		vms.add(createVm(4, MIPS / 4, 1, RAM, BW / 4, 100)); // not enough RAM
+		vms.add(createVm(5, MIPS / 4, 1, RAM / 4, BW, 100)); // not enough bandwidth
+		vms.add(createVm(6, MIPS, 1, RAM / 4, BW / 4, 100)); // not enough MIPS
+		vms.add(createVm(7, MIPS / 2, 1, RAM / 4, BW / 4, 100));
+
+		HostCapacitySnapshot snapshot = new HostCapacitySnapshot(host);
+		for (Vm vm : vms) {
+			HostCapacitySnapshot current = new HostCapacitySnapshot(host);
+			boolean suitable = snapshot.isSuitableForVm(vm);
+			assertEquals(suitable, current.isSuitableForVm(vm));
+			assertEquals(suitable, host.vmCreate(vm));
+			if (suitable) {
+				snapshot = snapshot.withVm(vm);
+				assertSameCapacity(new HostCapacitySnapshot(host), snapshot);
+			}
+		}
+		assertEquals(host.getVmList(), snapshot.getVmList());
+		assertEquals(host.getVmList(), snapshot.getAddedVms());
+	}
+
+	@Test
+	public void testHostUnchanged() {
+		Vm vm0 = createVm(0, MIPS / 2, 1, RAM / 2, BW / 2, 100);
+		Vm vm1 = createVm(1, MIPS / 2, 1, RAM / 2, BW / 2, 100);
+		assertTrue(host.vmCreate(vm0));
+		HostCapacitySnapshot snapshot = new HostCapacitySnapshot(host);
+
+		HostCapacitySnapshot withVm = snapshot.withVm(vm1);
+		assertFalse(withVm.isSuitableForVm(vm1));
+		assertEquals(2, withVm.getVmList().size());
+		assertEquals(1, withVm.getAddedVms().size());
+		assertEquals(vm1, withVm.getAddedVms().get(0));
+
+		assertSameCapacity(new HostCapacitySnapshot(host), snapshot);
+		assertEquals(1, host.getVmList().size());
+		assertEquals(null, vm1.getHost());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWithUnsuitableVm() {
+		new HostCapacitySnapshot(host).withVm(createVm(0, MIPS / 2, 1, RAM * 2, BW / 2, 100));
+	}
+
+	private static Vm createVm(int id, double mips, int pes, int ram, long bw, long size) {
+		return new Vm(id, 0, mips, pes, ram, bw, size, "", new CloudletSchedulerDynamicWorkload(mips, pes));
+	}
+
+	private static void assertSameCapacity(HostCapacitySnapshot expected, HostCapacitySnapshot actual) {
+		assertEquals(expected.getPeCapacity(), actual.getPeCapacity(), 0);
+		assertEquals(expected.getAvailableMips(), actual.getAvailableMips(), 1e-9);
+		assertEquals(expected.getAvailableRam(), actual.getAvailableRam());
+		assertEquals(expected.getAvailableBw(), actual.getAvailableBw());
+		assertEquals(expected.getAvailableStorage(), actual.getAvailableStorage());
+	}
+
+}
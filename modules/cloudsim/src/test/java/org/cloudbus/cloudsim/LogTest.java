@@ -10,12 +10,14 @@ package org.cloudbus.cloudsim;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
+import java.util.function.Supplier;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -175,4 +177,46 @@ public class LogTest {
 		OUTPUT.reset();
 	}
 
+	@Test
+	public void testCategory() throws IOException {
+		OUTPUT.reset();
+		Log.Category category = Log.getCategory("test");
+		assertSame(category, Log.getCategory("test"));
+		assertEquals(Log.Level.DEBUG, category.getLevel());
+
+		category.formatLine(Log.Level.DEBUG, "%d %s", 123, "test");
+		assertEquals("123 test" + LINE_SEPARATOR, OUTPUT.toString());
+		OUTPUT.reset();
+
+		category.setLevel(Log.Level.WARNING);
+		try {
+			assertFalse(category.isEnabled(Log.Level.INFO));
+			category.formatLine(Log.Level.INFO, "%d", 123);
+			category.printLine(Log.Level.DEBUG, new Supplier<String>() {
+
+				@Override
+				public String get() {
+					throw new AssertionError();
+				}
+			});
+			assertEquals("", OUTPUT.toString());
+
+			category.printConcatLine(Log.Level.WARNING, "test ", 123);
+			assertEquals("test 123" + LINE_SEPARATOR, OUTPUT.toString());
+			OUTPUT.reset();
+
+			category.setLevel(null);
+			Log.setLevel(Log.Level.ERROR);
+			assertFalse(category.isEnabled(Log.Level.WARNING));
+			assertTrue(category.isEnabled(Log.Level.ERROR));
+
+			Log.disable();
+			assertFalse(category.isEnabled(Log.Level.ERROR));
+		} finally {
+			category.setLevel(null);
+			Log.setLevel(Log.Level.DEBUG);
+			Log.enable();
+		}
+	}
+
 }
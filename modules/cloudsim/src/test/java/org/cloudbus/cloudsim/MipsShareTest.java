@@ -0,0 +1,86 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MipsShareTest {
+
+	@Test
+	public void testSameAsArrayList() {
+		MipsShare mipsShare = new MipsShare(1);
+		List<Double> expected = new ArrayList<Double>();
+		for (int i = 0; i < 10; i++) {
+			mipsShare.addMips(i);
+			expected.add((double) i);
+		}
+		mipsShare.add(3, 100.0);
+		expected.add(3, 100.0);
+		mipsShare.remove(0);
+		expected.remove(0);
+		mipsShare.set(2, 50.0);
+		expected.set(2, 50.0);
+		assertEquals(expected, mipsShare);
+		assertEquals(expected.hashCode(), mipsShare.hashCode());
+
+		double total = 0;
+		for (double mips : expected) {
+			total += mips;
+		}
+		assertEquals(total, mipsShare.getTotalMips(), 0);
+		assertEquals(50, mipsShare.getMaxMips(), 0);
+	}
+
+	@Test
+	public void testSetAllAndFill() {
+		MipsShare mipsShare = new MipsShare(Arrays.asList(1.0, 2.0, 3.0));
+		mipsShare.fill(2, 5);
+		assertEquals(Arrays.asList(5.0, 5.0), mipsShare);
+
+		MipsShare copy = new MipsShare();
+		copy.setAll(mipsShare);
+		assertEquals(mipsShare, copy);
+		copy.setAll(copy);
+		assertEquals(mipsShare, copy);
+
+		mipsShare.clear();
+		assertTrue(mipsShare.isEmpty());
+		assertEquals(0, mipsShare.getTotalMips(), 0);
+	}
+
+	@Test
+	public void testGetMipsOfList() {
+		assertEquals(2, MipsShare.getMips(Arrays.asList(1.0, 2.0), 1), 0);
+		assertEquals(2, MipsShare.getMips(new MipsShare(Arrays.asList(1.0, 2.0)), 1), 0);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetMipsOutOfBounds() {
+		MipsShare mipsShare = new MipsShare(4);
+		mipsShare.addMips(1);
+		mipsShare.getMips(1);
+	}
+
+	@Test
+	public void testPool() {
+		MipsShare.Pool pool = new MipsShare.Pool();
+		MipsShare mipsShare = pool.take();
+		mipsShare.addMips(1);
+		pool.release(mipsShare);
+		pool.release(new ArrayList<Double>());
+		pool.release(null);
+
+		MipsShare reused = pool.take();
+		assertSame(mipsShare, reused);
+		assertTrue(reused.isEmpty());
+		assertNotSame(reused, pool.take());
+	}
+
+}
@@ -0,0 +1,134 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NetworkTopologyTest {
+
+	private static final int NODES = 40;
+
+	private static final int LINKS = 100;
+
+	private static final double DELTA = 1e-3;
+
+	private int[][] links;
+
+	private double[] delays;
+
+	@Before
+	public void setUp() {
+		Random random = new Random(42);
+		links = new int[LINKS][];
+		delays = new double[LINKS];
+		for (int i = 0; i < LINKS; i++) {
+			links[i] = new int[] { random.nextInt(NODES), random.nextInt(NODES) };
+			// some links of zero delay, which are no links
+			delays[i] = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(100);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		CloudSim.setContext(null);
+	}
+
+	@Test
+	public void testIncrementalAddLink() {
+		double[][] expected = getDelays(false);
+		CloudSim.setContext(new SimulationContext());
+		for (int i = 0; i < LINKS; i++) {
+			NetworkTopology.addLink(links[i][0], links[i][1], 10, delays[i]);
+		}
+		assertDelays(expected);
+	}
+
+	@Test
+	public void testLazyDelays() {
+		double[][] expected = getDelays(false);
+		assertDelays(expected, getDelays(true));
+
+		CloudSim.setContext(new SimulationContext());
+		NetworkTopology.setLazyDelaysEnabled(true);
+		NetworkTopology.setCachedDelayRows(2);
+		for (int i = 0; i < LINKS; i++) {
+			NetworkTopology.addLink(links[i][0], links[i][1], 10, delays[i]);
+		}
+		assertDelays(expected);
+	}
+
+	@Test
+	public void testReplaceLink() {
+		CloudSim.setContext(new SimulationContext());
+		NetworkTopology.addLink(0, 1, 10, 5);
+		NetworkTopology.addLink(1, 2, 10, 5);
+		NetworkTopology.addLink(0, 2, 10, 20);
+		NetworkTopology.addLink(2, 3, 10, 5);
+		assertEquals(10, NetworkTopology.getDelay(0, 2), 0);
+		assertEquals(15, NetworkTopology.getDelay(0, 3), 0);
+
+		// a link of lower delay makes the path shorter
+		NetworkTopology.addLink(2, 0, 10, 1);
+		assertEquals(1, NetworkTopology.getDelay(0, 2), 0);
+		assertEquals(6, NetworkTopology.getDelay(3, 0), 0);
+
+		// a link of higher delay replaces it
+		NetworkTopology.addLink(0, 2, 10, 20);
+		assertEquals(10, NetworkTopology.getDelay(0, 2), 0);
+		assertEquals(15, NetworkTopology.getDelay(3, 0), 0);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBuildTwice() {
+		CloudSim.setContext(new SimulationContext());
+		NetworkTopology.Builder builder = new NetworkTopology.Builder().addLink(0, 1, 10, 5);
+		builder.build();
+		builder.addLink(1, 2, 10, 5);
+	}
+
+	/**
+	 * Gets the delays between all the nodes of the topology, built in a new context.
+	 */
+	private double[][] getDelays(boolean lazy) {
+		CloudSim.setContext(new SimulationContext());
+		NetworkTopology.setLazyDelaysEnabled(lazy);
+		NetworkTopology.Builder topology = new NetworkTopology.Builder();
+		for (int i = 0; i < LINKS; i++) {
+			topology.addLink(links[i][0], links[i][1], 10, delays[i]);
+		}
+		topology.build();
+
+		double[][] result = new double[NODES][NODES];
+		for (int i = 0; i < NODES; i++) {
+			for (int j = 0; j < NODES; j++) {
+				result[i][j] = NetworkTopology.getDelay(i, j);
+			}
+		}
+		return result;
+	}
+
+	private void assertDelays(double[][] expected) {
+		double[][] actual = new double[NODES][NODES];
+		for (int i = 0; i < NODES; i++) {
+			for (int j = 0; j < NODES; j++) {
+				actual[i][j] = NetworkTopology.getDelay(i, j);
+			}
+		}
+		assertDelays(expected, actual);
+	}
+
+	private static void assertDelays(double[][] expected, double[][] actual) {
+		for (int i = 0; i < NODES; i++) {
+			for (int j = 0; j < NODES; j++) {
+				assertEquals(expected[i][j], actual[i][j], DELTA);
+			}
+		}
+	}
+
+}
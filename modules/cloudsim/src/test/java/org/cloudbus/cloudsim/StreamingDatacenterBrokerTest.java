@@ -0,0 +1,130 @@
+package org.cloudbus.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.util.WorkloadFileReader;
+import org.cloudbus.cloudsim.util.WorkloadStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StreamingDatacenterBrokerTest {
+
+	private static final int MIPS = 1000;
+
+	/** Jobs of the trace: id, submit time, run time, number of PEs. */
+	private static final int[][] JOBS = { { 1, 0, 10, 1 }, { 2, 5, 20, 1 }, { 3, 5, 5, 2 }, { 4, 100, 10, 1 } };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String trace;
+
+	@Before
+	public void setUp() throws Exception {
+		Log.disable();
+		CloudSim.setContext(new SimulationContext());
+
+		File file = folder.newFile("test.swf");
+		FileWriter writer = new FileWriter(file);
+		writer.write("; a trace in the Standard Workload Format\n");
+		for (int[] job : JOBS) {
+			writer.write(String.format("%d %d 0 %d %d -1 -1 %d %d -1 1 1 1 -1 -1 -1 -1 -1\n",
+					job[0], job[1], job[2], job[3], job[3], job[2]));
+		}
+		writer.close();
+		trace = file.getPath();
+	}
+
+	@After
+	public void tearDown() {
+		CloudSim.setContext(null);
+		Log.enable();
+	}
+
+	@Test
+	public void testCloudletsAreSubmittedAtTheirSubmitTime() throws Exception {
+		CloudSim.init(1, null, false);
+		createDatacenter();
+		WorkloadStream workload = new WorkloadFileReader(trace, MIPS).openStream(2);
+		StreamingDatacenterBroker broker = new StreamingDatacenterBroker("Broker", workload);
+		broker.setRetainCloudlets(true);
+		List<Vm> vms = new ArrayList<Vm>();
+		for (int i = 0; i < 2; i++) {
+			vms.add(new Vm(i, broker.getId(), MIPS, 2, 512, 1000, 1000, "Xen", new CloudletSchedulerTimeShared()));
+		}
+		broker.submitVmList(vms);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+
+		assertEquals(JOBS.length, broker.getCloudletsReceived());
+		List<Cloudlet> cloudlets = broker.getCloudletReceivedList();
+		assertEquals(JOBS.length, cloudlets.size());
+		for (Cloudlet cloudlet : cloudlets) {
+			int[] job = JOBS[cloudlet.getCloudletId() - 1];
+			assertEquals(Cloudlet.SUCCESS, cloudlet.getCloudletStatus());
+			assertTrue(cloudlet.getExecStartTime() >= job[1]);
+			assertTrue(cloudlet.getExecStartTime() < job[1] + 1);
+			assertEquals(job[2] * MIPS, cloudlet.getCloudletLength());
+		}
+		assertEquals(0, broker.getCloudletList().size());
+	}
+
+	@Test
+	public void testCloudletsAreNotRetainedByDefault() throws Exception {
+		CloudSim.init(1, null, false);
+		createDatacenter();
+		StreamingDatacenterBroker broker = new StreamingDatacenterBroker(
+				"Broker",
+				new WorkloadFileReader(trace, MIPS).openStream(1));
+		List<Vm> vms = new ArrayList<Vm>();
+		vms.add(new Vm(0, broker.getId(), MIPS, 2, 512, 1000, 1000, "Xen", new CloudletSchedulerTimeShared()));
+		broker.submitVmList(vms);
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+
+		assertEquals(JOBS.length, broker.getCloudletsReceived());
+		assertEquals(0, broker.getCloudletSubmittedList().size());
+		assertEquals(0, broker.getCloudletReceivedList().size());
+	}
+
+	private Datacenter createDatacenter() throws Exception {
+		List<Pe> peList = new ArrayList<Pe>();
+		for (int i = 0; i < 4; i++) {
+			peList.add(new Pe(i, new PeProvisionerSimple(MIPS)));
+		}
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(new Host(
+				0,
+				new RamProvisionerSimple(2048),
+				new BwProvisionerSimple(10000),
+				1000000,
+				peList,
+				new VmSchedulerTimeShared(peList)));
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+				"x86", "Linux", "Xen", hostList, 10.0, 3.0, 0.05, 0.001, 0.0);
+		return new Datacenter(
+				"Datacenter",
+				characteristics,
+				new VmAllocationPolicySimple(hostList),
+				new LinkedList<Storage>(),
+				0);
+	}
+
+}
@@ -12,6 +12,7 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.cloudbus.cloudsim.lists.PeList;
@@ -242,4 +243,60 @@ public class VmSchedulerTimeSharedOverSubscriptionTest {
 		assertEquals(1000, vmScheduler.getMaxAvailableMips(), 0);
 	}
 
+	@Test
+	public void testReallocatePesForVms() {
+		List<Pe> expectedPeList = new ArrayList<Pe>();
+		expectedPeList.add(new Pe(0, new PeProvisionerSimple(MIPS)));
+		expectedPeList.add(new Pe(1, new PeProvisionerSimple(MIPS)));
+		VmScheduler expectedScheduler = new VmSchedulerTimeSharedOverSubscription(expectedPeList);
+		Vm vm3 = new Vm(2, 0, MIPS, 2, 0, 0, 0, "", null);
+		List<Vm> vms = Arrays.asList(vm1, vm2, vm3);
+
+		// oversubscribed
+		assertReallocatePesForVms(expectedScheduler, vms);
+		assertEquals(0, vmScheduler.getAvailableMips(), 0);
+		assertReallocatePesForVms(expectedScheduler, vms);
+
+		vm3.setInMigration(true);
+		assertReallocatePesForVms(expectedScheduler, vms);
+
+		// no longer oversubscribed
+		vm3.setMips(MIPS / 8);
+		assertReallocatePesForVms(expectedScheduler, vms);
+		assertEquals(PeList.getTotalMips(peList) - MIPS / 4 - MIPS - MIPS / 4, vmScheduler.getAvailableMips(), 0);
+
+		vm3.setInMigration(false);
+		vm1.setMips(MIPS);
+		assertReallocatePesForVms(expectedScheduler, vms);
+		assertReallocatePesForVms(expectedScheduler, Arrays.asList(vm3, vm1));
+		assertEquals(expectedScheduler.getAllocatedMipsForVm(vm2), vmScheduler.getAllocatedMipsForVm(vm2));
+	}
+
+	private void assertReallocatePesForVms(VmScheduler expectedScheduler, List<Vm> vms) {
+		for (Vm vm : vms) {
+			expectedScheduler.deallocatePesForVm(vm);
+		}
+		MipsShare requestedMips = new MipsShare();
+		for (Vm vm : vms) {
+			vm.getCurrentRequestedMips(requestedMips);
+			expectedScheduler.allocatePesForVm(vm, new ArrayList<Double>(requestedMips));
+		}
+
+		vmScheduler.reallocatePesForVms(vms);
+
+		assertEquals(expectedScheduler.getAvailableMips(), vmScheduler.getAvailableMips(), 0);
+		for (Vm vm : vms) {
+			assertEquals(expectedScheduler.getAllocatedMipsForVm(vm), vmScheduler.getAllocatedMipsForVm(vm));
+			assertEquals(getPeIds(expectedScheduler.getPesAllocatedForVM(vm)), getPeIds(vmScheduler.getPesAllocatedForVM(vm)));
+		}
+	}
+
+	private static List<Integer> getPeIds(List<Pe> pes) {
+		List<Integer> peIds = new ArrayList<Integer>();
+		for (Pe pe : pes) {
+			peIds.add(pe.getId());
+		}
+		return peIds;
+	}
+
 }
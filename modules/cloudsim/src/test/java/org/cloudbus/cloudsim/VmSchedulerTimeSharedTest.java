@@ -122,6 +122,32 @@ public class VmSchedulerTimeSharedTest {
 		assertEquals(0, vmScheduler.getTotalAllocatedMipsForVm(vm2), 0);
 	}
 
+	@Test
+	public void testAllocatedMipsKeptAcrossReallocation() {
+		List<Double> mipsShare1 = new ArrayList<Double>();
+		mipsShare1.add(MIPS / 4);
+		assertTrue(vmScheduler.allocatePesForVm(vm1, mipsShare1));
+
+		List<Double> allocatedMips = vmScheduler.getAllocatedMipsForVm(vm1);
+		List<Pe> allocatedPes = vmScheduler.getPesAllocatedForVM(vm1);
+		List<Double> peAllocatedMips = allocatedPes.get(0).getPeProvisioner().getAllocatedMipsForVm(vm1);
+
+		// the shares released by vm1 are reused for vm2
+		vmScheduler.deallocatePesForVm(vm1);
+		List<Double> mipsShare2 = new ArrayList<Double>();
+		mipsShare2.add(MIPS / 2);
+		mipsShare2.add(MIPS / 8);
+		assertTrue(vmScheduler.allocatePesForVm(vm2, mipsShare2));
+		assertTrue(vmScheduler.allocatePesForVm(vm1, mipsShare1));
+		vmScheduler.deallocatePesForVm(vm2);
+		assertTrue(vmScheduler.allocatePesForVm(vm2, mipsShare2));
+
+		assertEquals(mipsShare1, allocatedMips);
+		assertEquals(1, allocatedPes.size());
+		assertEquals(mipsShare1, peAllocatedMips);
+		assertEquals(mipsShare2, vmScheduler.getAllocatedMipsForVm(vm2));
+	}
+
 	@Test
 	public void testAllocatePesForVmInMigration() {
 		vm1.setInMigration(true);
@@ -0,0 +1,166 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateNotType;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.Test;
+
+public class DeferredQueueTest {
+
+	private static final int NUMBER_OF_ENTITIES = 5;
+
+	private static final int NUMBER_OF_TAGS = 4;
+
+	@Test
+	public void testSelectPreservesTemporalOrder() {
+		DeferredQueue queue = new DeferredQueue();
+		SimEvent late = newEvent(2.0, 0, 1, 1);
+		SimEvent early = newEvent(1.0, 0, 1, 2);
+		SimEvent sameTime = newEvent(1.0, 0, 1, 1);
+		queue.addEvent(late);
+		queue.addEvent(early);
+		queue.addEvent(sameTime);
+
+		assertEquals(3, queue.count(1, CloudSim.SIM_ANY));
+		assertEquals(2, queue.count(1, new PredicateType(1)));
+		assertEquals(3, queue.count(1, new PredicateType(new int[] { 1, 2, 1 })));
+		assertEquals(0, queue.count(0, CloudSim.SIM_ANY));
+		assertSame(sameTime, queue.findFirst(1, new PredicateType(1)));
+		assertSame(early, queue.select(1, CloudSim.SIM_ANY));
+		assertSame(sameTime, queue.select(1, new PredicateType(new int[] { 1, 2 })));
+		assertSame(late, queue.last());
+		assertSame(late, queue.select(1, CloudSim.SIM_ANY));
+		assertNull(queue.select(1, CloudSim.SIM_ANY));
+		assertNull(queue.last());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testPredicateSubclassesMatchEachEvent() {
+		DeferredQueue queue = new DeferredQueue();
+		SimEvent fromZero = newEvent(1.0, 0, 1, 1);
+		SimEvent fromTwo = newEvent(2.0, 2, 1, 1);
+		queue.addEvent(fromZero);
+		queue.addEvent(fromTwo);
+
+		Predicate any = new PredicateAny() {
+			@Override
+			public boolean match(SimEvent event) {
+				return event.getSource() == 2;
+			}
+		};
+		Predicate type = new PredicateType(1) {
+			@Override
+			public boolean match(SimEvent event) {
+				return super.match(event) && event.getSource() == 2;
+			}
+		};
+		assertEquals(1, queue.count(1, any));
+		assertEquals(1, queue.count(1, type));
+		assertSame(fromTwo, queue.findFirst(1, any));
+		assertSame(fromTwo, queue.select(1, type));
+		assertNull(queue.select(1, any));
+		assertSame(fromZero, queue.select(1, CloudSim.SIM_ANY));
+	}
+
+	@Test
+	public void testAgainstLinkedList() {
+		DeferredQueue queue = new DeferredQueue();
+		List<SimEvent> expected = new ArrayList<SimEvent>();
+		Random random = new Random(1);
+		double clock = 0;
+
+		for (int i = 0; i < 20000; i++) {
+			int destination = random.nextInt(NUMBER_OF_ENTITIES);
+			Predicate p = newPredicate(random);
+			int operation = random.nextInt(4);
+			if (operation < 2) {
+				clock += random.nextInt(3);
+				// Some events are added out of order
+				double time = random.nextInt(10) == 0 ? clock - random.nextInt(5) : clock;
+				SimEvent event = newEvent(time, random.nextInt(NUMBER_OF_ENTITIES), destination,
+						random.nextInt(NUMBER_OF_TAGS));
+				queue.addEvent(event);
+				addInOrder(expected, event);
+			} else if (operation == 2) {
+				assertEquals(count(expected, destination, p), queue.count(destination, p));
+				assertSame(findFirst(expected, destination, p), queue.findFirst(destination, p));
+			} else {
+				SimEvent event = findFirst(expected, destination, p);
+				expected.remove(event);
+				assertSame(event, queue.select(destination, p));
+			}
+			assertEquals(expected.size(), queue.size());
+		}
+
+		int count = 0;
+		Iterator<SimEvent> iterator = queue.iterator();
+		while (iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+			count++;
+		}
+		assertEquals(expected.size(), count);
+		assertEquals(0, queue.size());
+	}
+
+	private static Predicate newPredicate(Random random) {
+		switch (random.nextInt(4)) {
+			case 0:
+				return new PredicateAny();
+			case 1:
+				return new PredicateType(random.nextInt(NUMBER_OF_TAGS));
+			case 2:
+				return new PredicateNotType(random.nextInt(NUMBER_OF_TAGS));
+			default:
+				return new PredicateFrom(random.nextInt(NUMBER_OF_ENTITIES));
+		}
+	}
+
+	/**
+	 * Inserts the event as the last of all events with the same time,
+	 * as the original list based queue did.
+	 */
+	private static void addInOrder(List<SimEvent> events, SimEvent newEvent) {
+		int i = 0;
+		while (i < events.size() && events.get(i).eventTime() <= newEvent.eventTime()) {
+			i++;
+		}
+		events.add(i, newEvent);
+	}
+
+	private static int count(List<SimEvent> events, int destination, Predicate p) {
+		int count = 0;
+		for (SimEvent event : events) {
+			if (event.getDestination() == destination && p.match(event)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static SimEvent findFirst(List<SimEvent> events, int destination, Predicate p) {
+		for (SimEvent event : events) {
+			if (event.getDestination() == destination && p.match(event)) {
+				return event;
+			}
+		}
+		return null;
+	}
+
+	private static SimEvent newEvent(double time, int source, int destination, int tag) {
+		return new SimEvent(SimEvent.SEND, time, source, destination, tag, null);
+	}
+
+}
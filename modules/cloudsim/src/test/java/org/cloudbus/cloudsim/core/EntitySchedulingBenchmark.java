@@ -0,0 +1,131 @@
+package org.cloudbus.cloudsim.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how the cost of the simulation main loop scales with the number of entities.
+ * Each simulation has a given number of idle entities and two entities exchanging
+ * a fixed number of messages, one per clock tick, so the work done by the
+ * simulated entities is the same whatever the number of idle ones.
+ * <p>
+ * Run it through its {@link #main(String[])} method, or through <tt>org.openjdk.jmh.Main</tt>,
+ * using the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntitySchedulingBenchmark {
+
+	private static final int TAG = 9000;
+
+	@Param({ "10", "1000", "10000" })
+	public int idleEntities;
+
+	@Param({ "10000" })
+	public int messages;
+
+	@Setup
+	public void setUp() {
+		Log.disable();
+	}
+
+	@Benchmark
+	public double simulate() {
+		CloudSim.init(0, null, false);
+		for (int i = 0; i < idleEntities; i++) {
+			new IdleEntity("Idle_" + i);
+		}
+		PingEntity ping = new PingEntity("Ping", messages);
+		PingEntity pong = new PingEntity("Pong", messages);
+		ping.setPeer(pong);
+		pong.setPeer(ping);
+		return CloudSim.startSimulation();
+	}
+
+	/**
+	 * An entity that never receives events.
+	 */
+	private static class IdleEntity extends SimEntity {
+
+		public IdleEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+	/**
+	 * An entity that replies every received message to its peer, one time unit later.
+	 */
+	private static class PingEntity extends SimEntity {
+
+		private final int messages;
+
+		private PingEntity peer;
+
+		private int received;
+
+		public PingEntity(String name, int messages) {
+			super(name);
+			this.messages = messages;
+		}
+
+		public void setPeer(PingEntity peer) {
+			this.peer = peer;
+		}
+
+		@Override
+		public void startEntity() {
+			if (getId() < peer.getId()) {
+				schedule(peer.getId(), 1, TAG);
+			}
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (++received < messages) {
+				schedule(peer.getId(), 1, TAG);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(EntitySchedulingBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
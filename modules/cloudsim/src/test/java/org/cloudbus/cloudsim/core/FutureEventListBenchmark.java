@@ -0,0 +1,95 @@
+package org.cloudbus.cloudsim.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the {@link FutureEventList} implementations using the classic "hold" model:
+ * the queue is filled with a given number of events and each operation polls the first
+ * event and schedules a new one at a random delay from it, keeping the queue size constant.
+ * The delays mimic CloudSim runs, where most events are either immediate or
+ * periodic scheduling-interval events.
+ * <p>
+ * Run it through its {@link #main(String[])} method, or through <tt>org.openjdk.jmh.Main</tt>,
+ * using the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FutureEventListBenchmark {
+
+	@Param({ "TreeSet", "Heap", "CalendarQueue", "TimingWheel" })
+	public String eventList;
+
+	@Param({ "1000", "100000", "1000000" })
+	public int size;
+
+	private FutureQueue queue;
+
+	private Random random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		queue = new FutureQueue(newEventList(eventList));
+		random = new Random(0);
+		for (int i = 0; i < size; i++) {
+			queue.addEvent(newEvent(nextDelay()));
+		}
+	}
+
+	@Benchmark
+	public SimEvent hold() {
+		SimEvent first = queue.poll();
+		queue.addEvent(newEvent(first.eventTime() + nextDelay()));
+		return first;
+	}
+
+	private double nextDelay() {
+		int kind = random.nextInt(10);
+		if (kind < 4) {
+			return 0;
+		} else if (kind < 8) {
+			return 300;
+		}
+		return random.nextDouble() * 1000;
+	}
+
+	private static SimEvent newEvent(double time) {
+		return new SimEvent(SimEvent.SEND, time, 0, 0, CloudSimTags.VM_DATACENTER_EVENT, null);
+	}
+
+	private static FutureEventList newEventList(String name) {
+		if ("Heap".equals(name)) {
+			return new FutureEventListHeap();
+		} else if ("CalendarQueue".equals(name)) {
+			return new FutureEventListCalendarQueue();
+		} else if ("TimingWheel".equals(name)) {
+			return new FutureEventListTimingWheel();
+		}
+		return new FutureEventListTreeSet();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FutureEventListBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,120 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FutureEventListTest {
+
+	private static final int NUMBER_OF_OPERATIONS = 20000;
+
+	@Test
+	public void testHeap() {
+		checkAgainstTreeSet(new FutureEventListHeap());
+		checkAgainstTreeSet(new FutureEventListHeap(2));
+		checkAgainstTreeSet(new FutureEventListHeap(8));
+	}
+
+	@Test
+	public void testCalendarQueue() {
+		checkAgainstTreeSet(new FutureEventListCalendarQueue());
+		checkAgainstTreeSet(new FutureEventListCalendarQueue(0.001));
+		checkAgainstTreeSet(new FutureEventListCalendarQueue(1000));
+	}
+
+	@Test
+	public void testTimingWheel() {
+		checkAgainstTreeSet(new FutureEventListTimingWheel());
+		checkAgainstTreeSet(new FutureEventListTimingWheel(1, 8));
+		checkAgainstTreeSet(new FutureEventListTimingWheel(0.01, 100));
+	}
+
+	@Test
+	public void testAddEventFirst() {
+		FutureQueue queue = new FutureQueue(new FutureEventListHeap());
+		SimEvent normal = newEvent(1.0);
+		SimEvent first1 = newEvent(1.0);
+		SimEvent first2 = newEvent(1.0);
+		queue.addEvent(normal);
+		queue.addEventFirst(first1);
+		queue.addEventFirst(first2);
+
+		assertSame(first1, queue.poll());
+		assertSame(first2, queue.poll());
+		assertSame(normal, queue.poll());
+		assertNull(queue.poll());
+	}
+
+	/**
+	 * Runs the same random sequence of operations over the given event list and
+	 * a {@link FutureEventListTreeSet}, checking that both return the same events.
+	 */
+	private static void checkAgainstTreeSet(FutureEventList eventList) {
+		FutureQueue expected = new FutureQueue(new FutureEventListTreeSet());
+		FutureQueue actual = new FutureQueue(eventList);
+		Random random = new Random(eventList.getClass().getName().hashCode());
+		List<SimEvent[]> added = new ArrayList<SimEvent[]>();
+		Map<SimEvent, Integer> expectedIndex = new IdentityHashMap<SimEvent, Integer>();
+		Map<SimEvent, Integer> actualIndex = new IdentityHashMap<SimEvent, Integer>();
+		double clock = 0;
+
+		for (int i = 0; i < NUMBER_OF_OPERATIONS; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 5) {
+				// Events are scheduled at few distinct times so that there are many ties
+				double time = clock + random.nextInt(random.nextBoolean() ? 5 : 5000) * 0.5;
+				SimEvent expectedEvent = newEvent(time);
+				SimEvent actualEvent = newEvent(time);
+				if (operation == 0) {
+					expected.addEventFirst(expectedEvent);
+					actual.addEventFirst(actualEvent);
+				} else {
+					expected.addEvent(expectedEvent);
+					actual.addEvent(actualEvent);
+				}
+				expectedIndex.put(expectedEvent, added.size());
+				actualIndex.put(actualEvent, added.size());
+				added.add(new SimEvent[] { expectedEvent, actualEvent });
+			} else if (operation < 9) {
+				SimEvent expectedEvent = expected.poll();
+				SimEvent actualEvent = actual.poll();
+				assertEquals(expectedIndex.get(expectedEvent), actualIndex.get(actualEvent));
+				if (expectedEvent != null) {
+					clock = expectedEvent.eventTime();
+				}
+			} else if (!added.isEmpty()) {
+				SimEvent[] pair = added.get(random.nextInt(added.size()));
+				assertEquals(expected.remove(pair[0]), actual.remove(pair[1]));
+			}
+			assertEquals(expected.size(), actual.size());
+		}
+
+		int count = 0;
+		for (SimEvent event : eventList) {
+			assertTrue(actualIndex.containsKey(event));
+			count++;
+		}
+		assertEquals(expected.size(), count);
+
+		while (expected.size() > 0) {
+			assertEquals(expectedIndex.get(expected.peek()), actualIndex.get(actual.peek()));
+			assertEquals(expectedIndex.get(expected.poll()), actualIndex.get(actual.poll()));
+		}
+		assertNull(actual.poll());
+		assertEquals(0, actual.size());
+	}
+
+	private static SimEvent newEvent(double time) {
+		return new SimEvent(SimEvent.SEND, time, 0, 0, 0, null);
+	}
+
+}
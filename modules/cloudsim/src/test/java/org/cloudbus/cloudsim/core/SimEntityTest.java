@@ -0,0 +1,97 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SimEntityTest {
+
+	private static final int BATCH_TAG = 9001;
+
+	private static final int SINGLE_TAG = 9002;
+
+	@Before
+	public void setUp() {
+		Log.disable();
+		CloudSim.init(0, null, false);
+	}
+
+	@Test
+	public void testProcessEventBatch() {
+		BatchEntity receiver = new BatchEntity("Receiver");
+		new SenderEntity("Sender", receiver);
+		CloudSim.startSimulation();
+
+		// Events at time 1: 3 batched, 1 single, 2 batched; at time 2: 1 batched
+		assertEquals(Arrays.asList(3, -1, 2, 1), receiver.deliveries);
+	}
+
+	private static class SenderEntity extends SimEntity {
+
+		private final SimEntity receiver;
+
+		public SenderEntity(String name, SimEntity receiver) {
+			super(name);
+			this.receiver = receiver;
+		}
+
+		@Override
+		public void startEntity() {
+			int[] tags = { BATCH_TAG, BATCH_TAG, BATCH_TAG, SINGLE_TAG, BATCH_TAG, BATCH_TAG };
+			for (int tag : tags) {
+				schedule(receiver.getId(), 1, tag);
+			}
+			schedule(receiver.getId(), 2, BATCH_TAG);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+	private static class BatchEntity extends SimEntity {
+
+		/** The size of each batch, or -1 for the events processed one by one. */
+		private final List<Integer> deliveries = new ArrayList<Integer>();
+
+		public BatchEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		protected boolean isBatchProcessingEnabled(int tag) {
+			return tag == BATCH_TAG;
+		}
+
+		@Override
+		protected void processEventBatch(List<SimEvent> events) {
+			deliveries.add(events.size());
+		}
+
+		@Override
+		public void startEntity() {
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			deliveries.add(-1);
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+}
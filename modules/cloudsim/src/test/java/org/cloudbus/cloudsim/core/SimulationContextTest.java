@@ -0,0 +1,175 @@
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.NetworkTopology;
+import org.cloudbus.cloudsim.metrics.MetricsSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SimulationContextTest {
+
+	private static final int TAG = 9000;
+
+	@Before
+	public void setUp() {
+		Log.disable();
+	}
+
+	@After
+	public void tearDown() {
+		CloudSim.setContext(null);
+	}
+
+	@Test
+	public void testSetContext() {
+		SimulationContext defaultContext = CloudSim.getContext();
+		SimulationContext context = new SimulationContext();
+		CloudSim.setContext(context);
+		assertSame(context, CloudSim.getContext());
+		CloudSim.setContext(null);
+		assertSame(defaultContext, CloudSim.getContext());
+	}
+
+	@Test
+	public void testParallelSimulations() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<double[]> first = executor.submit(new PingSimulation(100, 1));
+			Future<double[]> second = executor.submit(new PingSimulation(200, 2));
+
+			// Both simulations start from the same entity ids and have their own topology
+			assertEquals(199, first.get()[0], 0);
+			assertEquals(399, second.get()[0], 0);
+			assertEquals(first.get()[1], second.get()[1], 0);
+			assertEquals(1, first.get()[2], 0);
+			assertEquals(2, second.get()[2], 0);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testContextsAreIndependent() {
+		SimulationContext first = new SimulationContext();
+		SimulationContext second = new SimulationContext();
+		assertNotSame(first, second);
+
+		CloudSim.setContext(first);
+		CloudSim.init(0, null, false);
+		new PingEntity("Ping", 1);
+		CloudSim.setContext(second);
+		CloudSim.init(0, null, false);
+
+		assertEquals(3, first.getNumEntities());
+		assertEquals(2, second.getNumEntities());
+	}
+
+	@Test
+	public void testMetrics() {
+		SimulationContext context = new SimulationContext();
+		CloudSim.setContext(context);
+		CloudSim.init(0, null, false);
+		PingEntity ping = new PingEntity("Ping", 100);
+		PingEntity pong = new PingEntity("Pong", 100);
+		ping.setPeer(pong);
+		pong.setPeer(ping);
+		CloudSim.getMetrics().setEnabled(true);
+		CloudSim.startSimulation();
+
+		MetricsSnapshot snapshot = context.getMetrics().snapshot();
+		assertEquals(199, snapshot.getCounters().get("simulation.events." + TAG).longValue());
+		assertEquals(199, snapshot.getGauges().get("simulation.clock"), 0);
+		assertEquals(0, snapshot.getGauges().get("simulation.futureQueue.size"), 0);
+
+		// A new simulation starts with no metrics
+		CloudSim.init(0, null, false);
+		assertNull(context.getMetrics().snapshot().getCounters().get("simulation.events." + TAG));
+	}
+
+	/**
+	 * Runs a simulation of two entities exchanging messages in its own context and returns
+	 * the simulation end time, the id of the first entity and the delay between them.
+	 */
+	private static class PingSimulation implements Callable<double[]> {
+
+		private final int messages;
+
+		private final double latency;
+
+		public PingSimulation(int messages, double latency) {
+			this.messages = messages;
+			this.latency = latency;
+		}
+
+		@Override
+		public double[] call() {
+			CloudSim.setContext(new SimulationContext());
+			try {
+				CloudSim.init(0, null, false);
+				PingEntity ping = new PingEntity("Ping", messages);
+				PingEntity pong = new PingEntity("Pong", messages);
+				ping.setPeer(pong);
+				pong.setPeer(ping);
+				NetworkTopology.addLink(ping.getId(), pong.getId(), 10, latency);
+				double delay = NetworkTopology.getDelay(ping.getId(), pong.getId());
+				double clock = CloudSim.startSimulation();
+				return new double[] { clock, ping.getId(), delay };
+			} finally {
+				CloudSim.setContext(null);
+			}
+		}
+
+	}
+
+	/**
+	 * An entity that replies every received message to its peer, one time unit later, until it received the given number of messages.
+	 */
+	private static class PingEntity extends SimEntity {
+
+		private final int messages;
+
+		private PingEntity peer;
+
+		private int received;
+
+		public PingEntity(String name, int messages) {
+			super(name);
+			this.messages = messages;
+		}
+
+		public void setPeer(PingEntity peer) {
+			this.peer = peer;
+		}
+
+		@Override
+		public void startEntity() {
+			if (getId() < peer.getId()) {
+				schedule(peer.getId(), 1, TAG);
+			}
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (++received < messages) {
+				schedule(peer.getId(), 1, TAG);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+}
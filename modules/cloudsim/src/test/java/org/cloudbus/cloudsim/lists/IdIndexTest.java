@@ -0,0 +1,66 @@
+package org.cloudbus.cloudsim.lists;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Vm;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IdIndexTest {
+
+	private List<Vm> vmList;
+
+	private IdIndex<Vm> index;
+
+	@Before
+	public void setUp() {
+		vmList = new ArrayList<Vm>();
+		index = new IdIndex<Vm>(IdIndex.VM_KEY);
+	}
+
+	@Test
+	public void testSameVmsAsGetByIdAndUserId() {
+		Random random = new Random(0);
+		for (int step = 0; step < 2000; step++) {
+			if (random.nextInt(3) > 0 || vmList.isEmpty()) {
+				// ids are reused, so that there are VMs with the same id and user id
+				vmList.add(createVm(random.nextInt(20), random.nextInt(2)));
+			} else {
+				vmList.remove(random.nextInt(vmList.size()));
+			}
+			int id = random.nextInt(20);
+			int userId = random.nextInt(2);
+			assertSame(VmList.getByIdAndUserId(vmList, id, userId), index.get(vmList, Vm.getKey(userId, id)));
+		}
+	}
+
+	@Test
+	public void testAnotherList() {
+		Vm vm = createVm(1, 0);
+		vmList.add(vm);
+		assertSame(vm, index.get(vmList, vm.getKey()));
+		assertNull(index.get(new ArrayList<Vm>(), vm.getKey()));
+		assertSame(vm, index.get(vmList, vm.getKey()));
+	}
+
+	@Test
+	public void testVmIds() {
+		IdIndex<Vm> idIndex = new IdIndex<Vm>(IdIndex.VM_ID);
+		vmList.add(createVm(1, 0));
+		vmList.add(createVm(1, 1));
+		vmList.add(createVm(2, 1));
+		assertSame(vmList.get(0), idIndex.get(vmList, 1));
+		assertSame(vmList.get(2), idIndex.get(vmList, 2));
+		assertNull(idIndex.get(vmList, 0));
+	}
+
+	private static Vm createVm(int id, int userId) {
+		return new Vm(id, userId, 0, 1, 0, 0, 0, "", null);
+	}
+
+}
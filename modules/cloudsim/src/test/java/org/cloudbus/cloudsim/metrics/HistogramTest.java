@@ -0,0 +1,64 @@
+package org.cloudbus.cloudsim.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void testBuckets() {
+		for (long value = 0; value < 100000; value++) {
+			int bucket = Histogram.getBucket(value);
+			assertTrue(value <= Histogram.getHighestValue(bucket));
+			if (bucket > 0) {
+				assertTrue(value > Histogram.getHighestValue(bucket - 1));
+			}
+		}
+		assertEquals(Long.MAX_VALUE, Histogram.getHighestValue(Histogram.getBucket(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void testSnapshot() {
+		Histogram histogram = new Histogram();
+		Histogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getValueAtPercentile(50));
+
+		for (int value = 1; value <= 100; value++) {
+			histogram.record(value);
+		}
+		histogram.record(-1);
+		snapshot = histogram.snapshot();
+		assertEquals(101, snapshot.getCount());
+		assertEquals(0, snapshot.getMin());
+		assertEquals(100, snapshot.getMax());
+		assertEquals(5050 / 101.0, snapshot.getMean(), 1e-9);
+		assertEquals(50, snapshot.getValueAtPercentile(50));
+		assertEquals(100, snapshot.getValueAtPercentile(100));
+		assertEquals(0, snapshot.getValueAtPercentile(0));
+	}
+
+	@Test
+	public void testPrecision() {
+		Histogram histogram = new Histogram();
+		Random random = new Random(0);
+		long[] values = new long[10000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (long) (Math.exp(random.nextDouble() * 30));
+			histogram.record(values[i]);
+		}
+		java.util.Arrays.sort(values);
+		Histogram.Snapshot snapshot = histogram.snapshot();
+		for (double percentile : new double[] { 10, 50, 90, 99, 99.9 }) {
+			long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+			long actual = snapshot.getValueAtPercentile(percentile);
+			assertTrue(actual >= expected);
+			assertTrue(actual - expected <= expected / 64);
+		}
+	}
+
+}
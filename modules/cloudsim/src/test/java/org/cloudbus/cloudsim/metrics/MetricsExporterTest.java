@@ -0,0 +1,66 @@
+package org.cloudbus.cloudsim.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class MetricsExporterTest {
+
+	private static MetricsRegistry createRegistry() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("events").add(3);
+		registry.gauge("queue,size").set(2.5);
+		registry.histogram("time").record(10);
+		return registry;
+	}
+
+	@Test
+	public void testCsv() throws IOException {
+		StringWriter output = new StringWriter();
+		MetricsExporter exporter = new MetricsExporter(createRegistry(), output, MetricsExporter.Format.CSV);
+		exporter.export();
+		String[] rows = output.toString().split("\n");
+		assertEquals("time,metric,type,statistic,value", rows[0]);
+		assertEquals(1 + 1 + 1 + 8, rows.length);
+		assertTrue(rows[1].endsWith(",events,counter,count,3"));
+		assertTrue(rows[2].endsWith(",\"queue,size\",gauge,value,2.5"));
+		assertTrue(rows[3].endsWith(",time,histogram,count,1"));
+		assertTrue(rows[10].endsWith(",time,histogram,p99.9,10"));
+
+		// The header is written only once
+		exporter.export();
+		assertEquals(1 + 2 * 10, output.toString().split("\n").length);
+	}
+
+	@Test
+	public void testJson() throws IOException {
+		StringWriter output = new StringWriter();
+		MetricsExporter exporter = new MetricsExporter(createRegistry(), output, MetricsExporter.Format.JSON);
+		exporter.export();
+		String json = output.toString();
+		assertTrue(json.startsWith("{\"time\":"));
+		assertTrue(json.endsWith(",\"counters\":{\"events\":3},\"gauges\":{\"queue,size\":2.5},"
+				+ "\"histograms\":{\"time\":{\"count\":1,\"mean\":10.0,\"min\":10,\"max\":10,"
+				+ "\"p50\":10,\"p90\":10,\"p99\":10,\"p99.9\":10}}}\n"));
+	}
+
+	@Test
+	public void testPeriodicExport() throws Exception {
+		StringWriter output = new StringWriter();
+		MetricsExporter exporter = new MetricsExporter(createRegistry(), output, MetricsExporter.Format.JSON);
+		exporter.start(1);
+		Thread.sleep(50);
+		exporter.close();
+		int snapshots = output.toString().split("\n").length;
+		assertTrue(snapshots >= 2);
+
+		// No snapshot is written after the exporter is closed
+		Thread.sleep(10);
+		assertEquals(snapshots, output.toString().split("\n").length);
+	}
+
+}
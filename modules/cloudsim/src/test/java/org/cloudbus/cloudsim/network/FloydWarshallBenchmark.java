@@ -0,0 +1,89 @@
+package org.cloudbus.cloudsim.network;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures {@link FloydWarshall_Float} on topologies shaped like the router-level ones
+ * generated by BRITE: the nodes are placed at random on a plane and each new node is linked
+ * to two existing nodes, with a delay proportional to their distance. The delays are computed
+ * on the current thread or on the common pool, with or without the predecessor matrix.
+ * <p>
+ * Run it through its {@link #main(String[])} method, or through <tt>org.openjdk.jmh.Main</tt>,
+ * using the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FloydWarshallBenchmark {
+
+	@Param({ "500", "1000", "2000", "5000" })
+	public int nodes;
+
+	@Param({ "false", "true" })
+	public boolean parallel;
+
+	@Param({ "false", "true" })
+	public boolean paths;
+
+	private float[] adjMatrix;
+
+	private float[] delays;
+
+	@Setup(Level.Trial)
+	public void setUpTopology() {
+		Random random = new Random(0);
+		double[] x = new double[nodes];
+		double[] y = new double[nodes];
+		adjMatrix = new float[nodes * nodes];
+		for (int i = 0; i < nodes; i++) {
+			x[i] = random.nextDouble() * 1000;
+			y[i] = random.nextDouble() * 1000;
+			for (int link = 0; link < Math.min(i, 2); link++) {
+				int j = random.nextInt(i);
+				float delay = (float) Math.hypot(x[i] - x[j], y[i] - y[j]) / 100;
+				adjMatrix[i * nodes + j] = delay;
+				adjMatrix[j * nodes + i] = delay;
+			}
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpDelays() {
+		delays = adjMatrix.clone();
+	}
+
+	@Benchmark
+	public float[] allPairsShortestPaths() {
+		FloydWarshall_Float floyd = new FloydWarshall_Float();
+		floyd.setPool(parallel ? ForkJoinPool.commonPool() : null);
+		floyd.setPathsEnabled(paths);
+		floyd.initialize(nodes);
+		return floyd.allPairsShortestPaths(delays);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FloydWarshallBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
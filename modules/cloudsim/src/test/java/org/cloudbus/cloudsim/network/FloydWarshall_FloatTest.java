@@ -0,0 +1,100 @@
+package org.cloudbus.cloudsim.network;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class FloydWarshall_FloatTest {
+
+	private static final int NODES = 50;
+
+	@Test
+	public void testAllPairsShortestPaths() {
+		float[][] adjMatrix = createAdjacencyMatrix(NODES, new Random(0));
+		float[][] expected = computeDelays(adjMatrix);
+		for (int blockSize : new int[] { 1, 7, 16, 64 }) {
+			for (ForkJoinPool pool : new ForkJoinPool[] { null, new ForkJoinPool(4) }) {
+				FloydWarshall_Float floyd = new FloydWarshall_Float();
+				floyd.setBlockSize(blockSize);
+				floyd.setPool(pool);
+				floyd.initialize(NODES);
+				float[][] delays = floyd.allPairsShortestPaths(adjMatrix);
+				for (int i = 0; i < NODES; i++) {
+					assertArrayEquals(expected[i], delays[i], 0);
+				}
+				assertNull(floyd.getPK());
+			}
+		}
+	}
+
+	@Test
+	public void testPaths() {
+		float[][] adjMatrix = createAdjacencyMatrix(NODES, new Random(1));
+		FloydWarshall_Float floyd = new FloydWarshall_Float();
+		floyd.setBlockSize(8);
+		floyd.setPathsEnabled(true);
+		floyd.initialize(NODES);
+		float[][] delays = floyd.allPairsShortestPaths(adjMatrix);
+		int[][] predecessors = floyd.getPK();
+
+		for (int i = 0; i < NODES; i++) {
+			assertEquals(-1, predecessors[i][i]);
+			for (int j = 0; j < NODES; j++) {
+				if (i != j && delays[i][j] == Float.MAX_VALUE) {
+					assertEquals(-1, predecessors[i][j]);
+				} else if (i != j) {
+					// the delay of the path from j back to i
+					float delay = 0;
+					for (int node = j; node != i; node = predecessors[i][node]) {
+						delay += adjMatrix[predecessors[i][node]][node];
+					}
+					assertEquals(delays[i][j], delay, 1e-3);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a sparse random graph with integer delays, some nodes being unreachable.
+	 */
+	private static float[][] createAdjacencyMatrix(int nodes, Random random) {
+		float[][] adjMatrix = new float[nodes][nodes];
+		for (int i = 0; i < 3 * nodes; i++) {
+			int src = random.nextInt(nodes - 5);
+			int dest = random.nextInt(nodes - 5);
+			if (src != dest) {
+				adjMatrix[src][dest] = 1 + random.nextInt(100);
+			}
+		}
+		return adjMatrix;
+	}
+
+	/**
+	 * Computes the delays by the textbook algorithm.
+	 */
+	private static float[][] computeDelays(float[][] adjMatrix) {
+		int nodes = adjMatrix.length;
+		float[][] delays = new float[nodes][nodes];
+		for (int i = 0; i < nodes; i++) {
+			for (int j = 0; j < nodes; j++) {
+				delays[i][j] = i == j ? 0 : adjMatrix[i][j] != 0 ? adjMatrix[i][j] : Float.MAX_VALUE;
+			}
+		}
+		for (int k = 0; k < nodes; k++) {
+			for (int i = 0; i < nodes; i++) {
+				for (int j = 0; j < nodes; j++) {
+					if (delays[i][k] + delays[k][j] < delays[i][j]) {
+						delays[i][j] = delays[i][k] + delays[k][j];
+					}
+				}
+			}
+		}
+		return delays;
+	}
+
+}
@@ -0,0 +1,74 @@
+package org.cloudbus.cloudsim.network.datacenter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cloudbus.cloudsim.network.datacenter.FlowNetwork.Flow;
+import org.cloudbus.cloudsim.network.datacenter.FlowNetwork.Link;
+import org.junit.Test;
+
+public class FlowNetworkTest {
+
+	@Test
+	public void testComputeRates() {
+		Link first = new Link(10);
+		Link second = new Link(4);
+		Link third = new Link(100);
+		Flow a = createFlow(first);
+		Flow b = createFlow(first, second);
+		Flow c = createFlow(second, third);
+		Flow d = createFlow(third);
+		List<Flow> flows = new ArrayList<Flow>(Arrays.asList(a, b, c, d));
+
+		// the second link is the bottleneck of b and c, which leave the rest to a and d
+		FlowNetwork.computeRates(flows);
+		assertEquals(8, a.rate, 0);
+		assertEquals(2, b.rate, 0);
+		assertEquals(2, c.rate, 0);
+		assertEquals(98, d.rate, 0);
+
+		// b finishes, so c gets all the second link
+		flows.remove(b);
+		first.flows.remove(b);
+		second.flows.remove(b);
+		FlowNetwork.computeRates(flows);
+		assertEquals(10, a.rate, 0);
+		assertEquals(4, c.rate, 0);
+		assertEquals(96, d.rate, 0);
+	}
+
+	@Test
+	public void testCompletionTime() {
+		Flow flow = new Flow(null, null, 500, 1);
+		flow.addLink(new Link(1000));
+		flow.latency = 0.5;
+		FlowNetwork.computeRates(Arrays.asList(flow));
+		assertEquals(1000, flow.rate, 0);
+		assertEquals(502.5, flow.getCompletionTime(2), 0);
+
+		flow.updateRemainingData(2, 252);
+		assertEquals(250, flow.remainingData, 0);
+		assertEquals(502.5, flow.getCompletionTime(252), 0);
+
+		// the transfer finished at 502, so the packet arrives after the latency
+		flow.updateRemainingData(252, 503);
+		assertEquals(0, flow.remainingData, 0);
+		assertEquals(502, flow.transferEndTime, 0);
+		assertEquals(502.5, flow.getCompletionTime(503), 0);
+
+		Flow stalled = new Flow(null, null, 500, 1);
+		assertEquals(Double.MAX_VALUE, stalled.getCompletionTime(2), 0);
+	}
+
+	private static Flow createFlow(Link... links) {
+		Flow flow = new Flow(null, null, 1, 0);
+		for (Link link : links) {
+			flow.addLink(link);
+		}
+		return flow;
+	}
+
+}
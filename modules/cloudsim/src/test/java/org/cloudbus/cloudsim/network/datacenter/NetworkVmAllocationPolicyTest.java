@@ -0,0 +1,92 @@
+package org.cloudbus.cloudsim.network.datacenter;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NetworkVmAllocationPolicyTest {
+
+	private static final double MIPS = 1000;
+
+	private List<NetworkHost> hostList;
+
+	private NetworkVmAllocationPolicy policy;
+
+	@Before
+	public void setUp() {
+		hostList = new ArrayList<NetworkHost>();
+		hostList.add(createHost(0, 2, 4096));
+		hostList.add(createHost(1, 4, 1024));
+		hostList.add(createHost(2, 4, 1024));
+		hostList.add(createHost(3, 1, 1024));
+		policy = new NetworkVmAllocationPolicy(hostList);
+	}
+
+	@Test
+	public void testAllocateHostWithMostFreePes() {
+		NetworkVm vm0 = createVm(0, 1, 512);
+		NetworkVm vm1 = createVm(1, 1, 512);
+		assertTrue(policy.allocateHostForVm(vm0));
+		assertSame(hostList.get(1), policy.getHost(vm0));
+		assertTrue(policy.allocateHostForVm(vm1));
+		assertSame(hostList.get(2), policy.getHost(vm1));
+		assertFalse(policy.allocateHostForVm(vm1));
+
+		policy.deallocateHostForVm(vm0);
+		assertNull(policy.getHost(vm0));
+		NetworkVm vm2 = createVm(2, 1, 256);
+		assertTrue(policy.allocateHostForVm(vm2));
+		assertSame(hostList.get(1), policy.getHost(vm2));
+	}
+
+	@Test
+	public void testAllocateHostAfterFailures() {
+		// only the host with less free PEs has enough RAM
+		NetworkVm vm0 = createVm(0, 1, 2048);
+		assertTrue(policy.allocateHostForVm(vm0));
+		assertSame(hostList.get(0), policy.getHost(vm0));
+
+		// the hosts tried are available again
+		NetworkVm vm1 = createVm(1, 1, 512);
+		assertTrue(policy.allocateHostForVm(vm1));
+		assertSame(hostList.get(1), policy.getHost(vm1));
+
+		assertFalse(policy.allocateHostForVm(createVm(2, 1, 8192)));
+	}
+
+	@Test
+	public void testAllocateGivenHost() {
+		NetworkVm vm0 = createVm(0, 4, 512);
+		assertTrue(policy.allocateHostForVm(vm0, hostList.get(1)));
+		NetworkVm vm1 = createVm(1, 1, 512);
+		assertTrue(policy.allocateHostForVm(vm1));
+		assertSame(hostList.get(2), policy.getHost(vm1));
+	}
+
+	private static NetworkHost createHost(int id, int numberOfPes, int ram) {
+		List<Pe> peList = new ArrayList<Pe>();
+		for (int i = 0; i < numberOfPes; i++) {
+			peList.add(new Pe(i, new PeProvisionerSimple(MIPS)));
+		}
+		return new NetworkHost(id, new RamProvisionerSimple(ram), new BwProvisionerSimple(10000), 100000,
+				peList, new VmSchedulerTimeShared(peList));
+	}
+
+	private static NetworkVm createVm(int id, int numberOfPes, int ram) {
+		return new NetworkVm(id, 0, MIPS, numberOfPes, ram, 100, 1000, "Xen", new CloudletSchedulerTimeShared());
+	}
+
+}
@@ -0,0 +1,59 @@
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelHostEvaluatorTest {
+
+	private ForkJoinPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void testEachHostEvaluatedOnce() {
+		for (int size : new int[] { 0, 1, ParallelHostEvaluator.GRAIN, ParallelHostEvaluator.GRAIN + 1, 1000 }) {
+			assertEvaluatedOnce(null, size);
+			assertEvaluatedOnce(pool, size);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testExceptionPropagated() {
+		ParallelHostEvaluator.evaluate(pool, 100, new ParallelHostEvaluator.Evaluation() {
+			@Override
+			public void evaluate(int index) {
+				if (index == 42) {
+					throw new IllegalStateException();
+				}
+			}
+		});
+	}
+
+	private static void assertEvaluatedOnce(ForkJoinPool pool, int size) {
+		final AtomicIntegerArray evaluations = new AtomicIntegerArray(size);
+		ParallelHostEvaluator.evaluate(pool, size, new ParallelHostEvaluator.Evaluation() {
+			@Override
+			public void evaluate(int index) {
+				evaluations.incrementAndGet(index);
+			}
+		});
+		for (int i = 0; i < size; i++) {
+			assertEquals(1, evaluations.get(i));
+		}
+	}
+
+}
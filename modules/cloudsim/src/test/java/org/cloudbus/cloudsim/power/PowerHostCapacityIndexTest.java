@@ -0,0 +1,112 @@
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.CloudletSchedulerDynamicWorkload;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.power.models.PowerModelLinear;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PowerHostCapacityIndexTest {
+
+	private static final double MIPS = 1000;
+
+	private final PowerModel powerModel = new PowerModelLinear(200, 0.3);
+
+	private List<PowerHost> hostList;
+
+	private PowerHostCapacityIndex index;
+
+	@Before
+	public void setUp() {
+		hostList = new ArrayList<PowerHost>();
+		for (int i = 0; i < 6; i++) {
+			hostList.add(createHost(i, i < 3 ? MIPS : 2 * MIPS));
+		}
+		index = new PowerHostCapacityIndex(hostList);
+	}
+
+	@Test
+	public void testIdleHostsOfEachClass() {
+		assertEquals(Arrays.asList(hostList.get(0), hostList.get(3)), getCandidateHosts(100));
+
+		Set<Host> excludedHosts = new HashSet<Host>();
+		excludedHosts.add(hostList.get(0));
+		excludedHosts.add(hostList.get(4));
+		assertEquals(Arrays.asList(hostList.get(1), hostList.get(3)),
+				index.getCandidateHosts(100, excludedHosts));
+	}
+
+	@Test
+	public void testIdleHostsWithDifferentStorage() {
+		hostList.add(createHost(6, MIPS, 500));
+		index = new PowerHostCapacityIndex(hostList);
+		assertEquals(Arrays.asList(hostList.get(0), hostList.get(3), hostList.get(6)), getCandidateHosts(100));
+	}
+
+	@Test
+	public void testActiveHostsWithEnoughMips() {
+		assertTrue(hostList.get(1).vmCreate(createVm(0, MIPS)));
+		assertTrue(hostList.get(4).vmCreate(createVm(1, MIPS / 2)));
+		index.update(hostList.get(1));
+		index.update(hostList.get(4));
+
+		// host 1 has MIPS left and host 4 has 3.5 * MIPS left
+		assertEquals(Arrays.asList(hostList.get(0), hostList.get(1), hostList.get(3), hostList.get(4)),
+				getCandidateHosts(100));
+		assertEquals(Arrays.asList(hostList.get(0), hostList.get(3), hostList.get(4)), getCandidateHosts(1.1 * MIPS));
+		assertEquals(Arrays.asList(hostList.get(0), hostList.get(3), hostList.get(4)),
+				getCandidateHosts(3.5 * MIPS));
+		assertEquals(Arrays.asList(hostList.get(0), hostList.get(3)), getCandidateHosts(3.6 * MIPS));
+
+		hostList.get(1).vmDestroyAll();
+		index.update(hostList.get(1));
+		assertEquals(Arrays.asList(hostList.get(0), hostList.get(3), hostList.get(4)), getCandidateHosts(100));
+	}
+
+	@Test
+	public void testUpdateAll() {
+		assertTrue(hostList.get(0).vmCreate(createVm(0, MIPS / 2)));
+		assertEquals(Arrays.asList(hostList.get(0), hostList.get(3)), getCandidateHosts(MIPS));
+
+		index.updateAll();
+		assertEquals(Arrays.asList(hostList.get(0), hostList.get(1), hostList.get(3)), getCandidateHosts(MIPS));
+		assertEquals(Arrays.asList(hostList.get(1), hostList.get(3)), getCandidateHosts(2 * MIPS));
+	}
+
+	private List<PowerHost> getCandidateHosts(double requestedMips) {
+		return index.getCandidateHosts(requestedMips, Collections.<Host> emptySet());
+	}
+
+	private PowerHost createHost(int id, double mips) {
+		return createHost(id, mips, 10000);
+	}
+
+	private PowerHost createHost(int id, double mips, long storage) {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerSimple(mips)));
+		peList.add(new Pe(1, new PeProvisionerSimple(mips)));
+		return new PowerHost(id, new RamProvisionerSimple(1024), new BwProvisionerSimple(10000), storage, peList,
+				new VmSchedulerTimeShared(peList), powerModel);
+	}
+
+	private static PowerVm createVm(int id, double mips) {
+		return new PowerVm(id, 0, mips, 1, 128, 100, 1000, 1, "Xen", new CloudletSchedulerDynamicWorkload(mips, 1), 300);
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.CloudletSchedulerDynamicWorkload;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.models.PowerModelLinear;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.util.MathUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PowerHostUtilizationHistoryTest {
+
+	private static final double MIPS = 1000;
+
+	private PowerHostUtilizationHistory host;
+
+	private List<PowerVm> vms;
+
+	@Before
+	public void setUp() {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerSimple(MIPS)));
+		peList.add(new Pe(1, new PeProvisionerSimple(MIPS)));
+		host = new PowerHostUtilizationHistory(0, null, null, 0, peList, null, new PowerModelLinear(200, 0.3));
+		vms = new ArrayList<PowerVm>();
+		for (int i = 0; i < 3; i++) {
+			PowerVm vm = new PowerVm(i, 0, 250 * (i + 1), 1, 128, 100, 1000, 1, "Xen",
+					new CloudletSchedulerDynamicWorkload(250 * (i + 1), 1), 300);
+			vms.add(vm);
+			host.getVmList().add(vm);
+		}
+	}
+
+	@Test
+	public void testGetUtilizationHistory() {
+		assertArrayEquals(getExpectedUtilizationHistory(), host.getUtilizationHistory(), 0);
+
+		Random random = new Random(1);
+		for (int k = 0; k < 2 * PowerVm.HISTORY_LENGTH; k++) {
+			// the VMs have histories of different lengths
+			for (int i = 0; i <= k % vms.size(); i++) {
+				vms.get(i).addUtilizationHistoryValue(0.01 + random.nextDouble());
+			}
+			double[] expected = getExpectedUtilizationHistory();
+			assertArrayEquals(expected, host.getUtilizationHistory(), 0);
+			assertEquals(expected.length, host.getUtilizationHistoryLength());
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i], host.getUtilizationHistoryView()[i], 0);
+			}
+		}
+
+		host.getVmList().remove(1);
+		assertArrayEquals(getExpectedUtilizationHistory(), host.getUtilizationHistory(), 0);
+	}
+
+	@Test
+	public void testGetUtilizationHistoryWithAddedVms() {
+		Random random = new Random(1);
+		for (int k = 0; k < PowerVm.HISTORY_LENGTH / 2; k++) {
+			for (PowerVm vm : vms) {
+				vm.addUtilizationHistoryValue(0.01 + random.nextDouble());
+			}
+		}
+		PowerVm addedVm = vms.remove(2);
+		host.getVmList().remove(addedVm);
+		double[] history = host.getUtilizationHistory(Collections.<Vm> singletonList(addedVm));
+
+		// the history is the same as with the VM created last at the host
+		host.getVmList().add(addedVm);
+		assertArrayEquals(getExpectedUtilizationHistory(), history, 0);
+	}
+
+	private double[] getExpectedUtilizationHistory() {
+		double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+		for (PowerVm vm : host.<PowerVm> getVmList()) {
+			List<Double> vmHistory = vm.getUtilizationHistory();
+			for (int i = 0; i < vmHistory.size(); i++) {
+				utilizationHistory[i] += vmHistory.get(i) * vm.getMips() / host.getTotalMips();
+			}
+		}
+		return MathUtil.trimZeroTail(utilizationHistory);
+	}
+
+}
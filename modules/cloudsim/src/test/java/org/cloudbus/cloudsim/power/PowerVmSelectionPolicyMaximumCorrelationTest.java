@@ -1,6 +1,7 @@
 package org.cloudbus.cloudsim.power;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.util.List;
 
@@ -34,4 +35,23 @@ public class PowerVmSelectionPolicyMaximumCorrelationTest {
 		}
 	}
 
+	@Test
+	public void testGetCorrelationCoefficientsGramMatrix() {
+		vmSelectionPolicyMaximumCorrelation.setGramMatrixEnabled(true);
+		List<Double> result = vmSelectionPolicyMaximumCorrelation.getCorrelationCoefficients(0, DATA);
+		assertEquals(CORRELATION.length, result.size());
+		for (int i = 0; i < result.size(); i++) {
+			assertEquals(CORRELATION[i], result.get(i), 0.00001);
+		}
+
+		// Not enough values for the Gram matrix: the regressions fail as before
+		try {
+			vmSelectionPolicyMaximumCorrelation.getCorrelationCoefficients(0, new double[][] { { 1, 2 }, { 3, 4 },
+					{ 5, 7 } });
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
 }
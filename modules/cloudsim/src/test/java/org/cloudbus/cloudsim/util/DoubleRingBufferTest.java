@@ -0,0 +1,50 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DoubleRingBufferTest {
+
+	@Test
+	public void testSameValuesAsLinkedList() {
+		DoubleRingBuffer buffer = new DoubleRingBuffer(5);
+		List<Double> expected = new LinkedList<Double>();
+		assertTrue(buffer.isEmpty());
+
+		for (int i = 1; i <= 12; i++) {
+			buffer.addFirst(i);
+			expected.add(0, (double) i);
+			if (expected.size() > 5) {
+				expected.remove(5);
+			}
+
+			assertEquals(expected.size(), buffer.size());
+			assertEquals(expected, buffer.asList());
+			double[] array = buffer.getArray();
+			for (int j = 0; j < expected.size(); j++) {
+				assertEquals(expected.get(j), buffer.get(j), 0);
+				assertEquals(expected.get(j), array[buffer.getOffset() + j], 0);
+			}
+			assertArrayEquals(MathUtil.listToArray(expected), buffer.toArray(), 0);
+		}
+		assertEquals(12, buffer.getModificationCount());
+
+		buffer.clear();
+		assertTrue(buffer.isEmpty());
+		assertEquals(0, buffer.toArray().length);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetOutOfBounds() {
+		DoubleRingBuffer buffer = new DoubleRingBuffer(5);
+		buffer.addFirst(1);
+		buffer.get(1);
+	}
+
+}
@@ -0,0 +1,27 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LoessRegressionTest {
+
+	@Test
+	public void testSameEstimatesAsMathUtil() {
+		LoessRegression regression = new LoessRegression();
+		Random random = new Random(1);
+		for (int k = 0; k < 100; k++) {
+			double[] y = new double[k % 2 == 0 ? 10 : 3 + random.nextInt(20)];
+			for (int i = 0; i < y.length; i++) {
+				y[i] = random.nextInt(5) == 0 ? 0.5 : random.nextDouble();
+			}
+			assertArrayEquals(MathUtil.getLoessParameterEstimates(y),
+					regression.getLoessParameterEstimates(y), 0);
+			assertArrayEquals(MathUtil.getRobustLoessParameterEstimates(y),
+					regression.getRobustLoessParameterEstimates(y), 0);
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Vm;
+import org.junit.Test;
+
+public class LongIntHashMapTest {
+
+	@Test
+	public void testSameEntriesAsHashMap() {
+		Random random = new Random(0);
+		LongIntHashMap map = new LongIntHashMap();
+		Map<Long, Integer> expected = new HashMap<Long, Integer>();
+		for (int step = 0; step < 20000; step++) {
+			// few distinct keys, so that keys are often found, replaced and removed
+			long key = Vm.getKey(random.nextInt(4) - 1, random.nextInt(100));
+			int value = random.nextInt();
+			switch (random.nextInt(4)) {
+				case 0:
+					assertEquals(!expected.containsKey(key), map.put(key, value));
+					expected.put(key, value);
+					break;
+				case 1:
+					assertEquals(!expected.containsKey(key), map.putIfAbsent(key, value));
+					if (!expected.containsKey(key)) {
+						expected.put(key, value);
+					}
+					break;
+				case 2:
+					assertEquals(expected.remove(key) != null, map.remove(key));
+					break;
+				default:
+					assertEquals(expected.containsKey(key), map.containsKey(key));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+			assertEquals(entry.getValue().intValue(), map.get(entry.getKey(), -1));
+		}
+	}
+
+	@Test
+	public void testClear() {
+		LongIntHashMap map = new LongIntHashMap(100);
+		for (int i = 0; i < 100; i++) {
+			map.put(i, i);
+		}
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey(1));
+		assertEquals(-1, map.get(1, -1));
+	}
+
+	@Test
+	public void testKeysOfVms() {
+		assertEquals(Vm.getKey(0, 1), new Vm(1, 0, 0, 1, 0, 0, 0, "", null).getKey());
+		assertFalse(Vm.getKey(1, 0) == Vm.getKey(0, 1));
+		assertFalse(Vm.getKey(0, -1) == Vm.getKey(-1, 0));
+		assertFalse(Vm.getKey(-1, -1) == Vm.getKey(0, -1));
+	}
+
+}
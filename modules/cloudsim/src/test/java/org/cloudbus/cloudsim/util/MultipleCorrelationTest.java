@@ -0,0 +1,79 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.junit.Test;
+
+public class MultipleCorrelationTest {
+
+	private static final double[][] DATA = { { 1, 2, 2, 4, 3, 6 }, { 14, 23, 30, 50, 39, 67 },
+			{ 4, 4, 7, 7, 10, 10 } };
+
+	private static final double[] CORRELATION = { 0.9834528493463638, 0.986553560148001, 0.732289527720739 };
+
+	@Test
+	public void testGetCoefficientsOfDetermination() {
+		assertArrayEquals(CORRELATION, new MultipleCorrelation().getCoefficientsOfDetermination(DATA, 6), 1e-9);
+	}
+
+	@Test
+	public void testNotComputable() {
+		MultipleCorrelation correlation = new MultipleCorrelation();
+		assertNull(correlation.getCoefficientsOfDetermination(new double[][] { DATA[0] }, 6));
+		assertNull(correlation.getCoefficientsOfDetermination(DATA, 3));
+		assertNull(correlation.getCoefficientsOfDetermination(new double[][] { DATA[0], DATA[0] }, 6));
+		assertNull(correlation.getCoefficientsOfDetermination(new double[][] { DATA[0], { 1, 1, 1, 1, 1, 1 } }, 6));
+	}
+
+	@Test
+	public void testSlidingWindow() {
+		Random random = new Random(0);
+		int n = 5;
+		int length = 30;
+		double[][] history = new double[n][length + 100];
+		for (int i = 0; i < n; i++) {
+			for (int t = 0; t < history[i].length; t++) {
+				history[i][t] = random.nextDouble();
+			}
+		}
+
+		MultipleCorrelation correlation = new MultipleCorrelation();
+		MultipleCorrelation reduced = new MultipleCorrelation();
+		for (int start = 100; start >= 0; start -= 1 + random.nextInt(3)) {
+			double[][] data = new double[n][length];
+			for (int i = 0; i < n; i++) {
+				System.arraycopy(history[i], start, data[i], 0, length);
+			}
+			assertArrayEquals(getCoefficientsOfDetermination(data),
+					correlation.getCoefficientsOfDetermination(data, length), 1e-9);
+
+			// The same window without some series
+			reduced.getCoefficientsOfDetermination(data, length);
+			double[][] retained = { data[0], data[2], data[3] };
+			assertArrayEquals(getCoefficientsOfDetermination(retained),
+					reduced.getCoefficientsOfDetermination(retained, length), 1e-9);
+		}
+	}
+
+	private static double[] getCoefficientsOfDetermination(double[][] data) {
+		int n = data.length;
+		double[] coefficients = new double[n];
+		for (int i = 0; i < n; i++) {
+			double[][] x = new double[n - 1][];
+			int k = 0;
+			for (int j = 0; j < n; j++) {
+				if (j != i) {
+					x[k++] = data[j];
+				}
+			}
+			coefficients[i] = MathUtil.createLinearRegression(new Array2DRowRealMatrix(x).transpose().getData(),
+					data[i]).calculateRSquared();
+		}
+		return coefficients;
+	}
+
+}
@@ -0,0 +1,91 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PlanetLabTraceStoreTest {
+
+	public static final double SCHEDULING_INTERVAL = 300;
+
+	public static final String FILE = "146-179_surfsnel_dsl_internl_net_colostate_557.dat";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String tracePath;
+
+	private String storePath;
+
+	private PlanetLabTraceStore store;
+
+	@Before
+	public void setUp() throws Exception {
+		File input = folder.newFolder("traces");
+		File trace = new File(getClass().getClassLoader().getResource(FILE).getPath());
+		Files.copy(trace.toPath(), new File(input, FILE).toPath());
+		tracePath = trace.getPath();
+
+		storePath = new File(folder.getRoot(), "traces.bin").getPath();
+		PlanetLabTraceStore.convert(input.getPath(), storePath, 289);
+		store = PlanetLabTraceStore.open(storePath);
+		assertSame(store, PlanetLabTraceStore.open(storePath));
+	}
+
+	@Test
+	public void testConvert() throws Exception {
+		assertEquals(1, store.getTraceCount());
+		assertEquals(289, store.getDataSamples());
+		assertEquals(FILE, store.getTraceName(0));
+		assertEquals(0, store.getTraceIndex(FILE));
+		assertEquals(-1, store.getTraceIndex("missing"));
+		assertArrayEquals(UtilizationModelPlanetLabInMemory.readData(tracePath, 289), store.getData(0), 0);
+	}
+
+	@Test
+	public void testConvertOpenStore() throws Exception {
+		File input = folder.newFolder("other");
+		Files.write(new File(input, "a").toPath(), "10\n20\n".getBytes());
+		Files.write(new File(input, "b").toPath(), "30\n40\n".getBytes());
+		PlanetLabTraceStore.convert(input.getPath(), storePath, 3);
+
+		// the store already open keeps its traces
+		assertEquals(1, store.getTraceCount());
+		assertArrayEquals(UtilizationModelPlanetLabInMemory.readData(tracePath, 289), store.getData(0), 0);
+
+		PlanetLabTraceStore converted = PlanetLabTraceStore.open(storePath);
+		assertNotSame(store, converted);
+		assertEquals(2, converted.getTraceCount());
+		assertEquals(3, converted.getDataSamples());
+		assertArrayEquals(new double[] { 0.3, 0.4, 0.4 }, converted.getData(converted.getTraceIndex("b")), 0);
+		// no temporary file is left besides the two trace folders and the store file
+		assertEquals(3, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void testGetUtilization() throws Exception {
+		UtilizationModelPlanetLabInMemory fromFile = new UtilizationModelPlanetLabInMemory(
+				tracePath,
+				SCHEDULING_INTERVAL);
+		UtilizationModelPlanetLabInMemory fromStore = new UtilizationModelPlanetLabInMemory(
+				store,
+				0,
+				SCHEDULING_INTERVAL);
+		for (double time = 0; time <= 288 * SCHEDULING_INTERVAL; time += 0.7 * SCHEDULING_INTERVAL) {
+			assertEquals(fromFile.getUtilization(time), fromStore.getUtilization(time), 0);
+		}
+		assertEquals(0.24, fromStore.getUtilization(0), 0);
+		assertEquals(0.51, fromStore.getUtilization(287 * SCHEDULING_INTERVAL), 0);
+	}
+
+}
@@ -0,0 +1,58 @@
+package org.cloudbus.cloudsim.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SlidingWindowStatisticsTest {
+
+	private static final int CAPACITY = 30;
+
+	@Test
+	public void testSameStatisticsAsMathUtil() {
+		SlidingWindowStatistics statistics = new SlidingWindowStatistics(CAPACITY);
+		Random random = new Random(1);
+		double[] history = new double[CAPACITY];
+		int length = 0;
+		for (int k = 0; k < 500; k++) {
+			if (k % 97 == 96) {
+				// the history changes completely, as when VMs migrate
+				length = random.nextInt(CAPACITY + 1);
+				for (int i = 0; i < length; i++) {
+					history[i] = random.nextDouble();
+				}
+			} else {
+				// the history gets a new value; a few values repeat
+				System.arraycopy(history, 0, history, 1, CAPACITY - 1);
+				history[0] = random.nextInt(4) == 0 ? 0.5 : Math.round(random.nextDouble() * 100) / 100.0;
+				length = Math.min(length + 1, CAPACITY);
+			}
+			double[] window = new double[length];
+			System.arraycopy(history, 0, window, 0, length);
+
+			statistics.update(history, length);
+			assertEquals(length, statistics.size());
+			if (length > 0) {
+				assertEquals(MathUtil.median(window), statistics.getMedian(), 0);
+			}
+			assertEquals(MathUtil.mad(window.clone()), statistics.getMad(), 0);
+			if (length >= 3) {
+				assertEquals(MathUtil.iqr(window.clone()), statistics.getIqr(), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testShrinkingWindow() {
+		SlidingWindowStatistics statistics = new SlidingWindowStatistics(CAPACITY);
+		statistics.update(new double[] { 0.3, 0.1, 0.2, 0.4 }, 4);
+		// a new value, and the two oldest values leave the window
+		statistics.update(new double[] { 0.5, 0.3, 0.1 }, 3);
+		assertEquals(3, statistics.size());
+		assertEquals(0.3, statistics.getMedian(), 0);
+		assertEquals(MathUtil.mad(new double[] { 0.5, 0.3, 0.1 }), statistics.getMad(), 0);
+	}
+
+}
@@ -1,10 +1,12 @@
 package org.cloudbus.cloudsim.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Cloudlet;
@@ -47,4 +49,29 @@ public class WorkloadFileReaderTest {
 	    assertTrue(cloudlet.getCloudletLength() > 0);
 	}
     }
+
+    @Test
+    public void stream() throws IOException {
+
+	WorkloadFileReader r = new WorkloadFileReader("src"
+		+ File.separator
+		+ "test"
+		+ File.separator
+		+ "LCG.swf.gz", 1);
+	List<Cloudlet> cloudletlist = r.generateWorkload();
+	WorkloadStream stream = r.openStream(100);
+
+	double submitTime = 0;
+	for (Cloudlet expected : cloudletlist) {
+	    assertTrue(stream.hasNext());
+	    assertTrue(stream.getNextSubmitTime() >= submitTime);
+	    submitTime = stream.getNextSubmitTime();
+	    Cloudlet cloudlet = stream.next();
+	    assertEquals(expected.getCloudletId(), cloudlet.getCloudletId());
+	    assertEquals(expected.getCloudletLength(), cloudlet.getCloudletLength());
+	    assertEquals(expected.getNumberOfPes(), cloudlet.getNumberOfPes());
+	}
+	assertFalse(stream.hasNext());
+	stream.close();
+    }
 }